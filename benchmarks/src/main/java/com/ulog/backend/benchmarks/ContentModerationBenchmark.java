@@ -0,0 +1,68 @@
+package com.ulog.backend.benchmarks;
+
+import com.ulog.backend.compliance.dto.ModerationResult;
+import com.ulog.backend.compliance.service.AuditLogWriter;
+import com.ulog.backend.compliance.service.ContentModerationService;
+import com.ulog.backend.compliance.service.SensitiveWordDictionary;
+import com.ulog.backend.config.AuditLogProperties;
+import com.ulog.backend.config.ContentModerationProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地敏感词库审核：每次AI输入输出都会经过，耗时随文本长度和词库大小增长
+ * 审核日志经 AuditLogWriter 入队，批量写库由空实现代替，测量扫描加入队开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContentModerationBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int length;
+
+    private AuditLogWriter auditLogWriter;
+    private ContentModerationService service;
+    private String content;
+
+    @Setup
+    public void setUp() {
+        ContentModerationProperties properties = new ContentModerationProperties();
+        properties.setEnabled(true);
+        properties.setProvider("local");
+        auditLogWriter = new AuditLogWriter(new AuditLogProperties(), Fixtures.noopJdbcTemplate());
+        auditLogWriter.start();
+        service = new ContentModerationService(properties, auditLogWriter, new SensitiveWordDictionary(properties));
+        content = Fixtures.chineseText(length);
+    }
+
+    @TearDown
+    public void tearDown() {
+        auditLogWriter.shutdown();
+    }
+
+    @Benchmark
+    public ModerationResult moderateContent() {
+        return service.moderateContent(1L, "ai_output", content);
+    }
+
+    @Benchmark
+    public String filterSensitiveWords() {
+        return service.filterSensitiveWords(content);
+    }
+}
@@ -0,0 +1,63 @@
+package com.ulog.backend.benchmarks;
+
+import com.ulog.backend.conversation.dto.QaHistoryEntry;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基准测试用的固定数据，内容接近线上真实的中文对话
+ */
+final class Fixtures {
+
+    private static final String SENTENCE = "他是我大学时的室友，现在在上海做产品经理，平时喜欢跑步和摄影，周末经常约朋友一起爬山。";
+
+    private Fixtures() {
+    }
+
+    static String chineseText(int length) {
+        StringBuilder sb = new StringBuilder(length + SENTENCE.length());
+        while (sb.length() < length) {
+            sb.append(SENTENCE);
+        }
+        return sb.substring(0, length);
+    }
+
+    static List<QaHistoryEntry> qaHistory(int entries) {
+        List<QaHistoryEntry> history = new ArrayList<>(entries);
+        for (int i = 0; i < entries; i++) {
+            history.add(new QaHistoryEntry("第" + i + "个问题：" + chineseText(40), chineseText(300)));
+        }
+        return history;
+    }
+
+    static Map<String, Object> collectedData(int dimensions) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        for (int i = 0; i < dimensions; i++) {
+            Map<String, Object> answer = new LinkedHashMap<>();
+            answer.put("question", "维度" + i + "的问题");
+            answer.put("answer", chineseText(60));
+            answer.put("confidence", 0.8);
+            data.put("dimension_" + i, answer);
+        }
+        return data;
+    }
+
+    /**
+     * 批量更新不访问数据库的JdbcTemplate，避免基准里引入数据库
+     */
+    static JdbcTemplate noopJdbcTemplate() {
+        return new JdbcTemplate() {
+            @Override
+            public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                           ParameterizedPreparedStatementSetter<T> pss) {
+                return new int[0][];
+            }
+        };
+    }
+}
@@ -0,0 +1,60 @@
+package com.ulog.backend.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 信息收集会话 collected_data 的JSON往返：
+ * InfoCollectionServiceImpl 每轮对话都要解析整段JSON、写入新字段、再序列化回会话
+ * （parseCollectedData / toJson 为私有方法，这里按相同的类型和步骤复现）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InfoCollectionBenchmark {
+
+    private static final TypeReference<Map<String, Object>> DATA_TYPE = new TypeReference<>() {};
+
+    @Param({"10", "50"})
+    private int dimensions;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private String collectedDataJson;
+    private String newAnswer;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        collectedDataJson = objectMapper.writeValueAsString(Fixtures.collectedData(dimensions));
+        newAnswer = Fixtures.chineseText(60);
+    }
+
+    @Benchmark
+    public Map<String, Object> parse() throws JsonProcessingException {
+        return objectMapper.readValue(collectedDataJson, DATA_TYPE);
+    }
+
+    @Benchmark
+    public String roundTrip() throws JsonProcessingException {
+        Map<String, Object> data = objectMapper.readValue(collectedDataJson, DATA_TYPE);
+        data.put("latest_answer", newAnswer);
+        return objectMapper.writeValueAsString(data);
+    }
+}
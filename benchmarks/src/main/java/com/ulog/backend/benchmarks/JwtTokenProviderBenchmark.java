@@ -0,0 +1,58 @@
+package com.ulog.backend.benchmarks;
+
+import com.ulog.backend.config.JwtProperties;
+import com.ulog.backend.config.SecurityCacheProperties;
+import com.ulog.backend.security.JwtTokenProvider;
+import com.ulog.backend.security.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT解析验签：parseClaims 为每次完整验签，verifyCached 为认证过滤器使用的带缓存路径
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtTokenProviderBenchmark {
+
+    private JwtTokenProvider tokenProvider;
+    private String accessToken;
+
+    @Setup
+    public void setUp() {
+        JwtProperties properties = new JwtProperties();
+        properties.setSecret("benchmark-secret-benchmark-secret-benchmark-secret");
+        properties.setAccessTokenValidityMinutes(60);
+        properties.setRefreshTokenValidityDays(7);
+        tokenProvider = new JwtTokenProvider(properties, new SecurityCacheProperties());
+        accessToken = tokenProvider.generateAccessToken(42L);
+    }
+
+    @Benchmark
+    public Jws<Claims> parseClaims() {
+        return tokenProvider.parseClaims(accessToken);
+    }
+
+    /**
+     * 过滤器实际走的路径：同一token的验签结果已缓存
+     */
+    @Benchmark
+    public VerifiedToken verifyCached() {
+        return tokenProvider.verify(accessToken);
+    }
+}
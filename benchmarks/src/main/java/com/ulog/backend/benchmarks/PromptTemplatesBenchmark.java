@@ -0,0 +1,56 @@
+package com.ulog.backend.benchmarks;
+
+import com.ulog.backend.conversation.util.PromptTemplates;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 提示词模板拼装：信息收集每轮、问答每次请求都会调用
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromptTemplatesBenchmark {
+
+    private Map<String, Object> collectedData;
+    private String description;
+    private String qaHistory;
+
+    @Setup
+    public void setUp() {
+        collectedData = Fixtures.collectedData(20);
+        description = Fixtures.chineseText(800);
+        qaHistory = Fixtures.chineseText(2000);
+    }
+
+    @Benchmark
+    public String intelligentExtractionPrompt() {
+        return PromptTemplates.buildIntelligentExtractionPrompt(
+            "他平时有什么爱好？", "兴趣爱好", collectedData, "你们是怎么认识的？");
+    }
+
+    @Benchmark
+    public String qaSystemPrompt() {
+        return PromptTemplates.buildQaSystemPrompt("张三", description, collectedData);
+    }
+
+    @Benchmark
+    public String enhancedContactQaPrompt() {
+        return PromptTemplates.buildEnhancedContactQaPrompt(
+            "他最近工作压力大吗？", description, "{}", description, "{}", qaHistory);
+    }
+}
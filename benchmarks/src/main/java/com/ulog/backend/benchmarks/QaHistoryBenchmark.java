@@ -0,0 +1,81 @@
+package com.ulog.backend.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ulog.backend.ai.dto.ChatMessage;
+import com.ulog.backend.config.QaContextProperties;
+import com.ulog.backend.conversation.dto.QaHistoryEntry;
+import com.ulog.backend.conversation.service.QaContextBuilder;
+import com.ulog.backend.conversation.service.QaHistoryServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * QA历史处理：
+ * legacyJsonAppend 是历史改为按行存储之前的做法（整段JSON解析、追加、再序列化），作为对照基线；
+ * 其余为当前每次问答都会执行的提示词格式化和上下文窗口构建
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QaHistoryBenchmark {
+
+    private static final TypeReference<List<QaHistoryEntry>> HISTORY_TYPE = new TypeReference<>() {};
+
+    @Param({"10", "100", "1000"})
+    private int entries;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private List<QaHistoryEntry> history;
+    private String historyJson;
+    private QaHistoryEntry newEntry;
+    private QaHistoryServiceImpl historyService;
+    private QaContextBuilder contextBuilder;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        history = Fixtures.qaHistory(entries);
+        historyJson = objectMapper.writeValueAsString(history);
+        newEntry = new QaHistoryEntry("新的问题：" + Fixtures.chineseText(40), Fixtures.chineseText(300));
+        // formatQaHistoryForPrompt 不访问仓库
+        historyService = new QaHistoryServiceImpl(null, null, null);
+
+        QaContextProperties properties = new QaContextProperties();
+        // 关闭摘要刷新，只测量窗口构建
+        properties.setSummaryEnabled(false);
+        contextBuilder = new QaContextBuilder(properties, null);
+    }
+
+    @Benchmark
+    public String legacyJsonAppend() throws JsonProcessingException {
+        List<QaHistoryEntry> parsed = objectMapper.readValue(historyJson, HISTORY_TYPE);
+        parsed.add(newEntry);
+        return objectMapper.writeValueAsString(parsed);
+    }
+
+    @Benchmark
+    public String formatForPrompt() {
+        return historyService.formatQaHistoryForPrompt(history);
+    }
+
+    @Benchmark
+    public List<ChatMessage> buildHistoryMessages() {
+        return contextBuilder.buildHistoryMessages("CONTACT", "bench-session", history, null, 0);
+    }
+}
@@ -0,0 +1,60 @@
+package com.ulog.backend.benchmarks;
+
+import com.ulog.backend.common.store.InMemoryRateLimitStore;
+import com.ulog.backend.util.RateLimiterService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 限流检查在多线程下的吞吐：
+ * sameKey 所有线程争用同一个key（同一用户的突发请求），distinctKeys 每个线程一个key（不同用户）
+ * 上限取极大值，保证不会触发限流，只测量状态更新的争用
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class RateLimiterServiceBenchmark {
+
+    private static final Duration WINDOW = Duration.ofSeconds(1);
+
+    private RateLimiterService rateLimiterService;
+
+    @Setup
+    public void setUp() {
+        rateLimiterService = new RateLimiterService(new InMemoryRateLimitStore(16, 10000));
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadKey {
+        private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+        private final String key = "user:" + SEQUENCE.incrementAndGet();
+    }
+
+    @Benchmark
+    public void sameKey() {
+        rateLimiterService.checkRate("user:shared", Integer.MAX_VALUE, WINDOW);
+    }
+
+    @Benchmark
+    public void distinctKeys(ThreadKey threadKey) {
+        rateLimiterService.checkRate(threadKey.key, Integer.MAX_VALUE, WINDOW);
+    }
+}
@@ -0,0 +1,262 @@
+package com.ulog.backend.ai;
+
+import com.ulog.backend.common.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * 自适应并发限制器（AIMD）
+ * 成功且上限已用满时并发上限缓慢加一，遇到429/503或超时时按比例下调；
+ * 不用总延迟作为拥塞信号：生成长度差别很大，长回复的延迟会把上限一路压低
+ * 超出上限的请求进入有界等待队列，排队超时或队列已满时抛出 ServiceBusyException
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    /**
+     * 一次调用的结果，决定并发上限如何调整
+     */
+    public enum Outcome {
+        SUCCESS,
+        DROPPED,
+        IGNORED
+    }
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final Duration maxQueueWait;
+    private final double backoffRatio;
+
+    private double limit;
+    private int inFlight;
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+
+    private final AtomicLong acquiredCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong queueWaitTotalMs = new AtomicLong();
+    private final AtomicLong queueWaitMaxMs = new AtomicLong();
+    private final AtomicLong rejectedTotal = new AtomicLong();
+    private volatile Timer queueWaitTimer;
+
+    public AdaptiveConcurrencyLimiter(
+            String name,
+            int initialLimit,
+            int minLimit,
+            int maxLimit,
+            int maxQueue,
+            Duration maxQueueWait,
+            double backoffRatio) {
+        this.name = name;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.maxQueue = maxQueue;
+        this.maxQueueWait = maxQueueWait;
+        this.backoffRatio = backoffRatio;
+    }
+
+    /**
+     * 在并发许可内执行单次调用
+     */
+    public <T> Mono<T> run(Supplier<Mono<T>> call) {
+        return Mono.usingWhen(
+            acquire(),
+            permit -> call.get(),
+            permit -> Mono.fromRunnable(() -> permit.release(Outcome.SUCCESS)),
+            (permit, error) -> Mono.fromRunnable(() -> permit.release(classify(error))),
+            permit -> Mono.fromRunnable(() -> permit.release(Outcome.IGNORED)));
+    }
+
+    /**
+     * 在并发许可内执行流式调用，许可在流结束时释放
+     */
+    public <T> Flux<T> runMany(Supplier<Flux<T>> call) {
+        return Flux.usingWhen(
+            acquire(),
+            permit -> call.get(),
+            permit -> Mono.fromRunnable(() -> permit.release(Outcome.SUCCESS)),
+            (permit, error) -> Mono.fromRunnable(() -> permit.release(classify(error))),
+            permit -> Mono.fromRunnable(() -> permit.release(Outcome.IGNORED)));
+    }
+
+    private Mono<Permit> acquire() {
+        Mono<Permit> permit = Mono.create(sink -> {
+            Waiter waiter = new Waiter(sink);
+            boolean granted = false;
+            synchronized (this) {
+                if (waiters.isEmpty() && inFlight < (int) limit) {
+                    inFlight++;
+                    granted = true;
+                } else if (waiters.size() >= maxQueue) {
+                    rejectedCount.incrementAndGet();
+                    rejectedTotal.incrementAndGet();
+                    sink.error(new ServiceBusyException("AI服务繁忙，请稍后重试"));
+                    return;
+                } else {
+                    waiters.addLast(waiter);
+                }
+            }
+            sink.onCancel(() -> cancel(waiter));
+            if (granted) {
+                grant(waiter);
+            }
+        });
+        return permit.timeout(maxQueueWait, Mono.error(() -> {
+            rejectedCount.incrementAndGet();
+            rejectedTotal.incrementAndGet();
+            return new ServiceBusyException("AI服务繁忙，请稍后重试");
+        }));
+    }
+
+    private void grant(Waiter waiter) {
+        long waitedNanos = System.nanoTime() - waiter.enqueuedAt;
+        long waitedMs = waitedNanos / 1_000_000;
+        Timer timer = queueWaitTimer;
+        if (timer != null) {
+            timer.record(waitedNanos, TimeUnit.NANOSECONDS);
+        }
+        acquiredCount.incrementAndGet();
+        queueWaitTotalMs.addAndGet(waitedMs);
+        queueWaitMaxMs.accumulateAndGet(waitedMs, Math::max);
+
+        Permit permit = new Permit();
+        waiter.permit = permit;
+        waiter.sink.success(permit);
+        // 订阅方在发放许可前已取消，许可没有被使用，立即归还
+        if (waiter.cancelled.get()) {
+            permit.release(Outcome.IGNORED);
+        }
+    }
+
+    private void cancel(Waiter waiter) {
+        waiter.cancelled.set(true);
+        boolean removed;
+        synchronized (this) {
+            removed = waiters.remove(waiter);
+        }
+        if (!removed && waiter.permit != null) {
+            waiter.permit.release(Outcome.IGNORED);
+        }
+    }
+
+    private void onRelease(Outcome outcome) {
+        List<Waiter> toGrant = new ArrayList<>();
+        synchronized (this) {
+            inFlight--;
+            adjustLimit(outcome);
+            while (inFlight < (int) limit && !waiters.isEmpty()) {
+                inFlight++;
+                toGrant.add(waiters.pollFirst());
+            }
+        }
+        toGrant.forEach(this::grant);
+    }
+
+    private void adjustLimit(Outcome outcome) {
+        if (outcome == Outcome.DROPPED) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (outcome == Outcome.SUCCESS && inFlight + 1 >= (int) limit) {
+            // 只有上限确实被用满时才加性增长，避免空闲时上限无限变大
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    private Outcome classify(Throwable error) {
+        return DeepseekErrors.isOverload(error) ? Outcome.DROPPED : Outcome.IGNORED;
+    }
+
+    /**
+     * 获取当前状态并重置排队时间统计
+     */
+    public synchronized Stats snapshotAndReset() {
+        long acquired = acquiredCount.getAndSet(0);
+        long waitTotal = queueWaitTotalMs.getAndSet(0);
+        return new Stats(
+            name,
+            (int) limit,
+            inFlight,
+            waiters.size(),
+            acquired,
+            rejectedCount.getAndSet(0),
+            acquired == 0 ? 0 : waitTotal / acquired,
+            queueWaitMaxMs.getAndSet(0));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueued() {
+        return waiters.size();
+    }
+
+    /**
+     * 每次发放许可时记录排队等待时间（包括未排队、等待为0的调用）
+     */
+    public void setQueueWaitTimer(Timer queueWaitTimer) {
+        this.queueWaitTimer = queueWaitTimer;
+    }
+
+    /**
+     * 累计拒绝次数（不随 snapshotAndReset 清零，用于监控计数器）
+     */
+    public long getRejectedTotal() {
+        return rejectedTotal.get();
+    }
+
+    /**
+     * 限制器状态快照
+     */
+    public record Stats(
+        String name,
+        int limit,
+        int inFlight,
+        int queued,
+        long acquired,
+        long rejected,
+        long avgQueueWaitMs,
+        long maxQueueWaitMs
+    ) {
+    }
+
+    private final class Permit {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void release(Outcome outcome) {
+            if (released.compareAndSet(false, true)) {
+                onRelease(outcome);
+            }
+        }
+    }
+
+    private static final class Waiter {
+        private final MonoSink<Permit> sink;
+        private final long enqueuedAt = System.nanoTime();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private volatile Permit permit;
+
+        Waiter(MonoSink<Permit> sink) {
+            this.sink = sink;
+        }
+    }
+}
@@ -31,7 +31,8 @@ public class AiSummaryServiceImpl implements AiSummaryService {
         }
         try {
             Duration timeout = Duration.ofMillis(Math.max(1000, properties.getTimeoutMs()));
-            return deepseekService.ask(SYSTEM_PROMPT, "根据以下描述生成要点：\n" + description)
+            return deepseekService.askCached(SYSTEM_PROMPT, "根据以下描述生成要点：\n" + description,
+                    DeepseekTrafficClass.INTERACTIVE, DeepseekCaller.AI_SUMMARY)
                 .timeout(timeout)
                 .blockOptional(timeout)
                 .orElse("");
@@ -0,0 +1,16 @@
+package com.ulog.backend.ai;
+
+/**
+ * 联系人综合分析的响应无法解析或缺少必需字段
+ * 与调用失败区分开：调用方遇到此异常时回退为逐项调用，而不是整体重试
+ */
+public class ContactEnrichmentParseException extends RuntimeException {
+
+    public ContactEnrichmentParseException(String message) {
+        super(message);
+    }
+
+    public ContactEnrichmentParseException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
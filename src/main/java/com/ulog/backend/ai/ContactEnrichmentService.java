@@ -0,0 +1,18 @@
+package com.ulog.backend.ai;
+
+import com.ulog.backend.ai.dto.ContactEnrichment;
+import reactor.core.publisher.Mono;
+
+/**
+ * 联系人综合分析服务接口
+ * 一次LLM调用同时生成 self value、要点摘要、交往建议和关系分析，避免同一份描述被多次发送
+ */
+public interface ContactEnrichmentService {
+
+    /**
+     * 生成联系人综合分析
+     * @param contactId 联系人ID
+     * @return 分析结果；联系人不存在或没有描述时为空；响应无法解析时以 ContactEnrichmentParseException 结束
+     */
+    Mono<ContactEnrichment> generateContactEnrichment(Long contactId);
+}
@@ -0,0 +1,187 @@
+package com.ulog.backend.ai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ulog.backend.ai.dto.ChatCompletionRequest;
+import com.ulog.backend.ai.dto.ChatCompletionResponse;
+import com.ulog.backend.ai.dto.ChatMessage;
+import com.ulog.backend.ai.dto.ContactEnrichment;
+import com.ulog.backend.config.DeepseekProperties;
+import com.ulog.backend.conversation.util.PromptTemplates;
+import com.ulog.backend.domain.contact.Contact;
+import com.ulog.backend.domain.user.User;
+import com.ulog.backend.repository.ContactRepository;
+import com.ulog.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 联系人综合分析服务实现类
+ * 调用失败直接抛出（由任务队列重试）；响应不是合法JSON或缺少字段时抛出 ContactEnrichmentParseException
+ */
+@Service
+public class ContactEnrichmentServiceImpl implements ContactEnrichmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(ContactEnrichmentServiceImpl.class);
+
+    private final DeepseekClient deepseekClient;
+    private final DeepseekProperties deepseekProperties;
+    private final ContactRepository contactRepository;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+
+    public ContactEnrichmentServiceImpl(
+            DeepseekClient deepseekClient,
+            DeepseekProperties deepseekProperties,
+            ContactRepository contactRepository,
+            UserRepository userRepository,
+            ObjectMapper objectMapper
+    ) {
+        this.deepseekClient = deepseekClient;
+        this.deepseekProperties = deepseekProperties;
+        this.contactRepository = contactRepository;
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Mono<ContactEnrichment> generateContactEnrichment(Long contactId) {
+        log.info("Starting contact enrichment for contact {}", contactId);
+
+        return Mono.fromCallable(() -> loadContext(contactId))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(context -> {
+                if (context.contactDescription == null) {
+                    return Mono.<ContactEnrichment>empty();
+                }
+                String prompt = PromptTemplates.buildContactEnrichmentPrompt(
+                    context.contactDescription, context.userDescription, context.userSelfValue);
+                boolean withAnalysis = context.userDescription != null && !context.userDescription.trim().isEmpty();
+                return callDeepseek(prompt, withAnalysis).map(content -> parse(content, withAnalysis));
+            })
+            .timeout(Duration.ofSeconds(240))
+            .doOnSuccess(result -> {
+                if (result != null) {
+                    log.info("Successfully generated contact enrichment for contact {}", contactId);
+                }
+            })
+            .doOnError(error -> log.error("Failed to generate contact enrichment for contact {}: {}",
+                contactId, error.getMessage()));
+    }
+
+    private EnrichmentContext loadContext(Long contactId) {
+        Contact contact = contactRepository.findById(contactId).orElse(null);
+        if (contact == null) {
+            log.warn("Contact {} not found, skipping contact enrichment", contactId);
+            return EnrichmentContext.EMPTY;
+        }
+        if (contact.getDescription() == null || contact.getDescription().trim().isEmpty()) {
+            log.info("Contact {} has no description, skipping contact enrichment", contactId);
+            return EnrichmentContext.EMPTY;
+        }
+        User user = userRepository.findById(contact.getOwner().getId()).orElse(null);
+        return new EnrichmentContext(contact.getDescription(),
+            user != null ? user.getDescription() : null,
+            user != null ? user.getSelfValue() : null);
+    }
+
+    private Mono<String> callDeepseek(String prompt, boolean withAnalysis) {
+        ChatCompletionRequest request = new ChatCompletionRequest();
+        request.setModel(deepseekProperties.getReasonerModel());
+        request.setMessages(List.of(
+            new ChatMessage("system", "你是一个专业的关系分析助手。"),
+            new ChatMessage("user", prompt)
+        ));
+        request.setTrafficClass(DeepseekTrafficClass.BACKGROUND);
+        request.setCaller(DeepseekCaller.CONTACT_ENRICHMENT);
+
+        // 结果只由双方描述和用户自我价值决定，重复触发时直接复用缓存；
+        // 解析不了的回复不缓存，否则任务重试和降级后的再次触发会一直拿到同一个坏结果
+        return deepseekClient.chatCached(request, response -> isParseable(response, withAnalysis))
+            .map(response -> {
+                String content = contentOf(response);
+                if (content == null) {
+                    throw new IllegalStateException("Empty response from Deepseek");
+                }
+                return content;
+            });
+    }
+
+    private boolean isParseable(ChatCompletionResponse response, boolean withAnalysis) {
+        String content = contentOf(response);
+        if (content == null) {
+            return false;
+        }
+        try {
+            parse(content, withAnalysis);
+            return true;
+        } catch (ContactEnrichmentParseException e) {
+            return false;
+        }
+    }
+
+    private String contentOf(ChatCompletionResponse response) {
+        if (response.getChoices() == null || response.getChoices().isEmpty()
+                || response.getChoices().get(0).getMessage() == null
+                || response.getChoices().get(0).getMessage().getContent() == null) {
+            return null;
+        }
+        return response.getChoices().get(0).getMessage().getContent().trim();
+    }
+
+    private ContactEnrichment parse(String content, boolean withAnalysis) {
+        ContactEnrichment enrichment;
+        try {
+            enrichment = objectMapper.readValue(extractJson(content), ContactEnrichment.class);
+        } catch (Exception e) {
+            log.debug("Contact enrichment response content: {}", content);
+            throw new ContactEnrichmentParseException("Invalid contact enrichment JSON: " + e.getMessage(), e);
+        }
+        if (enrichment.getSelfValue() == null || !enrichment.getSelfValue().isValid()) {
+            throw new ContactEnrichmentParseException("Contact enrichment missing valid selfValue");
+        }
+        if (isBlank(enrichment.getInteractionSuggestions())) {
+            throw new ContactEnrichmentParseException("Contact enrichment missing interactionSuggestions");
+        }
+        if (withAnalysis && isBlank(enrichment.getRelationshipAnalysis())) {
+            throw new ContactEnrichmentParseException("Contact enrichment missing relationshipAnalysis");
+        }
+        if (!withAnalysis) {
+            enrichment.setRelationshipAnalysis(null);
+        }
+        return enrichment;
+    }
+
+    private String extractJson(String content) {
+        // 查找第一个 { 和最后一个 }，兼容```json代码块
+        int start = content.indexOf('{');
+        int end = content.lastIndexOf('}');
+        if (start >= 0 && end > start) {
+            return content.substring(start, end + 1);
+        }
+        return content;
+    }
+
+    private boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private static class EnrichmentContext {
+        static final EnrichmentContext EMPTY = new EnrichmentContext(null, null, null);
+
+        final String contactDescription;
+        final String userDescription;
+        final String userSelfValue;
+
+        EnrichmentContext(String contactDescription, String userDescription, String userSelfValue) {
+            this.contactDescription = contactDescription;
+            this.userDescription = userDescription;
+            this.userSelfValue = userSelfValue;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.ulog.backend.ai;
+
+import com.ulog.backend.config.DeepseekConcurrencyProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * DeepSeek并发隔离舱
+ * 按 模型 + 流量类别 各自维护一个自适应并发限制器，后台的reasoner突发调用不会挤占交互式调用的并发
+ * 限制器按需创建，创建时注册 deepseek.bulkhead.* 指标（标签 bulkhead），排队等待时间为 deepseek.bulkhead.queue.wait
+ */
+@Component
+public class DeepseekBulkheads implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(DeepseekBulkheads.class);
+
+    private final DeepseekConcurrencyProperties properties;
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+    private volatile MeterRegistry meterRegistry;
+
+    public DeepseekBulkheads(DeepseekConcurrencyProperties properties) {
+        this.properties = properties;
+    }
+
+    public <T> Mono<T> execute(String model, DeepseekTrafficClass trafficClass, Supplier<Mono<T>> call) {
+        if (!properties.isEnabled()) {
+            return Mono.defer(call);
+        }
+        return limiterFor(model, trafficClass).run(call);
+    }
+
+    public <T> Flux<T> executeMany(String model, DeepseekTrafficClass trafficClass, Supplier<Flux<T>> call) {
+        if (!properties.isEnabled()) {
+            return Flux.defer(call);
+        }
+        return limiterFor(model, trafficClass).runMany(call);
+    }
+
+    public Collection<AdaptiveConcurrencyLimiter> getLimiters() {
+        return limiters.values();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.meterRegistry = registry;
+        limiters.values().forEach(limiter -> registerMetrics(registry, limiter));
+    }
+
+    private void registerMetrics(MeterRegistry registry, AdaptiveConcurrencyLimiter limiter) {
+        String name = limiter.getName();
+        Gauge.builder("deepseek.bulkhead.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+            .tag("bulkhead", name).register(registry);
+        Gauge.builder("deepseek.bulkhead.in_flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+            .tag("bulkhead", name).register(registry);
+        Gauge.builder("deepseek.bulkhead.queued", limiter, AdaptiveConcurrencyLimiter::getQueued)
+            .tag("bulkhead", name).register(registry);
+        FunctionCounter.builder("deepseek.bulkhead.rejected", limiter, AdaptiveConcurrencyLimiter::getRejectedTotal)
+            .tag("bulkhead", name).register(registry);
+        limiter.setQueueWaitTimer(Timer.builder("deepseek.bulkhead.queue.wait")
+            .tag("bulkhead", name)
+            .publishPercentileHistogram()
+            .register(registry));
+    }
+
+    private AdaptiveConcurrencyLimiter limiterFor(String model, DeepseekTrafficClass trafficClass) {
+        DeepseekTrafficClass resolved = trafficClass != null ? trafficClass : DeepseekTrafficClass.INTERACTIVE;
+        String name = model + ":" + resolved.name().toLowerCase();
+        return limiters.computeIfAbsent(name, key -> {
+            DeepseekConcurrencyProperties.Bulkhead bulkhead = resolved == DeepseekTrafficClass.BACKGROUND
+                ? properties.getBackground()
+                : properties.getInteractive();
+            log.info("Creating DeepSeek bulkhead {}: initialLimit={}, maxLimit={}, maxQueue={}",
+                key, bulkhead.getInitialLimit(), bulkhead.getMaxLimit(), bulkhead.getMaxQueue());
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                key,
+                bulkhead.getInitialLimit(),
+                bulkhead.getMinLimit(),
+                bulkhead.getMaxLimit(),
+                bulkhead.getMaxQueue(),
+                Duration.ofMillis(bulkhead.getMaxQueueWaitMs()),
+                properties.getBackoffRatio());
+            MeterRegistry registry = meterRegistry;
+            if (registry != null) {
+                registerMetrics(registry, limiter);
+            }
+            return limiter;
+        });
+    }
+
+    /**
+     * 每分钟输出各隔离舱的并发上限与排队等待时间（排队时间的监控以 deepseek.bulkhead.queue.wait 为准）
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void logStats() {
+        for (AdaptiveConcurrencyLimiter limiter : limiters.values()) {
+            AdaptiveConcurrencyLimiter.Stats stats = limiter.snapshotAndReset();
+            if (stats.acquired() == 0 && stats.rejected() == 0 && stats.inFlight() == 0) {
+                continue;
+            }
+            log.info("DeepSeek bulkhead {}: limit={}, inFlight={}, queued={}, acquired={}, rejected={}, avgQueueWaitMs={}, maxQueueWaitMs={}",
+                stats.name(), stats.limit(), stats.inFlight(), stats.queued(), stats.acquired(),
+                stats.rejected(), stats.avgQueueWaitMs(), stats.maxQueueWaitMs());
+        }
+    }
+}
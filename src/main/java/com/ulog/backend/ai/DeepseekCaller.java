@@ -0,0 +1,52 @@
+package com.ulog.backend.ai;
+
+/**
+ * DeepSeek调用方（业务功能），作为监控指标的 caller 标签，用于按功能统计耗时和token消耗
+ */
+public enum DeepseekCaller {
+    /** 信息收集：从回答中提取信息 */
+    EXTRACTION("extraction"),
+    /** 信息收集：生成下一个问题 */
+    QUESTION_GENERATION("question-generation"),
+    /** 信息收集：生成描述 */
+    DESCRIPTION_GENERATION("description-generation"),
+    /** 问答前的信息需求分析 */
+    QA_ANALYSIS("qa-analysis"),
+    /** 联系人问答的补充信息分析 */
+    SUPPLEMENT_ANALYSIS("supplement-analysis"),
+    /** 问答回答（同步） */
+    QA_ANSWER("qa-answer"),
+    /** 问答回答（流式） */
+    QA_STREAM("qa-stream"),
+    /** 问答历史滚动摘要 */
+    QA_SUMMARY("qa-summary"),
+    /** 补充信息合并进描述 */
+    DESCRIPTION_MERGE("description-merge"),
+    /** 描述要点摘要 */
+    AI_SUMMARY("ai-summary"),
+    /** self value 评估 */
+    SELF_VALUE("self-value"),
+    /** 关系分析 */
+    RELATIONSHIP_ANALYSIS("relationship-analysis"),
+    /** 交往建议 */
+    INTERACTION_SUGGESTIONS("interaction-suggestions"),
+    /** 联系人综合分析 */
+    CONTACT_ENRICHMENT("contact-enrichment"),
+    /** 关系目标策略 */
+    GOAL_STRATEGY("goal-strategy"),
+    /** AI book */
+    AIBOOK("aibook"),
+    /** 通用对话接口 */
+    CHAT("chat"),
+    UNKNOWN("unknown");
+
+    private final String tag;
+
+    DeepseekCaller(String tag) {
+        this.tag = tag;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+}
@@ -1,37 +1,124 @@
 package com.ulog.backend.ai;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ulog.backend.ai.dto.ChatCompletionRequest;
 import com.ulog.backend.ai.dto.ChatCompletionResponse;
 import com.ulog.backend.config.DeepseekProperties;
+import com.ulog.backend.security.UserPrincipal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 @Component
 public class DeepseekClient {
 
+    private static final Logger log = LoggerFactory.getLogger(DeepseekClient.class);
+
+    private static final String STREAM_DONE = "[DONE]";
+
     private final WebClient webClient;
     private final DeepseekProperties properties;
+    private final ObjectMapper objectMapper;
+    private final LlmResponseCache responseCache;
+    private final DeepseekBulkheads bulkheads;
+    private final DeepseekMetrics metrics;
+    private final LlmUsageLedger usageLedger;
+    private final Map<String, Mono<ChatCompletionResponse>> inFlight = new ConcurrentHashMap<>();
 
-    public DeepseekClient(WebClient deepseekWebClient, DeepseekProperties properties) {
+    public DeepseekClient(WebClient deepseekWebClient, DeepseekProperties properties, ObjectMapper objectMapper,
+                          LlmResponseCache responseCache, DeepseekBulkheads bulkheads, DeepseekMetrics metrics,
+                          LlmUsageLedger usageLedger) {
         this.webClient = deepseekWebClient;
         this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.responseCache = responseCache;
+        this.bulkheads = bulkheads;
+        this.metrics = metrics;
+        this.usageLedger = usageLedger;
     }
 
     public Mono<ChatCompletionResponse> chat(ChatCompletionRequest request) {
         if (request.getModel() == null) {
             request.setModel(properties.getModel());
         }
+        resolveUserId(request);
+        return usageLedger.checkQuota(request.getUserId()).then(send(request));
+    }
+
+    private Mono<ChatCompletionResponse> send(ChatCompletionRequest request) {
         request.setStream(false);
-        return webClient.post()
+        request.setStreamOptions(null);
+        return bulkheads.execute(request.getModel(), request.getTrafficClass(), () -> metrics.record(request, () -> webClient.post()
             .uri("/v1/chat/completions")
             .contentType(MediaType.APPLICATION_JSON)
             .body(BodyInserters.fromValue(request))
             .retrieve()
-            .bodyToMono(ChatCompletionResponse.class);
+            .bodyToMono(ChatCompletionResponse.class)));
+    }
+
+    /**
+     * 带响应缓存的对话，只用于输出仅由输入决定的调用
+     * 相同 模型 + 温度 + 消息 的请求在缓存有效期内直接返回上次的响应，不再消耗token；
+     * 未命中时先检查当前用户的额度，并发的相同请求共享同一次上游调用（token记在发起上游调用的用户名下）
+     */
+    public Mono<ChatCompletionResponse> chatCached(ChatCompletionRequest request) {
+        return chatCached(request, response -> true);
+    }
+
+    /**
+     * 与 chatCached 相同，但只有 cacheable 判断可用的响应才写入缓存
+     * 调用方会校验输出格式时使用，避免把解析不了的回复缓存下来反复返回
+     */
+    public Mono<ChatCompletionResponse> chatCached(ChatCompletionRequest request,
+                                                   Predicate<ChatCompletionResponse> cacheable) {
+        if (request.getModel() == null) {
+            request.setModel(properties.getModel());
+        }
+        // 后面会切到boundedElastic线程，SecurityContext不会跟过去，必须在调用线程上取用户
+        resolveUserId(request);
+        String key = LlmResponseCache.keyOf(request);
+        // 持久化层查询是阻塞的，放到boundedElastic线程上执行
+        return Mono.fromCallable(() -> responseCache.get(key))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(cached -> {
+                metrics.recordCacheLookup(request, cached.isPresent());
+                return cached
+                    .map(response -> {
+                        log.debug("LLM response cache hit for key {}", key);
+                        return Mono.just(response);
+                    })
+                    .orElseGet(() -> usageLedger.checkQuota(request.getUserId())
+                        .then(Mono.defer(() -> singleFlight(key, request, cacheable))));
+            });
+    }
+
+    /**
+     * 合并并发的相同请求：同一个键同一时间只有一个真实的上游调用，其余订阅者共享其结果
+     * 调用结束（成功或失败）后移除，失败结果不会被后续请求复用
+     */
+    private Mono<ChatCompletionResponse> singleFlight(String key, ChatCompletionRequest request,
+                                                      Predicate<ChatCompletionResponse> cacheable) {
+        return inFlight.computeIfAbsent(key, k -> send(request)
+            .publishOn(Schedulers.boundedElastic())
+            .doOnNext(response -> {
+                if (hasContent(response) && cacheable.test(response)) {
+                    responseCache.put(k, request.getModel(), response);
+                }
+            })
+            .doFinally(signal -> inFlight.remove(k))
+            .cache());
     }
 
     public Flux<String> chatStream(ChatCompletionRequest request) {
@@ -39,12 +126,71 @@ public class DeepseekClient {
             request.setModel(properties.getModel());
         }
         request.setStream(true);
-        return webClient.post()
-            .uri("/v1/chat/completions")
-            .contentType(MediaType.APPLICATION_JSON)
-            .accept(MediaType.TEXT_EVENT_STREAM)
-            .bodyValue(request)
-            .retrieve()
-            .bodyToFlux(String.class);
+        resolveUserId(request);
+        return usageLedger.checkQuota(request.getUserId())
+            .thenMany(bulkheads.executeMany(request.getModel(), request.getTrafficClass(), () -> metrics.recordStream(request, () -> webClient.post()
+                .uri("/v1/chat/completions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .bodyValue(request)
+                .retrieve()
+                .bodyToFlux(String.class))));
+    }
+
+    /**
+     * 流式对话，只输出回答正文的增量文本
+     * 过滤结束标记、推理过程（reasoning_content）和空增量
+     */
+    public Flux<String> chatStreamContent(ChatCompletionRequest request) {
+        // 让最后一个分块携带token用量（choices为空，不会输出正文），用于监控
+        request.setStreamOptions(new ChatCompletionRequest.StreamOptions(true));
+        return chatStream(request)
+            .filter(chunk -> !chunk.isBlank() && !STREAM_DONE.equals(chunk.trim()))
+            .mapNotNull(this::extractDeltaContent)
+            .filter(content -> !content.isEmpty());
+    }
+
+    /**
+     * 调用方没有指定用户时，用当前线程上已认证的用户统计用量和检查配额
+     * 只在请求线程上同步调用时取得到；切到其他线程执行的调用需要显式 setUserId
+     */
+    private void resolveUserId(ChatCompletionRequest request) {
+        if (request.getUserId() == null) {
+            request.setUserId(currentUserId());
+        }
+    }
+
+    /**
+     * 当前线程上登录用户的ID；没有登录用户（定时任务、异步线程）时为空
+     * 需要在切换线程之前调用
+     */
+    public Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal.getUserId();
+        }
+        return null;
+    }
+
+    private boolean hasContent(ChatCompletionResponse response) {
+        return response.getChoices() != null
+            && !response.getChoices().isEmpty()
+            && response.getChoices().get(0).getMessage() != null
+            && response.getChoices().get(0).getMessage().getContent() != null
+            && !response.getChoices().get(0).getMessage().getContent().isBlank();
+    }
+
+    private String extractDeltaContent(String chunk) {
+        try {
+            ChatCompletionResponse response = objectMapper.readValue(chunk, ChatCompletionResponse.class);
+            if (response.getChoices() == null || response.getChoices().isEmpty()) {
+                return null;
+            }
+            ChatCompletionResponse.Delta delta = response.getChoices().get(0).getDelta();
+            return delta != null ? delta.getContent() : null;
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to parse Deepseek stream chunk: {}", chunk);
+            return null;
+        }
     }
 }
@@ -0,0 +1,61 @@
+package com.ulog.backend.ai;
+
+import com.ulog.backend.config.DeepseekProperties;
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+/**
+ * 启动完成后预热DeepSeek连接
+ * 提前完成事件循环、DNS解析和TLS握手，避免第一批真实请求承担建连开销
+ */
+@Component
+public class DeepseekConnectionWarmer {
+
+    private static final Logger log = LoggerFactory.getLogger(DeepseekConnectionWarmer.class);
+
+    private final DeepseekProperties properties;
+    private final HttpClient httpClient;
+    private final WebClient webClient;
+
+    public DeepseekConnectionWarmer(DeepseekProperties properties, HttpClient deepseekHttpClient,
+                                    WebClient deepseekWebClient) {
+        this.properties = properties;
+        this.httpClient = deepseekHttpClient;
+        this.webClient = deepseekWebClient;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        int connections = properties.getPool().getWarmupConnections();
+        if (connections <= 0 || !StringUtils.hasText(properties.getBaseUrl())
+                || !StringUtils.hasText(properties.getApiKey())) {
+            return;
+        }
+
+        // 预热失败不影响启动，真实请求会按需建连
+        httpClient.warmup()
+            .thenMany(Flux.range(0, connections)
+                .flatMap(i -> webClient.get()
+                    .uri("/models")
+                    .retrieve()
+                    .toBodilessEntity()
+                    .timeout(Duration.ofSeconds(10))
+                    .onErrorResume(e -> {
+                        log.debug("DeepSeek connection warm-up request failed: {}", e.getMessage());
+                        return Mono.empty();
+                    })))
+            .count()
+            .subscribe(
+                warmed -> log.info("DeepSeek connection warm-up finished, {} of {} requests succeeded", warmed, connections),
+                e -> log.warn("DeepSeek connection warm-up failed: {}", e.getMessage()));
+    }
+}
@@ -32,7 +32,7 @@ public class DeepseekController {
 
     @PostMapping("/ask")
     public Mono<ApiResponse<String>> ask(@Valid @RequestBody AskRequest request) {
-        return service.ask("You are a helpful assistant.", request.prompt())
+        return service.ask("You are a helpful assistant.", request.prompt(), DeepseekCaller.CHAT)
             .map(ApiResponse::success);
     }
 
@@ -45,6 +45,7 @@ public class DeepseekController {
         ));
         completionRequest.setTemperature(0.7);
         completionRequest.setStream(true);
+        completionRequest.setCaller(DeepseekCaller.CHAT);
         return client.chatStream(completionRequest)
             .timeout(Duration.ofSeconds(60));
     }
@@ -0,0 +1,34 @@
+package com.ulog.backend.ai;
+
+import io.netty.handler.timeout.ReadTimeoutException;
+import java.util.concurrent.TimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+/**
+ * DeepSeek调用异常分类
+ */
+final class DeepseekErrors {
+
+    private DeepseekErrors() {
+    }
+
+    /**
+     * 是否为上游过载信号（429/503或超时）
+     */
+    static boolean isOverload(Throwable error) {
+        Throwable current = error;
+        while (current != null) {
+            if (current instanceof WebClientResponseException responseException) {
+                int status = responseException.getStatusCode().value();
+                return status == HttpStatus.TOO_MANY_REQUESTS.value()
+                    || status == HttpStatus.SERVICE_UNAVAILABLE.value();
+            }
+            if (current instanceof TimeoutException || current instanceof ReadTimeoutException) {
+                return true;
+            }
+            current = current.getCause();
+        }
+        return false;
+    }
+}
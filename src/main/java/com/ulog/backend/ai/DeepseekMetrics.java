@@ -0,0 +1,178 @@
+package com.ulog.backend.ai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ulog.backend.ai.dto.ChatCompletionRequest;
+import com.ulog.backend.ai.dto.ChatCompletionResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.handler.timeout.ReadTimeoutException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * DeepSeek调用指标
+ * llm.requests：上游调用耗时（不含隔离舱排队），标签 model / caller / traffic / outcome
+ *   outcome：success、error、overload（429/503）、timeout（上游读超时）、cancelled（调用方超时或取消）
+ * llm.tokens：token用量，标签 model / caller / type（prompt、completion、cache_hit、cache_miss）
+ * llm.prompt.cache.hit.ratio：每次调用输入token中命中DeepSeek上下文缓存的比例，标签 model / caller
+ * llm.requests.active：正在进行的上游调用数，标签 model / caller
+ * llm.cache.requests：chatCached 的本地响应缓存查询，标签 caller / result（hit、miss）
+ * token用量同时按用户计入 LlmUsageLedger
+ */
+@Component
+public class DeepseekMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(DeepseekMetrics.class);
+
+    private final MeterRegistry registry;
+    private final ObjectMapper objectMapper;
+    private final LlmUsageLedger usageLedger;
+    private final Map<String, AtomicInteger> active = new ConcurrentHashMap<>();
+
+    public DeepseekMetrics(MeterRegistry registry, ObjectMapper objectMapper, LlmUsageLedger usageLedger) {
+        this.registry = registry;
+        this.objectMapper = objectMapper;
+        this.usageLedger = usageLedger;
+    }
+
+    /**
+     * 记录一次非流式调用的耗时、结果和token用量
+     */
+    public Mono<ChatCompletionResponse> record(ChatCompletionRequest request,
+                                               Supplier<Mono<ChatCompletionResponse>> call) {
+        return Mono.defer(() -> {
+            String model = request.getModel();
+            String caller = callerTag(request);
+            AtomicInteger inFlight = activeCounter(model, caller);
+            inFlight.incrementAndGet();
+            Timer.Sample sample = Timer.start(registry);
+            AtomicReference<String> outcome = new AtomicReference<>("cancelled");
+            return call.get()
+                .doOnNext(response -> recordUsage(request, model, caller, response.getUsage()))
+                .doOnSuccess(response -> outcome.set("success"))
+                .doOnError(error -> outcome.set(classify(error)))
+                .doFinally(signal -> {
+                    inFlight.decrementAndGet();
+                    sample.stop(timer(request, model, caller, outcome.get()));
+                });
+        });
+    }
+
+    /**
+     * 记录一次流式调用；token用量从 stream_options.include_usage 返回的最后一个分块中读取
+     */
+    public Flux<String> recordStream(ChatCompletionRequest request, Supplier<Flux<String>> call) {
+        return Flux.defer(() -> {
+            String model = request.getModel();
+            String caller = callerTag(request);
+            AtomicInteger inFlight = activeCounter(model, caller);
+            inFlight.incrementAndGet();
+            Timer.Sample sample = Timer.start(registry);
+            AtomicReference<String> outcome = new AtomicReference<>("cancelled");
+            return call.get()
+                .doOnNext(chunk -> recordStreamUsage(request, model, caller, chunk))
+                .doOnComplete(() -> outcome.set("success"))
+                .doOnError(error -> outcome.set(classify(error)))
+                .doFinally(signal -> {
+                    inFlight.decrementAndGet();
+                    sample.stop(timer(request, model, caller, outcome.get()));
+                });
+        });
+    }
+
+    /**
+     * 记录本地响应缓存的查询结果
+     */
+    public void recordCacheLookup(ChatCompletionRequest request, boolean hit) {
+        registry.counter("llm.cache.requests", "caller", callerTag(request), "result", hit ? "hit" : "miss")
+            .increment();
+    }
+
+    private void recordStreamUsage(ChatCompletionRequest request, String model, String caller, String chunk) {
+        // 只有最后一个分块的 usage 不为null，其余分块跳过解析
+        if (!chunk.contains("\"usage\"") || chunk.contains("\"usage\":null")) {
+            return;
+        }
+        try {
+            ChatCompletionResponse response = objectMapper.readValue(chunk, ChatCompletionResponse.class);
+            recordUsage(request, model, caller, response.getUsage());
+        } catch (Exception e) {
+            log.debug("Failed to read usage from Deepseek stream chunk: {}", e.getMessage());
+        }
+    }
+
+    private void recordUsage(ChatCompletionRequest request, String model, String caller,
+                             ChatCompletionResponse.Usage usage) {
+        if (usage == null) {
+            return;
+        }
+        usageLedger.record(request.getUserId(), usage);
+        tokens(model, caller, "prompt").increment(usage.getPromptTokens());
+        tokens(model, caller, "completion").increment(usage.getCompletionTokens());
+        tokens(model, caller, "cache_hit").increment(usage.getPromptCacheHitTokens());
+        tokens(model, caller, "cache_miss").increment(usage.getPromptCacheMissTokens());
+        if (usage.getPromptTokens() > 0) {
+            DistributionSummary.builder("llm.prompt.cache.hit.ratio")
+                .tags("model", model, "caller", caller)
+                .register(registry)
+                .record((double) usage.getPromptCacheHitTokens() / usage.getPromptTokens());
+        }
+    }
+
+    private Counter tokens(String model, String caller, String type) {
+        return Counter.builder("llm.tokens")
+            .baseUnit("tokens")
+            .tags("model", model, "caller", caller, "type", type)
+            .register(registry);
+    }
+
+    private Timer timer(ChatCompletionRequest request, String model, String caller, String outcome) {
+        DeepseekTrafficClass trafficClass = request.getTrafficClass() != null
+            ? request.getTrafficClass()
+            : DeepseekTrafficClass.INTERACTIVE;
+        return Timer.builder("llm.requests")
+            .tags("model", model, "caller", caller, "traffic", trafficClass.name().toLowerCase(), "outcome", outcome)
+            .register(registry);
+    }
+
+    private AtomicInteger activeCounter(String model, String caller) {
+        return active.computeIfAbsent(model + ":" + caller, key -> {
+            AtomicInteger counter = new AtomicInteger();
+            Gauge.builder("llm.requests.active", counter, AtomicInteger::get)
+                .tags("model", model, "caller", caller)
+                .register(registry);
+            return counter;
+        });
+    }
+
+    private String callerTag(ChatCompletionRequest request) {
+        return request.getCaller() != null ? request.getCaller().getTag() : DeepseekCaller.UNKNOWN.getTag();
+    }
+
+    private String classify(Throwable error) {
+        Throwable current = error;
+        while (current != null) {
+            if (current instanceof TimeoutException || current instanceof ReadTimeoutException) {
+                return "timeout";
+            }
+            if (current instanceof WebClientResponseException responseException) {
+                return DeepseekErrors.isOverload(responseException) ? "overload" : "error";
+            }
+            current = current.getCause();
+        }
+        return "error";
+    }
+}
@@ -28,60 +28,40 @@ public class DeepseekService {
         this.contentModerationService = contentModerationService;
     }
 
-    public Mono<String> ask(String systemPrompt, String userPrompt) {
-        return ask(systemPrompt, userPrompt, null);
+    public Mono<String> ask(String systemPrompt, String userPrompt, DeepseekCaller caller) {
+        return ask(systemPrompt, userPrompt, null, caller);
     }
 
-    public Mono<String> ask(String systemPrompt, String userPrompt, Long userId) {
-        // 审核用户输入内容
-        ModerationResult inputModeration = contentModerationService.moderateContent(
-            userId, "ai_input", userPrompt);
-        
-        if (!inputModeration.isPassed()) {
-            log.warn("User input rejected by content moderation: {}", inputModeration.getRiskDetails());
-            return Mono.just("抱歉，您的输入包含不当内容，请修改后重试。");
-        }
+    public Mono<String> ask(String systemPrompt, String userPrompt, Long userId, DeepseekCaller caller) {
+        return execute(null, systemPrompt, userPrompt, userId, false, DeepseekTrafficClass.INTERACTIVE, caller);
+    }
 
-        ChatCompletionRequest request = new ChatCompletionRequest();
-        request.setMessages(List.of(
-            new ChatMessage("system", systemPrompt),
-            new ChatMessage("user", userPrompt)
-        ));
-        request.setTemperature(0.7);
-        
-        return client.chat(request)
-            .map(response -> {
-                if (response.getChoices() == null || response.getChoices().isEmpty()) {
-                    return "";
-                }
-                ChatCompletionResponse.Choice choice = response.getChoices().get(0);
-                String content = "";
-                if (choice.getMessage() != null && choice.getMessage().getContent() != null) {
-                    content = choice.getMessage().getContent();
-                } else if (choice.getDelta() != null && choice.getDelta().getContent() != null) {
-                    content = choice.getDelta().getContent();
-                }
-                
-                // 审核AI输出内容
-                if (!content.isEmpty()) {
-                    ModerationResult outputModeration = contentModerationService.moderateContent(
-                        userId, "ai_output", content);
-                    
-                    if (!outputModeration.isPassed()) {
-                        log.warn("AI output rejected by content moderation: {}", outputModeration.getRiskDetails());
-                        return "抱歉，AI生成的内容未通过审核，请重新提问。";
-                    }
-                }
-                
-                return content;
-            });
+    public Mono<String> askReasoner(String systemPrompt, String userPrompt, DeepseekCaller caller) {
+        return askReasoner(systemPrompt, userPrompt, null, caller);
+    }
+
+    public Mono<String> askReasoner(String systemPrompt, String userPrompt, Long userId, DeepseekCaller caller) {
+        return execute(properties.getReasonerModel(), systemPrompt, userPrompt, userId, false, DeepseekTrafficClass.INTERACTIVE, caller); // 使用 reasoner 模型
+    }
+
+    /**
+     * 与 ask 相同，但命中 LlmResponseCache 时直接返回缓存结果；只用于输出仅由输入决定的调用
+     */
+    public Mono<String> askCached(String systemPrompt, String userPrompt, DeepseekTrafficClass trafficClass,
+                                  DeepseekCaller caller) {
+        return execute(null, systemPrompt, userPrompt, client.currentUserId(), true, trafficClass, caller);
     }
 
-    public Mono<String> askReasoner(String systemPrompt, String userPrompt) {
-        return askReasoner(systemPrompt, userPrompt, null);
+    /**
+     * 与 askReasoner 相同，但命中 LlmResponseCache 时直接返回缓存结果；只用于输出仅由输入决定的调用
+     */
+    public Mono<String> askReasonerCached(String systemPrompt, String userPrompt, DeepseekTrafficClass trafficClass,
+                                          DeepseekCaller caller) {
+        return execute(properties.getReasonerModel(), systemPrompt, userPrompt, client.currentUserId(), true, trafficClass, caller);
     }
 
-    public Mono<String> askReasoner(String systemPrompt, String userPrompt, Long userId) {
+    private Mono<String> execute(String model, String systemPrompt, String userPrompt, Long userId, boolean cached,
+                                 DeepseekTrafficClass trafficClass, DeepseekCaller caller) {
         // 审核用户输入内容
         ModerationResult inputModeration = contentModerationService.moderateContent(
             userId, "ai_input", userPrompt);
@@ -92,14 +72,17 @@ public class DeepseekService {
         }
 
         ChatCompletionRequest request = new ChatCompletionRequest();
-        request.setModel(properties.getReasonerModel()); // 使用 reasoner 模型
+        request.setModel(model);
         request.setMessages(List.of(
             new ChatMessage("system", systemPrompt),
             new ChatMessage("user", userPrompt)
         ));
         request.setTemperature(0.7);
+        request.setTrafficClass(trafficClass);
+        request.setCaller(caller);
+        request.setUserId(userId);
         
-        return client.chat(request)
+        return (cached ? client.chatCached(request) : client.chat(request))
             .map(response -> {
                 if (response.getChoices() == null || response.getChoices().isEmpty()) {
                     return "";
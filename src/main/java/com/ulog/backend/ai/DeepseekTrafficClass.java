@@ -0,0 +1,16 @@
+package com.ulog.backend.ai;
+
+/**
+ * DeepSeek调用的流量类别，不同类别使用独立的并发隔离舱
+ */
+public enum DeepseekTrafficClass {
+    /**
+     * 用户正在等待结果的交互式调用（问答、信息收集、预览等）
+     */
+    INTERACTIVE,
+
+    /**
+     * 事件监听、摘要刷新等后台调用
+     */
+    BACKGROUND
+}
@@ -1,7 +1,8 @@
 package com.ulog.backend.ai;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ulog.backend.ai.dto.AiGoalStrategyResponse;
+import com.ulog.backend.ai.structured.StructuredOutputSchemas;
+import com.ulog.backend.ai.structured.StructuredOutputService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -12,12 +13,10 @@ public class GoalAiService {
 
     private static final Logger log = LoggerFactory.getLogger(GoalAiService.class);
 
-    private final DeepseekService deepseekService;
-    private final ObjectMapper objectMapper;
+    private final StructuredOutputService structuredOutputService;
 
-    public GoalAiService(DeepseekService deepseekService, ObjectMapper objectMapper) {
-        this.deepseekService = deepseekService;
-        this.objectMapper = objectMapper;
+    public GoalAiService(StructuredOutputService structuredOutputService) {
+        this.structuredOutputService = structuredOutputService;
     }
 
     public Mono<AiGoalStrategyResponse> generateGoalStrategy(String contactName, String userName, 
@@ -25,8 +24,9 @@ public class GoalAiService {
         String systemPrompt = buildSystemPrompt();
         String userPrompt = buildUserPrompt(contactName, userName, relationshipAnalysis, goalDescription);
 
-        return deepseekService.askReasoner(systemPrompt, userPrompt)
-            .map(this::parseAiResponse)
+        // strategy / actionPlans 的校验在 StructuredOutputSchemas.GOAL_STRATEGY 中
+        return structuredOutputService.askReasoner(StructuredOutputSchemas.GOAL_STRATEGY, systemPrompt, userPrompt,
+                DeepseekCaller.GOAL_STRATEGY)
             .doOnError(error -> log.error("Failed to generate goal strategy: {}", error.getMessage()));
     }
 
@@ -78,40 +78,4 @@ public class GoalAiService {
         prompt.append("请基于以上信息，为我生成个性化的策略和行动计划。");
         return prompt.toString();
     }
-
-    private AiGoalStrategyResponse parseAiResponse(String aiResponse) {
-        try {
-            // 尝试从响应中提取JSON
-            String jsonContent = extractJson(aiResponse);
-            AiGoalStrategyResponse response = objectMapper.readValue(jsonContent, AiGoalStrategyResponse.class);
-            
-            // 验证响应
-            if (response.getStrategy() == null || response.getStrategy().isBlank()) {
-                throw new IllegalArgumentException("AI response missing strategy");
-            }
-            if (response.getActionPlans() == null || response.getActionPlans().isEmpty()) {
-                throw new IllegalArgumentException("AI response missing action plans");
-            }
-            
-            return response;
-        } catch (Exception e) {
-            log.error("Failed to parse AI response: {}", e.getMessage());
-            log.debug("AI response content: {}", aiResponse);
-            throw new RuntimeException("Failed to parse AI response: " + e.getMessage(), e);
-        }
-    }
-
-    private String extractJson(String content) {
-        // 查找第一个 { 和最后一个 }
-        int start = content.indexOf('{');
-        int end = content.lastIndexOf('}');
-        
-        if (start >= 0 && end > start) {
-            return content.substring(start, end + 1);
-        }
-        
-        // 如果没找到，返回原始内容
-        return content;
-    }
 }
-
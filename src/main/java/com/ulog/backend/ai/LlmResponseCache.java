@@ -0,0 +1,55 @@
+package com.ulog.backend.ai;
+
+import com.ulog.backend.ai.dto.ChatCompletionRequest;
+import com.ulog.backend.ai.dto.ChatCompletionResponse;
+import com.ulog.backend.ai.dto.ChatMessage;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * LLM响应缓存
+ * 只用于输出仅由输入决定的调用（摘要、自我价值评估、关系分析、AI小书预览等），
+ * 键为 模型 + 温度 + 规范化消息 的SHA-256
+ */
+public interface LlmResponseCache {
+
+    Optional<ChatCompletionResponse> get(String key);
+
+    void put(String key, String model, ChatCompletionResponse response);
+
+    long getHitCount();
+
+    long getMissCount();
+
+    /**
+     * 计算请求的缓存键：消息内容去除首尾空白并统一换行符，避免无意义的差异导致未命中
+     */
+    static String keyOf(ChatCompletionRequest request) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(request.getModel()).append('\u0000')
+            .append(request.getTemperature()).append('\u0000');
+        // JSON mode 和输出长度上限会改变响应内容，只在设置时计入，不影响未设置的请求原有的键
+        if (request.getResponseFormat() != null) {
+            sb.append("response_format=").append(request.getResponseFormat().getType()).append('\u0000');
+        }
+        if (request.getMaxTokens() != null) {
+            sb.append("max_tokens=").append(request.getMaxTokens()).append('\u0000');
+        }
+        if (request.getMessages() != null) {
+            for (ChatMessage message : request.getMessages()) {
+                String content = message.getContent() == null ? "" : message.getContent();
+                sb.append(message.getRole()).append('\u0000')
+                    .append(content.replace("\r\n", "\n").strip()).append('\u0000');
+            }
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(sb.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.ulog.backend.ai;
+
+import com.ulog.backend.ai.dto.ChatCompletionResponse;
+import com.ulog.backend.common.exception.QuotaExceededException;
+import com.ulog.backend.config.LlmUsageProperties;
+import jakarta.annotation.PreDestroy;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * 按用户按天的LLM token用量账本和配额检查
+ * 上游调用返回的 usage 累加到内存中的 LongAdder（热路径无锁，多线程分段累加），
+ * 定时把增量批量加到 llm_usage_daily；写入失败时增量加回内存，下次再写
+ * 配额 = 已入库用量（按 quota-refresh-ms 缓存，可感知其他实例的用量）+ 本实例尚未写入的增量；
+ * 配额是软限制：只在发起调用前检查，已开始的调用不会中断，多实例之间最多有一个刷新周期的误差
+ * 没有用户ID的调用（后台任务、确定性的缓存调用）不计入
+ */
+@Component
+public class LlmUsageLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(LlmUsageLedger.class);
+
+    private static final String UPSERT_USAGE = "INSERT INTO llm_usage_daily "
+        + "(user_id, usage_date, prompt_tokens, completion_tokens, cache_hit_tokens, request_count, updated_at) "
+        + "VALUES (?, ?, ?, ?, ?, ?, ?) "
+        + "ON DUPLICATE KEY UPDATE prompt_tokens = prompt_tokens + VALUES(prompt_tokens), "
+        + "completion_tokens = completion_tokens + VALUES(completion_tokens), "
+        + "cache_hit_tokens = cache_hit_tokens + VALUES(cache_hit_tokens), "
+        + "request_count = request_count + VALUES(request_count), updated_at = VALUES(updated_at)";
+
+    private static final String SELECT_TOTALS = "SELECT "
+        + "COALESCE(SUM(CASE WHEN usage_date = ? THEN prompt_tokens + completion_tokens ELSE 0 END), 0) AS day_tokens, "
+        + "COALESCE(SUM(prompt_tokens + completion_tokens), 0) AS month_tokens "
+        + "FROM llm_usage_daily WHERE user_id = ? AND usage_date BETWEEN ? AND ?";
+
+    private final LlmUsageProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<UsageKey, UsageCounter> pending = new ConcurrentHashMap<>();
+    private final Map<Long, PersistedUsage> persisted = new ConcurrentHashMap<>();
+    private final LongAdder quotaRejections = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+
+    public LlmUsageLedger(LlmUsageProperties properties, JdbcTemplate jdbcTemplate) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 记录一次上游调用的token用量
+     */
+    public void record(Long userId, ChatCompletionResponse.Usage usage) {
+        if (!properties.isEnabled() || userId == null || usage == null) {
+            return;
+        }
+        pending.computeIfAbsent(new UsageKey(userId, LocalDate.now()), key -> new UsageCounter()).add(usage);
+    }
+
+    /**
+     * 发起上游调用前检查配额，超出时以 QuotaExceededException 结束
+     * 已入库用量的缓存过期时需要查询数据库，此时切到boundedElastic线程执行
+     */
+    public Mono<Void> checkQuota(Long userId) {
+        if (userId == null || !properties.isQuotaEnabled()) {
+            return Mono.empty();
+        }
+        Mono<Void> check = Mono.fromRunnable(() -> ensureWithinQuota(userId));
+        return isFresh(persisted.get(userId), LocalDate.now())
+            ? check
+            : check.subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * 同步检查配额（会阻塞查询数据库），超出时抛出 QuotaExceededException
+     */
+    public void ensureWithinQuota(Long userId) {
+        if (userId == null || !properties.isQuotaEnabled()) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        PersistedUsage base = persistedUsage(userId, today);
+        UsageCounter counter = pending.get(new UsageKey(userId, today));
+        long unflushed = counter != null ? counter.tokens() : 0;
+
+        long dailyLimit = properties.getDailyTokenLimit();
+        if (dailyLimit > 0 && base.dayTokens() + unflushed >= dailyLimit) {
+            quotaRejections.increment();
+            log.info("User {} reached daily LLM token quota: used={}, limit={}",
+                userId, base.dayTokens() + unflushed, dailyLimit);
+            throw new QuotaExceededException("今日AI使用额度已用完，请明天再试");
+        }
+        long monthlyLimit = properties.getMonthlyTokenLimit();
+        if (monthlyLimit > 0 && base.monthTokens() + unflushed >= monthlyLimit) {
+            quotaRejections.increment();
+            log.info("User {} reached monthly LLM token quota: used={}, limit={}",
+                userId, base.monthTokens() + unflushed, monthlyLimit);
+            throw new QuotaExceededException("本月AI使用额度已用完，请下月再试");
+        }
+    }
+
+    private PersistedUsage persistedUsage(Long userId, LocalDate today) {
+        PersistedUsage cached = persisted.get(userId);
+        if (isFresh(cached, today)) {
+            return cached;
+        }
+        PersistedUsage loaded = jdbcTemplate.queryForObject(SELECT_TOTALS,
+            (rs, rowNum) -> new PersistedUsage(today, rs.getLong("day_tokens"), rs.getLong("month_tokens"),
+                System.currentTimeMillis()),
+            Date.valueOf(today), userId, Date.valueOf(today.withDayOfMonth(1)), Date.valueOf(today));
+        persisted.put(userId, loaded);
+        return loaded;
+    }
+
+    private boolean isFresh(PersistedUsage cached, LocalDate today) {
+        return cached != null
+            && cached.day().equals(today)
+            && System.currentTimeMillis() - cached.loadedAt() < properties.getQuotaRefreshMs();
+    }
+
+    /**
+     * 把内存中的增量批量写入 llm_usage_daily
+     */
+    @Scheduled(fixedDelayString = "${llm.usage.flush-interval-ms:10000}")
+    public synchronized void flush() {
+        LocalDate today = LocalDate.now();
+        List<UsageDelta> deltas = new ArrayList<>();
+        for (Map.Entry<UsageKey, UsageCounter> entry : pending.entrySet()) {
+            UsageDelta delta = entry.getValue().drain(entry.getKey());
+            if (delta != null) {
+                deltas.add(delta);
+            } else if (entry.getKey().day().isBefore(today)) {
+                // 过去日期的计数器已写完且不会再有新的用量，移除
+                pending.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            jdbcTemplate.batchUpdate(UPSERT_USAGE, deltas, deltas.size(),
+                (PreparedStatement ps, UsageDelta delta) -> bindDelta(ps, delta, now));
+            // 已入库的部分从内存增量中移出了，让这些用户下次检查时重新读取数据库
+            deltas.forEach(delta -> persisted.remove(delta.key().userId()));
+        } catch (Exception e) {
+            flushFailures.increment();
+            deltas.forEach(delta -> pending.computeIfAbsent(delta.key(), key -> new UsageCounter()).restore(delta));
+            log.error("Failed to write {} LLM usage rows, will retry on next flush", deltas.size(), e);
+        }
+    }
+
+    private void bindDelta(PreparedStatement ps, UsageDelta delta, LocalDateTime now) throws SQLException {
+        ps.setLong(1, delta.key().userId());
+        ps.setDate(2, Date.valueOf(delta.key().day()));
+        ps.setLong(3, delta.promptTokens());
+        ps.setLong(4, delta.completionTokens());
+        ps.setLong(5, delta.cacheHitTokens());
+        ps.setLong(6, delta.requests());
+        ps.setTimestamp(7, Timestamp.valueOf(now));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    public int getPendingUserCount() {
+        return pending.size();
+    }
+
+    public long getQuotaRejectionCount() {
+        return quotaRejections.sum();
+    }
+
+    public long getFlushFailureCount() {
+        return flushFailures.sum();
+    }
+
+    private record UsageKey(Long userId, LocalDate day) {
+    }
+
+    private record UsageDelta(UsageKey key, long promptTokens, long completionTokens, long cacheHitTokens,
+                              long requests) {
+    }
+
+    private record PersistedUsage(LocalDate day, long dayTokens, long monthTokens, long loadedAt) {
+    }
+
+    private static class UsageCounter {
+
+        private final LongAdder promptTokens = new LongAdder();
+        private final LongAdder completionTokens = new LongAdder();
+        private final LongAdder cacheHitTokens = new LongAdder();
+        private final LongAdder requests = new LongAdder();
+
+        void add(ChatCompletionResponse.Usage usage) {
+            promptTokens.add(usage.getPromptTokens());
+            completionTokens.add(usage.getCompletionTokens());
+            cacheHitTokens.add(usage.getPromptCacheHitTokens());
+            requests.increment();
+        }
+
+        void restore(UsageDelta delta) {
+            promptTokens.add(delta.promptTokens());
+            completionTokens.add(delta.completionTokens());
+            cacheHitTokens.add(delta.cacheHitTokens());
+            requests.add(delta.requests());
+        }
+
+        long tokens() {
+            return promptTokens.sum() + completionTokens.sum();
+        }
+
+        /**
+         * 取出并清零当前累计；没有新用量时返回null
+         */
+        UsageDelta drain(UsageKey key) {
+            long count = requests.sumThenReset();
+            if (count == 0) {
+                return null;
+            }
+            return new UsageDelta(key, promptTokens.sumThenReset(), completionTokens.sumThenReset(),
+                cacheHitTokens.sumThenReset(), count);
+        }
+    }
+}
@@ -74,7 +74,7 @@ public class RelationshipAnalysisServiceImpl implements RelationshipAnalysisServ
                     context.userSelfValue
             );
 
-            return callDeepseekWithPrompt(prompt, "生成关系分析");
+            return callDeepseekWithPrompt(prompt, "生成关系分析", DeepseekCaller.RELATIONSHIP_ANALYSIS);
         })
         .timeout(Duration.ofSeconds(180))
         .retryWhen(Retry.backoff(2, Duration.ofSeconds(5))
@@ -101,7 +101,7 @@ public class RelationshipAnalysisServiceImpl implements RelationshipAnalysisServ
         })
         .flatMap(description -> {
             String prompt = PromptTemplates.buildInteractionSuggestionsPrompt(description);
-            return callDeepseekWithPrompt(prompt, "生成交往建议");
+            return callDeepseekWithPrompt(prompt, "生成交往建议", DeepseekCaller.INTERACTION_SUGGESTIONS);
         })
         .timeout(Duration.ofSeconds(180))
         .retryWhen(Retry.backoff(2, Duration.ofSeconds(5))
@@ -111,7 +111,7 @@ public class RelationshipAnalysisServiceImpl implements RelationshipAnalysisServ
                 contactId, error.getMessage()));
     }
 
-    private Mono<String> callDeepseekWithPrompt(String prompt, String taskName) {
+    private Mono<String> callDeepseekWithPrompt(String prompt, String taskName, DeepseekCaller caller) {
         log.debug("Calling Deepseek for {}", taskName);
 
         ChatCompletionRequest request = new ChatCompletionRequest();
@@ -121,8 +121,11 @@ public class RelationshipAnalysisServiceImpl implements RelationshipAnalysisServ
                 new ChatMessage("user", prompt)
         ));
         request.setTemperature(0.7);
+        request.setTrafficClass(DeepseekTrafficClass.BACKGROUND);
+        request.setCaller(caller);
 
-        return deepseekClient.chat(request)
+        // 分析结果只由描述和自我价值决定，重复触发时直接复用缓存
+        return deepseekClient.chatCached(request)
                 .map(response -> {
                     if (response.getChoices() == null || response.getChoices().isEmpty()) {
                         throw new RuntimeException("Empty response from Deepseek");
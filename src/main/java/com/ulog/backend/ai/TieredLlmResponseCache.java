@@ -0,0 +1,155 @@
+package com.ulog.backend.ai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ulog.backend.ai.dto.ChatCompletionResponse;
+import com.ulog.backend.config.LlmCacheProperties;
+import com.ulog.backend.domain.ai.LlmResponseCacheEntry;
+import com.ulog.backend.repository.LlmResponseCacheEntryRepository;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 两级LLM响应缓存：有界LRU内存层 + 可选的MySQL持久化层
+ * 持久化层命中后回填内存层；持久化层读写失败只记录日志，不影响调用方
+ */
+@Component
+public class TieredLlmResponseCache implements LlmResponseCache {
+
+    private static final Logger log = LoggerFactory.getLogger(TieredLlmResponseCache.class);
+
+    private final LlmCacheProperties properties;
+    private final LlmResponseCacheEntryRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Map<String, CachedResponse> memory;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public TieredLlmResponseCache(
+        LlmCacheProperties properties,
+        LlmResponseCacheEntryRepository repository,
+        TransactionTemplate transactionTemplate,
+        ObjectMapper objectMapper
+    ) {
+        this.properties = properties;
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        int maxEntries = Math.max(1, properties.getMaxEntries());
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public Optional<ChatCompletionResponse> get(String key) {
+        if (!properties.isEnabled()) {
+            return Optional.empty();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (memory) {
+            CachedResponse cached = memory.get(key);
+            if (cached != null) {
+                if (cached.expiresAt().isAfter(now)) {
+                    hits.incrementAndGet();
+                    return Optional.of(cached.response());
+                }
+                memory.remove(key);
+            }
+        }
+
+        if (properties.isPersistentEnabled()) {
+            try {
+                Optional<LlmResponseCacheEntry> entry = repository.findByCacheKeyAndExpiresAtAfter(key, now);
+                if (entry.isPresent()) {
+                    ChatCompletionResponse response = objectMapper.readValue(
+                        entry.get().getResponse(), ChatCompletionResponse.class);
+                    synchronized (memory) {
+                        memory.put(key, new CachedResponse(response, entry.get().getExpiresAt()));
+                    }
+                    hits.incrementAndGet();
+                    return Optional.of(response);
+                }
+            } catch (Exception e) {
+                log.warn("Failed to read LLM response cache entry {}: {}", key, e.getMessage());
+            }
+        }
+
+        misses.incrementAndGet();
+        return Optional.empty();
+    }
+
+    @Override
+    public void put(String key, String model, ChatCompletionResponse response) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(properties.getTtlMinutes());
+        synchronized (memory) {
+            memory.put(key, new CachedResponse(response, expiresAt));
+        }
+
+        if (properties.isPersistentEnabled()) {
+            try {
+                String json = objectMapper.writeValueAsString(response);
+                transactionTemplate.executeWithoutResult(status ->
+                    repository.save(new LlmResponseCacheEntry(key, model, json, expiresAt)));
+            } catch (Exception e) {
+                log.warn("Failed to write LLM response cache entry {}: {}", key, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * 每小时清理过期缓存并输出命中率
+     */
+    @Scheduled(cron = "0 30 * * * ?")
+    public void evictExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int memorySize;
+        synchronized (memory) {
+            memory.values().removeIf(cached -> !cached.expiresAt().isAfter(now));
+            memorySize = memory.size();
+        }
+
+        int deleted = 0;
+        if (properties.isPersistentEnabled()) {
+            try {
+                deleted = transactionTemplate.execute(status -> repository.deleteExpired(now));
+            } catch (Exception e) {
+                log.error("Failed to delete expired LLM response cache entries", e);
+            }
+        }
+
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        log.info("LLM response cache: {} entries in memory, {} expired rows deleted, hits={}, misses={}, hitRate={}%",
+            memorySize, deleted, hitCount, total - hitCount, total == 0 ? 0 : hitCount * 100 / total);
+    }
+
+    private record CachedResponse(ChatCompletionResponse response, LocalDateTime expiresAt) {
+    }
+}
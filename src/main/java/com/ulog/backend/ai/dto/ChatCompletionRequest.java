@@ -1,5 +1,10 @@
 package com.ulog.backend.ai.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.ulog.backend.ai.DeepseekCaller;
+import com.ulog.backend.ai.DeepseekTrafficClass;
 import java.util.List;
 
 public class ChatCompletionRequest {
@@ -8,6 +13,23 @@ public class ChatCompletionRequest {
     private List<ChatMessage> messages;
     private Double temperature;
     private boolean stream;
+    @JsonProperty("stream_options")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private StreamOptions streamOptions;
+    @JsonProperty("response_format")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ResponseFormat responseFormat; // {"type":"json_object"} 开启JSON mode，提示词中必须出现"json"字样
+    @JsonProperty("max_tokens")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer maxTokens;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<String> stop;
+    @JsonIgnore
+    private DeepseekTrafficClass trafficClass = DeepseekTrafficClass.INTERACTIVE; // 只用于本地并发隔离，不发送给DeepSeek
+    @JsonIgnore
+    private DeepseekCaller caller = DeepseekCaller.UNKNOWN; // 只用于监控指标，不发送给DeepSeek
+    @JsonIgnore
+    private Long userId; // 只用于按用户统计用量和配额检查，不发送给DeepSeek
 
     public String getModel() {
         return model;
@@ -40,4 +62,111 @@ public class ChatCompletionRequest {
     public void setStream(boolean stream) {
         this.stream = stream;
     }
+
+    public DeepseekTrafficClass getTrafficClass() {
+        return trafficClass;
+    }
+
+    public void setTrafficClass(DeepseekTrafficClass trafficClass) {
+        this.trafficClass = trafficClass;
+    }
+
+    public StreamOptions getStreamOptions() {
+        return streamOptions;
+    }
+
+    public void setStreamOptions(StreamOptions streamOptions) {
+        this.streamOptions = streamOptions;
+    }
+
+    public ResponseFormat getResponseFormat() {
+        return responseFormat;
+    }
+
+    public void setResponseFormat(ResponseFormat responseFormat) {
+        this.responseFormat = responseFormat;
+    }
+
+    public Integer getMaxTokens() {
+        return maxTokens;
+    }
+
+    public void setMaxTokens(Integer maxTokens) {
+        this.maxTokens = maxTokens;
+    }
+
+    public List<String> getStop() {
+        return stop;
+    }
+
+    public void setStop(List<String> stop) {
+        this.stop = stop;
+    }
+
+    public DeepseekCaller getCaller() {
+        return caller;
+    }
+
+    public void setCaller(DeepseekCaller caller) {
+        this.caller = caller;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    /**
+     * 流式请求选项；include_usage=true 时最后一个分块携带整次请求的token用量
+     */
+    public static class StreamOptions {
+
+        @JsonProperty("include_usage")
+        private boolean includeUsage;
+
+        public StreamOptions() {
+        }
+
+        public StreamOptions(boolean includeUsage) {
+            this.includeUsage = includeUsage;
+        }
+
+        public boolean isIncludeUsage() {
+            return includeUsage;
+        }
+
+        public void setIncludeUsage(boolean includeUsage) {
+            this.includeUsage = includeUsage;
+        }
+    }
+
+    /**
+     * 输出格式；type=json_object 时模型保证输出合法的JSON对象（JSON mode）
+     */
+    public static class ResponseFormat {
+
+        private String type;
+
+        public ResponseFormat() {
+        }
+
+        public ResponseFormat(String type) {
+            this.type = type;
+        }
+
+        public static ResponseFormat jsonObject() {
+            return new ResponseFormat("json_object");
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public void setType(String type) {
+            this.type = type;
+        }
+    }
 }
@@ -92,6 +92,7 @@ public class ChatCompletionResponse {
     private long created;
     private String model;
     private List<Choice> choices;
+    private Usage usage;
 
     public String getId() {
         return id;
@@ -124,4 +125,68 @@ public class ChatCompletionResponse {
     public void setChoices(List<Choice> choices) {
         this.choices = choices;
     }
+
+    public Usage getUsage() {
+        return usage;
+    }
+
+    public void setUsage(Usage usage) {
+        this.usage = usage;
+    }
+
+    /**
+     * token用量；prompt_cache_hit_tokens / prompt_cache_miss_tokens 为DeepSeek上下文硬盘缓存的命中情况
+     */
+    public static class Usage {
+        @JsonProperty("prompt_tokens")
+        private long promptTokens;
+        @JsonProperty("completion_tokens")
+        private long completionTokens;
+        @JsonProperty("total_tokens")
+        private long totalTokens;
+        @JsonProperty("prompt_cache_hit_tokens")
+        private long promptCacheHitTokens;
+        @JsonProperty("prompt_cache_miss_tokens")
+        private long promptCacheMissTokens;
+
+        public long getPromptTokens() {
+            return promptTokens;
+        }
+
+        public void setPromptTokens(long promptTokens) {
+            this.promptTokens = promptTokens;
+        }
+
+        public long getCompletionTokens() {
+            return completionTokens;
+        }
+
+        public void setCompletionTokens(long completionTokens) {
+            this.completionTokens = completionTokens;
+        }
+
+        public long getTotalTokens() {
+            return totalTokens;
+        }
+
+        public void setTotalTokens(long totalTokens) {
+            this.totalTokens = totalTokens;
+        }
+
+        public long getPromptCacheHitTokens() {
+            return promptCacheHitTokens;
+        }
+
+        public void setPromptCacheHitTokens(long promptCacheHitTokens) {
+            this.promptCacheHitTokens = promptCacheHitTokens;
+        }
+
+        public long getPromptCacheMissTokens() {
+            return promptCacheMissTokens;
+        }
+
+        public void setPromptCacheMissTokens(long promptCacheMissTokens) {
+            this.promptCacheMissTokens = promptCacheMissTokens;
+        }
+    }
 }
@@ -0,0 +1,50 @@
+package com.ulog.backend.ai.dto;
+
+import com.ulog.backend.conversation.dto.SelfValue;
+
+/**
+ * 联系人综合分析结果（一次LLM调用产出）
+ * relationshipAnalysis 只在用户有描述时生成，否则为null
+ */
+public class ContactEnrichment {
+
+    private SelfValue selfValue;
+    private String summary;
+    private String interactionSuggestions;
+    private String relationshipAnalysis;
+
+    public ContactEnrichment() {
+    }
+
+    public SelfValue getSelfValue() {
+        return selfValue;
+    }
+
+    public void setSelfValue(SelfValue selfValue) {
+        this.selfValue = selfValue;
+    }
+
+    public String getSummary() {
+        return summary;
+    }
+
+    public void setSummary(String summary) {
+        this.summary = summary;
+    }
+
+    public String getInteractionSuggestions() {
+        return interactionSuggestions;
+    }
+
+    public void setInteractionSuggestions(String interactionSuggestions) {
+        this.interactionSuggestions = interactionSuggestions;
+    }
+
+    public String getRelationshipAnalysis() {
+        return relationshipAnalysis;
+    }
+
+    public void setRelationshipAnalysis(String relationshipAnalysis) {
+        this.relationshipAnalysis = relationshipAnalysis;
+    }
+}
@@ -0,0 +1,8 @@
+package com.ulog.backend.ai.job;
+
+/**
+ * 已认领的AI后处理任务
+ * @param attempts 含本次在内的执行次数
+ */
+public record AiJob(Long id, AiJobType type, Long entityId, String payload, int attempts) {
+}
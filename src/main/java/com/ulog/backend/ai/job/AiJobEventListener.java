@@ -0,0 +1,64 @@
+package com.ulog.backend.ai.job;
+
+import com.ulog.backend.config.AiJobProperties;
+import com.ulog.backend.conversation.event.ContactCreatedEvent;
+import com.ulog.backend.conversation.event.ContactDescriptionUpdatedEvent;
+import com.ulog.backend.conversation.event.UserDescriptionUpdatedEvent;
+import java.time.Duration;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 把描述变更事件转换为AI后处理任务
+ * 同步监听，任务与业务变更在同一事务中写入（事务性outbox）；提交后唤醒本实例的工作线程
+ * 描述更新类任务延迟 ai.jobs.debounce-ms 执行，窗口内的多次编辑只执行最后一次
+ * 联系人的各项分析合并为一个综合分析任务，同一份描述只发送一次
+ */
+@Component
+public class AiJobEventListener {
+
+    private final AiJobOutbox outbox;
+    private final AiJobWorker worker;
+    private final AiJobProperties properties;
+
+    public AiJobEventListener(AiJobOutbox outbox, AiJobWorker worker, AiJobProperties properties) {
+        this.outbox = outbox;
+        this.worker = worker;
+        this.properties = properties;
+    }
+
+    @EventListener
+    public void onContactCreated(ContactCreatedEvent event) {
+        outbox.enqueue(AiJobType.CONTACT_ENRICHMENT, event.getContactId(), event.getDescription(), Duration.ZERO);
+        wakeUpAfterCommit();
+    }
+
+    @EventListener
+    public void onContactDescriptionUpdated(ContactDescriptionUpdatedEvent event) {
+        outbox.enqueue(AiJobType.CONTACT_ENRICHMENT, event.getContactId(), event.getDescription(),
+            Duration.ofMillis(properties.getDebounceMs()));
+        wakeUpAfterCommit();
+    }
+
+    @EventListener
+    public void onUserDescriptionUpdated(UserDescriptionUpdatedEvent event) {
+        outbox.enqueue(AiJobType.USER_SELF_VALUE, event.getUserId(), event.getDescription(),
+            Duration.ofMillis(properties.getDebounceMs()));
+        wakeUpAfterCommit();
+    }
+
+    private void wakeUpAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            worker.wakeUp();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                worker.wakeUp();
+            }
+        });
+    }
+}
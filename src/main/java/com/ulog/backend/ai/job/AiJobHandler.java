@@ -0,0 +1,18 @@
+package com.ulog.backend.ai.job;
+
+/**
+ * AI后处理任务的执行逻辑，每种任务类型一个实现
+ * handle 抛出异常时任务按退避策略重试，达到最大次数后调用 onGiveUp
+ */
+public interface AiJobHandler {
+
+    AiJobType getType();
+
+    void handle(AiJob job) throws Exception;
+
+    /**
+     * 重试次数用尽后的降级处理（如写入默认值）
+     */
+    default void onGiveUp(AiJob job) {
+    }
+}
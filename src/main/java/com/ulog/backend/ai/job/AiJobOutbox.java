@@ -0,0 +1,188 @@
+package com.ulog.backend.ai.job;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * AI后处理任务表（ai_jobs）的读写
+ * enqueue 加入调用方的事务，与业务变更一起提交或回滚；认领、完成、重试各自在独立的短事务中执行
+ */
+@Component
+public class AiJobOutbox {
+
+    private static final String SUPERSEDE_SQL = "UPDATE ai_jobs SET status = 'SUPERSEDED', dedupe_key = NULL, updated_at = ? "
+        + "WHERE job_type = ? AND entity_id = ? AND status = 'PENDING' AND dedupe_key <> ?";
+
+    // 相同去重键的任务已在排队时只顺延可执行时间（去抖），正在执行时忽略
+    private static final String INSERT_SQL = "INSERT INTO ai_jobs "
+        + "(job_type, entity_id, payload, dedupe_key, status, attempts, available_at, created_at, updated_at) "
+        + "VALUES (?, ?, ?, ?, 'PENDING', 0, ?, ?, ?) "
+        + "ON DUPLICATE KEY UPDATE available_at = CASE WHEN status = 'PENDING' THEN VALUES(available_at) ELSE available_at END, "
+        + "updated_at = VALUES(updated_at)";
+
+    private static final String LOCK_CLAIMABLE_SQL = "SELECT job_id, job_type, entity_id, payload, attempts FROM ai_jobs "
+        + "WHERE (status = 'PENDING' AND available_at <= ?) OR (status = 'RUNNING' AND lease_until < ?) "
+        + "ORDER BY available_at LIMIT 1 FOR UPDATE SKIP LOCKED";
+
+    private static final String CLAIM_SQL = "UPDATE ai_jobs SET status = 'RUNNING', claimed_by = ?, lease_until = ?, "
+        + "attempts = attempts + 1, updated_at = ? WHERE job_id = ?";
+
+    private static final String COMPLETE_SQL = "UPDATE ai_jobs SET status = ?, dedupe_key = NULL, lease_until = NULL, "
+        + "last_error = ?, updated_at = ? WHERE job_id = ? AND claimed_by = ? AND status = 'RUNNING'";
+
+    private static final String RENEW_LEASE_SQL = "UPDATE ai_jobs SET lease_until = ?, updated_at = ? "
+        + "WHERE job_id = ? AND claimed_by = ? AND status = 'RUNNING'";
+
+    private static final String RETRY_SQL = "UPDATE ai_jobs SET status = 'PENDING', available_at = ?, lease_until = NULL, "
+        + "last_error = ?, updated_at = ? WHERE job_id = ? AND claimed_by = ? AND status = 'RUNNING'";
+
+    private static final String NEWER_PENDING_SQL = "SELECT COUNT(*) FROM ai_jobs "
+        + "WHERE job_type = ? AND entity_id = ? AND status = 'PENDING' AND job_id > ?";
+
+    private static final String STATS_SQL = "SELECT status, COUNT(*), MIN(available_at) FROM ai_jobs "
+        + "WHERE status IN ('PENDING', 'RUNNING', 'FAILED') GROUP BY status";
+
+    private static final String PURGE_SQL = "DELETE FROM ai_jobs "
+        + "WHERE status IN ('DONE', 'FAILED', 'SUPERSEDED') AND updated_at < ?";
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public AiJobOutbox(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 写入任务；同一实体同类型尚未执行的旧任务（描述已过时）作废
+     * @param delay 最早在多久后执行
+     */
+    public void enqueue(AiJobType type, Long entityId, String payload, Duration delay) {
+        String dedupeKey = type.name() + ":" + entityId + ":" + sha256(payload != null ? payload : "");
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Timestamp availableAt = Timestamp.valueOf(LocalDateTime.now().plus(delay));
+        jdbcTemplate.update(SUPERSEDE_SQL, now, type.name(), entityId, dedupeKey);
+        jdbcTemplate.update(INSERT_SQL, type.name(), entityId, payload, dedupeKey, availableAt, now, now);
+    }
+
+    /**
+     * 认领一个可执行的任务（排队中且已到执行时间，或租约已过期）
+     */
+    public Optional<AiJob> claim(String owner, Duration lease) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            Timestamp nowTs = Timestamp.valueOf(now);
+            List<AiJob> jobs = jdbcTemplate.query(LOCK_CLAIMABLE_SQL, (rs, rowNum) -> new AiJob(
+                rs.getLong("job_id"),
+                AiJobType.valueOf(rs.getString("job_type")),
+                rs.getLong("entity_id"),
+                rs.getString("payload"),
+                rs.getInt("attempts") + 1), nowTs, nowTs);
+            if (jobs.isEmpty()) {
+                return Optional.empty();
+            }
+            AiJob job = jobs.get(0);
+            jdbcTemplate.update(CLAIM_SQL, owner, Timestamp.valueOf(now.plus(lease)), nowTs, job.id());
+            return Optional.of(job);
+        });
+    }
+
+    /**
+     * 续租正在执行的任务；租约已被其他实例重新认领时返回false
+     */
+    public boolean renewLease(AiJob job, String owner, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        return jdbcTemplate.update(RENEW_LEASE_SQL, Timestamp.valueOf(now.plus(lease)), Timestamp.valueOf(now),
+            job.id(), owner) > 0;
+    }
+
+    public boolean complete(AiJob job, String owner) {
+        return finish(job, owner, "DONE", null);
+    }
+
+    /**
+     * 放弃任务（重试次数用尽）
+     */
+    public boolean giveUp(AiJob job, String owner, String error) {
+        return finish(job, owner, "FAILED", error);
+    }
+
+    /**
+     * 安排重试；同一实体已有更新的任务在排队时直接作废本任务
+     */
+    public boolean retry(AiJob job, String owner, String error, LocalDateTime retryAt) {
+        Integer newer = jdbcTemplate.queryForObject(NEWER_PENDING_SQL, Integer.class,
+            job.type().name(), job.entityId(), job.id());
+        if (newer != null && newer > 0) {
+            return finish(job, owner, "SUPERSEDED", error);
+        }
+        return jdbcTemplate.update(RETRY_SQL, Timestamp.valueOf(retryAt), truncate(error),
+            Timestamp.valueOf(LocalDateTime.now()), job.id(), owner) > 0;
+    }
+
+    /**
+     * 当前队列状态
+     */
+    public AiJobQueueStats queryStats() {
+        LocalDateTime now = LocalDateTime.now();
+        long[] counts = new long[3];
+        long[] oldestReadyAgeSeconds = new long[1];
+        jdbcTemplate.query(STATS_SQL, rs -> {
+            String status = rs.getString(1);
+            long count = rs.getLong(2);
+            switch (status) {
+                case "PENDING" -> {
+                    counts[0] = count;
+                    Timestamp oldest = rs.getTimestamp(3);
+                    if (oldest != null) {
+                        oldestReadyAgeSeconds[0] = Math.max(0,
+                            Duration.between(oldest.toLocalDateTime(), now).getSeconds());
+                    }
+                }
+                case "RUNNING" -> counts[1] = count;
+                case "FAILED" -> counts[2] = count;
+                default -> {
+                }
+            }
+        });
+        return new AiJobQueueStats(counts[0], counts[1], counts[2], oldestReadyAgeSeconds[0]);
+    }
+
+    public int purgeFinished(LocalDateTime cutoff) {
+        return jdbcTemplate.update(PURGE_SQL, Timestamp.valueOf(cutoff));
+    }
+
+    private boolean finish(AiJob job, String owner, String status, String error) {
+        return jdbcTemplate.update(COMPLETE_SQL, status, truncate(error),
+            Timestamp.valueOf(LocalDateTime.now()), job.id(), owner) > 0;
+    }
+
+    private static String truncate(String error) {
+        if (error == null || error.length() <= MAX_ERROR_LENGTH) {
+            return error;
+        }
+        return error.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
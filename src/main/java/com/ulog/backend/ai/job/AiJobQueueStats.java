@@ -0,0 +1,13 @@
+package com.ulog.backend.ai.job;
+
+/**
+ * AI后处理任务队列状态
+ * @param pending 排队中的任务数（含等待去抖/退避的）
+ * @param running 执行中的任务数
+ * @param failed 重试用尽的任务数（保留期内）
+ * @param oldestReadyAgeSeconds 已到执行时间但仍在排队的最老任务等待了多久
+ */
+public record AiJobQueueStats(long pending, long running, long failed, long oldestReadyAgeSeconds) {
+
+    public static final AiJobQueueStats EMPTY = new AiJobQueueStats(0, 0, 0, 0);
+}
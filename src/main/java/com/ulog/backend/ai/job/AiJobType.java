@@ -0,0 +1,15 @@
+package com.ulog.backend.ai.job;
+
+/**
+ * AI后处理任务类型
+ */
+public enum AiJobType {
+    /** 计算联系人 self value（参数为联系人描述） */
+    CONTACT_SELF_VALUE,
+    /** 计算用户 self value（参数为用户描述） */
+    USER_SELF_VALUE,
+    /** 生成联系人交往建议和关系分析（读取最新描述） */
+    CONTACT_RELATIONSHIP_ANALYSIS,
+    /** 一次调用生成联系人 self value、要点摘要、交往建议和关系分析，解析失败时回退为上面两类任务的逐项调用 */
+    CONTACT_ENRICHMENT
+}
@@ -0,0 +1,252 @@
+package com.ulog.backend.ai.job;
+
+import com.ulog.backend.config.AiJobProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * AI后处理任务的工作线程
+ * 在 selfValueTaskExecutor 上常驻 ai.jobs.workers 个循环，逐个认领任务执行：
+ * 成功标记完成，失败按指数退避（带抖动）重试，次数用尽后放弃并交给处理器降级；
+ * 执行期间定期续租，避免长时间运行的任务被其他实例重新认领、副作用执行两次
+ * 请求线程只负责在事务中写入任务，不会再被长时间的reasoner调用阻塞
+ */
+@Component
+public class AiJobWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(AiJobWorker.class);
+
+    private final AiJobOutbox outbox;
+    private final AiJobProperties properties;
+    private final Executor executor;
+    private final Map<AiJobType, AiJobHandler> handlers = new EnumMap<>(AiJobType.class);
+    private final String nodeId;
+
+    private final Set<Thread> idleWorkers = ConcurrentHashMap.newKeySet();
+    private final Map<Long, AiJob> runningJobs = new ConcurrentHashMap<>();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile AiJobQueueStats queueStats = AiJobQueueStats.EMPTY;
+    private volatile boolean running;
+
+    public AiJobWorker(AiJobOutbox outbox,
+                       AiJobProperties properties,
+                       List<AiJobHandler> handlers,
+                       @Qualifier("selfValueTaskExecutor") Executor executor) {
+        this.outbox = outbox;
+        this.properties = properties;
+        this.executor = executor;
+        for (AiJobHandler handler : handlers) {
+            this.handlers.put(handler.getType(), handler);
+        }
+        String configured = properties.getNodeId();
+        this.nodeId = configured != null && !configured.isBlank()
+            ? configured
+            : ManagementFactory.getRuntimeMXBean().getName();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            log.info("AI job worker disabled");
+            return;
+        }
+        running = true;
+        for (int i = 0; i < properties.getWorkers(); i++) {
+            executor.execute(this::runLoop);
+        }
+        log.info("AI job worker started: workers={}, node={}", properties.getWorkers(), nodeId);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        wakeUp();
+    }
+
+    /**
+     * 唤醒空闲的工作线程（本实例提交新任务后调用）
+     */
+    public void wakeUp() {
+        for (Thread worker : idleWorkers) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private void runLoop() {
+        long pollNanos = TimeUnit.MILLISECONDS.toNanos(properties.getPollIntervalMs());
+        Duration lease = Duration.ofSeconds(properties.getLeaseSeconds());
+        while (running) {
+            Optional<AiJob> job;
+            try {
+                job = outbox.claim(nodeId, lease);
+            } catch (Exception e) {
+                log.error("Failed to claim AI job: {}", e.getMessage());
+                job = Optional.empty();
+            }
+            if (job.isPresent()) {
+                execute(job.get());
+                continue;
+            }
+            Thread current = Thread.currentThread();
+            idleWorkers.add(current);
+            try {
+                if (running) {
+                    LockSupport.parkNanos(this, pollNanos);
+                }
+            } finally {
+                idleWorkers.remove(current);
+            }
+        }
+    }
+
+    private void execute(AiJob job) {
+        AiJobHandler handler = handlers.get(job.type());
+        if (handler == null) {
+            log.error("No handler for AI job type {}, giving up job {}", job.type(), job.id());
+            outbox.giveUp(job, nodeId, "no handler");
+            return;
+        }
+        runningJobs.put(job.id(), job);
+        try {
+            log.info("Running AI job {} ({} for {}), attempt {}", job.id(), job.type(), job.entityId(), job.attempts());
+            handler.handle(job);
+            outbox.complete(job, nodeId);
+            completed.incrementAndGet();
+        } catch (Exception e) {
+            handleFailure(handler, job, e);
+        } finally {
+            runningJobs.remove(job.id());
+        }
+    }
+
+    /**
+     * 心跳：为本实例正在执行的任务延长租约
+     */
+    @Scheduled(fixedDelayString = "${ai.jobs.heartbeat-interval-ms:60000}")
+    public void renewLeases() {
+        Duration lease = Duration.ofSeconds(properties.getLeaseSeconds());
+        for (AiJob job : runningJobs.values()) {
+            try {
+                if (!outbox.renewLease(job, nodeId, lease) && runningJobs.containsKey(job.id())) {
+                    log.warn("Lost lease of AI job {} ({} for {}), it may be run again by another worker",
+                        job.id(), job.type(), job.entityId());
+                }
+            } catch (Exception e) {
+                log.warn("Failed to renew lease of AI job {}: {}", job.id(), e.getMessage());
+            }
+        }
+    }
+
+    private void handleFailure(AiJobHandler handler, AiJob job, Exception e) {
+        String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        try {
+            if (job.attempts() >= properties.getMaxAttempts()) {
+                log.error("AI job {} ({} for {}) failed after {} attempts, giving up: {}",
+                    job.id(), job.type(), job.entityId(), job.attempts(), error);
+                failed.incrementAndGet();
+                if (outbox.giveUp(job, nodeId, error)) {
+                    handler.onGiveUp(job);
+                }
+                return;
+            }
+            long delayMs = backoffMs(job.attempts());
+            log.warn("AI job {} ({} for {}) failed on attempt {}, retrying in {} ms: {}",
+                job.id(), job.type(), job.entityId(), job.attempts(), delayMs, error);
+            retried.incrementAndGet();
+            outbox.retry(job, nodeId, error, LocalDateTime.now().plus(Duration.ofMillis(delayMs)));
+        } catch (Exception updateEx) {
+            // 状态未能写回时任务保持RUNNING，租约到期后会被重新认领
+            log.error("Failed to record failure of AI job {}: {}", job.id(), updateEx.getMessage());
+        }
+    }
+
+    /**
+     * 指数退避，取 [一半, 全部] 之间的随机值，避免同时失败的任务同时重试
+     */
+    private long backoffMs(int attempts) {
+        long base = Math.max(1, properties.getBackoffBaseMs());
+        long exp = base << Math.min(20, Math.max(0, attempts - 1));
+        long capped = Math.min(properties.getBackoffMaxMs(), exp);
+        return capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+    }
+
+    /**
+     * 刷新队列深度和等待时长，并清理过期的已结束任务
+     */
+    @Scheduled(fixedDelay = 30000)
+    public void refreshStats() {
+        try {
+            AiJobQueueStats stats = outbox.queryStats();
+            queueStats = stats;
+            if (stats.oldestReadyAgeSeconds() > 300) {
+                log.warn("AI job queue backlog: pending={}, running={}, oldest ready job waiting {}s",
+                    stats.pending(), stats.running(), stats.oldestReadyAgeSeconds());
+            }
+        } catch (Exception e) {
+            log.warn("Failed to query AI job queue stats: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelay = 3600000)
+    public void purgeFinished() {
+        try {
+            int removed = outbox.purgeFinished(LocalDateTime.now().minusDays(properties.getRetentionDays()));
+            if (removed > 0) {
+                log.info("Purged {} finished AI jobs", removed);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to purge finished AI jobs: {}", e.getMessage());
+        }
+    }
+
+    public AiJobQueueStats getQueueStats() {
+        return queueStats;
+    }
+
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    public long getRetriedCount() {
+        return retried.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * 每分钟输出一次累计统计
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void logStats() {
+        AiJobQueueStats stats = queueStats;
+        if (stats.pending() + stats.running() == 0 && completed.get() + retried.get() + failed.get() == 0) {
+            return;
+        }
+        log.info("AI jobs: pending={}, running={}, oldestReadyAge={}s, completed={}, retried={}, failed={}",
+            stats.pending(), stats.running(), stats.oldestReadyAgeSeconds(),
+            completed.get(), retried.get(), failed.get());
+    }
+}
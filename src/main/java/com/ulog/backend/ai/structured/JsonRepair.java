@@ -0,0 +1,102 @@
+package com.ulog.backend.ai.structured;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * 本地修复"差一点"的JSON，避免为格式小问题再调用一次模型
+ * 处理：markdown代码块包裹、JSON前后的说明文字、输出被截断（补齐未闭合的字符串和括号）
+ * 尾逗号、注释、单引号、未转义的换行等交给宽松模式的Jackson解析
+ */
+final class JsonRepair {
+
+    private JsonRepair() {
+    }
+
+    /**
+     * 返回修复后的文本；找不到JSON对象时返回null
+     */
+    static String repair(String raw) {
+        if (raw == null) {
+            return null;
+        }
+        String text = stripCodeFence(raw.strip());
+        int start = text.indexOf('{');
+        if (start < 0) {
+            return null;
+        }
+
+        Deque<Character> closers = new ArrayDeque<>();
+        boolean inString = false;
+        boolean escaped = false;
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+                continue;
+            }
+            if (c == '"') {
+                inString = true;
+            } else if (c == '{') {
+                closers.push('}');
+            } else if (c == '[') {
+                closers.push(']');
+            } else if ((c == '}' || c == ']') && !closers.isEmpty()) {
+                closers.pop();
+                if (closers.isEmpty()) {
+                    // 最外层对象结束，丢弃后面的说明文字
+                    return text.substring(start, i + 1);
+                }
+            }
+        }
+
+        // 输出被截断：补齐未闭合的字符串和括号
+        StringBuilder sb = new StringBuilder(text.substring(start));
+        if (inString) {
+            if (escaped) {
+                sb.setLength(sb.length() - 1);
+            }
+            sb.append('"');
+        }
+        trimDanglingSeparator(sb);
+        while (!closers.isEmpty()) {
+            sb.append(closers.pop());
+        }
+        return sb.toString();
+    }
+
+    private static String stripCodeFence(String text) {
+        int fence = text.indexOf("```");
+        if (fence < 0) {
+            return text;
+        }
+        // 跳过 ```json 这一行的语言标记
+        int contentStart = text.indexOf('\n', fence);
+        if (contentStart < 0) {
+            return text;
+        }
+        int end = text.indexOf("```", contentStart);
+        return end < 0 ? text.substring(contentStart + 1) : text.substring(contentStart + 1, end);
+    }
+
+    private static void trimDanglingSeparator(StringBuilder sb) {
+        while (sb.length() > 0 && Character.isWhitespace(sb.charAt(sb.length() - 1))) {
+            sb.setLength(sb.length() - 1);
+        }
+        if (sb.length() == 0) {
+            return;
+        }
+        char last = sb.charAt(sb.length() - 1);
+        if (last == ',') {
+            sb.setLength(sb.length() - 1);
+        } else if (last == ':') {
+            sb.append("null");
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.ulog.backend.ai.structured;
+
+/**
+ * 结构化输出在本地修复和一次纠正重问之后仍不是合法的JSON，或不符合DTO的校验规则
+ */
+public class StructuredOutputException extends RuntimeException {
+
+    public StructuredOutputException(String message) {
+        super(message);
+    }
+}
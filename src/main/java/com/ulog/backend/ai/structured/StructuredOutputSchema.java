@@ -0,0 +1,71 @@
+package com.ulog.backend.ai.structured;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 一种结构化输出的约定：目标DTO、必需字段、业务校验和输出长度上限
+ * 必需字段在JSON树上检查（缺失或为null都算缺失），转换为DTO后再执行业务校验
+ *
+ * @param <T> 目标DTO类型
+ */
+public final class StructuredOutputSchema<T> {
+
+    private final String name;
+    private final Class<T> type;
+    private final List<String> requiredFields;
+    private final Function<T, String> validator;
+    private final int maxTokens;
+    private final String wrapperField;
+
+    private StructuredOutputSchema(String name, Class<T> type, List<String> requiredFields,
+                                   Function<T, String> validator, int maxTokens, String wrapperField) {
+        this.name = name;
+        this.type = type;
+        this.requiredFields = requiredFields;
+        this.validator = validator;
+        this.maxTokens = maxTokens;
+        this.wrapperField = wrapperField;
+    }
+
+    /**
+     * @param name 监控指标和日志中的名称
+     * @param validator 业务校验，返回错误描述（会原样写进纠正重问的提示），通过时返回null
+     * @param maxTokens JSON mode 下的 max_tokens，防止异常情况下无限输出
+     */
+    public static <T> StructuredOutputSchema<T> of(String name, Class<T> type, List<String> requiredFields,
+                                                   Function<T, String> validator, int maxTokens) {
+        return new StructuredOutputSchema<>(name, type, List.copyOf(requiredFields), validator, maxTokens, null);
+    }
+
+    /**
+     * 允许模型把结果包在一层对象里返回（如 {"aibook":{...}}），解析时先取出该字段
+     */
+    public StructuredOutputSchema<T> unwrapping(String field) {
+        return new StructuredOutputSchema<>(name, type, requiredFields, validator, maxTokens, field);
+    }
+
+    public String validate(T value) {
+        return validator != null ? validator.apply(value) : null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    public List<String> getRequiredFields() {
+        return requiredFields;
+    }
+
+    public int getMaxTokens() {
+        return maxTokens;
+    }
+
+    public String getWrapperField() {
+        return wrapperField;
+    }
+}
@@ -0,0 +1,71 @@
+package com.ulog.backend.ai.structured;
+
+import com.ulog.backend.ai.dto.AiActionPlanItem;
+import com.ulog.backend.ai.dto.AiGoalStrategyResponse;
+import com.ulog.backend.contact.dto.AibookDto;
+import com.ulog.backend.conversation.dto.ExtractionResult;
+import com.ulog.backend.conversation.dto.SelfValue;
+import com.ulog.backend.conversation.dto.SupplementAnalysis;
+import java.util.List;
+
+/**
+ * 各AI结构化输出的约定
+ * 校验失败的描述会写进纠正重问的提示，用中文说明具体哪里不符合要求
+ */
+public final class StructuredOutputSchemas {
+
+    public static final StructuredOutputSchema<ExtractionResult> EXTRACTION_RESULT = StructuredOutputSchema.of(
+        "extraction-result", ExtractionResult.class,
+        List.of("intent", "updates", "shouldContinueCurrentQuestion", "wantsToEnd", "hasMinimumInfo"),
+        null, 1024);
+
+    public static final StructuredOutputSchema<SupplementAnalysis> SUPPLEMENT_ANALYSIS = StructuredOutputSchema.of(
+        "supplement-analysis", SupplementAnalysis.class,
+        List.of("needsSupplement"),
+        StructuredOutputSchemas::validateSupplementAnalysis, 512);
+
+    public static final StructuredOutputSchema<AiGoalStrategyResponse> GOAL_STRATEGY = StructuredOutputSchema.of(
+        "goal-strategy", AiGoalStrategyResponse.class,
+        List.of("strategy", "actionPlans"),
+        StructuredOutputSchemas::validateGoalStrategy, 4096);
+
+    public static final StructuredOutputSchema<AibookDto> AIBOOK = StructuredOutputSchema.of(
+        "aibook", AibookDto.class,
+        List.of("behaviorTendencies", "valuesAndEmotions", "latentNeeds", "taboos", "relationshipOpportunities"),
+        null, 1024)
+        .unwrapping("aibook");
+
+    public static final StructuredOutputSchema<SelfValue> SELF_VALUE = StructuredOutputSchema.of(
+        "self-value", SelfValue.class,
+        List.of("selfEsteem", "selfAcceptance", "selfEfficacy", "existentialValue", "selfConsistency"),
+        value -> value.isValid() ? null : "五项评分都必须是1.0到5.0之间的数字", 256);
+
+    private StructuredOutputSchemas() {
+    }
+
+    private static String validateSupplementAnalysis(SupplementAnalysis analysis) {
+        if (analysis.isNeedsSupplement()
+            && (analysis.getSupplementQuestion() == null || analysis.getSupplementQuestion().isBlank())) {
+            return "needsSupplement 为 true 时 supplementQuestion 不能为空";
+        }
+        return null;
+    }
+
+    private static String validateGoalStrategy(AiGoalStrategyResponse response) {
+        if (response.getStrategy().isBlank()) {
+            return "strategy 不能为空";
+        }
+        if (response.getActionPlans().isEmpty()) {
+            return "actionPlans 至少包含一个行动计划";
+        }
+        for (AiActionPlanItem plan : response.getActionPlans()) {
+            if (plan == null || plan.getTitle() == null || plan.getTitle().isBlank()) {
+                return "每个行动计划都必须有 title";
+            }
+            if (plan.getScheduledDays() != null && plan.getScheduledDays() < 0) {
+                return "scheduledDays 必须是不小于0的整数";
+            }
+        }
+        return null;
+    }
+}
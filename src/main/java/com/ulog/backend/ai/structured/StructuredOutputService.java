@@ -0,0 +1,278 @@
+package com.ulog.backend.ai.structured;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.ulog.backend.ai.DeepseekCaller;
+import com.ulog.backend.ai.DeepseekClient;
+import com.ulog.backend.ai.DeepseekTrafficClass;
+import com.ulog.backend.ai.dto.ChatCompletionRequest;
+import com.ulog.backend.ai.dto.ChatCompletionResponse;
+import com.ulog.backend.ai.dto.ChatMessage;
+import com.ulog.backend.common.exception.BadRequestException;
+import com.ulog.backend.compliance.dto.ModerationResult;
+import com.ulog.backend.compliance.service.ContentModerationService;
+import com.ulog.backend.config.DeepseekProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * 结构化输出：请求JSON并解析为DTO
+ * 1. chat模型开启 JSON mode 并设置 max_tokens（reasoner模型不开启，靠后面的本地修复）
+ * 2. 严格解析失败时在本地修复（代码块、前后说明文字、截断、尾逗号等）后宽松解析
+ * 3. 按 StructuredOutputSchema 检查必需字段、转换DTO并做业务校验
+ * 4. 缓存调用只缓存通过校验的回复
+ * 5. 仍不合格时把上一次的回复和具体问题发回模型纠正一次（消息前缀不变，可命中上下文缓存），再失败抛出 StructuredOutputException
+ * 指标 llm.structured.output，标签 schema / result（valid、repaired、reasked、failed）
+ */
+@Service
+public class StructuredOutputService {
+
+    private static final Logger log = LoggerFactory.getLogger(StructuredOutputService.class);
+
+    private static final String INPUT_REJECTED = "抱歉，您的输入包含不当内容，请修改后重试。";
+    private static final String OUTPUT_REJECTED = "抱歉，AI生成的内容未通过审核，请重新提问。";
+
+    private final DeepseekClient client;
+    private final DeepseekProperties properties;
+    private final ContentModerationService contentModerationService;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader lenientReader;
+    private final MeterRegistry registry;
+
+    public StructuredOutputService(DeepseekClient client, DeepseekProperties properties,
+                                   ContentModerationService contentModerationService, ObjectMapper objectMapper,
+                                   MeterRegistry registry) {
+        this.client = client;
+        this.properties = properties;
+        this.contentModerationService = contentModerationService;
+        this.objectMapper = objectMapper;
+        this.lenientReader = objectMapper.reader().withFeatures(
+            JsonReadFeature.ALLOW_TRAILING_COMMA,
+            JsonReadFeature.ALLOW_JAVA_COMMENTS,
+            JsonReadFeature.ALLOW_SINGLE_QUOTES,
+            JsonReadFeature.ALLOW_UNQUOTED_FIELD_NAMES,
+            JsonReadFeature.ALLOW_UNESCAPED_CONTROL_CHARS);
+        this.registry = registry;
+    }
+
+    /**
+     * 发送调用方组装好的请求（不做内容审核，不走响应缓存）
+     */
+    public <T> Mono<T> complete(StructuredOutputSchema<T> schema, ChatCompletionRequest request) {
+        return execute(schema, request, false, false);
+    }
+
+    /**
+     * 与 DeepseekService.askCached 相同的审核和缓存语义，结果解析为DTO
+     */
+    public <T> Mono<T> askCached(StructuredOutputSchema<T> schema, String systemPrompt, String userPrompt,
+                                 DeepseekTrafficClass trafficClass, DeepseekCaller caller) {
+        return ask(schema, null, systemPrompt, userPrompt, true, trafficClass, caller);
+    }
+
+    /**
+     * 与 DeepseekService.askReasoner 相同的审核语义，结果解析为DTO
+     */
+    public <T> Mono<T> askReasoner(StructuredOutputSchema<T> schema, String systemPrompt, String userPrompt,
+                                   DeepseekCaller caller) {
+        return ask(schema, properties.getReasonerModel(), systemPrompt, userPrompt, false,
+            DeepseekTrafficClass.INTERACTIVE, caller);
+    }
+
+    /**
+     * 与 DeepseekService.askReasonerCached 相同的审核和缓存语义，结果解析为DTO
+     */
+    public <T> Mono<T> askReasonerCached(StructuredOutputSchema<T> schema, String systemPrompt, String userPrompt,
+                                         DeepseekTrafficClass trafficClass, DeepseekCaller caller) {
+        return ask(schema, properties.getReasonerModel(), systemPrompt, userPrompt, true, trafficClass, caller);
+    }
+
+    private <T> Mono<T> ask(StructuredOutputSchema<T> schema, String model, String systemPrompt, String userPrompt,
+                            boolean cached, DeepseekTrafficClass trafficClass, DeepseekCaller caller) {
+        // 缓存调用会切换线程，用户在这里（调用线程上）取好，额度检查和token记账都靠它
+        Long userId = client.currentUserId();
+        ModerationResult inputModeration = contentModerationService.moderateContent(userId, "ai_input", userPrompt);
+        if (!inputModeration.isPassed()) {
+            log.warn("User input rejected by content moderation: {}", inputModeration.getRiskDetails());
+            return Mono.error(new BadRequestException(INPUT_REJECTED));
+        }
+
+        ChatCompletionRequest request = new ChatCompletionRequest();
+        request.setModel(model);
+        request.setMessages(List.of(
+            new ChatMessage("system", systemPrompt),
+            new ChatMessage("user", userPrompt)
+        ));
+        request.setTemperature(0.7);
+        request.setTrafficClass(trafficClass);
+        request.setCaller(caller);
+        request.setUserId(userId);
+        return execute(schema, request, cached, true);
+    }
+
+    private <T> Mono<T> execute(StructuredOutputSchema<T> schema, ChatCompletionRequest request, boolean cached,
+                                boolean moderated) {
+        if (supportsJsonMode(request)) {
+            if (request.getResponseFormat() == null) {
+                request.setResponseFormat(ChatCompletionRequest.ResponseFormat.jsonObject());
+            }
+            if (request.getMaxTokens() == null) {
+                request.setMaxTokens(schema.getMaxTokens());
+            }
+        }
+
+        return call(schema, request, cached, moderated).flatMap(content -> {
+            Attempt<T> attempt = parse(schema, content);
+            if (attempt.error() == null) {
+                count(schema, attempt.repaired() ? "repaired" : "valid");
+                return Mono.just(attempt.value());
+            }
+            log.warn("Structured output {} invalid ({}), asking model to correct it", schema.getName(), attempt.error());
+            log.debug("Invalid structured output content: {}", content);
+            return reask(schema, request, content, attempt.error(), moderated);
+        });
+    }
+
+    private <T> Mono<T> reask(StructuredOutputSchema<T> schema, ChatCompletionRequest original, String previous,
+                              String error, boolean moderated) {
+        List<ChatMessage> messages = new ArrayList<>(original.getMessages());
+        messages.add(new ChatMessage("assistant", previous));
+        messages.add(new ChatMessage("user",
+            "你上一次的回复无法使用：" + error + "。请按原来的要求重新输出，只返回一个完整的JSON对象，不要包含任何其他内容。"));
+
+        ChatCompletionRequest retry = new ChatCompletionRequest();
+        retry.setModel(original.getModel());
+        retry.setMessages(messages);
+        retry.setTemperature(original.getTemperature());
+        retry.setResponseFormat(original.getResponseFormat());
+        retry.setMaxTokens(original.getMaxTokens());
+        retry.setStop(original.getStop());
+        retry.setTrafficClass(original.getTrafficClass());
+        retry.setCaller(original.getCaller());
+        retry.setUserId(original.getUserId());
+
+        return call(schema, retry, false, moderated).map(content -> {
+            Attempt<T> attempt = parse(schema, content);
+            if (attempt.error() != null) {
+                count(schema, "failed");
+                log.error("Structured output {} still invalid after correction ({}): {}",
+                    schema.getName(), attempt.error(), content);
+                throw new StructuredOutputException(
+                    "Invalid " + schema.getName() + " response: " + attempt.error());
+            }
+            count(schema, "reasked");
+            return attempt.value();
+        });
+    }
+
+    private <T> Mono<String> call(StructuredOutputSchema<T> schema, ChatCompletionRequest request, boolean cached,
+                                  boolean moderated) {
+        // 只缓存能通过校验的回复，否则同样的请求在缓存有效期内会一直拿到坏结果
+        return (cached
+                ? client.chatCached(request, response -> parse(schema, contentOf(response)).error() == null)
+                : client.chat(request))
+            .map(response -> {
+                String content = contentOf(response);
+                if (moderated && !content.isEmpty()) {
+                    ModerationResult outputModeration = contentModerationService.moderateContent(
+                        request.getUserId(), "ai_output", content);
+                    if (!outputModeration.isPassed()) {
+                        log.warn("AI output rejected by content moderation: {}", outputModeration.getRiskDetails());
+                        throw new BadRequestException(OUTPUT_REJECTED);
+                    }
+                }
+                return content;
+            });
+    }
+
+    /**
+     * 解析并校验一次回复；不合格时返回错误描述（中文，会写进纠正重问的提示）
+     */
+    <T> Attempt<T> parse(StructuredOutputSchema<T> schema, String content) {
+        boolean repaired = false;
+        JsonNode node = readTree(objectMapper.reader(), content);
+        if (node == null) {
+            repaired = true;
+            node = readTree(lenientReader, JsonRepair.repair(content));
+        }
+        if (node == null) {
+            return Attempt.invalid("回复不是合法的JSON");
+        }
+
+        String wrapper = schema.getWrapperField();
+        if (wrapper != null && node.path(wrapper).isObject()) {
+            node = node.get(wrapper);
+        }
+        if (!node.isObject()) {
+            return Attempt.invalid("回复必须是一个JSON对象");
+        }
+        List<String> missing = new ArrayList<>();
+        for (String field : schema.getRequiredFields()) {
+            if (!node.hasNonNull(field)) {
+                missing.add(field);
+            }
+        }
+        if (!missing.isEmpty()) {
+            return Attempt.invalid("缺少字段 " + String.join("、", missing));
+        }
+
+        T value;
+        try {
+            value = objectMapper.treeToValue(node, schema.getType());
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            return Attempt.invalid("字段类型或取值不正确（" + e.getMessage().lines().findFirst().orElse("") + "）");
+        }
+        String error = schema.validate(value);
+        return error != null ? Attempt.invalid(error) : new Attempt<>(value, repaired, null);
+    }
+
+    private JsonNode readTree(ObjectReader reader, String content) {
+        if (content == null || content.isBlank()) {
+            return null;
+        }
+        try {
+            JsonNode node = reader.readTree(content);
+            return node == null || node.isMissingNode() ? null : node;
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private boolean supportsJsonMode(ChatCompletionRequest request) {
+        String model = request.getModel() != null ? request.getModel() : properties.getModel();
+        return properties.getReasonerModel() == null || !properties.getReasonerModel().equals(model);
+    }
+
+    private String contentOf(ChatCompletionResponse response) {
+        if (response.getChoices() == null || response.getChoices().isEmpty()) {
+            return "";
+        }
+        ChatCompletionResponse.Choice choice = response.getChoices().get(0);
+        if (choice.getMessage() != null && choice.getMessage().getContent() != null) {
+            return choice.getMessage().getContent();
+        }
+        if (choice.getDelta() != null && choice.getDelta().getContent() != null) {
+            return choice.getDelta().getContent();
+        }
+        return "";
+    }
+
+    private void count(StructuredOutputSchema<?> schema, String result) {
+        registry.counter("llm.structured.output", "schema", schema.getName(), "result", result).increment();
+    }
+
+    record Attempt<T>(T value, boolean repaired, String error) {
+
+        static <T> Attempt<T> invalid(String error) {
+            return new Attempt<>(null, false, error);
+        }
+    }
+}
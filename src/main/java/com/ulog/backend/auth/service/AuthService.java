@@ -12,12 +12,14 @@ import com.ulog.backend.domain.user.User;
 import com.ulog.backend.repository.RefreshTokenRepository;
 import com.ulog.backend.repository.UserRepository;
 import com.ulog.backend.security.JwtTokenProvider;
+import com.ulog.backend.security.UserAuthStateChangedEvent;
 import com.ulog.backend.user.dto.UserResponse;
 import com.ulog.backend.util.RateLimiterService;
 import com.ulog.backend.compliance.service.OperationLogService;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Optional;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -36,8 +38,9 @@ public class AuthService {
     private final RateLimiterService rateLimiterService;
     private final SmsCodeService smsCodeService;
     private final OperationLogService operationLogService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public AuthService(UserRepository userRepository, RefreshTokenRepository refreshTokenRepository, PasswordEncoder passwordEncoder, JwtTokenProvider tokenProvider, JwtProperties jwtProperties, RateLimiterService rateLimiterService, SmsCodeService smsCodeService, OperationLogService operationLogService) {
+    public AuthService(UserRepository userRepository, RefreshTokenRepository refreshTokenRepository, PasswordEncoder passwordEncoder, JwtTokenProvider tokenProvider, JwtProperties jwtProperties, RateLimiterService rateLimiterService, SmsCodeService smsCodeService, OperationLogService operationLogService, ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.refreshTokenRepository = refreshTokenRepository;
         this.passwordEncoder = passwordEncoder;
@@ -46,6 +49,7 @@ public class AuthService {
         this.rateLimiterService = rateLimiterService;
         this.smsCodeService = smsCodeService;
         this.operationLogService = operationLogService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
@@ -134,10 +138,14 @@ public class AuthService {
         if (attempts >= LOGIN_FAIL_LIMIT) {
             user.setFailedAttempts(0);
             user.setLockedUntil(LocalDateTime.now().plus(LOCK_DURATION));
+            eventPublisher.publishEvent(new UserAuthStateChangedEvent(user.getId(), "account_locked"));
         }
     }
 
     private void resetLoginState(User user) {
+        if (user.getLockedUntil() != null) {
+            eventPublisher.publishEvent(new UserAuthStateChangedEvent(user.getId(), "account_unlocked"));
+        }
         user.setFailedAttempts(0);
         user.setLockedUntil(null);
         user.setLastFailedAt(null);
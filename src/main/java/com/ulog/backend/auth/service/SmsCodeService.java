@@ -1,28 +1,58 @@
 package com.ulog.backend.auth.service;
 
-import java.time.Instant;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import com.ulog.backend.common.store.EphemeralCodeStore;
+import java.time.Duration;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+/**
+ * 短信验证码服务
+ * 验证码保存在 EphemeralCodeStore 中，多实例部署时任一实例下发的验证码都能在其他实例上校验，且只能使用一次
+ */
 @Service
 public class SmsCodeService {
 
+    private static final Logger log = LoggerFactory.getLogger(SmsCodeService.class);
+
     private static final String DEFAULT_CODE = "123456";
-    private static final long TTL_SECONDS = 300;
+    private static final Duration TTL = Duration.ofSeconds(300);
+    private static final String KEY_PREFIX = "sms:";
+
+    private final EphemeralCodeStore codeStore;
 
-    private final Map<String, Long> codeStore = new ConcurrentHashMap<>();
+    public SmsCodeService(EphemeralCodeStore codeStore) {
+        this.codeStore = codeStore;
+    }
 
     public void storeCode(String phone) {
-        codeStore.put(phone, Instant.now().getEpochSecond());
+        codeStore.put(KEY_PREFIX + phone, DEFAULT_CODE, TTL);
     }
 
     public boolean verify(String phone, String code) {
-        Long issuedAt = codeStore.computeIfAbsent(phone, key -> Instant.now().getEpochSecond());
-        if (Instant.now().getEpochSecond() - issuedAt > TTL_SECONDS) {
-            codeStore.put(phone, Instant.now().getEpochSecond());
-            return false;
+        String key = KEY_PREFIX + phone;
+        Optional<String> stored = codeStore.get(key);
+        if (stored.isEmpty()) {
+            // 尚未接入短信通道，未下发过验证码时使用固定验证码
+            return DEFAULT_CODE.equals(code);
+        }
+        return code != null && codeStore.consume(key, code);
+    }
+
+    /**
+     * 定时清理过期验证码
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictExpiredCodes() {
+        try {
+            int removed = codeStore.evictExpired();
+            if (removed > 0) {
+                log.debug("Evicted {} expired sms codes", removed);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to evict expired sms codes", e);
         }
-        return DEFAULT_CODE.equals(code);
     }
 }
@@ -9,6 +9,8 @@ public enum ErrorCode {
     SMS_CODE_INVALID(1005, "invalid verification code"),
     USER_ALREADY_EXISTS(1006, "user already exists"),
     RATE_LIMITED(1007, "too many requests"),
+    CONFLICT(1008, "resource was modified concurrently"),
+    QUOTA_EXCEEDED(1009, "usage quota exceeded"),
 
     AUTH_UNAUTHORIZED(2001, "unauthorized"),
     TOKEN_EXPIRED(2002, "token expired"),
@@ -18,6 +20,7 @@ public enum ErrorCode {
     FORBIDDEN(2006, "forbidden"),
 
     STORAGE_ERROR(4000, "storage error"),
+    SERVICE_BUSY(4001, "service busy, please retry later"),
 
     SERVER_ERROR(5000, "internal server error");
 
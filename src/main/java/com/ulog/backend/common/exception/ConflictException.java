@@ -0,0 +1,13 @@
+package com.ulog.backend.common.exception;
+
+import com.ulog.backend.common.api.ErrorCode;
+
+public class ConflictException extends ApiException {
+    public ConflictException() {
+        super(ErrorCode.CONFLICT);
+    }
+
+    public ConflictException(String message) {
+        super(ErrorCode.CONFLICT, message);
+    }
+}
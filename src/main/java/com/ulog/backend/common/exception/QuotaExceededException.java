@@ -0,0 +1,13 @@
+package com.ulog.backend.common.exception;
+
+import com.ulog.backend.common.api.ErrorCode;
+
+public class QuotaExceededException extends ApiException {
+    public QuotaExceededException() {
+        super(ErrorCode.QUOTA_EXCEEDED);
+    }
+
+    public QuotaExceededException(String message) {
+        super(ErrorCode.QUOTA_EXCEEDED, message);
+    }
+}
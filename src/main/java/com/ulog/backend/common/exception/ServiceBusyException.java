@@ -0,0 +1,13 @@
+package com.ulog.backend.common.exception;
+
+import com.ulog.backend.common.api.ErrorCode;
+
+public class ServiceBusyException extends ApiException {
+    public ServiceBusyException() {
+        super(ErrorCode.SERVICE_BUSY);
+    }
+
+    public ServiceBusyException(String message) {
+        super(ErrorCode.SERVICE_BUSY, message);
+    }
+}
@@ -1,28 +1,34 @@
 package com.ulog.backend.common.interceptor;
 
 import com.ulog.backend.config.RateLimitProperties;
+import com.ulog.backend.util.RateLimiterService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.time.Duration;
+import java.util.regex.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
 
 @Component
 public class RateLimitInterceptor implements HandlerInterceptor {
 
     private static final Logger log = LoggerFactory.getLogger(RateLimitInterceptor.class);
 
+    private static final Duration WINDOW = Duration.ofMinutes(1);
+
+    // 没有匹配到路由模板时，把数字ID和UUID之类的路径段归一化，避免每个会话ID都产生一个限流key
+    private static final Pattern ID_SEGMENT = Pattern.compile(
+        "/(\\d+|[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}|[a-zA-Z]*_?[0-9a-fA-F]{16,})(?=/|$)");
+
     private final RateLimitProperties properties;
-    
-    // 存储每个IP的请求计数: key=ip:path, value=RequestCounter
-    private final Map<String, RequestCounter> requestCounts = new ConcurrentHashMap<>();
+    private final RateLimiterService rateLimiterService;
 
-    public RateLimitInterceptor(RateLimitProperties properties) {
+    public RateLimitInterceptor(RateLimitProperties properties, RateLimiterService rateLimiterService) {
         this.properties = properties;
+        this.rateLimiterService = rateLimiterService;
     }
 
     @Override
@@ -35,16 +41,14 @@ public class RateLimitInterceptor implements HandlerInterceptor {
 
         String clientIp = getClientIpAddress(request);
         String path = request.getRequestURI();
-        String key = clientIp + ":" + path;
+        // key = ip:路由模板，如 1.2.3.4:/api/qa/{sessionId}/history
+        String key = clientIp + ":" + resolveRoute(request, path);
 
         // 获取该路径的限流配置
         int limitPerMinute = getRateLimitForPath(path);
 
-        // 获取或创建计数器
-        RequestCounter counter = requestCounts.computeIfAbsent(key, k -> new RequestCounter());
-
         // 检查是否超过限制
-        if (!counter.allowRequest(limitPerMinute)) {
+        if (!rateLimiterService.tryAcquire(key, limitPerMinute, WINDOW)) {
             log.warn("Rate limit exceeded for IP {} on path {}", clientIp, path);
             response.setStatus(429); // Too Many Requests
             response.setContentType("application/json");
@@ -55,6 +59,14 @@ public class RateLimitInterceptor implements HandlerInterceptor {
         return true;
     }
 
+    private String resolveRoute(HttpServletRequest request, String path) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern != null) {
+            return pattern.toString();
+        }
+        return ID_SEGMENT.matcher(path).replaceAll("/{id}");
+    }
+
     private int getRateLimitForPath(String path) {
         if (path.contains("/api/auth/login") || path.contains("/api/auth/register")) {
             return properties.getLoginPerMinute();
@@ -78,32 +90,4 @@ public class RateLimitInterceptor implements HandlerInterceptor {
         }
         return ip;
     }
-
-    /**
-     * 请求计数器（使用滑动窗口算法）
-     */
-    private static class RequestCounter {
-        private final AtomicInteger count = new AtomicInteger(0);
-        private long windowStart = System.currentTimeMillis();
-        private static final long WINDOW_SIZE_MS = 60000; // 1分钟
-
-        public synchronized boolean allowRequest(int limit) {
-            long now = System.currentTimeMillis();
-            
-            // 如果超过1分钟，重置窗口
-            if (now - windowStart >= WINDOW_SIZE_MS) {
-                count.set(0);
-                windowStart = now;
-            }
-
-            // 检查是否超过限制
-            if (count.get() >= limit) {
-                return false;
-            }
-
-            count.incrementAndGet();
-            return true;
-        }
-    }
 }
-
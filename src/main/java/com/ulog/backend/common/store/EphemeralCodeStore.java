@@ -0,0 +1,33 @@
+package com.ulog.backend.common.store;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * 带过期时间的临时值存储（如短信验证码）
+ * 单实例部署用内存实现；多实例部署用共享存储实现，使一个实例下发的验证码在其他实例上也能校验
+ */
+public interface EphemeralCodeStore {
+
+    /**
+     * 保存（或覆盖）一个值
+     */
+    void put(String key, String value, Duration ttl);
+
+    /**
+     * 读取未过期的值
+     */
+    Optional<String> get(String key);
+
+    /**
+     * 值匹配且未过期时原子地删除，保证只能使用一次
+     * @return 是否匹配并删除成功
+     */
+    boolean consume(String key, String value);
+
+    /**
+     * 删除已过期的值
+     * @return 删除的数量
+     */
+    int evictExpired();
+}
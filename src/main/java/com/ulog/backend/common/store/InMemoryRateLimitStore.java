@@ -0,0 +1,118 @@
+package com.ulog.backend.common.store;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 内存限流存储（GCRA，通用信元速率算法）
+ * 每个key只保存一个“理论到达时间”（TAT），窗口内最多允许 maxRequests 次、可一次性突发用完；
+ * TAT早于当前时间的key与从未出现过的key等价，可随时删除，内存与活跃key数成正比
+ * key按哈希分片存放，每个分片有条目上限，超限时先清理空闲key再随机淘汰
+ */
+public class InMemoryRateLimitStore implements RateLimitStore {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryRateLimitStore.class);
+
+    private final Map<String, AtomicLong>[] shards;
+    private final int maxKeysPerShard;
+
+    @SuppressWarnings("unchecked")
+    public InMemoryRateLimitStore(int shards, int maxKeysPerShard) {
+        // 分片数取2的幂，便于用位运算定位分片
+        int shardCount = 1;
+        while (shardCount < shards) {
+            shardCount <<= 1;
+        }
+        this.shards = new Map[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            this.shards[i] = new ConcurrentHashMap<>();
+        }
+        this.maxKeysPerShard = Math.max(1, maxKeysPerShard);
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int maxRequests, Duration window) {
+        if (maxRequests <= 0) {
+            return false;
+        }
+        long windowNanos = window.toNanos();
+        long interval = windowNanos / maxRequests;
+        long now = System.nanoTime();
+
+        Map<String, AtomicLong> shard = shardFor(key);
+        AtomicLong tat = shard.get(key);
+        if (tat == null) {
+            if (shard.size() >= maxKeysPerShard) {
+                shrink(shard, now);
+            }
+            tat = shard.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+
+        while (true) {
+            // 每次CAS前重新取时间，避免线程被挂起后用过时的时间误判
+            long current = tat.get();
+            long time = System.nanoTime();
+            long next = Math.max(current, time) + interval;
+            // 新的TAT超出当前时间一个窗口以上，说明窗口内的配额已用完
+            if (next - time > windowNanos) {
+                return false;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public int evictIdle() {
+        long now = System.nanoTime();
+        int removed = 0;
+        for (Map<String, AtomicLong> shard : shards) {
+            removed += removeIdle(shard, now);
+        }
+        return removed;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Map<String, AtomicLong> shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    private Map<String, AtomicLong> shardFor(String key) {
+        int h = key.hashCode();
+        return shards[(h ^ (h >>> 16)) & (shards.length - 1)];
+    }
+
+    private int removeIdle(Map<String, AtomicLong> shard, long now) {
+        int removed = 0;
+        for (Map.Entry<String, AtomicLong> entry : shard.entrySet()) {
+            if (entry.getValue().get() - now <= 0 && shard.remove(entry.getKey(), entry.getValue())) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private void shrink(Map<String, AtomicLong> shard, long now) {
+        removeIdle(shard, now);
+        // 仍然超限说明活跃key过多（如大量不同IP），随机淘汰约十分之一，被淘汰的key重新获得完整配额
+        int excess = shard.size() - maxKeysPerShard + Math.max(1, maxKeysPerShard / 10);
+        if (excess <= 0) {
+            return;
+        }
+        log.warn("Rate limiter shard over capacity ({} keys), evicting {} active keys", shard.size(), excess);
+        Iterator<String> keys = shard.keySet().iterator();
+        while (excess-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.ulog.backend.common.store;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 基于数据库表 ephemeral_codes 的临时值存储，供多实例共享
+ * 写入用 INSERT ... ON DUPLICATE KEY UPDATE 原子覆盖，消费用带条件的DELETE保证只成功一次
+ */
+public class JdbcEphemeralCodeStore implements EphemeralCodeStore {
+
+    private static final String UPSERT_SQL = "INSERT INTO ephemeral_codes (code_key, code_value, expires_at) "
+        + "VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE code_value = VALUES(code_value), expires_at = VALUES(expires_at)";
+
+    private static final String SELECT_SQL = "SELECT code_value FROM ephemeral_codes WHERE code_key = ? AND expires_at > ?";
+
+    private static final String CONSUME_SQL = "DELETE FROM ephemeral_codes WHERE code_key = ? AND code_value = ? AND expires_at > ?";
+
+    private static final String EVICT_SQL = "DELETE FROM ephemeral_codes WHERE expires_at <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcEphemeralCodeStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void put(String key, String value, Duration ttl) {
+        jdbcTemplate.update(UPSERT_SQL, key, value, System.currentTimeMillis() + ttl.toMillis());
+    }
+
+    @Override
+    public Optional<String> get(String key) {
+        List<String> values = jdbcTemplate.queryForList(SELECT_SQL, String.class, key, System.currentTimeMillis());
+        return values.stream().findFirst();
+    }
+
+    @Override
+    public boolean consume(String key, String value) {
+        return jdbcTemplate.update(CONSUME_SQL, key, value, System.currentTimeMillis()) > 0;
+    }
+
+    @Override
+    public int evictExpired() {
+        return jdbcTemplate.update(EVICT_SQL, System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,77 @@
+package com.ulog.backend.common.store;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 基于数据库表 rate_limit_buckets 的限流存储，供多实例共享配额
+ * 与内存实现同为GCRA：检查和更新在一条带条件的UPDATE里完成，由行锁保证原子性；
+ * key不存在时插入新行，并发插入冲突时重试一次UPDATE
+ * 时间取各实例的系统时钟（epoch毫秒），要求实例间时钟同步（NTP）
+ */
+public class JdbcRateLimitStore implements RateLimitStore {
+
+    private static final int MAX_KEY_LENGTH = 191;
+
+    private static final String ACQUIRE_SQL = "UPDATE rate_limit_buckets SET tat = GREATEST(tat, ?) + ? "
+        + "WHERE bucket_key = ? AND GREATEST(tat, ?) + ? - ? <= ?";
+
+    private static final String INSERT_SQL = "INSERT INTO rate_limit_buckets (bucket_key, tat) VALUES (?, ?)";
+
+    private static final String EVICT_SQL = "DELETE FROM rate_limit_buckets WHERE tat < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcRateLimitStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int maxRequests, Duration window) {
+        if (maxRequests <= 0) {
+            return false;
+        }
+        String bucketKey = normalizeKey(key);
+        long windowMillis = window.toMillis();
+        long interval = windowMillis / maxRequests;
+        long now = System.currentTimeMillis();
+
+        if (update(bucketKey, now, interval, windowMillis)) {
+            return true;
+        }
+        try {
+            jdbcTemplate.update(INSERT_SQL, bucketKey, now + interval);
+            return true;
+        } catch (DuplicateKeyException e) {
+            // 行已存在（配额用完，或另一个请求刚刚插入），以UPDATE的结果为准
+            return update(bucketKey, now, interval, windowMillis);
+        }
+    }
+
+    @Override
+    public int evictIdle() {
+        return jdbcTemplate.update(EVICT_SQL, System.currentTimeMillis());
+    }
+
+    private boolean update(String bucketKey, long now, long interval, long windowMillis) {
+        // MySQL驱动默认返回匹配行数，条件成立即为1
+        return jdbcTemplate.update(ACQUIRE_SQL, now, interval, bucketKey, now, interval, now, windowMillis) > 0;
+    }
+
+    private String normalizeKey(String key) {
+        if (key.length() <= MAX_KEY_LENGTH) {
+            return key;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return "sha256:" + HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
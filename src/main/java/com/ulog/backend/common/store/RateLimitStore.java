@@ -0,0 +1,25 @@
+package com.ulog.backend.common.store;
+
+import java.time.Duration;
+
+/**
+ * 限流状态存储
+ * 单实例部署用内存实现；多实例部署用共享存储（如MySQL）实现，保证所有实例共用同一份配额
+ */
+public interface RateLimitStore {
+
+    /**
+     * 原子地检查并记录一次请求
+     * @param key 限流key
+     * @param maxRequests 窗口内允许的最大请求数
+     * @param window 窗口长度
+     * @return 是否允许本次请求
+     */
+    boolean tryAcquire(String key, int maxRequests, Duration window);
+
+    /**
+     * 删除已完全恢复配额的空闲key
+     * @return 删除的key数量
+     */
+    int evictIdle();
+}
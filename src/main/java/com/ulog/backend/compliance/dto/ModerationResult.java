@@ -1,5 +1,7 @@
 package com.ulog.backend.compliance.dto;
 
+import java.util.List;
+
 public class ModerationResult {
 
     private boolean passed;
@@ -7,6 +9,7 @@ public class ModerationResult {
     private String riskLevel; // low, medium, high
     private String riskDetails;
     private String provider;
+    private List<SensitiveWordHit> hits = List.of(); // 本地词库命中的敏感词及位置
 
     public ModerationResult() {
     }
@@ -71,5 +74,12 @@ public class ModerationResult {
     public void setProvider(String provider) {
         this.provider = provider;
     }
-}
 
+    public List<SensitiveWordHit> getHits() {
+        return hits;
+    }
+
+    public void setHits(List<SensitiveWordHit> hits) {
+        this.hits = hits;
+    }
+}
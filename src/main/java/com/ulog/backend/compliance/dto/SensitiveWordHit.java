@@ -0,0 +1,10 @@
+package com.ulog.backend.compliance.dto;
+
+/**
+ * 敏感词命中
+ * @param word 词库中的敏感词（归一化后）
+ * @param start 在原文中的起始下标（包含）
+ * @param end 在原文中的结束下标（不包含）
+ */
+public record SensitiveWordHit(String word, int start, int end) {
+}
@@ -0,0 +1,272 @@
+package com.ulog.backend.compliance.service;
+
+import com.ulog.backend.config.AuditLogProperties;
+import com.ulog.backend.domain.compliance.ContentModerationLog;
+import com.ulog.backend.domain.compliance.OperationLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 审计日志写入器（内容审核日志、操作日志共用）
+ * 请求线程只把日志放入无锁队列，后台单线程攒批后用JDBC批量插入（MySQL连接开启 rewriteBatchedStatements 后合并为多行INSERT）；
+ * 队列满时按 audit.log.overflow-policy 处理，应用关闭时在超时内把队列写完
+ * 审计日志是尽力而为的：写入失败只记录错误和计数，不影响业务
+ */
+@Component
+public class AuditLogWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    private static final String INSERT_MODERATION_LOG = "INSERT INTO content_moderation_log "
+        + "(user_id, content_type, content, moderation_result, risk_level, risk_details, provider, created_at) "
+        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_OPERATION_LOG = "INSERT INTO operation_log "
+        + "(user_id, operation_type, operation_detail, ip_address, user_agent, request_uri, http_method, "
+        + "status_code, error_message, created_at) "
+        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final AuditLogProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Queue<Object> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queueSize = new AtomicInteger();
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private long lastLoggedEnqueued;
+
+    private volatile boolean running = true;
+    private Thread writerThread;
+
+    public AuditLogWriter(AuditLogProperties properties, JdbcTemplate jdbcTemplate) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void start() {
+        writerThread = new Thread(this::runWriter, "audit-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    public void submit(ContentModerationLog entry) {
+        enqueue(entry);
+    }
+
+    public void submit(OperationLog entry) {
+        enqueue(entry);
+    }
+
+    private void enqueue(Object entry) {
+        enqueued.incrementAndGet();
+        if (!running) {
+            // 已开始关闭，直接同步写入，避免丢失关闭过程中产生的日志
+            writeBatch(List.of(entry));
+            return;
+        }
+
+        if (queueSize.incrementAndGet() > properties.getQueueCapacity()) {
+            queueSize.decrementAndGet();
+            handleOverflow(entry);
+            return;
+        }
+        queue.offer(entry);
+
+        // 攒够一批时立即唤醒写线程，不必等到下一个刷新周期
+        if (queueSize.get() == properties.getBatchSize()) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    private void handleOverflow(Object entry) {
+        switch (properties.getOverflowPolicy()) {
+            case CALLER_RUNS:
+                writeBatch(List.of(entry));
+                return;
+            case DROP_OLDEST:
+                // 出队一条、入队一条，队列长度不变
+                boolean evicted = queue.poll() != null;
+                queue.offer(entry);
+                if (!evicted) {
+                    queueSize.incrementAndGet();
+                    return;
+                }
+                break;
+            case DROP_NEWEST:
+            default:
+                break;
+        }
+        long total = dropped.incrementAndGet();
+        if (total % 1000 == 1) {
+            log.warn("Audit log queue full (capacity={}), policy={}, dropped so far={}",
+                properties.getQueueCapacity(), properties.getOverflowPolicy(), total);
+        }
+    }
+
+    private void runWriter() {
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(properties.getFlushIntervalMs());
+        while (true) {
+            List<Object> batch = drain(properties.getBatchSize());
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+            }
+            if (!running && queueSize.get() == 0) {
+                return;
+            }
+            // 不足一批时等待更多日志（或被enqueue/关闭唤醒）
+            if (batch.size() < properties.getBatchSize()) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+        }
+    }
+
+    private List<Object> drain(int max) {
+        List<Object> batch = new ArrayList<>(Math.min(max, queueSize.get()));
+        Object entry;
+        while (batch.size() < max && (entry = queue.poll()) != null) {
+            queueSize.decrementAndGet();
+            batch.add(entry);
+        }
+        return batch;
+    }
+
+    private void writeBatch(List<Object> batch) {
+        List<ContentModerationLog> moderationLogs = new ArrayList<>();
+        List<OperationLog> operationLogs = new ArrayList<>();
+        for (Object entry : batch) {
+            if (entry instanceof ContentModerationLog moderationLog) {
+                moderationLogs.add(moderationLog);
+            } else if (entry instanceof OperationLog operationLog) {
+                operationLogs.add(operationLog);
+            }
+        }
+
+        if (!moderationLogs.isEmpty()) {
+            insert(INSERT_MODERATION_LOG, moderationLogs, this::bindModerationLog);
+        }
+        if (!operationLogs.isEmpty()) {
+            insert(INSERT_OPERATION_LOG, operationLogs, this::bindOperationLog);
+        }
+    }
+
+    private <T> void insert(String sql, List<T> rows, ParameterizedPreparedStatementSetter<T> setter) {
+        try {
+            jdbcTemplate.batchUpdate(sql, rows, rows.size(), setter);
+            written.addAndGet(rows.size());
+            batches.incrementAndGet();
+        } catch (Exception e) {
+            failed.addAndGet(rows.size());
+            log.error("Failed to write {} audit log rows", rows.size(), e);
+        }
+    }
+
+    private void bindModerationLog(PreparedStatement ps, ContentModerationLog entry) throws SQLException {
+        ps.setObject(1, entry.getUserId(), Types.BIGINT);
+        ps.setString(2, entry.getContentType());
+        ps.setString(3, entry.getContent());
+        ps.setString(4, entry.getModerationResult());
+        ps.setString(5, entry.getRiskLevel());
+        ps.setString(6, entry.getRiskDetails());
+        ps.setString(7, entry.getProvider());
+        ps.setTimestamp(8, toTimestamp(entry.getCreatedAt()));
+    }
+
+    private void bindOperationLog(PreparedStatement ps, OperationLog entry) throws SQLException {
+        ps.setObject(1, entry.getUserId(), Types.BIGINT);
+        ps.setString(2, entry.getOperationType());
+        ps.setString(3, entry.getOperationDetail());
+        ps.setString(4, entry.getIpAddress());
+        ps.setString(5, entry.getUserAgent());
+        ps.setString(6, entry.getRequestUri());
+        ps.setString(7, entry.getHttpMethod());
+        ps.setObject(8, entry.getStatusCode(), Types.INTEGER);
+        ps.setString(9, entry.getErrorMessage());
+        ps.setTimestamp(10, toTimestamp(entry.getCreatedAt()));
+    }
+
+    private Timestamp toTimestamp(LocalDateTime time) {
+        return Timestamp.valueOf(time != null ? time : LocalDateTime.now());
+    }
+
+    /**
+     * 关闭时停止接收异步日志，在超时内把队列中剩余的日志写完
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(properties.getShutdownTimeoutMs());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int remaining = queueSize.get();
+        if (remaining > 0) {
+            log.warn("Audit log writer stopped with {} entries not written", remaining);
+        }
+        log.info("Audit log writer stopped: enqueued={}, written={}, dropped={}, failed={}",
+            enqueued.get(), written.get(), dropped.get(), failed.get());
+    }
+
+    public int getQueueSize() {
+        return queueSize.get();
+    }
+
+    public long getEnqueuedCount() {
+        return enqueued.get();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    /**
+     * 每分钟输出一次累计统计（期间没有新日志时不输出）
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void logStats() {
+        long current = enqueued.get();
+        if (current == lastLoggedEnqueued) {
+            return;
+        }
+        lastLoggedEnqueued = current;
+        log.info("Audit log writer: queued={}, enqueued={}, written={}, batches={}, dropped={}, failed={}",
+            queueSize.get(), current, written.get(), batches.get(), dropped.get(), failed.get());
+    }
+}
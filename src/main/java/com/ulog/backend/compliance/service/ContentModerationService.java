@@ -1,16 +1,17 @@
 package com.ulog.backend.compliance.service;
 
+import com.ulog.backend.common.exception.BadRequestException;
 import com.ulog.backend.compliance.dto.ModerationResult;
+import com.ulog.backend.compliance.dto.SensitiveWordHit;
 import com.ulog.backend.config.ContentModerationProperties;
 import com.ulog.backend.domain.compliance.ContentModerationLog;
-import com.ulog.backend.repository.ContentModerationLogRepository;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.List;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @Service
 public class ContentModerationService {
@@ -18,26 +19,18 @@ public class ContentModerationService {
     private static final Logger log = LoggerFactory.getLogger(ContentModerationService.class);
 
     private final ContentModerationProperties properties;
-    private final ContentModerationLogRepository logRepository;
-
-    // 本地敏感词库（基础版，实际应用中应该更全面）
-    private static final Set<String> SENSITIVE_WORDS = new HashSet<>(Arrays.asList(
-        // 政治敏感词
-        "暴力革命", "推翻政府", "分裂国家", "法轮功", "达赖", "台独", "藏独", "疆独", "港独",
-        // 色情低俗词汇
-        "色情", "淫秽", "裸体", "性交", "卖淫", "嫖娼",
-        // 暴力血腥
-        "杀人", "自杀", "恐怖袭击", "爆炸", "血腥",
-        // 赌博相关
-        "赌博", "赌场", "博彩", "六合彩",
-        // 违法违规
-        "贩毒", "走私", "黑市", "假币", "诈骗"
-    ));
+    private final AuditLogWriter auditLogWriter;
+    private final SensitiveWordDictionary dictionary;
+
+    // 标点处提前放行，让前端尽快看到完整的句子
+    private static final String STREAM_FLUSH_PUNCTUATION = "。！？；\n!?;";
 
     public ContentModerationService(ContentModerationProperties properties,
-                                   ContentModerationLogRepository logRepository) {
+                                   AuditLogWriter auditLogWriter,
+                                   SensitiveWordDictionary dictionary) {
         this.properties = properties;
-        this.logRepository = logRepository;
+        this.auditLogWriter = auditLogWriter;
+        this.dictionary = dictionary;
     }
 
     /**
@@ -47,7 +40,6 @@ public class ContentModerationService {
      * @param content 待审核内容
      * @return 审核结果
      */
-    @Transactional
     public ModerationResult moderateContent(Long userId, String contentType, String content) {
         if (!properties.isEnabled()) {
             log.debug("Content moderation is disabled, passing content");
@@ -58,48 +50,102 @@ public class ContentModerationService {
             return ModerationResult.pass("local");
         }
 
-        ModerationResult result;
+        ModerationResult result = moderate(content);
+
+        // 记录审核日志
+        saveLog(userId, contentType, content, result);
+
+        return result;
+    }
+
+    /**
+     * 流式审核：按块缓冲增量文本，每块审核通过后才向下游放行
+     * 每块连同上一块的尾部一起审核；中途命中则以异常终止流，完整文本在结束时记录一次审核日志
+     * @param tokens 增量文本流
+     * @return 审核后的文本块流
+     */
+    public Flux<String> moderateStream(Flux<String> tokens, Long userId, String contentType) {
+        if (!properties.isEnabled()) {
+            return tokens;
+        }
+
+        return Flux.defer(() -> {
+            StringBuilder released = new StringBuilder();
+            StringBuilder pending = new StringBuilder();
+
+            Flux<String> chunks = tokens.concatMap(token -> {
+                pending.append(token);
+                if (pending.length() < properties.getStreamChunkSize() && !endsWithFlushPunctuation(token)) {
+                    return Mono.empty();
+                }
+                return releaseChunk(released, pending, userId, contentType);
+            });
+            Flux<String> tail = Flux.defer(() -> pending.length() > 0
+                ? releaseChunk(released, pending, userId, contentType)
+                : Mono.<String>empty());
+            Mono<String> finalLog = Mono.<String>fromRunnable(() ->
+                    saveLog(userId, contentType, released.toString(), ModerationResult.pass(properties.getProvider())));
+
+            return chunks.concatWith(tail).concatWith(finalLog);
+        });
+    }
+
+    private Mono<String> releaseChunk(StringBuilder released, StringBuilder pending, Long userId, String contentType) {
+        // 保留上一段尾部，避免敏感词被切分在两段之间而漏检
+        int overlap = Math.max(0, dictionary.getMatcher().getMaxWordLength() - 1);
+        int overlapStart = Math.max(0, released.length() - overlap);
+        String window = released.substring(overlapStart) + pending;
+        ModerationResult result = moderate(window);
+        if (!result.isPassed()) {
+            log.warn("AI stream output rejected by content moderation: {}", result.getRiskDetails());
+            String rejected = released.toString() + pending;
+            return Mono.<String>fromRunnable(() -> saveLog(userId, contentType, rejected, result))
+                .then(Mono.error(new BadRequestException("抱歉，AI生成的内容未通过审核，请重新提问。")));
+        }
+        String chunk = pending.toString();
+        released.append(chunk);
+        pending.setLength(0);
+        return Mono.just(chunk);
+    }
+
+    private boolean endsWithFlushPunctuation(String token) {
+        return !token.isEmpty() && STREAM_FLUSH_PUNCTUATION.indexOf(token.charAt(token.length() - 1)) >= 0;
+    }
 
+    /**
+     * 根据配置选择审核服务商，失败时降级到本地词库
+     */
+    private ModerationResult moderate(String content) {
         try {
-            // 根据配置选择审核服务商
             switch (properties.getProvider().toLowerCase()) {
                 case "aliyun":
-                    result = moderateWithAliyun(content);
-                    break;
+                    return moderateWithAliyun(content);
                 case "tencent":
-                    result = moderateWithTencent(content);
-                    break;
+                    return moderateWithTencent(content);
                 case "local":
                 default:
-                    result = moderateWithLocalDictionary(content);
-                    break;
+                    return moderateWithLocalDictionary(content);
             }
         } catch (Exception e) {
             log.error("Content moderation failed, falling back to local dictionary", e);
-            result = moderateWithLocalDictionary(content);
+            return moderateWithLocalDictionary(content);
         }
-
-        // 记录审核日志
-        saveLog(userId, contentType, content, result);
-
-        return result;
     }
 
     /**
-     * 使用本地敏感词库审核（降级方案）
+     * 使用本地敏感词库审核（降级方案），一次扫描报告全部命中
      */
     private ModerationResult moderateWithLocalDictionary(String content) {
-        String lowerContent = content.toLowerCase();
-        
-        for (String sensitiveWord : SENSITIVE_WORDS) {
-            if (lowerContent.contains(sensitiveWord)) {
-                log.warn("Sensitive word detected: {}", sensitiveWord);
-                return ModerationResult.reject("high", 
-                    "检测到敏感词: " + sensitiveWord, "local");
-            }
+        List<SensitiveWordHit> hits = dictionary.getMatcher().findAll(content);
+        if (hits.isEmpty()) {
+            return ModerationResult.pass("local");
         }
 
-        return ModerationResult.pass("local");
+        String words = hits.stream().map(SensitiveWordHit::word).distinct().collect(Collectors.joining(", "));
+        log.warn("Sensitive words detected: {} ({} hits)", words, hits.size());
+        ModerationResult result = ModerationResult.reject("high", "检测到敏感词: " + words, "local");
+        result.setHits(hits);
+        return result;
     }
 
     /**
@@ -131,18 +177,11 @@ public class ContentModerationService {
         if (content == null || content.isEmpty()) {
             return content;
         }
-
-        String filtered = content;
-        for (String sensitiveWord : SENSITIVE_WORDS) {
-            if (filtered.contains(sensitiveWord)) {
-                filtered = filtered.replace(sensitiveWord, "***");
-            }
-        }
-        return filtered;
+        return dictionary.getMatcher().mask(content, "***");
     }
 
     /**
-     * 保存审核日志
+     * 保存审核日志（放入审计日志队列，批量异步写入）
      */
     private void saveLog(Long userId, String contentType, String content, ModerationResult result) {
         try {
@@ -156,7 +195,7 @@ public class ContentModerationService {
             logEntry.setRiskDetails(result.getRiskDetails());
             logEntry.setProvider(result.getProvider());
 
-            logRepository.save(logEntry);
+            auditLogWriter.submit(logEntry);
         } catch (Exception e) {
             log.error("Failed to save moderation log", e);
             // 不抛出异常，避免影响主流程
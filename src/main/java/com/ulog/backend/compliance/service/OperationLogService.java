@@ -7,7 +7,6 @@ import java.time.LocalDateTime;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.context.request.RequestContextHolder;
@@ -19,16 +18,17 @@ public class OperationLogService {
     private static final Logger log = LoggerFactory.getLogger(OperationLogService.class);
 
     private final OperationLogRepository logRepository;
+    private final AuditLogWriter auditLogWriter;
 
-    public OperationLogService(OperationLogRepository logRepository) {
+    public OperationLogService(OperationLogRepository logRepository, AuditLogWriter auditLogWriter) {
         this.logRepository = logRepository;
+        this.auditLogWriter = auditLogWriter;
     }
 
     /**
      * 记录操作日志（异步）
+     * 请求信息在调用线程上读取，日志交给 AuditLogWriter 批量写入
      */
-    @Async
-    @Transactional
     public void logOperation(Long userId, String operationType, String operationDetail) {
         try {
             HttpServletRequest request = getCurrentRequest();
@@ -45,7 +45,7 @@ public class OperationLogService {
                 logEntry.setHttpMethod(request.getMethod());
             }
 
-            logRepository.save(logEntry);
+            auditLogWriter.submit(logEntry);
             log.debug("Operation logged: type={}, user={}", operationType, userId);
         } catch (Exception e) {
             log.error("Failed to log operation", e);
@@ -56,8 +56,6 @@ public class OperationLogService {
     /**
      * 记录操作日志（带请求信息）
      */
-    @Async
-    @Transactional
     public void logOperation(Long userId, String operationType, String operationDetail,
                            HttpServletRequest request, Integer statusCode) {
         try {
@@ -74,7 +72,7 @@ public class OperationLogService {
                 logEntry.setHttpMethod(request.getMethod());
             }
 
-            logRepository.save(logEntry);
+            auditLogWriter.submit(logEntry);
         } catch (Exception e) {
             log.error("Failed to log operation", e);
         }
@@ -83,8 +81,6 @@ public class OperationLogService {
     /**
      * 记录操作日志（带错误信息）
      */
-    @Async
-    @Transactional
     public void logOperationWithError(Long userId, String operationType, String operationDetail,
                                      String errorMessage, Integer statusCode) {
         try {
@@ -104,7 +100,7 @@ public class OperationLogService {
                 logEntry.setHttpMethod(request.getMethod());
             }
 
-            logRepository.save(logEntry);
+            auditLogWriter.submit(logEntry);
         } catch (Exception e) {
             log.error("Failed to log operation with error", e);
         }
@@ -0,0 +1,113 @@
+package com.ulog.backend.compliance.service;
+
+import com.ulog.backend.config.ContentModerationProperties;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 敏感词词库
+ * 内置基础词表，另可从 content.moderation.dictionary-path 指向的文件（每行一个词，#开头为注释）加载扩展词表；
+ * 文件修改后定时重新编译自动机并整体替换，审核中的请求继续使用旧的自动机，不需要加锁
+ * 数据库等其他来源的词表可通过 replaceDbWords 热替换；文件词表和数据库词表分开保存，
+ * 自动机始终由 内置 + 文件 + 数据库 三部分构建，任一来源更新都不会覆盖另一来源
+ */
+@Component
+public class SensitiveWordDictionary {
+
+    private static final Logger log = LoggerFactory.getLogger(SensitiveWordDictionary.class);
+
+    // 本地敏感词库（基础版，实际应用中应该更全面）
+    private static final List<String> BUILT_IN_WORDS = List.of(
+        // 政治敏感词
+        "暴力革命", "推翻政府", "分裂国家", "法轮功", "达赖", "台独", "藏独", "疆独", "港独",
+        // 色情低俗词汇
+        "色情", "淫秽", "裸体", "性交", "卖淫", "嫖娼",
+        // 暴力血腥
+        "杀人", "自杀", "恐怖袭击", "爆炸", "血腥",
+        // 赌博相关
+        "赌博", "赌场", "博彩", "六合彩",
+        // 违法违规
+        "贩毒", "走私", "黑市", "假币", "诈骗"
+    );
+
+    private final ContentModerationProperties properties;
+
+    private volatile SensitiveWordMatcher matcher = SensitiveWordMatcher.build(BUILT_IN_WORDS);
+    private volatile Collection<String> fileWords = List.of();
+    private volatile Collection<String> dbWords = List.of();
+    private volatile long fileLastModified = -1;
+
+    public SensitiveWordDictionary(ContentModerationProperties properties) {
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void init() {
+        reloadFromFile();
+    }
+
+    public SensitiveWordMatcher getMatcher() {
+        return matcher;
+    }
+
+    /**
+     * 用新的数据库词表替换当前数据库词表（内置词表和文件词表保留）
+     */
+    public synchronized void replaceDbWords(Collection<String> words) {
+        dbWords = List.copyOf(words);
+        rebuild();
+    }
+
+    /**
+     * 词库文件有变化时重新加载
+     */
+    @Scheduled(fixedDelayString = "${content.moderation.dictionary-reload-ms:60000}")
+    public synchronized void reloadFromFile() {
+        String location = properties.getDictionaryPath();
+        if (location == null || location.isBlank()) {
+            return;
+        }
+        Path path = Paths.get(location);
+        try {
+            long lastModified = Files.getLastModifiedTime(path).toMillis();
+            if (lastModified == fileLastModified) {
+                return;
+            }
+            List<String> words = new ArrayList<>();
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                String word = line.trim();
+                if (!word.isEmpty() && !word.startsWith("#")) {
+                    words.add(word);
+                }
+            }
+            fileWords = words;
+            fileLastModified = lastModified;
+            rebuild();
+        } catch (IOException e) {
+            // 保留当前词库，下次定时任务再试
+            log.error("Failed to load sensitive word dictionary from {}", location, e);
+        }
+    }
+
+    private void rebuild() {
+        List<String> words = new ArrayList<>(BUILT_IN_WORDS.size() + fileWords.size() + dbWords.size());
+        words.addAll(BUILT_IN_WORDS);
+        words.addAll(fileWords);
+        words.addAll(dbWords);
+        matcher = SensitiveWordMatcher.build(words);
+        log.info("Sensitive word dictionary rebuilt: {} words, max length {}",
+            matcher.size(), matcher.getMaxWordLength());
+    }
+}
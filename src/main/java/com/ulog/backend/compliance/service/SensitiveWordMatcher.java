@@ -0,0 +1,254 @@
+package com.ulog.backend.compliance.service;
+
+import com.ulog.backend.compliance.dto.SensitiveWordHit;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 敏感词多模式匹配器（Aho–Corasick自动机）
+ * 构建一次后不可变，可在多线程间共享；一次扫描即可找出全部命中（含重叠），与词库大小无关
+ * 匹配前逐字符做归一化（大小写、全角转半角、常见繁体转简体），归一化是一对一的，命中下标可直接对应原文
+ */
+public final class SensitiveWordMatcher {
+
+    // 常见繁体字 -> 简体字，覆盖词库中出现的字及高频字
+    private static final String TRADITIONAL =
+        "國獨臺輪達賴穢體賣殺襲擊賭場販幣詐騙東會發對這個們說時門開關見車馬錢黨軍槍彈藥錄網極戰爭"
+            + "亂災紅獄計劃買當義貨權傳黃違規腦謀屬雜陸灣蘇聯滅黴鬥惡類臉龍蟲";
+    private static final String SIMPLIFIED =
+        "国独台轮达赖秽体卖杀袭击赌场贩币诈骗东会发对这个们说时门开关见车马钱党军枪弹药录网极战争"
+            + "乱灾红狱计划买当义货权传黄违规脑谋属杂陆湾苏联灭霉斗恶类脸龙虫";
+
+    private static final Map<Character, Character> TRADITIONAL_TO_SIMPLIFIED = new HashMap<>();
+
+    static {
+        for (int i = 0; i < TRADITIONAL.length(); i++) {
+            TRADITIONAL_TO_SIMPLIFIED.put(TRADITIONAL.charAt(i), SIMPLIFIED.charAt(i));
+        }
+    }
+
+    private static final char[] NO_CHARS = new char[0];
+    private static final int[] NO_NODES = new int[0];
+
+    private final String[] words;
+    private final int maxWordLength;
+
+    // 每个节点的出边按字符升序存放，二分查找转移
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] fail;
+    // 以该节点结尾的词下标，-1表示没有
+    private final int[] output;
+    // 沿失败链最近的一个有输出的节点，-1表示没有
+    private final int[] dictLink;
+
+    private SensitiveWordMatcher(String[] words, char[][] edgeChars, int[][] edgeTargets,
+                                 int[] fail, int[] output, int[] dictLink) {
+        this.words = words;
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.fail = fail;
+        this.output = output;
+        this.dictLink = dictLink;
+        this.maxWordLength = Arrays.stream(words).mapToInt(String::length).max().orElse(0);
+    }
+
+    /**
+     * 根据词表构建自动机，词会先归一化并去重，空白词忽略
+     */
+    public static SensitiveWordMatcher build(Collection<String> dictionary) {
+        Set<String> unique = new LinkedHashSet<>();
+        for (String word : dictionary) {
+            if (word != null && !word.isBlank()) {
+                unique.add(normalize(word.trim()));
+            }
+        }
+        String[] words = unique.toArray(new String[0]);
+
+        // 1. 构建字典树
+        List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        List<Integer> outputs = new ArrayList<>();
+        children.add(new TreeMap<>());
+        outputs.add(-1);
+        for (int w = 0; w < words.length; w++) {
+            int node = 0;
+            for (char c : words[w].toCharArray()) {
+                Integer next = children.get(node).get(c);
+                if (next == null) {
+                    next = children.size();
+                    children.add(new TreeMap<>());
+                    outputs.add(-1);
+                    children.get(node).put(c, next);
+                }
+                node = next;
+            }
+            outputs.set(node, w);
+        }
+
+        int size = children.size();
+        char[][] edgeChars = new char[size][];
+        int[][] edgeTargets = new int[size][];
+        int[] output = new int[size];
+        for (int node = 0; node < size; node++) {
+            TreeMap<Character, Integer> edges = children.get(node);
+            edgeChars[node] = edges.isEmpty() ? NO_CHARS : new char[edges.size()];
+            edgeTargets[node] = edges.isEmpty() ? NO_NODES : new int[edges.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                edgeChars[node][i] = edge.getKey();
+                edgeTargets[node][i] = edge.getValue();
+                i++;
+            }
+            output[node] = outputs.get(node);
+        }
+
+        // 2. 广度优先计算失败链和输出链
+        int[] fail = new int[size];
+        int[] dictLink = new int[size];
+        Arrays.fill(dictLink, -1);
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int child : edgeTargets[0]) {
+            fail[child] = 0;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int i = 0; i < edgeChars[node].length; i++) {
+                char c = edgeChars[node][i];
+                int child = edgeTargets[node][i];
+                int f = fail[node];
+                int target = transition(edgeChars, edgeTargets, f, c);
+                while (target < 0 && f != 0) {
+                    f = fail[f];
+                    target = transition(edgeChars, edgeTargets, f, c);
+                }
+                fail[child] = target < 0 ? 0 : target;
+                dictLink[child] = output[fail[child]] >= 0 ? fail[child] : dictLink[fail[child]];
+                queue.add(child);
+            }
+        }
+
+        return new SensitiveWordMatcher(words, edgeChars, edgeTargets, fail, output, dictLink);
+    }
+
+    /**
+     * 找出全部命中（含重叠），按结束位置升序
+     */
+    public List<SensitiveWordHit> findAll(String text) {
+        if (text == null || text.isEmpty() || words.length == 0) {
+            return List.of();
+        }
+        List<SensitiveWordHit> hits = new ArrayList<>();
+        int node = 0;
+        for (int i = 0; i < text.length(); i++) {
+            node = step(node, normalize(text.charAt(i)));
+            int match = output[node] >= 0 ? node : dictLink[node];
+            while (match >= 0) {
+                String word = words[output[match]];
+                hits.add(new SensitiveWordHit(word, i + 1 - word.length(), i + 1));
+                match = dictLink[match];
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * 是否包含任一敏感词，命中即返回
+     */
+    public boolean containsAny(String text) {
+        if (text == null || text.isEmpty() || words.length == 0) {
+            return false;
+        }
+        int node = 0;
+        for (int i = 0; i < text.length(); i++) {
+            node = step(node, normalize(text.charAt(i)));
+            if (output[node] >= 0 || dictLink[node] >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 一次扫描把命中的片段替换为掩码，相互重叠或相邻的命中合并为一个掩码
+     */
+    public String mask(String text, String replacement) {
+        List<SensitiveWordHit> hits = findAll(text);
+        if (hits.isEmpty()) {
+            return text;
+        }
+        boolean[] covered = new boolean[text.length()];
+        for (SensitiveWordHit hit : hits) {
+            Arrays.fill(covered, hit.start(), hit.end(), true);
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            if (!covered[i]) {
+                sb.append(text.charAt(i));
+            } else if (i == 0 || !covered[i - 1]) {
+                sb.append(replacement);
+            }
+        }
+        return sb.toString();
+    }
+
+    public int size() {
+        return words.length;
+    }
+
+    public int getMaxWordLength() {
+        return maxWordLength;
+    }
+
+    /**
+     * 逐字符归一化，保持长度不变
+     */
+    public static String normalize(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = normalize(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    static char normalize(char c) {
+        if (c >= '！' && c <= '～') {
+            c = (char) (c - 0xFEE0);
+        } else if (c == '　') {
+            return ' ';
+        }
+        if (c < 0x80) {
+            return Character.toLowerCase(c);
+        }
+        Character simplified = TRADITIONAL_TO_SIMPLIFIED.get(c);
+        return simplified != null ? simplified : c;
+    }
+
+    private int step(int node, char c) {
+        while (true) {
+            int next = transition(edgeChars, edgeTargets, node, c);
+            if (next >= 0) {
+                return next;
+            }
+            if (node == 0) {
+                return 0;
+            }
+            node = fail[node];
+        }
+    }
+
+    private static int transition(char[][] edgeChars, int[][] edgeTargets, int node, char c) {
+        int i = Arrays.binarySearch(edgeChars[node], c);
+        return i >= 0 ? edgeTargets[node][i] : -1;
+    }
+}
@@ -0,0 +1,109 @@
+package com.ulog.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "ai.jobs")
+public class AiJobProperties {
+
+    private boolean enabled = true;
+    private int workers = 2; // 工作线程数，即同时执行的AI后处理任务数
+    private long pollIntervalMs = 2000; // 没有可执行任务时的轮询间隔（本实例提交任务时会立即唤醒）
+    private long leaseSeconds = 180; // 认领租约时长；执行期间由心跳续租，实例宕机后租约到期任务才会被其他实例重新认领
+    private long heartbeatIntervalMs = 60000; // 正在执行的任务的续租间隔，应明显小于租约时长
+    private int maxAttempts = 5; // 最多执行次数，用尽后放弃并降级
+    private long backoffBaseMs = 30000; // 第一次重试的等待时间，之后每次翻倍
+    private long backoffMaxMs = 1800000; // 重试等待时间上限
+    private long debounceMs = 3000; // 描述更新类任务的去抖时间，窗口内的多次更新只执行最后一次
+    private int retentionDays = 7; // 已结束任务的保留天数
+    private String nodeId; // 实例标识，为空时使用 pid@hostname
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    public long getPollIntervalMs() {
+        return pollIntervalMs;
+    }
+
+    public void setPollIntervalMs(long pollIntervalMs) {
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    public long getLeaseSeconds() {
+        return leaseSeconds;
+    }
+
+    public void setLeaseSeconds(long leaseSeconds) {
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    public long getHeartbeatIntervalMs() {
+        return heartbeatIntervalMs;
+    }
+
+    public void setHeartbeatIntervalMs(long heartbeatIntervalMs) {
+        this.heartbeatIntervalMs = heartbeatIntervalMs;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public long getBackoffBaseMs() {
+        return backoffBaseMs;
+    }
+
+    public void setBackoffBaseMs(long backoffBaseMs) {
+        this.backoffBaseMs = backoffBaseMs;
+    }
+
+    public long getBackoffMaxMs() {
+        return backoffMaxMs;
+    }
+
+    public void setBackoffMaxMs(long backoffMaxMs) {
+        this.backoffMaxMs = backoffMaxMs;
+    }
+
+    public long getDebounceMs() {
+        return debounceMs;
+    }
+
+    public void setDebounceMs(long debounceMs) {
+        this.debounceMs = debounceMs;
+    }
+
+    public int getRetentionDays() {
+        return retentionDays;
+    }
+
+    public void setRetentionDays(int retentionDays) {
+        this.retentionDays = retentionDays;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+}
@@ -4,49 +4,136 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadPoolExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+/**
+ * 异步执行器配置
+ * server.threads.mode=virtual（见 application-virtual.properties）且运行在JDK 21+时，
+ * 所有异步执行器改为每任务一个虚拟线程：阻塞在 .block() 上的LLM调用不再占用平台线程，
+ * 并发由DeepSeek隔离舱和数据库连接池约束；JDK 21以下自动回退为平台线程池
+ */
 @Configuration
 @EnableAsync
-public class AsyncConfig {
+public class AsyncConfig implements AsyncConfigurer {
 
     private static final Logger log = LoggerFactory.getLogger(AsyncConfig.class);
 
+    private final Environment environment;
+    private final boolean virtualThreads;
+
+    public AsyncConfig(Environment environment) {
+        this.environment = environment;
+        this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+        String mode = environment.getProperty("server.threads.mode", "platform");
+        if ("virtual".equalsIgnoreCase(mode) && !virtualThreads) {
+            log.warn("server.threads.mode=virtual requested but virtual threads are unavailable (requires JDK 21+ "
+                + "and spring.threads.virtual.enabled=true), falling back to platform threads");
+        }
+        log.info("Thread mode: {}", virtualThreads ? "virtual" : "platform");
+    }
+
+    /**
+     * 未指定执行器的 @Async 方法（如问答后的描述合并）使用的默认执行器
+     * 之前因为存在多个Executor bean，默认会退化为每任务新建平台线程的 SimpleAsyncTaskExecutor
+     */
+    @Bean(name = "defaultTaskExecutor")
+    public Executor defaultTaskExecutor() {
+        if (virtualThreads) {
+            return virtualThreadExecutor("Default-Async-");
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(16);
+        executor.setQueueCapacity(500);
+        executor.setThreadNamePrefix("Default-Async-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    @Override
+    public Executor getAsyncExecutor() {
+        return defaultTaskExecutor();
+    }
+
+    /**
+     * AI后处理任务（self value、关系分析）工作循环所在的执行器，每个线程常驻一个 AiJobWorker 循环
+     * 任务本身排在 ai_jobs 表中，这里不需要队列
+     */
     @Bean(name = "selfValueTaskExecutor")
     public Executor selfValueTaskExecutor() {
+        if (virtualThreads) {
+            return virtualThreadExecutor("SelfValue-Async-");
+        }
+
+        int workers = Math.max(1, environment.getProperty("ai.jobs.workers", Integer.class, 2));
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         
-        // 核心线程数：2个（足够处理并发请求）
-        executor.setCorePoolSize(2);
-        
-        // 最大线程数：5个（高峰期处理能力）
-        executor.setMaxPoolSize(5);
+        // 线程数与工作循环数一致
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
         
-        // 队列容量：50个任务
-        executor.setQueueCapacity(50);
+        // 不排队：工作循环常驻，多提交的循环直接拒绝
+        executor.setQueueCapacity(0);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
         
         // 线程名前缀
         executor.setThreadNamePrefix("SelfValue-Async-");
         
-        // 拒绝策略：调用者运行（确保任务不丢失）
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
-        
-        // 线程空闲时间：60秒后回收
-        executor.setKeepAliveSeconds(60);
-        
-        // 等待任务完成后关闭线程池
+        // 关闭时等待正在执行的任务结束（未完成的任务租约到期后由其他实例重新认领）
         executor.setWaitForTasksToCompleteOnShutdown(true);
         executor.setAwaitTerminationSeconds(30);
         
         // 初始化线程池
         executor.initialize();
         
-        log.info("SelfValue async executor configured: core={}, max={}, queue={}", 
+        log.info("SelfValue async executor configured: threads={}", workers);
+        
+        return executor;
+    }
+
+    @Bean(name = "qaSummaryTaskExecutor")
+    public Executor qaSummaryTaskExecutor() {
+        if (virtualThreads) {
+            return virtualThreadExecutor("QaSummary-Async-");
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        
+        // 摘要生成只在窗口滑动时触发，少量线程即可
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        
+        // 队列满时直接丢弃：摘要是尽力而为的缓存，下次窗口滑动会重新触发
+        executor.setQueueCapacity(100);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        
+        executor.setThreadNamePrefix("QaSummary-Async-");
+        executor.setKeepAliveSeconds(60);
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        
+        log.info("QA summary async executor configured: core={}, max={}, queue={}", 
             executor.getCorePoolSize(), executor.getMaxPoolSize(), executor.getQueueCapacity());
         
         return executor;
     }
+
+    private Executor virtualThreadExecutor(String threadNamePrefix) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        executor.setTaskTerminationTimeout(30000);
+        log.info("{} executor configured with virtual threads", threadNamePrefix);
+        return executor;
+    }
 }
@@ -0,0 +1,64 @@
+package com.ulog.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "audit.log")
+public class AuditLogProperties {
+
+    private int queueCapacity = 10000; // 待写入审计日志的队列上限
+    private int batchSize = 200; // 每批JDBC插入的最大行数
+    private long flushIntervalMs = 500; // 队列未攒满一批时的最长等待时间
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_OLDEST;
+    private long shutdownTimeoutMs = 5000; // 应用关闭时等待队列写完的最长时间
+
+    /**
+     * 队列满时的处理策略
+     */
+    public enum OverflowPolicy {
+        DROP_NEWEST, // 丢弃新日志
+        DROP_OLDEST, // 丢弃最早的日志，保留最近的
+        CALLER_RUNS // 由调用线程同步写入，对请求线程形成背压
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    public void setFlushIntervalMs(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public long getShutdownTimeoutMs() {
+        return shutdownTimeoutMs;
+    }
+
+    public void setShutdownTimeoutMs(long shutdownTimeoutMs) {
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+    }
+}
@@ -12,6 +12,8 @@ public class ContentModerationProperties {
     private String apiKey;
     private String endpoint;
     private int timeoutMs = 5000;
+    private int streamChunkSize = 48; // 流式输出时每攒够多少字符审核一次
+    private String dictionaryPath; // 扩展敏感词文件路径，每行一个词，为空则只用内置词库
 
     public boolean isEnabled() {
         return enabled;
@@ -52,5 +54,20 @@ public class ContentModerationProperties {
     public void setTimeoutMs(int timeoutMs) {
         this.timeoutMs = timeoutMs;
     }
-}
 
+    public int getStreamChunkSize() {
+        return streamChunkSize;
+    }
+
+    public void setStreamChunkSize(int streamChunkSize) {
+        this.streamChunkSize = streamChunkSize;
+    }
+
+    public String getDictionaryPath() {
+        return dictionaryPath;
+    }
+
+    public void setDictionaryPath(String dictionaryPath) {
+        this.dictionaryPath = dictionaryPath;
+    }
+}
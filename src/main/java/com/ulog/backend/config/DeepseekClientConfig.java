@@ -1,8 +1,6 @@
 package com.ulog.backend.config;
 
 import io.netty.channel.ChannelOption;
-import io.netty.handler.timeout.ReadTimeoutHandler;
-import io.netty.handler.timeout.WriteTimeoutHandler;
 import java.time.Duration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -12,27 +10,58 @@ import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
 import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 @Configuration
 public class DeepseekClientConfig {
 
+    /**
+     * DeepSeek专用连接池：限制连接数与排队数，定期淘汰空闲/过期连接，避免复用已被服务端关闭的连接
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider deepseekConnectionProvider(DeepseekProperties props) {
+        DeepseekProperties.Pool pool = props.getPool();
+        ConnectionProvider.Builder builder = ConnectionProvider.builder("deepseek")
+            .maxConnections(pool.getMaxConnections())
+            .pendingAcquireMaxCount(pool.getPendingAcquireMaxCount())
+            .pendingAcquireTimeout(Duration.ofMillis(pool.getPendingAcquireTimeoutMs()))
+            .maxIdleTime(Duration.ofMillis(pool.getMaxIdleTimeMs()))
+            .maxLifeTime(Duration.ofMillis(pool.getMaxLifeTimeMs()));
+        if (pool.getEvictInBackgroundMs() > 0) {
+            builder.evictInBackground(Duration.ofMillis(pool.getEvictInBackgroundMs()));
+        }
+        return builder.build();
+    }
+
     @Bean
-    public WebClient deepseekWebClient(DeepseekProperties props) {
-        HttpClient httpClient = HttpClient.create()
+    public HttpClient deepseekHttpClient(DeepseekProperties props, ConnectionProvider deepseekConnectionProvider) {
+        DeepseekProperties.Pool pool = props.getPool();
+        // 超时只通过 responseTimeout 按请求生效；不在连接上挂 ReadTimeoutHandler，否则池中的空闲连接也会被超时关闭
+        HttpClient httpClient = HttpClient.create(deepseekConnectionProvider)
             .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, props.getTimeoutMs())
+            .option(ChannelOption.SO_KEEPALIVE, true)
             .responseTimeout(Duration.ofMillis(props.getTimeoutMs()))
-            .doOnConnected(conn -> {
-                int timeoutSeconds = Math.max(1, props.getTimeoutMs() / 1000);
-                conn.addHandlerLast(new ReadTimeoutHandler(timeoutSeconds));
-                conn.addHandlerLast(new WriteTimeoutHandler(timeoutSeconds));
-            });
+            .compress(pool.isCompressionEnabled());
 
+        if (pool.isHttp2Enabled()) {
+            // 通过ALPN协商HTTP/2，单连接多路复用；服务端不支持时回退HTTP/1.1
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+            if (props.getBaseUrl() != null && props.getBaseUrl().startsWith("https")) {
+                httpClient = httpClient.secure();
+            }
+        }
+        return httpClient;
+    }
+
+    @Bean
+    public WebClient deepseekWebClient(DeepseekProperties props, HttpClient deepseekHttpClient) {
         WebClient.Builder builder = WebClient.builder()
             .baseUrl(props.getBaseUrl())
             .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + props.getApiKey())
             .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-            .clientConnector(new ReactorClientHttpConnector(httpClient));
+            .clientConnector(new ReactorClientHttpConnector(deepseekHttpClient));
 
         if (props.isEnableLogging()) {
             builder.filter(logRequest()).filter(logResponse());
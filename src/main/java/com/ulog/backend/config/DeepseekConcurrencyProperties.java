@@ -0,0 +1,109 @@
+package com.ulog.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "deepseek.concurrency")
+public class DeepseekConcurrencyProperties {
+
+    private boolean enabled = true;
+    private double backoffRatio = 0.7; // 遇到429/超时时并发上限乘以该系数
+    private Bulkhead interactive = new Bulkhead(8, 2, 32, 100, 30000);
+    private Bulkhead background = new Bulkhead(2, 1, 8, 200, 300000);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    public void setBackoffRatio(double backoffRatio) {
+        this.backoffRatio = backoffRatio;
+    }
+
+    public Bulkhead getInteractive() {
+        return interactive;
+    }
+
+    public void setInteractive(Bulkhead interactive) {
+        this.interactive = interactive;
+    }
+
+    public Bulkhead getBackground() {
+        return background;
+    }
+
+    public void setBackground(Bulkhead background) {
+        this.background = background;
+    }
+
+    /**
+     * 单个隔离舱（模型 + 流量类别）的并发配置
+     */
+    public static class Bulkhead {
+
+        private int initialLimit;
+        private int minLimit;
+        private int maxLimit;
+        private int maxQueue; // 等待队列长度上限，超出直接拒绝
+        private long maxQueueWaitMs; // 排队最长等待时间
+
+        public Bulkhead() {
+        }
+
+        public Bulkhead(int initialLimit, int minLimit, int maxLimit, int maxQueue, long maxQueueWaitMs) {
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            this.maxQueue = maxQueue;
+            this.maxQueueWaitMs = maxQueueWaitMs;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public int getMaxQueue() {
+            return maxQueue;
+        }
+
+        public void setMaxQueue(int maxQueue) {
+            this.maxQueue = maxQueue;
+        }
+
+        public long getMaxQueueWaitMs() {
+            return maxQueueWaitMs;
+        }
+
+        public void setMaxQueueWaitMs(long maxQueueWaitMs) {
+            this.maxQueueWaitMs = maxQueueWaitMs;
+        }
+    }
+}
@@ -13,6 +13,7 @@ public class DeepseekProperties {
     private String reasonerModel;
     private int timeoutMs = 15000;
     private boolean enableLogging;
+    private Pool pool = new Pool();
 
     public String getBaseUrl() {
         return baseUrl;
@@ -61,4 +62,100 @@ public class DeepseekProperties {
     public void setEnableLogging(boolean enableLogging) {
         this.enableLogging = enableLogging;
     }
+
+    public Pool getPool() {
+        return pool;
+    }
+
+    public void setPool(Pool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * DeepSeek HTTP连接池配置（deepseek.pool.*）
+     */
+    public static class Pool {
+
+        private int maxConnections = 50;
+        private int pendingAcquireMaxCount = 500; // 等待获取连接的请求数上限
+        private long pendingAcquireTimeoutMs = 45000;
+        private long maxIdleTimeMs = 60000; // 空闲超过该时间的连接被关闭
+        private long maxLifeTimeMs = 600000; // 连接最长存活时间，定期轮换避免长期使用失效连接
+        private long evictInBackgroundMs = 30000; // 后台清理空闲/过期连接的间隔，0表示不后台清理
+        private boolean http2Enabled = true; // 优先使用HTTP/2多路复用（ALPN协商失败时回退HTTP/1.1）
+        private boolean compressionEnabled = true;
+        private int warmupConnections = 2; // 启动时预先建立的连接数，0表示不预热
+
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public int getPendingAcquireMaxCount() {
+            return pendingAcquireMaxCount;
+        }
+
+        public void setPendingAcquireMaxCount(int pendingAcquireMaxCount) {
+            this.pendingAcquireMaxCount = pendingAcquireMaxCount;
+        }
+
+        public long getPendingAcquireTimeoutMs() {
+            return pendingAcquireTimeoutMs;
+        }
+
+        public void setPendingAcquireTimeoutMs(long pendingAcquireTimeoutMs) {
+            this.pendingAcquireTimeoutMs = pendingAcquireTimeoutMs;
+        }
+
+        public long getMaxIdleTimeMs() {
+            return maxIdleTimeMs;
+        }
+
+        public void setMaxIdleTimeMs(long maxIdleTimeMs) {
+            this.maxIdleTimeMs = maxIdleTimeMs;
+        }
+
+        public long getMaxLifeTimeMs() {
+            return maxLifeTimeMs;
+        }
+
+        public void setMaxLifeTimeMs(long maxLifeTimeMs) {
+            this.maxLifeTimeMs = maxLifeTimeMs;
+        }
+
+        public long getEvictInBackgroundMs() {
+            return evictInBackgroundMs;
+        }
+
+        public void setEvictInBackgroundMs(long evictInBackgroundMs) {
+            this.evictInBackgroundMs = evictInBackgroundMs;
+        }
+
+        public boolean isHttp2Enabled() {
+            return http2Enabled;
+        }
+
+        public void setHttp2Enabled(boolean http2Enabled) {
+            this.http2Enabled = http2Enabled;
+        }
+
+        public boolean isCompressionEnabled() {
+            return compressionEnabled;
+        }
+
+        public void setCompressionEnabled(boolean compressionEnabled) {
+            this.compressionEnabled = compressionEnabled;
+        }
+
+        public int getWarmupConnections() {
+            return warmupConnections;
+        }
+
+        public void setWarmupConnections(int warmupConnections) {
+            this.warmupConnections = warmupConnections;
+        }
+    }
 }
@@ -0,0 +1,37 @@
+package com.ulog.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "conversation.intent")
+public class IntentClassifierProperties {
+
+    private boolean enabled = true; // 是否在信息收集中先用本地分类器判断简短回复的意图
+    private double minConfidence = 0.9; // 模型判断的置信度低于此值时交给DeepSeek
+    private int maxMessageLength = 12; // 超过此长度（去掉标点和语气词后）的回复可能包含信息，直接交给DeepSeek
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getMinConfidence() {
+        return minConfidence;
+    }
+
+    public void setMinConfidence(double minConfidence) {
+        this.minConfidence = minConfidence;
+    }
+
+    public int getMaxMessageLength() {
+        return maxMessageLength;
+    }
+
+    public void setMaxMessageLength(int maxMessageLength) {
+        this.maxMessageLength = maxMessageLength;
+    }
+}
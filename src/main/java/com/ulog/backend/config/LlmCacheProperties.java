@@ -0,0 +1,46 @@
+package com.ulog.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "llm.cache")
+public class LlmCacheProperties {
+
+    private boolean enabled = true;
+    private int maxEntries = 1000; // 内存层最多缓存的响应数（LRU淘汰）
+    private long ttlMinutes = 1440; // 缓存有效期，默认1天
+    private boolean persistentEnabled = false; // 是否启用MySQL持久化层（多实例共享、重启不丢失）
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public long getTtlMinutes() {
+        return ttlMinutes;
+    }
+
+    public void setTtlMinutes(long ttlMinutes) {
+        this.ttlMinutes = ttlMinutes;
+    }
+
+    public boolean isPersistentEnabled() {
+        return persistentEnabled;
+    }
+
+    public void setPersistentEnabled(boolean persistentEnabled) {
+        this.persistentEnabled = persistentEnabled;
+    }
+}
@@ -0,0 +1,59 @@
+package com.ulog.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "llm.usage")
+public class LlmUsageProperties {
+
+    private boolean enabled = true; // 是否按用户统计token用量
+    private long flushIntervalMs = 10000; // 内存累计写入 llm_usage_daily 的间隔
+    private long dailyTokenLimit = 0; // 每个用户每天的token上限（输入+输出），0 表示不限制
+    private long monthlyTokenLimit = 0; // 每个用户每自然月的token上限，0 表示不限制
+    private long quotaRefreshMs = 60000; // 配额检查时已入库用量的缓存时间，用于感知其他实例的用量
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    public void setFlushIntervalMs(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public long getDailyTokenLimit() {
+        return dailyTokenLimit;
+    }
+
+    public void setDailyTokenLimit(long dailyTokenLimit) {
+        this.dailyTokenLimit = dailyTokenLimit;
+    }
+
+    public long getMonthlyTokenLimit() {
+        return monthlyTokenLimit;
+    }
+
+    public void setMonthlyTokenLimit(long monthlyTokenLimit) {
+        this.monthlyTokenLimit = monthlyTokenLimit;
+    }
+
+    public long getQuotaRefreshMs() {
+        return quotaRefreshMs;
+    }
+
+    public void setQuotaRefreshMs(long quotaRefreshMs) {
+        this.quotaRefreshMs = quotaRefreshMs;
+    }
+
+    public boolean isQuotaEnabled() {
+        return enabled && (dailyTokenLimit > 0 || monthlyTokenLimit > 0);
+    }
+}
@@ -0,0 +1,106 @@
+package com.ulog.backend.config;
+
+import com.ulog.backend.ai.LlmResponseCache;
+import com.ulog.backend.ai.LlmUsageLedger;
+import com.ulog.backend.ai.job.AiJobWorker;
+import com.ulog.backend.common.store.InMemoryRateLimitStore;
+import com.ulog.backend.common.store.RateLimitStore;
+import com.ulog.backend.compliance.service.AuditLogWriter;
+import com.ulog.backend.conversation.service.LocalIntentClassifier;
+import com.ulog.backend.goal.service.ReminderSchedulerService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 把各组件已有的运行统计注册为监控指标（Prometheus 通过 /actuator/prometheus 抓取）
+ * 组件内部的计数器保持不变，这里只读取；DeepSeek调用指标见 DeepseekMetrics，隔离舱指标见 DeepseekBulkheads
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder llmResponseCacheMetrics(LlmResponseCache cache) {
+        return registry -> {
+            FunctionCounter.builder("llm.response.cache", cache, LlmResponseCache::getHitCount)
+                .tag("result", "hit").register(registry);
+            FunctionCounter.builder("llm.response.cache", cache, LlmResponseCache::getMissCount)
+                .tag("result", "miss").register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder llmUsageMetrics(LlmUsageLedger ledger) {
+        return registry -> {
+            Gauge.builder("llm.usage.pending.users", ledger, LlmUsageLedger::getPendingUserCount).register(registry);
+            FunctionCounter.builder("llm.quota.rejections", ledger, LlmUsageLedger::getQuotaRejectionCount)
+                .register(registry);
+            FunctionCounter.builder("llm.usage.flush.failures", ledger, LlmUsageLedger::getFlushFailureCount)
+                .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder localIntentMetrics(LocalIntentClassifier classifier) {
+        return registry -> {
+            FunctionCounter.builder("conversation.intent.local", classifier, LocalIntentClassifier::getRuleHitCount)
+                .tag("result", "rule").register(registry);
+            FunctionCounter.builder("conversation.intent.local", classifier, LocalIntentClassifier::getModelHitCount)
+                .tag("result", "model").register(registry);
+            FunctionCounter.builder("conversation.intent.local", classifier, LocalIntentClassifier::getFallbackCount)
+                .tag("result", "fallback").register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder auditLogMetrics(AuditLogWriter writer) {
+        return registry -> {
+            Gauge.builder("audit.log.queue.size", writer, AuditLogWriter::getQueueSize).register(registry);
+            FunctionCounter.builder("audit.log.entries", writer, AuditLogWriter::getWrittenCount)
+                .tag("result", "written").register(registry);
+            FunctionCounter.builder("audit.log.entries", writer, AuditLogWriter::getDroppedCount)
+                .tag("result", "dropped").register(registry);
+            FunctionCounter.builder("audit.log.entries", writer, AuditLogWriter::getFailedCount)
+                .tag("result", "failed").register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder aiJobMetrics(AiJobWorker worker) {
+        return registry -> {
+            Gauge.builder("ai.jobs.queue", worker, w -> w.getQueueStats().pending())
+                .tag("status", "pending").register(registry);
+            Gauge.builder("ai.jobs.queue", worker, w -> w.getQueueStats().running())
+                .tag("status", "running").register(registry);
+            Gauge.builder("ai.jobs.queue", worker, w -> w.getQueueStats().failed())
+                .tag("status", "failed").register(registry);
+            Gauge.builder("ai.jobs.oldest.ready.age", worker, w -> w.getQueueStats().oldestReadyAgeSeconds())
+                .baseUnit("seconds").register(registry);
+            FunctionCounter.builder("ai.jobs.executions", worker, AiJobWorker::getCompletedCount)
+                .tag("result", "completed").register(registry);
+            FunctionCounter.builder("ai.jobs.executions", worker, AiJobWorker::getRetriedCount)
+                .tag("result", "retried").register(registry);
+            FunctionCounter.builder("ai.jobs.executions", worker, AiJobWorker::getFailedCount)
+                .tag("result", "failed").register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder reminderWheelMetrics(ReminderSchedulerService reminderSchedulerService) {
+        return registry -> Gauge.builder("reminder.wheel.scheduled", reminderSchedulerService,
+                ReminderSchedulerService::getScheduledCount)
+            .register(registry);
+    }
+
+    @Bean
+    public MeterBinder rateLimitMetrics(RateLimitStore rateLimitStore) {
+        return registry -> {
+            // 数据库存储的键数量不在本实例内存中，只统计内存存储
+            if (rateLimitStore instanceof InMemoryRateLimitStore inMemory) {
+                Gauge.builder("rate.limit.keys", inMemory, InMemoryRateLimitStore::size).register(registry);
+            }
+        };
+    }
+}
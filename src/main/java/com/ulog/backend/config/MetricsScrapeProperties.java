@@ -0,0 +1,22 @@
+package com.ulog.backend.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "metrics.scrape")
+public class MetricsScrapeProperties {
+
+    // 允许访问 /actuator/prometheus 的来源地址（IP或CIDR），按连接的对端地址判断，不看 X-Forwarded-For
+    private List<String> allowedAddresses = new ArrayList<>(List.of("127.0.0.1/32", "::1"));
+
+    public List<String> getAllowedAddresses() {
+        return allowedAddresses;
+    }
+
+    public void setAllowedAddresses(List<String> allowedAddresses) {
+        this.allowedAddresses = allowedAddresses;
+    }
+}
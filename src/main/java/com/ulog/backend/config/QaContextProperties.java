@@ -0,0 +1,55 @@
+package com.ulog.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "qa.context")
+public class QaContextProperties {
+
+    private int maxHistoryTokens = 3000; // 原样保留的历史对话最多占用的token数（估算值）
+    private int maxVerbatimTurns = 6; // 原样保留的最近QA轮次上限
+    private boolean summaryEnabled = true; // 是否把窗口外的较早轮次折叠为滚动摘要
+    private int summaryMaxChars = 600; // 滚动摘要的目标长度
+    private int summaryFoldTurns = 10; // 窗口之外额外读取、可并入摘要的轮次上限（摘要落后更多时，更早的轮次不再并入）
+
+    public int getMaxHistoryTokens() {
+        return maxHistoryTokens;
+    }
+
+    public void setMaxHistoryTokens(int maxHistoryTokens) {
+        this.maxHistoryTokens = maxHistoryTokens;
+    }
+
+    public int getMaxVerbatimTurns() {
+        return maxVerbatimTurns;
+    }
+
+    public void setMaxVerbatimTurns(int maxVerbatimTurns) {
+        this.maxVerbatimTurns = maxVerbatimTurns;
+    }
+
+    public boolean isSummaryEnabled() {
+        return summaryEnabled;
+    }
+
+    public void setSummaryEnabled(boolean summaryEnabled) {
+        this.summaryEnabled = summaryEnabled;
+    }
+
+    public int getSummaryMaxChars() {
+        return summaryMaxChars;
+    }
+
+    public void setSummaryMaxChars(int summaryMaxChars) {
+        this.summaryMaxChars = summaryMaxChars;
+    }
+
+    public int getSummaryFoldTurns() {
+        return summaryFoldTurns;
+    }
+
+    public void setSummaryFoldTurns(int summaryFoldTurns) {
+        this.summaryFoldTurns = summaryFoldTurns;
+    }
+}
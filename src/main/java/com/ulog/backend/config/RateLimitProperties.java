@@ -11,6 +11,8 @@ public class RateLimitProperties {
     private int defaultPerMinute = 60;
     private int loginPerMinute = 5;
     private int aiPerMinute = 60;
+    private int shards = 16; // 限流key的存储分片数（取2的幂）
+    private int maxKeysPerShard = 10000; // 每个分片的key上限，超出时淘汰
 
     public boolean isEnabled() {
         return enabled;
@@ -43,5 +45,20 @@ public class RateLimitProperties {
     public void setAiPerMinute(int aiPerMinute) {
         this.aiPerMinute = aiPerMinute;
     }
-}
 
+    public int getShards() {
+        return shards;
+    }
+
+    public void setShards(int shards) {
+        this.shards = shards;
+    }
+
+    public int getMaxKeysPerShard() {
+        return maxKeysPerShard;
+    }
+
+    public void setMaxKeysPerShard(int maxKeysPerShard) {
+        this.maxKeysPerShard = maxKeysPerShard;
+    }
+}
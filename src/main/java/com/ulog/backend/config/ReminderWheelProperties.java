@@ -0,0 +1,37 @@
+package com.ulog.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "reminder.wheel")
+public class ReminderWheelProperties {
+
+    private long tickMs = 1000; // 时间轮每格时长，即提醒触发精度
+    private long horizonMinutes = 60; // 时间轮装载的提醒时间范围
+    private long reconcileMs = 300000; // 与数据库对账的间隔，应小于装载范围
+
+    public long getTickMs() {
+        return tickMs;
+    }
+
+    public void setTickMs(long tickMs) {
+        this.tickMs = tickMs;
+    }
+
+    public long getHorizonMinutes() {
+        return horizonMinutes;
+    }
+
+    public void setHorizonMinutes(long horizonMinutes) {
+        this.horizonMinutes = horizonMinutes;
+    }
+
+    public long getReconcileMs() {
+        return reconcileMs;
+    }
+
+    public void setReconcileMs(long reconcileMs) {
+        this.reconcileMs = reconcileMs;
+    }
+}
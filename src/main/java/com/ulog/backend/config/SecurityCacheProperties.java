@@ -0,0 +1,46 @@
+package com.ulog.backend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "security.cache")
+public class SecurityCacheProperties {
+
+    private boolean enabled = true;
+    private long principalTtlSeconds = 60; // 已认证用户信息的缓存时间，兜底未显式失效的状态变化
+    private int principalMaxEntries = 10000;
+    private int tokenMaxEntries = 10000; // 已验签的access token缓存条数，条目在token过期时失效
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getPrincipalTtlSeconds() {
+        return principalTtlSeconds;
+    }
+
+    public void setPrincipalTtlSeconds(long principalTtlSeconds) {
+        this.principalTtlSeconds = principalTtlSeconds;
+    }
+
+    public int getPrincipalMaxEntries() {
+        return principalMaxEntries;
+    }
+
+    public void setPrincipalMaxEntries(int principalMaxEntries) {
+        this.principalMaxEntries = principalMaxEntries;
+    }
+
+    public int getTokenMaxEntries() {
+        return tokenMaxEntries;
+    }
+
+    public void setTokenMaxEntries(int tokenMaxEntries) {
+        this.tokenMaxEntries = tokenMaxEntries;
+    }
+}
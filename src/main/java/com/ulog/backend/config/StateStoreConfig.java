@@ -0,0 +1,51 @@
+package com.ulog.backend.config;
+
+import com.ulog.backend.common.store.EphemeralCodeStore;
+import com.ulog.backend.common.store.InMemoryEphemeralCodeStore;
+import com.ulog.backend.common.store.InMemoryRateLimitStore;
+import com.ulog.backend.common.store.JdbcEphemeralCodeStore;
+import com.ulog.backend.common.store.JdbcRateLimitStore;
+import com.ulog.backend.common.store.RateLimitStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * 限流状态、短信验证码等临时状态的存储
+ * state.store=memory（默认）：保存在本实例内存，适用于单实例部署
+ * state.store=jdbc：保存在数据库（rate_limit_buckets、ephemeral_codes），多实例部署时共享
+ */
+@Configuration
+public class StateStoreConfig {
+
+    @Configuration
+    @ConditionalOnProperty(name = "state.store", havingValue = "memory", matchIfMissing = true)
+    static class InMemoryStores {
+
+        @Bean
+        public RateLimitStore rateLimitStore(RateLimitProperties properties) {
+            return new InMemoryRateLimitStore(properties.getShards(), properties.getMaxKeysPerShard());
+        }
+
+        @Bean
+        public EphemeralCodeStore ephemeralCodeStore() {
+            return new InMemoryEphemeralCodeStore();
+        }
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "state.store", havingValue = "jdbc")
+    static class JdbcStores {
+
+        @Bean
+        public RateLimitStore rateLimitStore(JdbcTemplate jdbcTemplate) {
+            return new JdbcRateLimitStore(jdbcTemplate);
+        }
+
+        @Bean
+        public EphemeralCodeStore ephemeralCodeStore(JdbcTemplate jdbcTemplate) {
+            return new JdbcEphemeralCodeStore(jdbcTemplate);
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.ulog.backend.contact.service;
 
-import com.ulog.backend.ai.DeepseekService;
+import com.ulog.backend.ai.DeepseekCaller;
+import com.ulog.backend.ai.DeepseekTrafficClass;
+import com.ulog.backend.ai.structured.StructuredOutputSchemas;
+import com.ulog.backend.ai.structured.StructuredOutputService;
 import com.ulog.backend.contact.dto.AibookDto;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -14,12 +16,10 @@ public class AibookServiceImpl implements AibookService {
     
     private static final Logger log = LoggerFactory.getLogger(AibookServiceImpl.class);
     
-    private final DeepseekService deepseekService;
-    private final ObjectMapper objectMapper;
+    private final StructuredOutputService structuredOutputService;
 
-    public AibookServiceImpl(DeepseekService deepseekService, ObjectMapper objectMapper) {
-        this.deepseekService = deepseekService;
-        this.objectMapper = objectMapper;
+    public AibookServiceImpl(StructuredOutputService structuredOutputService) {
+        this.structuredOutputService = structuredOutputService;
     }
 
     private static final String SYSTEM_PROMPT_ZH = """
@@ -75,15 +75,17 @@ Return a JSON object `aibook` with 5 dimensions: behaviorTendencies, valuesAndEm
 """, nullToEmpty(contactDesc), nullToEmpty(userDesc));
 
         try {
-            String rawResponse = deepseekService.ask(systemPrompt, userPrompt)
+            // 允许 DeepSeek 直接返回 {"aibook":{...}} 或仅返回 {...}，见 StructuredOutputSchemas.AIBOOK
+            AibookDto aibook = structuredOutputService.askCached(StructuredOutputSchemas.AIBOOK, systemPrompt, userPrompt,
+                    DeepseekTrafficClass.INTERACTIVE, DeepseekCaller.AIBOOK)
                 .timeout(Duration.ofSeconds(120))
                 .block();
             
-            if (rawResponse == null || rawResponse.trim().isEmpty()) {
+            if (aibook == null) {
                 throw new RuntimeException("Empty AI response");
             }
             
-            return parseAibookResponse(rawResponse);
+            return aibook;
             
         } catch (Exception e) {
             log.error("Failed to generate aibook: {}", e.getMessage(), e);
@@ -91,24 +93,6 @@ Return a JSON object `aibook` with 5 dimensions: behaviorTendencies, valuesAndEm
         }
     }
 
-    private AibookDto parseAibookResponse(String rawResponse) {
-        try {
-            // 允许 DeepSeek 直接返回 {"aibook":{...}} 或仅返回 {...}
-            if (rawResponse.trim().startsWith("{")) {
-                var node = objectMapper.readTree(rawResponse);
-                if (node.has("aibook")) {
-                    return objectMapper.treeToValue(node.get("aibook"), AibookDto.class);
-                } else {
-                    return objectMapper.treeToValue(node, AibookDto.class);
-                }
-            }
-            throw new RuntimeException("Invalid AI response format: " + rawResponse);
-        } catch (Exception e) {
-            log.error("Failed to parse aibook response: {}", rawResponse, e);
-            throw new RuntimeException("Parse aibook failed: " + e.getMessage(), e);
-        }
-    }
-
     private static String nullToEmpty(String s) {
         return s == null ? "" : s;
     }
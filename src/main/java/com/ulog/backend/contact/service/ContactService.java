@@ -1,6 +1,5 @@
 package com.ulog.backend.contact.service;
 
-import com.ulog.backend.ai.AiSummaryService;
 import com.ulog.backend.common.api.ErrorCode;
 import com.ulog.backend.common.exception.ApiException;
 import com.ulog.backend.common.exception.BadRequestException;
@@ -29,14 +28,12 @@ public class ContactService {
 
     private final ContactRepository contactRepository;
     private final UserRepository userRepository;
-    private final AiSummaryService aiSummaryService;
     private final ApplicationEventPublisher eventPublisher;
     private final OperationLogService operationLogService;
 
-    public ContactService(ContactRepository contactRepository, UserRepository userRepository, AiSummaryService aiSummaryService, ApplicationEventPublisher eventPublisher, OperationLogService operationLogService) {
+    public ContactService(ContactRepository contactRepository, UserRepository userRepository, ApplicationEventPublisher eventPublisher, OperationLogService operationLogService) {
         this.contactRepository = contactRepository;
         this.userRepository = userRepository;
-        this.aiSummaryService = aiSummaryService;
         this.eventPublisher = eventPublisher;
         this.operationLogService = operationLogService;
     }
@@ -89,10 +86,9 @@ public class ContactService {
             log.debug("Publishing ContactDescriptionUpdatedEvent for contact {}", contactId);
             eventPublisher.publishEvent(new ContactDescriptionUpdatedEvent(contactId, request.getDescription()));
         }
+        // 未显式提供 aiSummary 时，由描述更新触发的联系人综合分析任务生成
         if (request.getAiSummary() != null) {
             contact.setAiSummary(request.getAiSummary());
-        } else if (request.getDescription() != null) {
-            populateSummaryIfNeeded(contact, request.getDescription(), null);
         }
         
         // 记录联系人更新日志
@@ -134,20 +130,4 @@ public class ContactService {
             contact.getUpdatedAt()
         );
     }
-
-    private void populateSummaryIfNeeded(Contact contact, String description, String requestedSummary) {
-        if (requestedSummary != null && !requestedSummary.isBlank()) {
-            contact.setAiSummary(requestedSummary);
-            return;
-        }
-        try {
-            String generated = aiSummaryService.generateAiSummary(description);
-            if (generated != null && !generated.isBlank()) {
-                contact.setAiSummary(generated);
-            }
-        } catch (Exception ex) {
-            log.warn("AI summary generation failed for contact {}: {}", contact.getId(), ex.getMessage());
-            log.debug("AI summary generation error", ex);
-        }
-    }
 }
@@ -9,9 +9,12 @@ import com.ulog.backend.repository.ConversationSessionRepository;
 import com.ulog.backend.security.UserPrincipal;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -115,6 +118,21 @@ public class ConversationController {
         return ResponseEntity.ok(ApiResponse.success(response));
     }
     
+    /**
+     * 问答模式：提问（SSE流式返回）
+     * 事件类型：delta（增量文本）、supplement（需要补充信息）、done（完成，附完整响应）、error
+     */
+    @PostMapping(value = "/qa/{sessionId}/message/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> askQuestionStream(
+        @AuthenticationPrincipal UserPrincipal principal,
+        @PathVariable String sessionId,
+        @Valid @RequestBody QaRequest request
+    ) {
+        return qaService.streamQuestion(sessionId, principal.getUserId(), request.getMessage())
+            .onErrorResume(e -> Flux.just(QaStreamEvent.error(e)))
+            .map(event -> ServerSentEvent.builder(event.getData()).event(event.getType()).build());
+    }
+    
     /**
      * 生成AI总结
      */
@@ -144,6 +162,20 @@ public class ConversationController {
         return ResponseEntity.ok(ApiResponse.success(response));
     }
     
+    /**
+     * 分页获取QA历史
+     */
+    @GetMapping("/qa/{sessionId}/history")
+    public ResponseEntity<ApiResponse<QaHistoryPageResponse>> getQaHistory(
+        @AuthenticationPrincipal UserPrincipal principal,
+        @PathVariable String sessionId,
+        @RequestParam(defaultValue = "0") int page,
+        @RequestParam(defaultValue = "20") int size
+    ) {
+        QaHistoryPageResponse history = qaService.getQaHistory(sessionId, principal.getUserId(), page, size);
+        return ResponseEntity.ok(ApiResponse.success(history));
+    }
+    
     /**
      * 结束会话
      */
@@ -0,0 +1,9 @@
+package com.ulog.backend.conversation.dto;
+
+import java.util.List;
+
+/**
+ * QA历史分页响应
+ */
+public record QaHistoryPageResponse(List<QaHistoryEntry> entries, int page, int size, long total) {
+}
@@ -0,0 +1,12 @@
+package com.ulog.backend.conversation.dto;
+
+import java.util.List;
+
+/**
+ * QA历史窗口：会话最近的若干轮QA（按序号升序）及其中第一轮的序号
+ */
+public record QaHistoryWindow(
+    int startSeq,
+    List<QaHistoryEntry> entries
+) {
+}
@@ -0,0 +1,67 @@
+package com.ulog.backend.conversation.dto;
+
+import com.ulog.backend.common.api.ApiResponse;
+import com.ulog.backend.common.api.ErrorCode;
+import com.ulog.backend.common.exception.ApiException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+/**
+ * 流式问答事件
+ * delta: 回答的增量文本；supplement: 需要补充信息（data为完整响应）；
+ * done: 回答完成并已保存历史（data为完整响应）；error: 出错终止（data为与REST接口相同的错误响应）
+ */
+public class QaStreamEvent {
+
+    private static final Logger log = LoggerFactory.getLogger(QaStreamEvent.class);
+
+    public static final String DELTA = "delta";
+    public static final String SUPPLEMENT = "supplement";
+    public static final String DONE = "done";
+    public static final String ERROR = "error";
+
+    private final String type;
+    private final Object data;
+
+    private QaStreamEvent(String type, Object data) {
+        this.type = type;
+        this.data = data;
+    }
+
+    public static QaStreamEvent delta(String content) {
+        return new QaStreamEvent(DELTA, content);
+    }
+
+    public static QaStreamEvent supplement(Object response) {
+        return new QaStreamEvent(SUPPLEMENT, response);
+    }
+
+    public static QaStreamEvent done(Object response) {
+        return new QaStreamEvent(DONE, response);
+    }
+
+    /**
+     * 与 GlobalExceptionHandler 相同的映射：ApiException 保留错误码和提示，其他异常只在服务端记录，
+     * 客户端收到通用错误，避免把上游响应、SQL等内部信息带出去
+     */
+    public static QaStreamEvent error(Throwable error) {
+        if (error instanceof ApiException apiException) {
+            return new QaStreamEvent(ERROR, ApiResponse.error(apiException.getErrorCode(), apiException.getMessage()));
+        }
+        if (error instanceof OptimisticLockingFailureException) {
+            log.warn("Optimistic lock conflict in QA stream: {}", error.getMessage());
+            return new QaStreamEvent(ERROR, ApiResponse.error(ErrorCode.CONFLICT));
+        }
+        log.error("Unhandled exception in QA stream", error);
+        return new QaStreamEvent(ERROR, ApiResponse.error(ErrorCode.SERVER_ERROR));
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Object getData() {
+        return data;
+    }
+}
@@ -0,0 +1,82 @@
+package com.ulog.backend.conversation.job;
+
+import com.ulog.backend.ai.ContactEnrichmentParseException;
+import com.ulog.backend.ai.ContactEnrichmentService;
+import com.ulog.backend.ai.dto.ContactEnrichment;
+import com.ulog.backend.ai.job.AiJob;
+import com.ulog.backend.ai.job.AiJobHandler;
+import com.ulog.backend.ai.job.AiJobType;
+import com.ulog.backend.conversation.dto.SelfValue;
+import com.ulog.backend.repository.ContactRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * 联系人综合分析：一次调用写入 self value、交往建议和 aiSummary（用户有描述时为关系分析，否则为要点摘要）
+ * 响应无法解析时在本次执行内回退为逐项调用（先 self value，再交往建议和关系分析）；调用失败则抛出交给任务队列重试
+ */
+@Component
+public class ContactEnrichmentJobHandler implements AiJobHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(ContactEnrichmentJobHandler.class);
+
+    private final ContactEnrichmentService contactEnrichmentService;
+    private final ContactRepository contactRepository;
+    private final ContactSelfValueJobHandler selfValueJobHandler;
+    private final RelationshipAnalysisJobHandler relationshipAnalysisJobHandler;
+
+    public ContactEnrichmentJobHandler(
+            ContactEnrichmentService contactEnrichmentService,
+            ContactRepository contactRepository,
+            ContactSelfValueJobHandler selfValueJobHandler,
+            RelationshipAnalysisJobHandler relationshipAnalysisJobHandler) {
+        this.contactEnrichmentService = contactEnrichmentService;
+        this.contactRepository = contactRepository;
+        this.selfValueJobHandler = selfValueJobHandler;
+        this.relationshipAnalysisJobHandler = relationshipAnalysisJobHandler;
+    }
+
+    @Override
+    public AiJobType getType() {
+        return AiJobType.CONTACT_ENRICHMENT;
+    }
+
+    @Override
+    public void handle(AiJob job) throws Exception {
+        Long contactId = job.entityId();
+        ContactEnrichment enrichment;
+        try {
+            enrichment = contactEnrichmentService.generateContactEnrichment(contactId).block();
+        } catch (ContactEnrichmentParseException e) {
+            log.warn("Contact enrichment for contact {} could not be parsed, falling back to separate calls: {}",
+                contactId, e.getMessage());
+            selfValueJobHandler.handle(job);
+            relationshipAnalysisJobHandler.handle(job);
+            return;
+        }
+        if (enrichment == null) {
+            return;
+        }
+
+        // 重新读取联系人再更新，避免覆盖AI调用期间用户的修改
+        contactRepository.findById(contactId).ifPresentOrElse(
+            contact -> {
+                contact.setSelfValue(SelfValue.format(enrichment.getSelfValue()));
+                contact.setInteractionSuggestions(enrichment.getInteractionSuggestions());
+                contact.setAiSummary(enrichment.getRelationshipAnalysis() != null
+                    ? enrichment.getRelationshipAnalysis()
+                    : enrichment.getSummary());
+                contactRepository.save(contact);
+                log.info("Saved contact enrichment for contact {}", contactId);
+            },
+            () -> log.warn("Contact {} not found when saving contact enrichment", contactId)
+        );
+    }
+
+    @Override
+    public void onGiveUp(AiJob job) {
+        selfValueJobHandler.onGiveUp(job);
+        relationshipAnalysisJobHandler.onGiveUp(job);
+    }
+}
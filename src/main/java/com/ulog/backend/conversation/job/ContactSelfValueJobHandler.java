@@ -0,0 +1,35 @@
+package com.ulog.backend.conversation.job;
+
+import com.ulog.backend.ai.job.AiJob;
+import com.ulog.backend.ai.job.AiJobHandler;
+import com.ulog.backend.ai.job.AiJobType;
+import com.ulog.backend.conversation.service.SelfValueCalculationService;
+import org.springframework.stereotype.Component;
+
+/**
+ * 计算联系人 self value，重试用尽后写入默认值
+ */
+@Component
+public class ContactSelfValueJobHandler implements AiJobHandler {
+
+    private final SelfValueCalculationService selfValueCalculationService;
+
+    public ContactSelfValueJobHandler(SelfValueCalculationService selfValueCalculationService) {
+        this.selfValueCalculationService = selfValueCalculationService;
+    }
+
+    @Override
+    public AiJobType getType() {
+        return AiJobType.CONTACT_SELF_VALUE;
+    }
+
+    @Override
+    public void handle(AiJob job) {
+        selfValueCalculationService.updateContactSelfValue(job.entityId(), job.payload());
+    }
+
+    @Override
+    public void onGiveUp(AiJob job) {
+        selfValueCalculationService.applyDefaultContactSelfValue(job.entityId());
+    }
+}
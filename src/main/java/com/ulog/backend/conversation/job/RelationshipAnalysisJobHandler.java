@@ -0,0 +1,134 @@
+package com.ulog.backend.conversation.job;
+
+import com.ulog.backend.ai.RelationshipAnalysisService;
+import com.ulog.backend.ai.job.AiJob;
+import com.ulog.backend.ai.job.AiJobHandler;
+import com.ulog.backend.ai.job.AiJobType;
+import com.ulog.backend.domain.contact.Contact;
+import com.ulog.backend.repository.ContactRepository;
+import com.ulog.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+/**
+ * 为联系人生成交往建议和关系分析（联系人创建、描述更新时入队）
+ * 任一步失败都抛出异常交给任务队列重试；重试用尽后，若还没有交往建议则写入默认建议
+ */
+@Component
+public class RelationshipAnalysisJobHandler implements AiJobHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(RelationshipAnalysisJobHandler.class);
+
+    private static final String DEFAULT_INTERACTION_SUGGESTIONS = "### 1. 行为倾向推断\n" +
+            "基于现有信息，建议保持开放和尊重的态度进行交往。\n\n" +
+            "### 2. 情绪与价值观暗示\n" +
+            "建议关注对方的情绪变化，尊重其价值观和选择。\n\n" +
+            "### 3. 潜在需求推理\n" +
+            "保持真诚的沟通，了解对方的真实需求。\n\n" +
+            "### 4. 可能的禁忌雷区\n" +
+            "避免过于私人的话题，尊重对方的边界。\n\n" +
+            "### 5. 人际关系机会点\n" +
+            "通过共同兴趣和活动增进了解。\n\n" +
+            "### 6. 快乐清单\n" +
+            "保持积极正面的交流，分享有趣的话题。\n\n" +
+            "### 7. 雷点清单\n" +
+            "避免批评和负面情绪的表达。\n\n" +
+            "### 8. 关键时间点\n" +
+            "信息不足，建议在交往过程中了解重要日期。";
+
+    private final RelationshipAnalysisService relationshipAnalysisService;
+    private final ContactRepository contactRepository;
+    private final UserRepository userRepository;
+
+    public RelationshipAnalysisJobHandler(
+            RelationshipAnalysisService relationshipAnalysisService,
+            ContactRepository contactRepository,
+            UserRepository userRepository) {
+        this.relationshipAnalysisService = relationshipAnalysisService;
+        this.contactRepository = contactRepository;
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public AiJobType getType() {
+        return AiJobType.CONTACT_RELATIONSHIP_ANALYSIS;
+    }
+
+    /**
+     * 生成：交往建议 + 关系分析（如果有用户描述），读取数据库中的最新描述
+     */
+    @Override
+    public void handle(AiJob job) {
+        Long contactId = job.entityId();
+        var contactOpt = contactRepository.findById(contactId);
+        if (contactOpt.isEmpty()) {
+            log.warn("Contact {} not found, skipping relationship analysis", contactId);
+            return;
+        }
+        Long userId = contactOpt.get().getOwner().getId();
+
+        // Step 1: 生成交往建议（不依赖用户信息，总是生成）
+        log.info("Generating interaction suggestions for contact {}", contactId);
+        String suggestions = relationshipAnalysisService.generateInteractionSuggestions(contactId).block();
+        if (suggestions == null || suggestions.trim().isEmpty()) {
+            throw new IllegalStateException("Empty interaction suggestions generated for contact " + contactId);
+        }
+        updateContact(contactId, contact -> contact.setInteractionSuggestions(suggestions));
+
+        // Step 2: 生成关系分析（需要用户有描述）
+        if (hasUserDescription(userId)) {
+            log.info("Generating relationship analysis for contact {} and user {}", contactId, userId);
+            String analysis = relationshipAnalysisService.generateRelationshipAnalysis(contactId, userId).block();
+            if (analysis == null || analysis.trim().isEmpty()) {
+                throw new IllegalStateException("Empty relationship analysis generated for contact " + contactId);
+            }
+            updateContact(contactId, contact -> contact.setAiSummary(analysis));
+        } else {
+            log.info("User {} has no description, skipping relationship analysis for contact {}",
+                    userId, contactId);
+            // 清空之前的关系分析
+            updateContact(contactId, contact -> contact.setAiSummary(null));
+        }
+
+        log.info("Successfully completed relationship analysis processing for contact {}", contactId);
+    }
+
+    /**
+     * 重试用尽：联系人还没有交往建议时写入默认建议，已有的旧建议保留
+     */
+    @Override
+    public void onGiveUp(AiJob job) {
+        updateContact(job.entityId(), contact -> {
+            if (contact.getInteractionSuggestions() == null || contact.getInteractionSuggestions().isBlank()) {
+                contact.setInteractionSuggestions(DEFAULT_INTERACTION_SUGGESTIONS);
+                log.info("Set default interaction suggestions for contact {}", job.entityId());
+            }
+        });
+    }
+
+    /**
+     * 重新读取联系人再更新，避免覆盖AI调用期间用户的修改
+     */
+    private void updateContact(Long contactId, Consumer<Contact> update) {
+        var contactOpt = contactRepository.findById(contactId);
+        if (contactOpt.isEmpty()) {
+            log.warn("Contact {} not found when saving relationship analysis results", contactId);
+            return;
+        }
+        Contact contact = contactOpt.get();
+        update.accept(contact);
+        contactRepository.save(contact);
+    }
+
+    /**
+     * 检查用户是否有描述信息
+     */
+    private boolean hasUserDescription(Long userId) {
+        return userRepository.findById(userId)
+                .map(user -> user.getDescription() != null && !user.getDescription().trim().isEmpty())
+                .orElse(false);
+    }
+}
@@ -0,0 +1,35 @@
+package com.ulog.backend.conversation.job;
+
+import com.ulog.backend.ai.job.AiJob;
+import com.ulog.backend.ai.job.AiJobHandler;
+import com.ulog.backend.ai.job.AiJobType;
+import com.ulog.backend.conversation.service.SelfValueCalculationService;
+import org.springframework.stereotype.Component;
+
+/**
+ * 计算用户 self value，重试用尽后写入默认值
+ */
+@Component
+public class UserSelfValueJobHandler implements AiJobHandler {
+
+    private final SelfValueCalculationService selfValueCalculationService;
+
+    public UserSelfValueJobHandler(SelfValueCalculationService selfValueCalculationService) {
+        this.selfValueCalculationService = selfValueCalculationService;
+    }
+
+    @Override
+    public AiJobType getType() {
+        return AiJobType.USER_SELF_VALUE;
+    }
+
+    @Override
+    public void handle(AiJob job) {
+        selfValueCalculationService.updateUserSelfValue(job.entityId(), job.payload());
+    }
+
+    @Override
+    public void onGiveUp(AiJob job) {
+        selfValueCalculationService.applyDefaultUserSelfValue(job.entityId());
+    }
+}
@@ -3,10 +3,14 @@ package com.ulog.backend.conversation.service;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ulog.backend.ai.DeepseekCaller;
 import com.ulog.backend.ai.DeepseekClient;
 import com.ulog.backend.ai.dto.ChatCompletionRequest;
 import com.ulog.backend.ai.dto.ChatCompletionResponse;
 import com.ulog.backend.ai.dto.ChatMessage;
+import com.ulog.backend.ai.structured.StructuredOutputException;
+import com.ulog.backend.ai.structured.StructuredOutputSchemas;
+import com.ulog.backend.ai.structured.StructuredOutputService;
 import com.ulog.backend.config.DeepseekProperties;
 import com.ulog.backend.common.exception.BadRequestException;
 import com.ulog.backend.common.exception.NotFoundException;
@@ -23,8 +27,10 @@ import com.ulog.backend.domain.conversation.ConversationSession;
 import com.ulog.backend.repository.ConversationSessionRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -39,6 +45,9 @@ public class InfoCollectionServiceImpl implements InfoCollectionService {
     private final ContactService contactService;
     private final ObjectMapper objectMapper;
     private final DeepseekProperties deepseekProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final StructuredOutputService structuredOutputService;
+    private final LocalIntentClassifier localIntentClassifier;
     
     // 固定问卷模块定义
     private static final List<QuestionModule> QUESTION_MODULES = List.of(
@@ -163,17 +172,22 @@ public class InfoCollectionServiceImpl implements InfoCollectionService {
         DeepseekClient deepseekClient,
         ContactService contactService,
         ObjectMapper objectMapper,
-        DeepseekProperties deepseekProperties
+        DeepseekProperties deepseekProperties,
+        TransactionTemplate transactionTemplate,
+        StructuredOutputService structuredOutputService,
+        LocalIntentClassifier localIntentClassifier
     ) {
         this.sessionRepository = sessionRepository;
         this.deepseekClient = deepseekClient;
         this.contactService = contactService;
         this.objectMapper = objectMapper;
         this.deepseekProperties = deepseekProperties;
+        this.transactionTemplate = transactionTemplate;
+        this.structuredOutputService = structuredOutputService;
+        this.localIntentClassifier = localIntentClassifier;
     }
     
     @Override
-    @Transactional
     public StartCollectionResponse startCollection(Long userId, String contactName) {
         // 1. 创建会话
         String sessionId = "sess_" + UUID.randomUUID().toString().replace("-", "");
@@ -189,7 +203,7 @@ public class InfoCollectionServiceImpl implements InfoCollectionService {
         session.setLastQuestion(firstQuestion);
         
         // 3. 保存会话
-        sessionRepository.save(session);
+        saveSession(session);
         
         log.info("Started collection session {} for user {} with contact {}", 
             sessionId, userId, contactName);
@@ -202,8 +216,12 @@ public class InfoCollectionServiceImpl implements InfoCollectionService {
         );
     }
     
+    /**
+     * 处理用户消息
+     * 不在整个方法上开启事务：会话以分离实体的形式加载，DeepSeek调用期间不占用数据库连接，
+     * 每次保存都是独立的短事务，并通过版本号检测并发修改
+     */
     @Override
-    @Transactional
     public MessageResponse processMessage(String sessionId, Long userId, String userMessage) {
         // 1. 加载会话
         ConversationSession session = loadSession(sessionId, userId);
@@ -306,7 +324,7 @@ public class InfoCollectionServiceImpl implements InfoCollectionService {
         // 11. 更新会话
         session.setCurrentDimension(nextModuleId);
         session.setLastQuestion(nextQuestion);
-        sessionRepository.save(session);
+        saveSession(session);
         
         // 12. 检查是否应该完成
         int progress = calculateProgress(session);
@@ -348,7 +366,7 @@ public class InfoCollectionServiceImpl implements InfoCollectionService {
             log.info("User wants to continue in session {}", session.getSessionId());
             // 恢复ACTIVE状态，继续对话
             session.setStatus(SessionStatus.ACTIVE.name());
-            sessionRepository.save(session);
+            saveSession(session);
             // 生成下一个问题
             String nextQuestion = generateNextQuestion(
                 session.getContactName(),
@@ -358,7 +376,7 @@ public class InfoCollectionServiceImpl implements InfoCollectionService {
                 userMessage
             );
             session.setLastQuestion(nextQuestion);
-            sessionRepository.save(session);
+            saveSession(session);
             
             QuestionModule module = getModuleById(session.getCurrentDimension());
             MessageResponse response = new MessageResponse();
@@ -486,7 +504,7 @@ public class InfoCollectionServiceImpl implements InfoCollectionService {
         
         session.setCurrentDimension(nextDimension);
         session.setLastQuestion(nextQuestion);
-        sessionRepository.save(session);
+        saveSession(session);
         
         QuestionModule module = getModuleById(nextDimension);
         MessageResponse response = new MessageResponse();
@@ -511,7 +529,7 @@ public class InfoCollectionServiceImpl implements InfoCollectionService {
         
         session.setStatus(SessionStatus.REQUESTING_MINIMUM.name());
         session.setLastQuestion(question);
-        sessionRepository.save(session);
+        saveSession(session);
         
         MessageResponse response = new MessageResponse();
         response.setNextQuestion(question);
@@ -538,7 +556,7 @@ public class InfoCollectionServiceImpl implements InfoCollectionService {
         
         session.setStatus(SessionStatus.REQUESTING_MINIMUM.name());
         session.setLastQuestion(question);
-        sessionRepository.save(session);
+        saveSession(session);
         
         MessageResponse response = new MessageResponse();
         response.setNextQuestion(question);
@@ -559,7 +577,7 @@ public class InfoCollectionServiceImpl implements InfoCollectionService {
         Map<String, Object> collectedData
     ) {
         session.setStatus(SessionStatus.CONFIRMING_END.name());
-        sessionRepository.save(session);
+        saveSession(session);
         
         MessageResponse response = new MessageResponse();
         response.setNextQuestion("好的，了解了。那我们就根据这些信息创建联系人吧？（回复'是'继续，或'再想想'继续补充）");
@@ -575,7 +593,6 @@ public class InfoCollectionServiceImpl implements InfoCollectionService {
     /**
      * 完成并创建联系人
      */
-    @Transactional
     private MessageResponse completeAndCreateContact(
         ConversationSession session,
         Map<String, Object> collectedData
@@ -585,7 +602,7 @@ public class InfoCollectionServiceImpl implements InfoCollectionService {
             log.info("Starting contact creation for session {}, collected data: {}", 
                 session.getSessionId(), collectedData);
             
-            // 2. 生成description
+            // 2. 生成description（LLM调用，不持有事务）
             String description = generateDescription(
                 session.getContactName(),
                 collectedData
@@ -593,23 +610,25 @@ public class InfoCollectionServiceImpl implements InfoCollectionService {
             
             log.info("Generated description for {}: {}", session.getContactName(), description);
             
-            // 3. 调用创建联系人API
-            ContactRequest contactRequest = new ContactRequest();
-            contactRequest.setName(session.getContactName());
-            contactRequest.setDescription(description);
-            
-            ContactResponse contact = contactService.create(session.getUserId(), contactRequest);
-            
-            log.info("Successfully created contact {} for session {}", 
-                contact.id(), session.getSessionId());
-            
-            // 4. 更新会话状态
-            session.setStatus(SessionStatus.COMPLETED.name());
-            session.setContactId(contact.id());
-            session.setCompletedAt(LocalDateTime.now());
-            session.setFinalDescription(description);
-            session.setLastQuestion(null);  // 清空lastQuestion，避免干扰QA阶段
-            sessionRepository.save(session);
+            // 3-4. 创建联系人并更新会话状态（同一个短写事务，会话版本冲突时联系人创建一并回滚）
+            ContactResponse contact = transactionTemplate.execute(status -> {
+                ContactRequest contactRequest = new ContactRequest();
+                contactRequest.setName(session.getContactName());
+                contactRequest.setDescription(description);
+                
+                ContactResponse created = contactService.create(session.getUserId(), contactRequest);
+                
+                log.info("Successfully created contact {} for session {}", 
+                    created.id(), session.getSessionId());
+                
+                session.setStatus(SessionStatus.COMPLETED.name());
+                session.setContactId(created.id());
+                session.setCompletedAt(LocalDateTime.now());
+                session.setFinalDescription(description);
+                session.setLastQuestion(null);  // 清空lastQuestion，避免干扰QA阶段
+                saveSession(session);
+                return created;
+            });
             
             log.info("Session {} marked as COMPLETED", session.getSessionId());
             
@@ -623,6 +642,9 @@ public class InfoCollectionServiceImpl implements InfoCollectionService {
             response.setSuggestedActions(PromptTemplates.getSuggestedActions());
             return response;
                 
+        } catch (OptimisticLockingFailureException e) {
+            // 并发修改交给全局异常处理返回409
+            throw e;
         } catch (Exception e) {
             log.error("Failed to create contact for session {}: {}", 
                 session.getSessionId(), e.getMessage(), e);
@@ -827,7 +849,7 @@ public class InfoCollectionServiceImpl implements InfoCollectionService {
             collectedData,
             lastUserMessage
         );
-        return callDeepseek(prompt);
+        return callDeepseek(prompt, DeepseekCaller.QUESTION_GENERATION);
     }
     
     /**
@@ -839,7 +861,7 @@ public class InfoCollectionServiceImpl implements InfoCollectionService {
         
         // 基于缺失信息生成动态问题
         String prompt = buildDynamicMinimumInfoPrompt(contactName, data, missingInfo);
-        return callDeepseek(prompt);
+        return callDeepseek(prompt, DeepseekCaller.QUESTION_GENERATION);
     }
     
     /**
@@ -910,7 +932,7 @@ public class InfoCollectionServiceImpl implements InfoCollectionService {
         
         // 先尝试使用Deepseek生成，但添加严格限制
         String prompt = PromptTemplates.buildDescriptionPrompt(contactName, collectedData);
-        String deepseekDescription = callDeepseek(prompt);
+        String deepseekDescription = callDeepseek(prompt, DeepseekCaller.DESCRIPTION_GENERATION);
         
         // 验证生成的描述是否包含编造内容
         if (isDescriptionValid(deepseekDescription, collectedData)) {
@@ -1021,7 +1043,7 @@ public class InfoCollectionServiceImpl implements InfoCollectionService {
     }
     
     /**
-     * 智能提取信息 - 移除本地提取兜底，专注于AI响应
+     * 智能提取信息 - 简短回复先由本地意图分类器判断，其余交给AI（不再使用本地提取兜底）
      */
     private ExtractionResult extractInformationWithIntent(
         String userMessage,
@@ -1029,6 +1051,14 @@ public class InfoCollectionServiceImpl implements InfoCollectionService {
         Map<String, Object> collectedData,
         String lastQuestion
     ) {
+        // 不含信息的简短回复（"不知道"、"跳过"、"就这些"等）由本地分类器判断，不调用DeepSeek
+        Optional<ExtractionResult> localResult = localIntentClassifier.classify(userMessage);
+        if (localResult.isPresent()) {
+            log.info("Local intent classifier handled message: intent={}, wantsToEnd={}",
+                localResult.get().getIntent(), localResult.get().isWantsToEnd());
+            return localResult.get();
+        }
+        
         String prompt = PromptTemplates.buildIntelligentExtractionPrompt(
             userMessage,
             currentDimension,
@@ -1037,27 +1067,19 @@ public class InfoCollectionServiceImpl implements InfoCollectionService {
         );
         
         log.debug("Calling Deepseek for extraction with prompt: {}", prompt);
-        String jsonResponse = callDeepseek(prompt);
-        log.info("Deepseek extraction response: {}", jsonResponse);
-        
         try {
-            // 解析JSON响应
-            ExtractionResult result = objectMapper.readValue(jsonResponse, ExtractionResult.class);
-            
-            // 验证解析结果
-            if (result == null) {
-                log.error("Parsed result is null for response: {}", jsonResponse);
-                throw new BadRequestException("AI响应解析失败，请重试");
-            }
+            // JSON mode + 本地修复 + 一次纠正重问，见 StructuredOutputService
+            ExtractionResult result = structuredOutputService
+                .complete(StructuredOutputSchemas.EXTRACTION_RESULT, buildRequest(prompt, DeepseekCaller.EXTRACTION))
+                .block();
             
             log.info("Successfully parsed extraction result - intent: {}, updates: {}, wantsToEnd: {}", 
                 result.getIntent(), result.getUpdates(), result.isWantsToEnd());
             
             return result;
             
-        } catch (JsonProcessingException e) {
-            log.error("Failed to parse extraction result: {}", jsonResponse, e);
-            log.error("JSON parsing error details: {}", e.getMessage());
+        } catch (StructuredOutputException e) {
+            log.error("Failed to parse extraction result: {}", e.getMessage());
             
             // 直接抛出异常，不再使用本地提取兜底
             throw new BadRequestException("AI响应格式错误，请重试。错误详情: " + e.getMessage());
@@ -1068,7 +1090,12 @@ public class InfoCollectionServiceImpl implements InfoCollectionService {
     /**
      * 调用Deepseek
      */
-    private String callDeepseek(String prompt) {
+    private String callDeepseek(String prompt, DeepseekCaller caller) {
+        ChatCompletionResponse response = deepseekClient.chat(buildRequest(prompt, caller)).block();
+        return response.getChoices().get(0).getMessage().getContent();
+    }
+    
+    private ChatCompletionRequest buildRequest(String prompt, DeepseekCaller caller) {
         ChatCompletionRequest request = new ChatCompletionRequest();
         request.setModel(deepseekProperties.getModel());
         request.setMessages(List.of(
@@ -1076,9 +1103,8 @@ public class InfoCollectionServiceImpl implements InfoCollectionService {
             new ChatMessage("user", prompt)
         ));
         request.setTemperature(0.7);
-        
-        ChatCompletionResponse response = deepseekClient.chat(request).block();
-        return response.getChoices().get(0).getMessage().getContent();
+        request.setCaller(caller);
+        return request;
     }
     
     /**
@@ -1217,6 +1243,15 @@ public class InfoCollectionServiceImpl implements InfoCollectionService {
             .orElseThrow(() -> new NotFoundException("会话不存在或无权访问"));
     }
     
+    /**
+     * 保存会话（独立短事务）
+     * 会话为分离实体，合并时由版本号校验并发修改；保存后回写新版本号，保证同一请求内的后续保存不会误判冲突
+     */
+    private void saveSession(ConversationSession session) {
+        ConversationSession saved = sessionRepository.save(session);
+        session.setVersion(saved.getVersion());
+    }
+    
     /**
      * 判断是否是确认词
      */
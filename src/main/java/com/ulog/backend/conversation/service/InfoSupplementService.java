@@ -8,7 +8,7 @@ public interface InfoSupplementService {
     /**
      * 分析是否需要补充信息
      */
-    SupplementAnalysis analyzeInfoNeeds(String question, String contactDescription, String userDescription);
+    SupplementAnalysis analyzeInfoNeeds(String question, String contactDescription, String userDescription, Long userId);
     
     /**
      * 生成补充信息的问题
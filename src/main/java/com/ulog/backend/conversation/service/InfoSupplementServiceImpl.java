@@ -1,11 +1,11 @@
 package com.ulog.backend.conversation.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.ulog.backend.ai.DeepseekClient;
+import com.ulog.backend.ai.DeepseekCaller;
 import com.ulog.backend.ai.dto.ChatCompletionRequest;
-import com.ulog.backend.ai.dto.ChatCompletionResponse;
 import com.ulog.backend.ai.dto.ChatMessage;
+import com.ulog.backend.ai.structured.StructuredOutputException;
+import com.ulog.backend.ai.structured.StructuredOutputSchemas;
+import com.ulog.backend.ai.structured.StructuredOutputService;
 import com.ulog.backend.config.DeepseekProperties;
 import com.ulog.backend.conversation.dto.SupplementAnalysis;
 import com.ulog.backend.conversation.dto.SupplementResult;
@@ -23,18 +23,17 @@ public class InfoSupplementServiceImpl implements InfoSupplementService {
     
     private static final Logger log = LoggerFactory.getLogger(InfoSupplementServiceImpl.class);
     
-    private final DeepseekClient deepseekClient;
-    private final ObjectMapper objectMapper;
+    private final StructuredOutputService structuredOutputService;
     private final DeepseekProperties deepseekProperties;
     
-    public InfoSupplementServiceImpl(DeepseekClient deepseekClient, ObjectMapper objectMapper, DeepseekProperties deepseekProperties) {
-        this.deepseekClient = deepseekClient;
-        this.objectMapper = objectMapper;
+    public InfoSupplementServiceImpl(StructuredOutputService structuredOutputService, DeepseekProperties deepseekProperties) {
+        this.structuredOutputService = structuredOutputService;
         this.deepseekProperties = deepseekProperties;
     }
     
     @Override
-    public SupplementAnalysis analyzeInfoNeeds(String question, String contactDescription, String userDescription) {
+    public SupplementAnalysis analyzeInfoNeeds(String question, String contactDescription, String userDescription,
+                                               Long userId) {
         String prompt = PromptTemplates.buildInfoAnalysisPrompt(question, contactDescription, userDescription);
         
         ChatCompletionRequest request = new ChatCompletionRequest();
@@ -45,13 +44,13 @@ public class InfoSupplementServiceImpl implements InfoSupplementService {
         ));
         request.setTemperature(0.7);
         
-        ChatCompletionResponse response = deepseekClient.chat(request).block();
-        String jsonResponse = response.getChoices().get(0).getMessage().getContent();
+        request.setCaller(DeepseekCaller.SUPPLEMENT_ANALYSIS);
+        request.setUserId(userId);
         
         try {
-            return objectMapper.readValue(jsonResponse, SupplementAnalysis.class);
-        } catch (JsonProcessingException e) {
-            log.error("Failed to parse supplement analysis result: {}", jsonResponse, e);
+            return structuredOutputService.complete(StructuredOutputSchemas.SUPPLEMENT_ANALYSIS, request).block();
+        } catch (StructuredOutputException e) {
+            log.error("Failed to parse supplement analysis result: {}", e.getMessage());
             // 返回默认分析结果
             return new SupplementAnalysis(false, "分析失败", List.of(), "");
         }
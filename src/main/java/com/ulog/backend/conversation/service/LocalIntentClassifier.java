@@ -0,0 +1,181 @@
+package com.ulog.backend.conversation.service;
+
+import com.ulog.backend.config.IntentClassifierProperties;
+import com.ulog.backend.conversation.dto.ExtractionResult;
+import com.ulog.backend.conversation.enums.EndConfidence;
+import com.ulog.backend.conversation.enums.UserIntent;
+import com.ulog.backend.conversation.util.CharNgramIntentModel;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+/**
+ * 信息收集中简短回复的本地意图判断（"不知道"、"跳过"、"就这些"、"结束"等），命中时不再调用DeepSeek提取
+ * 1. 规则：去掉标点和语气词后与样本完全相同，直接采用样本的标签
+ * 2. 模型：用同一份样本训练的字符n-gram逻辑回归，置信度不低于 conversation.intent.min-confidence 时采用
+ * 判断为 other、置信度不足、回复较长（可能包含信息），或含有否定/第三人称等会反转意思的成分时返回空，由调用方交给DeepSeek
+ * 只识别不包含信息的回复，所以结果的 updates 总是为空
+ */
+@Component
+public class LocalIntentClassifier {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalIntentClassifier.class);
+
+    private static final String TRAINING_DATA = "intent/collection-intents.tsv";
+    private static final String SKIP = "skip";
+    private static final String END_STRONG = "end_strong";
+    private static final String END_MEDIUM = "end_medium";
+    private static final String OTHER = "other";
+
+    // 否定词紧跟结束/跳过类动作（"不结束"、"先别结束"、"还没结束"、"不想跳过"），意思正好相反
+    private static final Pattern NEGATED_ACTION = Pattern.compile("(不|别|没|未)(要|想|用|能|会)?(结束|完成|停|跳过|略过|换)");
+    // 以第三人称开头（"他不知道"、"她忘了"）是在描述联系人，属于回答
+    private static final Pattern THIRD_PERSON_SUBJECT = Pattern.compile("^(他|她|它|对方)");
+    // "结束"/"完成"前只能是这些词，否则主语是别的事（"工作结束了"、"项目完成了"）
+    private static final Pattern END_KEYWORD = Pattern.compile("结束|完成");
+    private static final Pattern SESSION_END = Pattern.compile("^(好了|好吧|可以|我想|我要|那就|就|先|现在|问卷)*(结束|完成)");
+
+    private static final String LEADING_FILLERS = "嗯额呃唔哦啊";
+    private static final String TRAILING_PARTICLES = "吧啊呢哦诶呀嘛啦哈";
+
+    private final IntentClassifierProperties properties;
+    private final Map<String, String> knownPhrases = new HashMap<>();
+    private final CharNgramIntentModel model;
+
+    private final LongAdder ruleHits = new LongAdder();
+    private final LongAdder modelHits = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    public LocalIntentClassifier(IntentClassifierProperties properties) {
+        this.properties = properties;
+        long start = System.nanoTime();
+        List<CharNgramIntentModel.Example> examples = loadExamples();
+        for (CharNgramIntentModel.Example example : examples) {
+            // 同一文本出现不同标签时按 other 处理，宁可多调用一次DeepSeek
+            knownPhrases.merge(example.text(), example.label(), (a, b) -> a.equals(b) ? a : OTHER);
+        }
+        this.model = CharNgramIntentModel.train(examples, 40, 0.3, 1e-4);
+        log.info("Local intent classifier trained on {} examples in {} ms",
+            examples.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * 判断一条回复的意图；无法可靠判断时返回空
+     */
+    public Optional<ExtractionResult> classify(String message) {
+        if (!properties.isEnabled() || message == null) {
+            return Optional.empty();
+        }
+        String text = normalize(message);
+        if (text.isEmpty() || text.codePointCount(0, text.length()) > properties.getMaxMessageLength()) {
+            fallbacks.increment();
+            return Optional.empty();
+        }
+
+        String label = knownPhrases.get(text);
+        double confidence = 1.0;
+        boolean ruleMatched = label != null;
+        if (!ruleMatched) {
+            CharNgramIntentModel.Prediction prediction = model.predict(text);
+            label = prediction.label();
+            confidence = prediction.confidence();
+        }
+        if (OTHER.equals(label) || confidence < properties.getMinConfidence() || contradicts(text)) {
+            fallbacks.increment();
+            return Optional.empty();
+        }
+
+        (ruleMatched ? ruleHits : modelHits).increment();
+        log.debug("Local intent for '{}': {} (confidence={}, rule={})", message, label, confidence, ruleMatched);
+        return Optional.of(toExtraction(label, confidence, ruleMatched));
+    }
+
+    /**
+     * 否定、第三人称和别的主语会让字面相近的回复意思完全不同，模型对这类句子并不可靠，一律交给DeepSeek
+     */
+    private boolean contradicts(String text) {
+        return NEGATED_ACTION.matcher(text).find()
+            || THIRD_PERSON_SUBJECT.matcher(text).find()
+            || (END_KEYWORD.matcher(text).find() && !SESSION_END.matcher(text).find());
+    }
+
+    private ExtractionResult toExtraction(String label, double confidence, boolean ruleMatched) {
+        ExtractionResult result = new ExtractionResult();
+        result.setUpdates(new HashMap<>());
+        result.setHasMinimumInfo(false);
+        if (SKIP.equals(label)) {
+            result.setIntent(UserIntent.SKIP_QUESTION);
+            result.setShouldContinueCurrentQuestion(false);
+            result.setWantsToEnd(false);
+            result.setEndConfidence(EndConfidence.WEAK);
+        } else {
+            result.setIntent(UserIntent.WANT_TO_END);
+            result.setWantsToEnd(true);
+            result.setEndConfidence(END_STRONG.equals(label) ? EndConfidence.STRONG : EndConfidence.MEDIUM);
+        }
+        result.setReasoning(String.format("本地%s判断为%s（置信度%.2f）", ruleMatched ? "规则" : "模型", label, confidence));
+        return result;
+    }
+
+    /**
+     * 统一小写，去掉空白、标点和符号，以及开头的语气词和结尾的语气助词（至少保留一个字）
+     */
+    static String normalize(String message) {
+        StringBuilder sb = new StringBuilder();
+        message.strip().toLowerCase(Locale.ROOT).codePoints()
+            .filter(Character::isLetterOrDigit)
+            .forEach(sb::appendCodePoint);
+        while (sb.length() > 1 && LEADING_FILLERS.indexOf(sb.charAt(0)) >= 0) {
+            sb.deleteCharAt(0);
+        }
+        while (sb.length() > 1 && TRAILING_PARTICLES.indexOf(sb.charAt(sb.length() - 1)) >= 0) {
+            sb.setLength(sb.length() - 1);
+        }
+        return sb.toString();
+    }
+
+    private static List<CharNgramIntentModel.Example> loadExamples() {
+        List<CharNgramIntentModel.Example> examples = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new ClassPathResource(TRAINING_DATA).getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split("\t", 2);
+                if (parts.length == 2) {
+                    examples.add(new CharNgramIntentModel.Example(parts[0].strip(), normalize(parts[1])));
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load intent training data: " + TRAINING_DATA, e);
+        }
+        return examples;
+    }
+
+    public long getRuleHitCount() {
+        return ruleHits.sum();
+    }
+
+    public long getModelHitCount() {
+        return modelHits.sum();
+    }
+
+    public long getFallbackCount() {
+        return fallbacks.sum();
+    }
+}
@@ -0,0 +1,154 @@
+package com.ulog.backend.conversation.service;
+
+import com.ulog.backend.ai.dto.ChatMessage;
+import com.ulog.backend.config.QaContextProperties;
+import com.ulog.backend.conversation.dto.QaHistoryEntry;
+import com.ulog.backend.conversation.dto.QaHistoryWindow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * QA上下文构建器
+ * 在token预算内原样保留最近的若干轮对话，更早的轮次以会话上缓存的滚动摘要代替；
+ * 历史只从摘要覆盖处读取最近的一个窗口，不加载完整历史；
+ * 只有窗口向前滑动、出现尚未并入摘要的轮次时才触发异步的摘要刷新
+ */
+@Component
+public class QaContextBuilder {
+    
+    private static final Logger log = LoggerFactory.getLogger(QaContextBuilder.class);
+    
+    private final QaContextProperties properties;
+    private final QaHistorySummaryService summaryService;
+    
+    public QaContextBuilder(QaContextProperties properties, QaHistorySummaryService summaryService) {
+        this.properties = properties;
+        this.summaryService = summaryService;
+    }
+    
+    /**
+     * 读取历史窗口的起始序号：摘要已覆盖的轮次不再从库中读取
+     */
+    public int historyFromSeq(String summary, Integer summarySeq) {
+        return coveredTurns(summary, summarySeq);
+    }
+    
+    /**
+     * 读取历史窗口的轮次上限：原样保留的轮次加上可并入摘要的轮次
+     */
+    public int historyReadLimit() {
+        return properties.getMaxVerbatimTurns() + properties.getSummaryFoldTurns();
+    }
+    
+    /**
+     * 构建历史对话消息（摘要 + 窗口内的原生多轮消息），不包含系统提示和当前问题
+     * @param sessionType 会话类型（CONTACT / USER）
+     * @param userId 会话所属用户，后台摘要调用按其计量和配额
+     * @param history 从摘要覆盖处读取的最近若干轮QA（按seq升序）
+     * @param summary 会话上缓存的摘要
+     * @param summarySeq 摘要已覆盖的轮次数
+     */
+    public List<ChatMessage> buildHistoryMessages(
+        String sessionType,
+        String sessionId,
+        Long userId,
+        QaHistoryWindow history,
+        String summary,
+        Integer summarySeq
+    ) {
+        List<QaHistoryEntry> entries = history.entries();
+        int covered = coveredTurns(summary, summarySeq);
+        
+        // 从最新一轮往前，在轮次上限和token预算内确定窗口起点（至少保留最新一轮）
+        int windowStart = entries.size();
+        int tokens = 0;
+        while (windowStart > 0 && entries.size() - windowStart < properties.getMaxVerbatimTurns()) {
+            int entryTokens = estimateTokens(entries.get(windowStart - 1));
+            if (windowStart < entries.size() && tokens + entryTokens > properties.getMaxHistoryTokens()) {
+                break;
+            }
+            tokens += entryTokens;
+            windowStart--;
+        }
+        
+        // 摘要已经覆盖的轮次不再原样重复
+        int coveredIndex = Math.min(Math.max(covered - history.startSeq(), 0), entries.size());
+        int verbatimStart = Math.max(windowStart, coveredIndex);
+        
+        List<ChatMessage> messages = new ArrayList<>();
+        if (covered > 0) {
+            messages.add(new ChatMessage("system", "【较早对话摘要】\n" + summary));
+        }
+        for (QaHistoryEntry entry : entries.subList(verbatimStart, entries.size())) {
+            appendEntry(messages, entry);
+        }
+        
+        // 窗口滑过了摘要的覆盖范围：本次先用旧摘要，后台把滑出的轮次并入摘要
+        // 摘要落后超过读取上限时，未读入的更早轮次直接跳过，不再并入
+        int windowStartSeq = history.startSeq() + windowStart;
+        if (windowStartSeq > covered) {
+            if (properties.isSummaryEnabled()) {
+                summaryService.requestRefresh(
+                    sessionType, sessionId, userId, covered > 0 ? summary : null,
+                    entries.subList(coveredIndex, windowStart), windowStartSeq);
+            }
+            log.debug("Session {} context window slid: {} turns outside window not yet summarized", 
+                sessionId, windowStartSeq - covered);
+        }
+        
+        return messages;
+    }
+    
+    private int coveredTurns(String summary, Integer summarySeq) {
+        return summary != null && !summary.isBlank() && summarySeq != null ? summarySeq : 0;
+    }
+    
+    private void appendEntry(List<ChatMessage> messages, QaHistoryEntry entry) {
+        // 添加用户的历史问题
+        if (entry.getQuestion() != null && !entry.getQuestion().trim().isEmpty()) {
+            messages.add(new ChatMessage("user", entry.getQuestion()));
+        }
+        
+        // 如果有补充信息流程
+        if (entry.getNeedsMoreInfo() != null && entry.getNeedsMoreInfo()) {
+            // Deepseek的补充问题
+            if (entry.getSupplementQuestion() != null) {
+                messages.add(new ChatMessage("assistant", entry.getSupplementQuestion()));
+            }
+            // 用户的补充回答
+            if (entry.getSupplementAnswer() != null) {
+                messages.add(new ChatMessage("user", entry.getSupplementAnswer()));
+            }
+        }
+        
+        // 添加AI的历史回答
+        if (entry.getAnswer() != null) {
+            messages.add(new ChatMessage("assistant", entry.getAnswer()));
+        }
+    }
+    
+    private int estimateTokens(QaHistoryEntry entry) {
+        return estimateTokens(entry.getQuestion())
+            + estimateTokens(entry.getAnswer())
+            + estimateTokens(entry.getSupplementQuestion())
+            + estimateTokens(entry.getSupplementAnswer());
+    }
+    
+    /**
+     * 粗略估算token数（参考DeepSeek官方换算：中文约0.6 token/字，英文约0.3 token/字符）
+     */
+    static int estimateTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        double tokens = 0;
+        for (int i = 0; i < text.length(); i++) {
+            tokens += text.charAt(i) < 0x80 ? 0.3 : 0.6;
+        }
+        return (int) Math.ceil(tokens);
+    }
+}
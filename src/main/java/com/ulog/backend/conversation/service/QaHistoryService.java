@@ -1,8 +1,11 @@
 package com.ulog.backend.conversation.service;
 
 import com.ulog.backend.conversation.dto.QaHistoryEntry;
+import com.ulog.backend.conversation.dto.QaHistoryWindow;
+import org.springframework.data.domain.Page;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * QA对话历史服务接口
@@ -51,6 +54,40 @@ public interface QaHistoryService {
      */
     List<QaHistoryEntry> getUserQaHistory(String sessionId);
     
+    /**
+     * 获取会话从指定序号起的最近若干轮QA，问答时只读取这一窗口而不加载完整历史
+     * @param sessionId 会话ID
+     * @param sessionType 会话类型（CONTACT / USER）
+     * @param fromSeq 起始序号（含），即摘要已覆盖的轮次数
+     * @param limit 最多读取的轮次数
+     * @return 按序号升序的QA窗口
+     */
+    QaHistoryWindow getRecentQaHistory(String sessionId, String sessionType, int fromSeq, int limit);
+    
+    /**
+     * 分页获取会话的QA历史（按序号升序）
+     * @param sessionId 会话ID（联系人会话或用户会话）
+     * @param page 页码，从0开始
+     * @param size 每页条数
+     * @return QA历史分页
+     */
+    Page<QaHistoryEntry> getQaHistoryPage(String sessionId, int page, int size);
+    
+    /**
+     * 按索引获取单条QA历史
+     * @param sessionId 会话ID（联系人会话或用户会话）
+     * @param qaIndex QA在历史中的索引（从0开始）
+     * @return QA对话条目
+     */
+    Optional<QaHistoryEntry> getQaEntry(String sessionId, int qaIndex);
+    
+    /**
+     * 获取会话的最后一条QA历史
+     * @param sessionId 会话ID（联系人会话或用户会话）
+     * @return QA对话条目
+     */
+    Optional<QaHistoryEntry> getLastQaEntry(String sessionId);
+    
     /**
      * 格式化QA历史为Prompt可读格式
      * @param history QA历史列表
@@ -1,170 +1,135 @@
 package com.ulog.backend.conversation.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ulog.backend.common.exception.ConflictException;
 import com.ulog.backend.conversation.dto.QaHistoryEntry;
-import com.ulog.backend.domain.conversation.ConversationSession;
-import com.ulog.backend.domain.conversation.UserConversationSession;
+import com.ulog.backend.conversation.dto.QaHistoryWindow;
+import com.ulog.backend.domain.conversation.QaHistoryRecord;
 import com.ulog.backend.repository.ConversationSessionRepository;
+import com.ulog.backend.repository.QaHistoryRecordRepository;
 import com.ulog.backend.repository.UserConversationSessionRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * QA对话历史服务实现类
+ * 历史按行存储在 qa_history_entries 表中：追加为单行INSERT，读取按 (session_id, seq) 索引
  */
 @Service
 public class QaHistoryServiceImpl implements QaHistoryService {
     
     private static final Logger log = LoggerFactory.getLogger(QaHistoryServiceImpl.class);
     
+    private static final int MAX_PAGE_SIZE = 100;
+    
     private final ConversationSessionRepository conversationSessionRepository;
     private final UserConversationSessionRepository userConversationSessionRepository;
-    private final ObjectMapper objectMapper;
+    private final QaHistoryRecordRepository qaHistoryRecordRepository;
     
     public QaHistoryServiceImpl(
         ConversationSessionRepository conversationSessionRepository,
         UserConversationSessionRepository userConversationSessionRepository,
-        ObjectMapper objectMapper
+        QaHistoryRecordRepository qaHistoryRecordRepository
     ) {
         this.conversationSessionRepository = conversationSessionRepository;
         this.userConversationSessionRepository = userConversationSessionRepository;
-        this.objectMapper = objectMapper;
+        this.qaHistoryRecordRepository = qaHistoryRecordRepository;
     }
     
     @Override
     @Transactional
     public void addContactQaEntry(String sessionId, QaHistoryEntry entry) {
-        try {
-            ConversationSession session = conversationSessionRepository.findById(sessionId)
-                .orElseThrow(() -> new RuntimeException("Conversation session not found: " + sessionId));
-            
-            List<QaHistoryEntry> history = getContactQaHistory(sessionId);
-            history.add(entry);
-            
-            String qaHistoryJson = objectMapper.writeValueAsString(history);
-            session.setQaHistory(qaHistoryJson);
-            conversationSessionRepository.save(session);
-            
-            log.info("Added QA entry to contact session {}: {}", sessionId, entry.getQuestion());
-        } catch (JsonProcessingException e) {
-            log.error("Failed to save QA history for contact session {}: {}", sessionId, e.getMessage(), e);
+        if (!conversationSessionRepository.existsById(sessionId)) {
+            throw new RuntimeException("Conversation session not found: " + sessionId);
         }
+        
+        appendEntry(sessionId, QaHistoryRecord.SESSION_TYPE_CONTACT, entry);
+        log.info("Added QA entry to contact session {}: {}", sessionId, entry.getQuestion());
     }
     
     @Override
     @Transactional
     public void addUserQaEntry(String sessionId, QaHistoryEntry entry) {
-        try {
-            UserConversationSession session = userConversationSessionRepository.findById(sessionId)
-                .orElseThrow(() -> new RuntimeException("User conversation session not found: " + sessionId));
-            
-            List<QaHistoryEntry> history = getUserQaHistory(sessionId);
-            history.add(entry);
-            
-            String qaHistoryJson = objectMapper.writeValueAsString(history);
-            session.setQaHistory(qaHistoryJson);
-            userConversationSessionRepository.save(session);
-            
-            log.info("Added QA entry to user session {}: {}", sessionId, entry.getQuestion());
-        } catch (JsonProcessingException e) {
-            log.error("Failed to save QA history for user session {}: {}", sessionId, e.getMessage(), e);
+        if (!userConversationSessionRepository.existsById(sessionId)) {
+            throw new RuntimeException("User conversation session not found: " + sessionId);
         }
+        
+        appendEntry(sessionId, QaHistoryRecord.SESSION_TYPE_USER, entry);
+        log.info("Added QA entry to user session {}: {}", sessionId, entry.getQuestion());
     }
     
     @Override
     @Transactional(readOnly = true)
     public List<QaHistoryEntry> getContactQaHistory(String sessionId) {
-        try {
-            ConversationSession session = conversationSessionRepository.findById(sessionId)
-                .orElseThrow(() -> new RuntimeException("Conversation session not found: " + sessionId));
-            
-            String qaHistoryJson = session.getQaHistory();
-            if (qaHistoryJson == null || qaHistoryJson.trim().isEmpty()) {
-                return new ArrayList<>();
-            }
-            
-            return objectMapper.readValue(qaHistoryJson, new TypeReference<List<QaHistoryEntry>>() {});
-        } catch (JsonProcessingException e) {
-            log.error("Failed to parse QA history for contact session {}: {}", sessionId, e.getMessage(), e);
-            return new ArrayList<>();
-        }
+        return getQaHistory(sessionId, QaHistoryRecord.SESSION_TYPE_CONTACT);
     }
     
     @Override
     @Transactional(readOnly = true)
     public List<QaHistoryEntry> getUserQaHistory(String sessionId) {
-        try {
-            UserConversationSession session = userConversationSessionRepository.findById(sessionId)
-                .orElseThrow(() -> new RuntimeException("User conversation session not found: " + sessionId));
-            
-            String qaHistoryJson = session.getQaHistory();
-            if (qaHistoryJson == null || qaHistoryJson.trim().isEmpty()) {
-                return new ArrayList<>();
-            }
-            
-            return objectMapper.readValue(qaHistoryJson, new TypeReference<List<QaHistoryEntry>>() {});
-        } catch (JsonProcessingException e) {
-            log.error("Failed to parse QA history for user session {}: {}", sessionId, e.getMessage(), e);
-            return new ArrayList<>();
-        }
+        return getQaHistory(sessionId, QaHistoryRecord.SESSION_TYPE_USER);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public QaHistoryWindow getRecentQaHistory(String sessionId, String sessionType, int fromSeq, int limit) {
+        List<QaHistoryRecord> records = new ArrayList<>(
+            qaHistoryRecordRepository.findBySessionIdAndSessionTypeAndSeqGreaterThanEqualOrderBySeqDesc(
+                sessionId, sessionType, fromSeq, PageRequest.of(0, Math.max(limit, 1))));
+        Collections.reverse(records);
+        
+        int startSeq = records.isEmpty() ? fromSeq : records.get(0).getSeq();
+        return new QaHistoryWindow(startSeq, records.stream().map(this::toEntry).toList());
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public Page<QaHistoryEntry> getQaHistoryPage(String sessionId, int page, int size) {
+        PageRequest pageRequest = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+        return qaHistoryRecordRepository.findBySessionIdOrderBySeqAsc(sessionId, pageRequest)
+            .map(this::toEntry);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<QaHistoryEntry> getQaEntry(String sessionId, int qaIndex) {
+        return qaHistoryRecordRepository.findBySessionIdAndSeq(sessionId, qaIndex)
+            .map(this::toEntry);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<QaHistoryEntry> getLastQaEntry(String sessionId) {
+        return qaHistoryRecordRepository.findFirstBySessionIdOrderBySeqDesc(sessionId)
+            .map(this::toEntry);
     }
     
     @Override
     @Transactional
     public void updateLastContactQaEntry(String sessionId, QaHistoryEntry entry) {
-        try {
-            ConversationSession session = conversationSessionRepository.findById(sessionId)
-                .orElseThrow(() -> new RuntimeException("Conversation session not found: " + sessionId));
-            
-            List<QaHistoryEntry> history = getContactQaHistory(sessionId);
-            if (history.isEmpty()) {
-                log.warn("No QA history to update for contact session {}", sessionId);
-                return;
-            }
-            
-            // 更新最后一条记录
-            history.set(history.size() - 1, entry);
-            
-            String qaHistoryJson = objectMapper.writeValueAsString(history);
-            session.setQaHistory(qaHistoryJson);
-            conversationSessionRepository.save(session);
-            
+        if (updateLastEntry(sessionId, entry)) {
             log.info("Updated last QA entry for contact session {}", sessionId);
-        } catch (JsonProcessingException e) {
-            log.error("Failed to update QA history for contact session {}: {}", sessionId, e.getMessage(), e);
+        } else {
+            log.warn("No QA history to update for contact session {}", sessionId);
         }
     }
     
     @Override
     @Transactional
     public void updateLastUserQaEntry(String sessionId, QaHistoryEntry entry) {
-        try {
-            UserConversationSession session = userConversationSessionRepository.findById(sessionId)
-                .orElseThrow(() -> new RuntimeException("User conversation session not found: " + sessionId));
-            
-            List<QaHistoryEntry> history = getUserQaHistory(sessionId);
-            if (history.isEmpty()) {
-                log.warn("No QA history to update for user session {}", sessionId);
-                return;
-            }
-            
-            // 更新最后一条记录
-            history.set(history.size() - 1, entry);
-            
-            String qaHistoryJson = objectMapper.writeValueAsString(history);
-            session.setQaHistory(qaHistoryJson);
-            userConversationSessionRepository.save(session);
-            
+        if (updateLastEntry(sessionId, entry)) {
             log.info("Updated last QA entry for user session {}", sessionId);
-        } catch (JsonProcessingException e) {
-            log.error("Failed to update QA history for user session {}: {}", sessionId, e.getMessage(), e);
+        } else {
+            log.warn("No QA history to update for user session {}", sessionId);
         }
     }
     
@@ -195,4 +160,68 @@ public class QaHistoryServiceImpl implements QaHistoryService {
         
         return sb.toString();
     }
+    
+    /**
+     * 读取会话的完整历史，按会话类型过滤，避免联系人会话与用户会话的ID混读
+     */
+    private List<QaHistoryEntry> getQaHistory(String sessionId, String sessionType) {
+        return qaHistoryRecordRepository.findBySessionIdAndSessionTypeOrderBySeqAsc(sessionId, sessionType).stream()
+            .map(this::toEntry)
+            .toList();
+    }
+    
+    /**
+     * 追加一条QA（单行INSERT），序号为当前最大序号+1
+     * 并发追加同一序号时由唯一键 (session_id, seq) 拒绝，转换为冲突异常
+     */
+    private void appendEntry(String sessionId, String sessionType, QaHistoryEntry entry) {
+        int nextSeq = qaHistoryRecordRepository.findFirstBySessionIdOrderBySeqDesc(sessionId)
+            .map(last -> last.getSeq() + 1)
+            .orElse(0);
+        
+        QaHistoryRecord record = new QaHistoryRecord(sessionId, sessionType, nextSeq);
+        copyToRecord(entry, record);
+        
+        try {
+            qaHistoryRecordRepository.saveAndFlush(record);
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Concurrent QA append detected for session {} at seq {}", sessionId, nextSeq);
+            throw new ConflictException("会话已被其他请求更新，请刷新后重试");
+        }
+    }
+    
+    /**
+     * 更新最后一条记录
+     */
+    private boolean updateLastEntry(String sessionId, QaHistoryEntry entry) {
+        Optional<QaHistoryRecord> last = qaHistoryRecordRepository.findFirstBySessionIdOrderBySeqDesc(sessionId);
+        if (last.isEmpty()) {
+            return false;
+        }
+        
+        QaHistoryRecord record = last.get();
+        copyToRecord(entry, record);
+        qaHistoryRecordRepository.save(record);
+        return true;
+    }
+    
+    private void copyToRecord(QaHistoryEntry entry, QaHistoryRecord record) {
+        record.setQuestion(entry.getQuestion());
+        record.setAnswer(entry.getAnswer());
+        record.setSupplementQuestion(entry.getSupplementQuestion());
+        record.setSupplementAnswer(entry.getSupplementAnswer());
+        record.setNeedsMoreInfo(entry.getNeedsMoreInfo());
+        record.setQaTimestamp(entry.getTimestamp());
+    }
+    
+    private QaHistoryEntry toEntry(QaHistoryRecord record) {
+        QaHistoryEntry entry = new QaHistoryEntry();
+        entry.setTimestamp(record.getQaTimestamp());
+        entry.setQuestion(record.getQuestion());
+        entry.setAnswer(record.getAnswer());
+        entry.setSupplementQuestion(record.getSupplementQuestion());
+        entry.setSupplementAnswer(record.getSupplementAnswer());
+        entry.setNeedsMoreInfo(record.getNeedsMoreInfo());
+        return entry;
+    }
 }
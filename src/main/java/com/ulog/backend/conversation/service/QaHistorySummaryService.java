@@ -0,0 +1,164 @@
+package com.ulog.backend.conversation.service;
+
+import com.ulog.backend.ai.DeepseekCaller;
+import com.ulog.backend.ai.DeepseekClient;
+import com.ulog.backend.ai.DeepseekTrafficClass;
+import com.ulog.backend.ai.dto.ChatCompletionRequest;
+import com.ulog.backend.ai.dto.ChatCompletionResponse;
+import com.ulog.backend.ai.dto.ChatMessage;
+import com.ulog.backend.config.DeepseekProperties;
+import com.ulog.backend.config.QaContextProperties;
+import com.ulog.backend.conversation.dto.QaHistoryEntry;
+import com.ulog.backend.conversation.util.PromptTemplates;
+import com.ulog.backend.domain.conversation.QaHistoryRecord;
+import com.ulog.backend.repository.ConversationSessionRepository;
+import com.ulog.backend.repository.UserConversationSessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * QA历史滚动摘要服务
+ * 当上下文窗口滑动、有轮次滑出窗口时，在后台线程中把这些轮次并入会话上的摘要；
+ * 同一会话同一时间只会有一个摘要任务在执行
+ */
+@Service
+public class QaHistorySummaryService {
+    
+    private static final Logger log = LoggerFactory.getLogger(QaHistorySummaryService.class);
+    
+    private final DeepseekClient deepseekClient;
+    private final DeepseekProperties deepseekProperties;
+    private final QaContextProperties contextProperties;
+    private final ConversationSessionRepository sessionRepository;
+    private final UserConversationSessionRepository userSessionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor summaryExecutor;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    
+    public QaHistorySummaryService(
+        DeepseekClient deepseekClient,
+        DeepseekProperties deepseekProperties,
+        QaContextProperties contextProperties,
+        ConversationSessionRepository sessionRepository,
+        UserConversationSessionRepository userSessionRepository,
+        TransactionTemplate transactionTemplate,
+        @Qualifier("qaSummaryTaskExecutor") Executor summaryExecutor
+    ) {
+        this.deepseekClient = deepseekClient;
+        this.deepseekProperties = deepseekProperties;
+        this.contextProperties = contextProperties;
+        this.sessionRepository = sessionRepository;
+        this.userSessionRepository = userSessionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.summaryExecutor = summaryExecutor;
+    }
+    
+    /**
+     * 请求异步刷新摘要
+     * @param sessionType 会话类型（CONTACT / USER）
+     * @param userId 会话所属用户（摘要在后台线程上执行，拿不到请求的SecurityContext，需显式传入以计量和扣配额）
+     * @param previousSummary 当前摘要
+     * @param foldedEntries 需要并入摘要的新轮次
+     * @param targetSeq 新摘要覆盖的轮次数
+     */
+    public void requestRefresh(
+        String sessionType,
+        String sessionId,
+        Long userId,
+        String previousSummary,
+        List<QaHistoryEntry> foldedEntries,
+        int targetSeq
+    ) {
+        if (foldedEntries.isEmpty() || !inFlight.add(sessionId)) {
+            return;
+        }
+        
+        List<QaHistoryEntry> snapshot = List.copyOf(foldedEntries);
+        try {
+            summaryExecutor.execute(() -> {
+                try {
+                    refresh(sessionType, sessionId, userId, previousSummary, snapshot, targetSeq);
+                } finally {
+                    inFlight.remove(sessionId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(sessionId);
+            log.warn("QA summary executor saturated, skipped summary refresh for session {}", sessionId);
+        }
+    }
+    
+    private void refresh(
+        String sessionType,
+        String sessionId,
+        Long userId,
+        String previousSummary,
+        List<QaHistoryEntry> foldedEntries,
+        int targetSeq
+    ) {
+        try {
+            String prompt = PromptTemplates.buildQaHistorySummaryPrompt(
+                previousSummary, formatTranscript(foldedEntries), contextProperties.getSummaryMaxChars());
+            
+            ChatCompletionRequest request = new ChatCompletionRequest();
+            request.setModel(deepseekProperties.getModel());
+            request.setMessages(List.of(
+                new ChatMessage("system", "你是一个对话摘要助手，擅长提炼对话中的关键信息。"),
+                new ChatMessage("user", prompt)
+            ));
+            request.setTemperature(0.3);
+            request.setTrafficClass(DeepseekTrafficClass.BACKGROUND);
+            
+            request.setCaller(DeepseekCaller.QA_SUMMARY);
+            request.setUserId(userId);
+            ChatCompletionResponse response = deepseekClient.chat(request).block();
+            if (response == null || response.getChoices() == null || response.getChoices().isEmpty()) {
+                log.warn("Empty summary response for session {}", sessionId);
+                return;
+            }
+            String summary = response.getChoices().get(0).getMessage().getContent().trim();
+            
+            Integer updated = transactionTemplate.execute(status ->
+                QaHistoryRecord.SESSION_TYPE_USER.equals(sessionType)
+                    ? userSessionRepository.updateHistorySummary(sessionId, summary, targetSeq)
+                    : sessionRepository.updateHistorySummary(sessionId, summary, targetSeq)
+            );
+            
+            log.info("Refreshed QA history summary for session {}: covers {} turns, length {}, updated={}", 
+                sessionId, targetSeq, summary.length(), updated);
+        } catch (Exception e) {
+            log.error("Failed to refresh QA history summary for session {}: {}", sessionId, e.getMessage(), e);
+        }
+    }
+    
+    private String formatTranscript(List<QaHistoryEntry> entries) {
+        StringBuilder sb = new StringBuilder();
+        for (QaHistoryEntry entry : entries) {
+            if (entry.getQuestion() != null && !entry.getQuestion().trim().isEmpty()) {
+                sb.append("用户：").append(entry.getQuestion()).append("\n");
+            }
+            if (Boolean.TRUE.equals(entry.getNeedsMoreInfo())) {
+                if (entry.getSupplementQuestion() != null) {
+                    sb.append("AI追问：").append(entry.getSupplementQuestion()).append("\n");
+                }
+                if (entry.getSupplementAnswer() != null) {
+                    sb.append("用户补充：").append(entry.getSupplementAnswer()).append("\n");
+                }
+            }
+            if (entry.getAnswer() != null) {
+                sb.append("AI：").append(entry.getAnswer()).append("\n");
+            }
+            sb.append("\n");
+        }
+        return sb.toString().trim();
+    }
+}
@@ -2,42 +2,65 @@ package com.ulog.backend.conversation.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ulog.backend.ai.AiSummaryService;
+import com.ulog.backend.ai.DeepseekCaller;
 import com.ulog.backend.ai.DeepseekClient;
+import com.ulog.backend.ai.DeepseekTrafficClass;
 import com.ulog.backend.ai.dto.ChatCompletionRequest;
 import com.ulog.backend.ai.dto.ChatCompletionResponse;
 import com.ulog.backend.ai.dto.ChatMessage;
 import com.ulog.backend.config.DeepseekProperties;
 import com.ulog.backend.common.exception.BadRequestException;
+import com.ulog.backend.common.exception.ConflictException;
 import com.ulog.backend.common.exception.NotFoundException;
 import com.ulog.backend.conversation.dto.QaResponse;
 import com.ulog.backend.conversation.dto.QaHistoryEntry;
+import com.ulog.backend.conversation.dto.QaHistoryPageResponse;
+import com.ulog.backend.conversation.dto.QaHistoryWindow;
+import com.ulog.backend.conversation.dto.QaStreamEvent;
 import com.ulog.backend.conversation.dto.SupplementAnalysis;
 import com.ulog.backend.conversation.enums.SessionStatus;
 import com.ulog.backend.conversation.event.ContactDescriptionUpdatedEvent;
 import com.ulog.backend.conversation.event.UserDescriptionUpdatedEvent;
 import com.ulog.backend.conversation.util.PromptTemplates;
+import com.ulog.backend.compliance.service.ContentModerationService;
 import com.ulog.backend.compliance.service.OperationLogService;
 import com.ulog.backend.domain.contact.Contact;
 import com.ulog.backend.domain.conversation.ConversationSession;
+import com.ulog.backend.domain.conversation.QaHistoryRecord;
 import com.ulog.backend.domain.user.User;
 import com.ulog.backend.repository.ContactRepository;
 import com.ulog.backend.repository.ConversationSessionRepository;
 import com.ulog.backend.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 
+/**
+ * 联系人问答服务
+ * 每次问答拆分为三个阶段：短只读事务加载上下文 → 无事务调用DeepSeek → 短写事务（乐观锁校验）保存结果，
+ * 避免在等待LLM响应期间占用数据库连接
+ */
 @Service
 public class QaService {
     
     private static final Logger log = LoggerFactory.getLogger(QaService.class);
     
+    private static final String CONFLICT_MESSAGE = "会话已被其他请求更新，请刷新后重试";
+    
     private final ConversationSessionRepository sessionRepository;
     private final ContactRepository contactRepository;
     private final UserRepository userRepository;
@@ -45,10 +68,14 @@ public class QaService {
     private final AiSummaryService aiSummaryService;
     private final InfoSupplementService infoSupplementService;
     private final QaHistoryService qaHistoryService;
+    private final QaContextBuilder qaContextBuilder;
     private final ObjectMapper objectMapper;
     private final DeepseekProperties deepseekProperties;
     private final ApplicationEventPublisher eventPublisher;
     private final OperationLogService operationLogService;
+    private final ContentModerationService contentModerationService;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
     
     public QaService(
         ConversationSessionRepository sessionRepository,
@@ -58,10 +85,14 @@ public class QaService {
         AiSummaryService aiSummaryService,
         InfoSupplementService infoSupplementService,
         QaHistoryService qaHistoryService,
+        QaContextBuilder qaContextBuilder,
         ObjectMapper objectMapper,
         DeepseekProperties deepseekProperties,
         ApplicationEventPublisher eventPublisher,
-        OperationLogService operationLogService
+        OperationLogService operationLogService,
+        ContentModerationService contentModerationService,
+        TransactionTemplate transactionTemplate,
+        @Qualifier("readOnlyTransactionTemplate") TransactionTemplate readOnlyTransactionTemplate
     ) {
         this.sessionRepository = sessionRepository;
         this.contactRepository = contactRepository;
@@ -70,49 +101,94 @@ public class QaService {
         this.aiSummaryService = aiSummaryService;
         this.infoSupplementService = infoSupplementService;
         this.qaHistoryService = qaHistoryService;
+        this.qaContextBuilder = qaContextBuilder;
         this.objectMapper = objectMapper;
         this.deepseekProperties = deepseekProperties;
         this.eventPublisher = eventPublisher;
         this.operationLogService = operationLogService;
+        this.contentModerationService = contentModerationService;
+        this.transactionTemplate = transactionTemplate;
+        this.readOnlyTransactionTemplate = readOnlyTransactionTemplate;
     }
     
     /**
      * 处理问答
      */
-    @Transactional
     public QaResponse processQuestion(String sessionId, Long userId, String question) {
-        // 1. 验证会话和权限
-        ConversationSession session = validateSession(sessionId, userId);
-        Contact contact = loadContact(session.getContactId(), userId);
-        User user = loadUser(userId);
+        // 1. 验证会话和权限（短只读事务）
+        QaContext context = loadQaContext(sessionId, userId);
+        ConversationSession session = context.session();
+        Contact contact = context.contact();
+        User user = context.user();
         
         // 记录 AI 对话开始日志
-        operationLogService.logOperation(userId, "ai_conversation", 
-            String.format("AI conversation started - session: %s, contact: %s, question: %s", 
-                sessionId, contact.getName(), question.length() > 50 ? question.substring(0, 50) + "..." : question));
+        logConversationStarted(userId, sessionId, contact, question);
         
-        // 2. 分析信息需求
+        // 2. 分析信息需求（LLM调用，不持有事务）
         SupplementAnalysis analysis = infoSupplementService.analyzeInfoNeeds(
             question, 
             contact.getDescription(), 
-            user.getDescription()
+            user.getDescription(),
+            userId
         );
         
         // 3. 判断是否需要补充信息
         if (analysis.isNeedsSupplement()) {
             return handleInfoSupplement(session, analysis, question);
         } else {
-            return generateDirectAnswer(session, contact, user, question);
+            return generateDirectAnswer(context, question);
         }
     }
     
+    /**
+     * 处理问答（流式）
+     * 需要补充信息时只返回一个supplement事件；否则边生成边推送回答（分块审核），流结束后保存QA历史并返回done事件
+     */
+    public Flux<QaStreamEvent> streamQuestion(String sessionId, Long userId, String question) {
+        return Mono.fromCallable(() -> loadQaContext(sessionId, userId))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMapMany(context -> {
+                Contact contact = context.contact();
+                logConversationStarted(userId, sessionId, contact, question);
+                
+                // 分析信息需求（在boundedElastic线程上阻塞调用）
+                SupplementAnalysis analysis = infoSupplementService.analyzeInfoNeeds(
+                    question, 
+                    contact.getDescription(), 
+                    context.user().getDescription(),
+                    userId
+                );
+                
+                if (analysis.isNeedsSupplement()) {
+                    return Flux.just(QaStreamEvent.supplement(handleInfoSupplement(context.session(), analysis, question)));
+                }
+                
+                ChatCompletionRequest request = buildContactQaRequest(
+                    question, contact, context.user(), sessionId, context);
+                StringBuilder answer = new StringBuilder();
+                
+                request.setCaller(DeepseekCaller.QA_STREAM);
+                request.setUserId(userId);
+                Flux<QaStreamEvent> deltas = contentModerationService
+                    .moderateStream(deepseekClient.chatStreamContent(request), userId, "ai_output")
+                    .doOnNext(answer::append)
+                    .map(QaStreamEvent::delta);
+                Mono<QaStreamEvent> done = Mono.fromCallable(() -> 
+                        QaStreamEvent.done(saveDirectAnswer(context, question, answer.toString())))
+                    .subscribeOn(Schedulers.boundedElastic());
+                
+                return deltas.concatWith(done);
+            })
+            .doOnError(e -> log.error("Streaming QA failed for session {}: {}", sessionId, e.getMessage(), e));
+    }
+    
     /**
      * 处理补充信息
      */
-    @Transactional
     public QaResponse processSupplementInfo(String sessionId, Long userId, String supplementInfo) {
-        // 1. 验证会话状态
-        ConversationSession session = validateSession(sessionId, userId);
+        // 1. 验证会话状态（短只读事务）
+        QaContext context = loadQaContext(sessionId, userId);
+        ConversationSession session = context.session();
         if (!SessionStatus.QA_ACTIVE.name().equals(session.getStatus())) {
             throw new BadRequestException("当前不需要补充信息");
         }
@@ -128,7 +204,8 @@ public class QaService {
             sessionId, originalQuestion);
         
         // 3. 异步更新联系人描述（整合补充信息）
-        Contact contact = loadContact(session.getContactId(), userId);
+        Contact contact = context.contact();
+        String originalDescription = contact.getDescription();
         asyncUpdateDescriptionWithSupplement(
             contact,
             originalQuestion,
@@ -137,32 +214,28 @@ public class QaService {
         
         log.info("Triggered async update for contact {} description with supplement info", contact.getId());
         
-        // 4. 清空lastQuestion（问题已处理完毕）
-        session.setLastQuestion(null);
-        sessionRepository.save(session);
-        
-        // 5. 生成最终回答
-        return generateFinalAnswer(session, originalQuestion, supplementInfo);
+        // 4. 生成最终回答，并清空lastQuestion（问题已处理完毕）
+        return generateFinalAnswer(context, originalDescription, originalQuestion, supplementInfo);
     }
     
     /**
      * 生成AI总结
      */
-    @Transactional
     public String generateSummary(String sessionId, Long userId) {
-        // 1. 加载会话
-        ConversationSession session = sessionRepository.findBySessionIdAndUserId(sessionId, userId)
-            .orElseThrow(() -> new NotFoundException("会话不存在或无权访问"));
-        
-        // 2. 检查是否有关联的联系人
-        if (session.getContactId() == null) {
-            throw new BadRequestException("会话未关联联系人");
-        }
-        
-        // 3. 加载联系人
-        Contact contact = loadContact(session.getContactId(), userId);
+        // 1-3. 加载会话和联系人（短只读事务）
+        Contact contact = readOnlyTransactionTemplate.execute(status -> {
+            ConversationSession session = sessionRepository.findBySessionIdAndUserId(sessionId, userId)
+                .orElseThrow(() -> new NotFoundException("会话不存在或无权访问"));
+            
+            // 检查是否有关联的联系人
+            if (session.getContactId() == null) {
+                throw new BadRequestException("会话未关联联系人");
+            }
+            
+            return loadContact(session.getContactId(), userId);
+        });
         
-        // 4. 调用AI总结服务（使用正确的方法签名）
+        // 4. 调用AI总结服务（不持有事务）
         String description = contact.getDescription();
         if (description == null || description.trim().isEmpty()) {
             throw new BadRequestException("联系人描述为空，无法生成AI总结");
@@ -170,15 +243,30 @@ public class QaService {
         
         String aiSummary = aiSummaryService.generateAiSummary(description);
         
-        // 5. 更新联系人的aiSummary字段
-        contact.setAiSummary(aiSummary);
-        contactRepository.save(contact);
+        // 5. 更新联系人的aiSummary字段（短写事务，重新加载避免覆盖并发修改）
+        transactionTemplate.executeWithoutResult(status -> {
+            Contact current = loadContact(contact.getId(), userId);
+            current.setAiSummary(aiSummary);
+            contactRepository.save(current);
+        });
         
         log.info("Generated AI summary for contact {} in session {}", contact.getId(), sessionId);
         
         return aiSummary;
     }
     
+    /**
+     * 分页获取QA历史
+     */
+    @Transactional(readOnly = true)
+    public QaHistoryPageResponse getQaHistory(String sessionId, Long userId, int page, int size) {
+        sessionRepository.findBySessionIdAndUserId(sessionId, userId)
+            .orElseThrow(() -> new NotFoundException("会话不存在或无权访问"));
+        
+        Page<QaHistoryEntry> history = qaHistoryService.getQaHistoryPage(sessionId, page, size);
+        return new QaHistoryPageResponse(history.getContent(), history.getNumber(), history.getSize(), history.getTotalElements());
+    }
+    
     /**
      * 结束会话
      */
@@ -235,6 +323,49 @@ public class QaService {
         return session;
     }
     
+    /**
+     * 记录 AI 对话开始日志
+     */
+    private void logConversationStarted(Long userId, String sessionId, Contact contact, String question) {
+        operationLogService.logOperation(userId, "ai_conversation", 
+            String.format("AI conversation started - session: %s, contact: %s, question: %s", 
+                sessionId, contact.getName(), question.length() > 50 ? question.substring(0, 50) + "..." : question));
+    }
+    
+    /**
+     * 在短只读事务中加载问答所需的上下文（会话、联系人、用户、历史）
+     */
+    private QaContext loadQaContext(String sessionId, Long userId) {
+        return readOnlyTransactionTemplate.execute(status -> {
+            ConversationSession session = validateSession(sessionId, userId);
+            Contact contact = loadContact(session.getContactId(), userId);
+            User user = loadUser(userId);
+            QaHistoryWindow qaHistory = qaHistoryService.getRecentQaHistory(
+                sessionId,
+                QaHistoryRecord.SESSION_TYPE_CONTACT,
+                qaContextBuilder.historyFromSeq(session.getHistorySummary(), session.getHistorySummarySeq()),
+                qaContextBuilder.historyReadLimit()
+            );
+            return new QaContext(session, contact, user, qaHistory);
+        });
+    }
+    
+    /**
+     * 在写事务中重新加载会话，并校验读取后会话未被其他请求修改
+     */
+    private ConversationSession reloadWithVersionCheck(ConversationSession snapshot) {
+        ConversationSession current = sessionRepository.findById(snapshot.getSessionId())
+            .orElseThrow(() -> new NotFoundException("会话不存在或无权访问"));
+        
+        if (!Objects.equals(current.getVersion(), snapshot.getVersion())) {
+            log.warn("Session {} was modified concurrently, expected version {}, actual {}", 
+                snapshot.getSessionId(), snapshot.getVersion(), current.getVersion());
+            throw new ConflictException(CONFLICT_MESSAGE);
+        }
+        
+        return current;
+    }
+    
     /**
      * 加载用户
      */
@@ -253,21 +384,24 @@ public class QaService {
         SupplementAnalysis analysis,
         String originalQuestion
     ) {
-        // 保存用户的原始问题到session
-        session.setLastQuestion(originalQuestion);
-        session.setStatus(SessionStatus.QA_ACTIVE.name());
-        sessionRepository.save(session);
-        
         // 生成补充信息的问题
         String supplementQuestion = infoSupplementService.generateSupplementQuestion(analysis);
         
-        // 立即保存部分QA历史（包含原始问题和补充问题）
-        QaHistoryEntry partialEntry = new QaHistoryEntry();
-        partialEntry.setQuestion(originalQuestion);
-        partialEntry.setSupplementQuestion(supplementQuestion);
-        partialEntry.setNeedsMoreInfo(true);
-        // answer和supplementAnswer待补充后填写
-        qaHistoryService.addContactQaEntry(session.getSessionId(), partialEntry);
+        transactionTemplate.executeWithoutResult(status -> {
+            // 保存用户的原始问题到session
+            ConversationSession current = reloadWithVersionCheck(session);
+            current.setLastQuestion(originalQuestion);
+            current.setStatus(SessionStatus.QA_ACTIVE.name());
+            sessionRepository.save(current);
+            
+            // 立即保存部分QA历史（包含原始问题和补充问题）
+            QaHistoryEntry partialEntry = new QaHistoryEntry();
+            partialEntry.setQuestion(originalQuestion);
+            partialEntry.setSupplementQuestion(supplementQuestion);
+            partialEntry.setNeedsMoreInfo(true);
+            // answer和supplementAnswer待补充后填写
+            qaHistoryService.addContactQaEntry(current.getSessionId(), partialEntry);
+        });
         
         log.info("Session {} needs supplement info for question: {}, saved partial QA history", 
             session.getSessionId(), originalQuestion);
@@ -283,15 +417,34 @@ public class QaService {
     /**
      * 生成直接回答
      */
-    private QaResponse generateDirectAnswer(ConversationSession session, Contact contact, User user, String question) {
-        // 更新状态为QA_ACTIVE
-        if (!SessionStatus.QA_ACTIVE.name().equals(session.getStatus())) {
-            session.setStatus(SessionStatus.QA_ACTIVE.name());
-            sessionRepository.save(session);
-        }
+    private QaResponse generateDirectAnswer(QaContext context, String question) {
+        ConversationSession session = context.session();
+        Contact contact = context.contact();
+        
+        // 生成回答（LLM调用，不持有事务）
+        String answer = answerQuestionAboutContact(question, contact, context.user(), session.getSessionId(), context);
+        
+        return saveDirectAnswer(context, question, answer);
+    }
+    
+    /**
+     * 保存直接回答（短写事务）并构建响应
+     */
+    private QaResponse saveDirectAnswer(QaContext context, String question, String answer) {
+        ConversationSession session = context.session();
+        Contact contact = context.contact();
         
-        // 生成回答
-        String answer = answerQuestionAboutContact(question, contact, user, session.getSessionId());
+        transactionTemplate.executeWithoutResult(status -> {
+            ConversationSession current = reloadWithVersionCheck(session);
+            
+            // 更新状态为QA_ACTIVE
+            if (!SessionStatus.QA_ACTIVE.name().equals(current.getStatus())) {
+                current.setStatus(SessionStatus.QA_ACTIVE.name());
+                sessionRepository.save(current);
+            }
+            
+            saveQaHistory(current.getSessionId(), question, answer, null);
+        });
         
         log.info("Answered question for session {}: {}", session.getSessionId(), question);
         
@@ -307,22 +460,32 @@ public class QaService {
      * 生成最终回答
      */
     private QaResponse generateFinalAnswer(
-        ConversationSession session, 
+        QaContext context,
+        String originalDescription,
         String originalQuestion,
         String supplementInfo
     ) {
-        Contact contact = loadContact(session.getContactId(), session.getUserId());
-        User user = loadUser(session.getUserId());
+        ConversationSession session = context.session();
+        Contact contact = context.contact();
         
         // 直接使用原始description和补充信息生成答案，不等待description更新
         String answer = answerQuestionAboutContactWithSupplement(
             originalQuestion, 
-            contact.getDescription(), // 使用原始description
-            user.getDescription(),
+            originalDescription, // 使用原始description
+            context.user().getDescription(),
             session.getSessionId(),
-            supplementInfo
+            supplementInfo,
+            context
         );
         
+        transactionTemplate.executeWithoutResult(status -> {
+            ConversationSession current = reloadWithVersionCheck(session);
+            current.setLastQuestion(null);
+            sessionRepository.save(current);
+            
+            saveQaHistory(current.getSessionId(), originalQuestion, answer, supplementInfo);
+        });
+        
         log.info("Generated final answer for session {} with supplement, original question: {}", 
             session.getSessionId(), originalQuestion);
         
@@ -374,17 +537,24 @@ public class QaService {
                 new ChatMessage("user", prompt)
             ));
             request.setTemperature(0.3); // 较低温度，保证稳定性
+            request.setTrafficClass(DeepseekTrafficClass.BACKGROUND);
             
+            request.setCaller(DeepseekCaller.DESCRIPTION_MERGE);
+            request.setUserId(contact.getOwner().getId());
             ChatCompletionResponse response = deepseekClient.chat(request).block();
             String updatedDescription = response.getChoices().get(0).getMessage().getContent().trim();
             
-            // 更新联系人描述
-            contact.setDescription(updatedDescription);
-            contactRepository.save(contact);
-            
-            // 🔥 发布事件：触发 self value 重新计算（基于更新后的description）
-            log.debug("Publishing ContactDescriptionUpdatedEvent for contact {}", contact.getId());
-            eventPublisher.publishEvent(new ContactDescriptionUpdatedEvent(contact.getId(), updatedDescription));
+            // 更新联系人描述（短写事务，事件需在事务内发布以触发AFTER_COMMIT监听器）
+            transactionTemplate.executeWithoutResult(status -> {
+                Contact current = contactRepository.findById(contact.getId())
+                    .orElseThrow(() -> new NotFoundException("联系人不存在"));
+                current.setDescription(updatedDescription);
+                contactRepository.save(current);
+                
+                // 🔥 发布事件：触发 self value 重新计算（基于更新后的description）
+                log.debug("Publishing ContactDescriptionUpdatedEvent for contact {}", contact.getId());
+                eventPublisher.publishEvent(new ContactDescriptionUpdatedEvent(contact.getId(), updatedDescription));
+            });
             
             log.info("Async updated contact {} description with supplement info, original length: {}, new length: {}", 
                 contact.getId(),
@@ -403,47 +573,30 @@ public class QaService {
         String contactDescription,
         String userDescription,
         String sessionId,
-        String supplementInfo
+        String supplementInfo,
+        QaContext context
     ) {
-        // Step 1: 构建基础系统Prompt（不包含历史对话）
-        String systemPrompt = PromptTemplates.buildBaseContactQaSystemPrompt(
+        // Step 1: 构建原生多轮消息数组
+        List<ChatMessage> messages = new ArrayList<>();
+        
+        // Step 2: 固定的系统提示在前（所有用户相同，可命中上下文缓存），其后是本次的双方信息
+        messages.add(new ChatMessage("system", PromptTemplates.CONTACT_QA_SYSTEM_PROMPT));
+        messages.add(new ChatMessage("system", PromptTemplates.buildContactQaContextPrompt(
             contactDescription,
             "", // 不使用self_value，因为这是临时回答
             userDescription,
             "" // 不使用self_value，因为这是临时回答
-        );
-        
-        // Step 2: 构建原生多轮消息数组
-        List<ChatMessage> messages = new ArrayList<>();
-        
-        // 添加系统提示
-        messages.add(new ChatMessage("system", systemPrompt));
-        
-        // Step 3: 添加历史对话（原生格式）
-        List<QaHistoryEntry> qaHistory = qaHistoryService.getContactQaHistory(sessionId);
-        for (QaHistoryEntry entry : qaHistory) {
-            // 添加用户的历史问题
-            if (entry.getQuestion() != null && !entry.getQuestion().trim().isEmpty()) {
-                messages.add(new ChatMessage("user", entry.getQuestion()));
-            }
-            
-            // 如果有补充信息流程
-            if (entry.getNeedsMoreInfo() != null && entry.getNeedsMoreInfo()) {
-                // Deepseek的补充问题
-                if (entry.getSupplementQuestion() != null) {
-                    messages.add(new ChatMessage("assistant", entry.getSupplementQuestion()));
-                }
-                // 用户的补充回答
-                if (entry.getSupplementAnswer() != null) {
-                    messages.add(new ChatMessage("user", entry.getSupplementAnswer()));
-                }
-            }
-            
-            // 添加AI的历史回答
-            if (entry.getAnswer() != null) {
-                messages.add(new ChatMessage("assistant", entry.getAnswer()));
-            }
-        }
+        )));
+        
+        // Step 3: 添加历史对话（较早轮次的摘要 + 预算内的最近轮次，原生格式）
+        messages.addAll(qaContextBuilder.buildHistoryMessages(
+            QaHistoryRecord.SESSION_TYPE_CONTACT,
+            sessionId,
+            context.session().getUserId(),
+            context.qaHistory(),
+            context.session().getHistorySummary(),
+            context.session().getHistorySummarySeq()
+        ));
         
         // Step 4: 添加当前问题
         messages.add(new ChatMessage("user", question));
@@ -462,112 +615,69 @@ public class QaService {
         log.info("Calling Deepseek with {} messages for session {} (with supplement)", 
             messages.size(), sessionId);
         
+        request.setCaller(DeepseekCaller.QA_ANSWER);
+        request.setUserId(context.session().getUserId());
         ChatCompletionResponse response = deepseekClient.chat(request).block();
         String answer = response.getChoices().get(0).getMessage().getContent();
         
-        // Step 7: 保存或更新QA历史
-        if (supplementInfo != null && !supplementInfo.trim().isEmpty()) {
-            // 有补充信息的情况 - 更新最后一条历史记录
-            List<QaHistoryEntry> history = qaHistoryService.getContactQaHistory(sessionId);
-            if (!history.isEmpty()) {
-                QaHistoryEntry lastEntry = history.get(history.size() - 1);
-                // 更新补充回答和最终答案
-                lastEntry.setSupplementAnswer(supplementInfo);
-                lastEntry.setAnswer(answer);
-                qaHistoryService.updateLastContactQaEntry(sessionId, lastEntry);
-                
-                log.info("Updated last QA entry with supplement for session {}, question: {}", 
-                    sessionId, question);
-            } else {
-                // 如果历史为空（异常情况），创建新记录
-                log.warn("No history found when processing supplement, creating new entry for session {}", 
-                    sessionId);
-                QaHistoryEntry qaEntry = new QaHistoryEntry(
-                    question,
-                    answer,
-                    "（系统请求补充信息）",
-                    supplementInfo,
-                    true
-                );
-                qaHistoryService.addContactQaEntry(sessionId, qaEntry);
-            }
-        } else {
-            // 直接回答的情况 - 添加新记录
-            QaHistoryEntry qaEntry = new QaHistoryEntry(question, answer);
-            qaHistoryService.addContactQaEntry(sessionId, qaEntry);
-            
-            log.info("Saved new QA entry for session {}, question: {}", sessionId, question);
-        }
-        
         return answer;
     }
     
     /**
-     * 使用Deepseek回答关于联系人的问题（重载方法，无补充信息）
+     * 使用Deepseek回答关于联系人的问题（原生多轮对话版本）
      */
-    private String answerQuestionAboutContact(String question, Contact contact, User user, String sessionId) {
-        return answerQuestionAboutContact(question, contact, user, sessionId, null);
+    private String answerQuestionAboutContact(
+        String question, 
+        Contact contact, 
+        User user, 
+        String sessionId,
+        QaContext context
+    ) {
+        ChatCompletionRequest request = buildContactQaRequest(question, contact, user, sessionId, context);
+        request.setCaller(DeepseekCaller.QA_ANSWER);
+        request.setUserId(context.session().getUserId());
+        ChatCompletionResponse response = deepseekClient.chat(request).block();
+        String answer = response.getChoices().get(0).getMessage().getContent();
+        
+        return answer;
     }
     
     /**
-     * 使用Deepseek回答关于联系人的问题（原生多轮对话版本）
+     * 构建联系人问答请求（系统提示 + 原生多轮历史 + 当前问题），同步与流式问答共用
      */
-    private String answerQuestionAboutContact(
+    private ChatCompletionRequest buildContactQaRequest(
         String question, 
         Contact contact, 
         User user, 
         String sessionId,
-        String supplementInfo
+        QaContext context
     ) {
-        // Step 1: 构建基础系统Prompt（不包含历史对话）
-        String systemPrompt = PromptTemplates.buildBaseContactQaSystemPrompt(
+        // Step 1: 构建原生多轮消息数组
+        List<ChatMessage> messages = new ArrayList<>();
+        
+        // Step 2: 固定的系统提示在前（所有用户相同，可命中上下文缓存），其后是本次的双方信息
+        messages.add(new ChatMessage("system", PromptTemplates.CONTACT_QA_SYSTEM_PROMPT));
+        messages.add(new ChatMessage("system", PromptTemplates.buildContactQaContextPrompt(
             contact.getDescription(),
             contact.getSelfValue(),
             user.getDescription(),
             user.getSelfValue()
-        );
-        
-        // Step 2: 构建原生多轮消息数组
-        List<ChatMessage> messages = new ArrayList<>();
-        
-        // 添加系统提示
-        messages.add(new ChatMessage("system", systemPrompt));
-        
-        // Step 3: 添加历史对话（原生格式）
-        List<QaHistoryEntry> qaHistory = qaHistoryService.getContactQaHistory(sessionId);
-        for (QaHistoryEntry entry : qaHistory) {
-            // 添加用户的历史问题
-            if (entry.getQuestion() != null && !entry.getQuestion().trim().isEmpty()) {
-                messages.add(new ChatMessage("user", entry.getQuestion()));
-            }
-            
-            // 如果有补充信息流程
-            if (entry.getNeedsMoreInfo() != null && entry.getNeedsMoreInfo()) {
-                // Deepseek的补充问题
-                if (entry.getSupplementQuestion() != null) {
-                    messages.add(new ChatMessage("assistant", entry.getSupplementQuestion()));
-                }
-                // 用户的补充回答
-                if (entry.getSupplementAnswer() != null) {
-                    messages.add(new ChatMessage("user", entry.getSupplementAnswer()));
-                }
-            }
-            
-            // 添加AI的历史回答
-            if (entry.getAnswer() != null) {
-                messages.add(new ChatMessage("assistant", entry.getAnswer()));
-            }
-        }
+        )));
+        
+        // Step 3: 添加历史对话（较早轮次的摘要 + 预算内的最近轮次，原生格式）
+        messages.addAll(qaContextBuilder.buildHistoryMessages(
+            QaHistoryRecord.SESSION_TYPE_CONTACT,
+            sessionId,
+            context.session().getUserId(),
+            context.qaHistory(),
+            context.session().getHistorySummary(),
+            context.session().getHistorySummarySeq()
+        ));
         
         // Step 4: 添加当前问题
         messages.add(new ChatMessage("user", question));
         
-        // Step 5: 如果有补充信息，添加补充回答
-        if (supplementInfo != null && !supplementInfo.trim().isEmpty()) {
-            messages.add(new ChatMessage("user", supplementInfo));
-        }
-        
-        // Step 6: 调用Deepseek
+        // Step 5: 构建Deepseek请求（使用 reasoner 模型进行问答）
         ChatCompletionRequest request = new ChatCompletionRequest();
         request.setModel(deepseekProperties.getReasonerModel());
         request.setMessages(messages);
@@ -576,22 +686,23 @@ public class QaService {
         log.info("Calling Deepseek with {} messages for session {}", 
             messages.size(), sessionId);
         
-        // 使用 reasoner 模型进行问答
-        request.setModel(deepseekProperties.getReasonerModel());
-        ChatCompletionResponse response = deepseekClient.chat(request).block();
-        String answer = response.getChoices().get(0).getMessage().getContent();
-        
-        // Step 7: 保存或更新QA历史
+        return request;
+    }
+    
+    /**
+     * 保存或更新QA历史（需在写事务中调用）
+     */
+    private void saveQaHistory(String sessionId, String question, String answer, String supplementInfo) {
         if (supplementInfo != null && !supplementInfo.trim().isEmpty()) {
             // 有补充信息的情况 - 更新最后一条历史记录
-            List<QaHistoryEntry> history = qaHistoryService.getContactQaHistory(sessionId);
-            if (!history.isEmpty()) {
-                QaHistoryEntry lastEntry = history.get(history.size() - 1);
+            Optional<QaHistoryEntry> last = qaHistoryService.getLastQaEntry(sessionId);
+            if (last.isPresent()) {
+                QaHistoryEntry lastEntry = last.get();
                 // 更新补充回答和最终答案
                 lastEntry.setSupplementAnswer(supplementInfo);
                 lastEntry.setAnswer(answer);
                 qaHistoryService.updateLastContactQaEntry(sessionId, lastEntry);
-                
+            
                 log.info("Updated last QA entry with supplement for session {}, question: {}", 
                     sessionId, question);
             } else {
@@ -611,11 +722,19 @@ public class QaService {
             // 直接回答的情况 - 添加新记录
             QaHistoryEntry qaEntry = new QaHistoryEntry(question, answer);
             qaHistoryService.addContactQaEntry(sessionId, qaEntry);
-            
+        
             log.info("Saved new QA entry for session {}, question: {}", sessionId, question);
         }
-        
-        return answer;
+    }
+    
+    /**
+     * 问答上下文：在只读事务中加载，LLM调用阶段使用的分离快照
+     */
+    private record QaContext(
+        ConversationSession session,
+        Contact contact,
+        User user,
+        QaHistoryWindow qaHistory
+    ) {
     }
 }
-
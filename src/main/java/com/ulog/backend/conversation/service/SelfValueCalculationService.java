@@ -28,4 +28,26 @@ public interface SelfValueCalculationService {
      * @param description 用户的描述信息
      */
     void calculateAndUpdateUserAsync(Long userId, String description);
+
+    /**
+     * 计算并更新联系人的 Self Value（AI后处理任务使用）
+     * AI调用失败时抛出异常，由任务重试
+     */
+    void updateContactSelfValue(Long contactId, String description);
+
+    /**
+     * 计算并更新用户的 Self Value（AI后处理任务使用）
+     * AI调用失败时抛出异常，由任务重试
+     */
+    void updateUserSelfValue(Long userId, String description);
+
+    /**
+     * 为联系人写入默认 Self Value（重试用尽后的降级）
+     */
+    void applyDefaultContactSelfValue(Long contactId);
+
+    /**
+     * 为用户写入默认 Self Value（重试用尽后的降级）
+     */
+    void applyDefaultUserSelfValue(Long userId);
 }
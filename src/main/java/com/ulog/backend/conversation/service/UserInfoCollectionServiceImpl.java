@@ -3,10 +3,14 @@ package com.ulog.backend.conversation.service;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ulog.backend.ai.DeepseekCaller;
 import com.ulog.backend.ai.DeepseekClient;
 import com.ulog.backend.ai.dto.ChatCompletionRequest;
 import com.ulog.backend.ai.dto.ChatCompletionResponse;
 import com.ulog.backend.ai.dto.ChatMessage;
+import com.ulog.backend.ai.structured.StructuredOutputException;
+import com.ulog.backend.ai.structured.StructuredOutputSchemas;
+import com.ulog.backend.ai.structured.StructuredOutputService;
 import com.ulog.backend.config.DeepseekProperties;
 import com.ulog.backend.common.exception.BadRequestException;
 import com.ulog.backend.common.exception.NotFoundException;
@@ -20,8 +24,10 @@ import com.ulog.backend.repository.UserConversationSessionRepository;
 import com.ulog.backend.user.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -36,6 +42,9 @@ public class UserInfoCollectionServiceImpl implements UserInfoCollectionService
     private final UserService userService;
     private final ObjectMapper objectMapper;
     private final DeepseekProperties deepseekProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final StructuredOutputService structuredOutputService;
+    private final LocalIntentClassifier localIntentClassifier;
     
     // 收集维度定义 - 基于专业框架（与联系人相同）
     private static final List<String> COLLECTION_DIMENSIONS = List.of(
@@ -124,17 +133,22 @@ public class UserInfoCollectionServiceImpl implements UserInfoCollectionService
         DeepseekClient deepseekClient,
         UserService userService,
         ObjectMapper objectMapper,
-        DeepseekProperties deepseekProperties
+        DeepseekProperties deepseekProperties,
+        TransactionTemplate transactionTemplate,
+        StructuredOutputService structuredOutputService,
+        LocalIntentClassifier localIntentClassifier
     ) {
         this.sessionRepository = sessionRepository;
         this.deepseekClient = deepseekClient;
         this.userService = userService;
         this.objectMapper = objectMapper;
         this.deepseekProperties = deepseekProperties;
+        this.transactionTemplate = transactionTemplate;
+        this.structuredOutputService = structuredOutputService;
+        this.localIntentClassifier = localIntentClassifier;
     }
     
     @Override
-    @Transactional
     public StartUserCollectionResponse startCollection(Long userId) {
         log.info("Starting user self-information collection for userId: {}", userId);
         
@@ -162,7 +176,7 @@ public class UserInfoCollectionServiceImpl implements UserInfoCollectionService
         String firstQuestion = generateFirstQuestion();
         session.setLastQuestion(firstQuestion);
         
-        sessionRepository.save(session);
+        saveSession(session);
         
         log.info("Created user conversation session: {}", session.getSessionId());
         
@@ -176,8 +190,12 @@ public class UserInfoCollectionServiceImpl implements UserInfoCollectionService
         return response;
     }
     
+    /**
+     * 处理用户消息
+     * 不在整个方法上开启事务：会话以分离实体的形式加载，DeepSeek调用期间不占用数据库连接，
+     * 每次保存都是独立的短事务，并通过版本号检测并发修改
+     */
     @Override
-    @Transactional
     public UserMessageResponse processMessage(String sessionId, Long userId, String message) {
         log.info("Processing user message for session: {}, userId: {}, message: {}", 
             sessionId, userId, message);
@@ -257,7 +275,7 @@ public class UserInfoCollectionServiceImpl implements UserInfoCollectionService
         } else if (isContinue(message)) {
             // 用户想继续
             session.setStatus(SessionStatus.ACTIVE);
-            sessionRepository.save(session);
+            saveSession(session);
             
             Map<String, Object> collectedData = fromJson(session.getCollectedData());
             List<String> completedDimensions = fromJsonList(session.getCompletedDimensions());
@@ -361,7 +379,7 @@ public class UserInfoCollectionServiceImpl implements UserInfoCollectionService
         );
         
         session.setLastQuestion(nextQuestion);
-        sessionRepository.save(session);
+        saveSession(session);
         
         UserMessageResponse response = new UserMessageResponse();
         response.setNextQuestion(nextQuestion);
@@ -382,7 +400,7 @@ public class UserInfoCollectionServiceImpl implements UserInfoCollectionService
         
         session.setStatus(SessionStatus.REQUESTING_MINIMUM);
         session.setLastQuestion(question);
-        sessionRepository.save(session);
+        saveSession(session);
         
         UserMessageResponse response = new UserMessageResponse();
         response.setNextQuestion(question);
@@ -405,7 +423,7 @@ public class UserInfoCollectionServiceImpl implements UserInfoCollectionService
         
         session.setStatus(SessionStatus.REQUESTING_MINIMUM);
         session.setLastQuestion(question);
-        sessionRepository.save(session);
+        saveSession(session);
         
         UserMessageResponse response = new UserMessageResponse();
         response.setNextQuestion(question);
@@ -423,7 +441,7 @@ public class UserInfoCollectionServiceImpl implements UserInfoCollectionService
         Map<String, Object> collectedData
     ) {
         session.setStatus(SessionStatus.CONFIRMING_END);
-        sessionRepository.save(session);
+        saveSession(session);
         
         UserMessageResponse response = new UserMessageResponse();
         response.setNextQuestion("好的，了解了。那我们就根据这些信息完善你的个人信息吧？（回复'是'继续，或'再想想'继续补充）");
@@ -438,7 +456,6 @@ public class UserInfoCollectionServiceImpl implements UserInfoCollectionService
     /**
      * 完成并更新用户描述
      */
-    @Transactional
     private UserMessageResponse completeAndUpdateUser(
         UserConversationSession session,
         Map<String, Object> collectedData
@@ -447,22 +464,23 @@ public class UserInfoCollectionServiceImpl implements UserInfoCollectionService
             log.info("Completing user self-collection for session {}, collected data: {}", 
                 session.getSessionId(), collectedData);
             
-            // 生成自我描述
+            // 生成自我描述（LLM调用，不持有事务）
             String description = generateSelfDescription(collectedData);
             
             log.info("Generated self description: {}", description);
             
-            // 更新用户描述
-            userService.updateUserDescription(session.getUserId(), description);
-            
-            log.info("Successfully updated user description for session {}", session.getSessionId());
-            
-            // 更新会话状态
-            session.setStatus(SessionStatus.COMPLETED);
-            session.setCompletedAt(LocalDateTime.now());
-            session.setFinalDescription(description);
-            session.setLastQuestion(null);  // 清空lastQuestion，避免干扰QA阶段
-            sessionRepository.save(session);
+            // 更新用户描述和会话状态（同一个短写事务，会话版本冲突时用户描述更新一并回滚）
+            transactionTemplate.executeWithoutResult(status -> {
+                userService.updateUserDescription(session.getUserId(), description);
+                
+                log.info("Successfully updated user description for session {}", session.getSessionId());
+                
+                session.setStatus(SessionStatus.COMPLETED);
+                session.setCompletedAt(LocalDateTime.now());
+                session.setFinalDescription(description);
+                session.setLastQuestion(null);  // 清空lastQuestion，避免干扰QA阶段
+                saveSession(session);
+            });
             
             log.info("Session {} marked as COMPLETED", session.getSessionId());
             
@@ -480,6 +498,9 @@ public class UserInfoCollectionServiceImpl implements UserInfoCollectionService
             ));
             return response;
                 
+        } catch (OptimisticLockingFailureException e) {
+            // 并发修改交给全局异常处理返回409
+            throw e;
         } catch (Exception e) {
             log.error("Failed to update user description for session {}: {}", 
                 session.getSessionId(), e.getMessage(), e);
@@ -516,7 +537,7 @@ public class UserInfoCollectionServiceImpl implements UserInfoCollectionService
      */
     private String generateFirstQuestion() {
         String prompt = PromptTemplates.buildFirstQuestionForUser();
-        return callDeepseek(prompt);
+        return callDeepseek(prompt, DeepseekCaller.QUESTION_GENERATION);
     }
     
     /**
@@ -534,7 +555,7 @@ public class UserInfoCollectionServiceImpl implements UserInfoCollectionService
             collectedData,
             lastQuestion
         );
-        return callDeepseek(prompt);
+        return callDeepseek(prompt, DeepseekCaller.QUESTION_GENERATION);
     }
     
     /**
@@ -543,7 +564,7 @@ public class UserInfoCollectionServiceImpl implements UserInfoCollectionService
     private String generateMinimumInfoQuestion(Map<String, Object> data) {
         List<String> missingInfo = analyzeMissingInfo(data);
         String prompt = PromptTemplates.buildMinimumInfoQuestionForUser(data, missingInfo);
-        return callDeepseek(prompt);
+        return callDeepseek(prompt, DeepseekCaller.QUESTION_GENERATION);
     }
     
     /**
@@ -564,7 +585,7 @@ public class UserInfoCollectionServiceImpl implements UserInfoCollectionService
      */
     private String generateSelfDescription(Map<String, Object> collectedData) {
         String prompt = PromptTemplates.buildSelfDescriptionPrompt(collectedData);
-        return callDeepseek(prompt);
+        return callDeepseek(prompt, DeepseekCaller.DESCRIPTION_GENERATION);
     }
     
     /**
@@ -576,6 +597,14 @@ public class UserInfoCollectionServiceImpl implements UserInfoCollectionService
         Map<String, Object> collectedData,
         String lastQuestion
     ) {
+        // 不含信息的简短回复（"不知道"、"跳过"、"就这些"等）由本地分类器判断，不调用DeepSeek
+        Optional<ExtractionResult> localResult = localIntentClassifier.classify(userMessage);
+        if (localResult.isPresent()) {
+            log.info("Local intent classifier handled message: intent={}, wantsToEnd={}",
+                localResult.get().getIntent(), localResult.get().isWantsToEnd());
+            return localResult.get();
+        }
+        
         String prompt = PromptTemplates.buildIntelligentExtractionPrompt(
             userMessage,
             currentDimension,
@@ -584,21 +613,15 @@ public class UserInfoCollectionServiceImpl implements UserInfoCollectionService
         );
         
         log.debug("Calling Deepseek for extraction with prompt: {}", prompt);
-        String jsonResponse = callDeepseek(prompt);
-        log.info("Deepseek extraction response: {}", jsonResponse);
-        
         try {
-            ExtractionResult result = objectMapper.readValue(jsonResponse, ExtractionResult.class);
-            if (result == null) {
-                log.error("Parsed result is null for response: {}", jsonResponse);
-                throw new BadRequestException("AI响应解析失败，请重试");
-            }
+            ExtractionResult result = structuredOutputService
+                .complete(StructuredOutputSchemas.EXTRACTION_RESULT, buildRequest(prompt, DeepseekCaller.EXTRACTION))
+                .block();
             log.info("Successfully parsed extraction result - intent: {}, updates: {}, wantsToEnd: {}", 
                 result.getIntent(), result.getUpdates(), result.isWantsToEnd());
             return result;
-        } catch (JsonProcessingException e) {
-            log.error("Failed to parse extraction result: {}", jsonResponse, e);
-            log.error("JSON parsing error details: {}", e.getMessage());
+        } catch (StructuredOutputException e) {
+            log.error("Failed to parse extraction result: {}", e.getMessage());
             throw new BadRequestException("AI响应格式错误，请重试。错误详情: " + e.getMessage());
         }
     }
@@ -824,7 +847,16 @@ public class UserInfoCollectionServiceImpl implements UserInfoCollectionService
     /**
      * 调用Deepseek
      */
-    private String callDeepseek(String prompt) {
+    private String callDeepseek(String prompt, DeepseekCaller caller) {
+        ChatCompletionResponse response = deepseekClient.chat(buildRequest(prompt, caller)).block();
+        if (response == null || response.getChoices() == null || response.getChoices().isEmpty()) {
+            throw new BadRequestException("AI服务暂时不可用");
+        }
+        
+        return response.getChoices().get(0).getMessage().getContent().trim();
+    }
+    
+    private ChatCompletionRequest buildRequest(String prompt, DeepseekCaller caller) {
         ChatCompletionRequest request = new ChatCompletionRequest();
         request.setModel(deepseekProperties.getModel());
         request.setMessages(List.of(
@@ -832,13 +864,17 @@ public class UserInfoCollectionServiceImpl implements UserInfoCollectionService
             new ChatMessage("user", prompt)
         ));
         request.setTemperature(0.7);
-        
-        ChatCompletionResponse response = deepseekClient.chat(request).block();
-        if (response == null || response.getChoices() == null || response.getChoices().isEmpty()) {
-            throw new BadRequestException("AI服务暂时不可用");
-        }
-        
-        return response.getChoices().get(0).getMessage().getContent().trim();
+        request.setCaller(caller);
+        return request;
+    }
+    
+    /**
+     * 保存会话（独立短事务）
+     * 会话为分离实体，合并时由版本号校验并发修改；保存后回写新版本号，保证同一请求内的后续保存不会误判冲突
+     */
+    private void saveSession(UserConversationSession session) {
+        UserConversationSession saved = sessionRepository.save(session);
+        session.setVersion(saved.getVersion());
     }
     
     /**
@@ -1,6 +1,9 @@
 package com.ulog.backend.conversation.service;
 
+import com.ulog.backend.conversation.dto.QaHistoryPageResponse;
+import com.ulog.backend.conversation.dto.QaStreamEvent;
 import com.ulog.backend.conversation.dto.UserQaResponse;
+import reactor.core.publisher.Flux;
 
 public interface UserQaService {
     
@@ -9,6 +12,11 @@ public interface UserQaService {
      */
     UserQaResponse processQuestion(String sessionId, Long userId, String question);
     
+    /**
+     * 处理用户的自我问答（流式推送回答，结束后保存QA历史）
+     */
+    Flux<QaStreamEvent> streamQuestion(String sessionId, Long userId, String question);
+    
     /**
      * 生成AI总结
      */
@@ -19,6 +27,11 @@ public interface UserQaService {
      */
     UserQaResponse processSupplementInfo(String sessionId, Long userId, String supplementInfo);
     
+    /**
+     * 分页获取QA历史
+     */
+    QaHistoryPageResponse getQaHistory(String sessionId, Long userId, int page, int size);
+    
     /**
      * 结束QA会话
      */
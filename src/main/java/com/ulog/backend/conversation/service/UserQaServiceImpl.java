@@ -3,46 +3,71 @@ package com.ulog.backend.conversation.service;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ulog.backend.ai.AiSummaryService;
+import com.ulog.backend.ai.DeepseekCaller;
 import com.ulog.backend.ai.DeepseekClient;
+import com.ulog.backend.ai.DeepseekTrafficClass;
 import com.ulog.backend.ai.dto.ChatCompletionRequest;
 import com.ulog.backend.ai.dto.ChatCompletionResponse;
 import com.ulog.backend.ai.dto.ChatMessage;
 import com.ulog.backend.config.DeepseekProperties;
 import com.ulog.backend.common.exception.BadRequestException;
+import com.ulog.backend.common.exception.ConflictException;
 import com.ulog.backend.common.exception.NotFoundException;
+import com.ulog.backend.compliance.service.ContentModerationService;
 import com.ulog.backend.conversation.dto.QaHistoryEntry;
+import com.ulog.backend.conversation.dto.QaHistoryPageResponse;
+import com.ulog.backend.conversation.dto.QaHistoryWindow;
+import com.ulog.backend.conversation.dto.QaStreamEvent;
 import com.ulog.backend.conversation.dto.UserQaResponse;
 import com.ulog.backend.conversation.enums.SessionStatus;
 import com.ulog.backend.conversation.event.UserDescriptionUpdatedEvent;
 import com.ulog.backend.conversation.util.PromptTemplates;
+import com.ulog.backend.domain.conversation.QaHistoryRecord;
 import com.ulog.backend.domain.conversation.UserConversationSession;
 import com.ulog.backend.domain.user.User;
 import com.ulog.backend.repository.UserConversationSessionRepository;
 import com.ulog.backend.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
+/**
+ * 用户自我问答服务
+ * 与联系人问答相同，拆分为短只读事务 → 无事务LLM调用 → 短写事务（乐观锁校验）三个阶段
+ */
 @Service
 public class UserQaServiceImpl implements UserQaService {
     
     private static final Logger log = LoggerFactory.getLogger(UserQaServiceImpl.class);
     
+    private static final String CONFLICT_MESSAGE = "会话已被其他请求更新，请刷新后重试";
+    
     private final UserConversationSessionRepository sessionRepository;
     private final UserRepository userRepository;
     private final DeepseekClient deepseekClient;
     private final AiSummaryService aiSummaryService;
     private final QaHistoryService qaHistoryService;
+    private final QaContextBuilder qaContextBuilder;
     private final ObjectMapper objectMapper;
     private final DeepseekProperties deepseekProperties;
     private final ApplicationEventPublisher eventPublisher;
+    private final ContentModerationService contentModerationService;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
     
     public UserQaServiceImpl(
         UserConversationSessionRepository sessionRepository,
@@ -50,41 +75,102 @@ public class UserQaServiceImpl implements UserQaService {
         DeepseekClient deepseekClient,
         AiSummaryService aiSummaryService,
         QaHistoryService qaHistoryService,
+        QaContextBuilder qaContextBuilder,
         ObjectMapper objectMapper,
         DeepseekProperties deepseekProperties,
-        ApplicationEventPublisher eventPublisher
+        ApplicationEventPublisher eventPublisher,
+        ContentModerationService contentModerationService,
+        TransactionTemplate transactionTemplate,
+        @Qualifier("readOnlyTransactionTemplate") TransactionTemplate readOnlyTransactionTemplate
     ) {
         this.sessionRepository = sessionRepository;
         this.userRepository = userRepository;
         this.deepseekClient = deepseekClient;
         this.aiSummaryService = aiSummaryService;
         this.qaHistoryService = qaHistoryService;
+        this.qaContextBuilder = qaContextBuilder;
         this.objectMapper = objectMapper;
         this.deepseekProperties = deepseekProperties;
         this.eventPublisher = eventPublisher;
+        this.contentModerationService = contentModerationService;
+        this.transactionTemplate = transactionTemplate;
+        this.readOnlyTransactionTemplate = readOnlyTransactionTemplate;
     }
     
     @Override
-    @Transactional
     public UserQaResponse processQuestion(String sessionId, Long userId, String question) {
         log.info("Processing user self-QA question for session: {}, userId: {}, question: {}", 
             sessionId, userId, question);
         
-        // 1. 验证会话和权限
-        UserConversationSession session = validateSession(sessionId, userId);
-        User user = loadUser(userId);
+        // 1. 验证会话和权限（短只读事务）
+        QaContext context = loadQaContext(sessionId, userId);
+        User user = context.user();
         
-        // 2. 分析信息需求
-        AnalysisResult analysis = analyzeInfoNeeds(question, user.getDescription());
+        // 2. 分析信息需求（LLM调用，不持有事务）
+        AnalysisResult analysis = analyzeInfoNeeds(question, user.getDescription(), userId);
         
         // 3. 判断是否需要补充信息
         if (analysis.needsMoreInfo) {
-            log.info("Question needs more info, asking follow-up for question: {}", question);
-            
+            return askFollowUp(context, question, analysis);
+        }
+        
+        // 4. 生成答案
+        log.info("Sufficient info available, generating answer");
+        String answer = generateAnswer(question, user.getDescription(), user.getSelfValue(), sessionId, context);
+        
+        return saveDirectAnswer(context, question, answer);
+    }
+    
+    @Override
+    public Flux<QaStreamEvent> streamQuestion(String sessionId, Long userId, String question) {
+        log.info("Streaming user self-QA question for session: {}, userId: {}, question: {}", 
+            sessionId, userId, question);
+        
+        return Mono.fromCallable(() -> loadQaContext(sessionId, userId))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMapMany(context -> {
+                User user = context.user();
+                
+                // 分析信息需求（在boundedElastic线程上阻塞调用）
+                AnalysisResult analysis = analyzeInfoNeeds(question, user.getDescription(), userId);
+                if (analysis.needsMoreInfo) {
+                    return Flux.just(QaStreamEvent.supplement(askFollowUp(context, question, analysis)));
+                }
+                
+                ChatCompletionRequest request = buildUserQaRequest(
+                    question, user.getDescription(), user.getSelfValue(), sessionId, context);
+                StringBuilder answer = new StringBuilder();
+                
+                request.setCaller(DeepseekCaller.QA_STREAM);
+                request.setUserId(userId);
+                Flux<QaStreamEvent> deltas = contentModerationService
+                    .moderateStream(deepseekClient.chatStreamContent(request), userId, "ai_output")
+                    .doOnNext(answer::append)
+                    .map(QaStreamEvent::delta);
+                Mono<QaStreamEvent> done = Mono.fromCallable(() -> 
+                        QaStreamEvent.done(saveDirectAnswer(context, question, answer.toString().trim())))
+                    .subscribeOn(Schedulers.boundedElastic());
+                
+                return deltas.concatWith(done);
+            })
+            .doOnError(e -> log.error("Streaming QA failed for user session {}: {}", sessionId, e.getMessage(), e));
+    }
+    
+    /**
+     * 需要补充信息：保存原始问题和部分QA历史（短写事务），返回追问
+     */
+    private UserQaResponse askFollowUp(QaContext context, String question, AnalysisResult analysis) {
+        UserConversationSession session = context.session();
+        String sessionId = session.getSessionId();
+        
+        log.info("Question needs more info, asking follow-up for question: {}", question);
+        
+        transactionTemplate.executeWithoutResult(status -> {
             // 保存用户的原始问题到session
-            session.setLastQuestion(question);
-            session.setStatus(SessionStatus.QA_ACTIVE);
-            sessionRepository.save(session);
+            UserConversationSession current = reloadWithVersionCheck(session);
+            current.setLastQuestion(question);
+            current.setStatus(SessionStatus.QA_ACTIVE);
+            sessionRepository.save(current);
             
             // 立即保存部分QA历史（包含原始问题和追问）
             QaHistoryEntry partialEntry = new QaHistoryEntry();
@@ -93,33 +179,45 @@ public class UserQaServiceImpl implements UserQaService {
             partialEntry.setNeedsMoreInfo(true);
             // answer和supplementAnswer待补充后填写
             qaHistoryService.addUserQaEntry(sessionId, partialEntry);
-            
-            log.info("Saved partial QA history for user session {}", sessionId);
-            
-            UserQaResponse response = new UserQaResponse();
-            response.setAnswer(null);
-            response.setSessionId(sessionId);
-            response.setUserDescription(user.getDescription());
-            response.setNeedsMoreInfo(true);
-            response.setFollowUpQuestion(analysis.followUpQuestion);
-            response.setStatus("needs_info");
-            return response;
-        }
+        });
         
-        // 4. 生成答案
-        log.info("Sufficient info available, generating answer");
-        String answer = generateAnswer(question, user.getDescription(), user.getSelfValue(), sessionId);
+        log.info("Saved partial QA history for user session {}", sessionId);
         
-        // 更新会话状态
-        if (session.getStatus() != SessionStatus.QA_ACTIVE) {
-            session.setStatus(SessionStatus.QA_ACTIVE);
-            sessionRepository.save(session);
-        }
+        UserQaResponse response = new UserQaResponse();
+        response.setAnswer(null);
+        response.setSessionId(sessionId);
+        response.setUserDescription(context.user().getDescription());
+        response.setNeedsMoreInfo(true);
+        response.setFollowUpQuestion(analysis.followUpQuestion);
+        response.setStatus("needs_info");
+        return response;
+    }
+    
+    /**
+     * 保存直接回答（短写事务）并构建响应
+     */
+    private UserQaResponse saveDirectAnswer(QaContext context, String question, String answer) {
+        UserConversationSession session = context.session();
+        String sessionId = session.getSessionId();
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            UserConversationSession current = reloadWithVersionCheck(session);
+            
+            // 更新会话状态
+            if (current.getStatus() != SessionStatus.QA_ACTIVE) {
+                current.setStatus(SessionStatus.QA_ACTIVE);
+                sessionRepository.save(current);
+            }
+            
+            // 保存QA历史
+            qaHistoryService.addUserQaEntry(sessionId, new QaHistoryEntry(question, answer));
+            log.info("Saved new QA entry for user session {}, question: {}", sessionId, question);
+        });
         
         UserQaResponse response = new UserQaResponse();
         response.setAnswer(answer);
         response.setSessionId(sessionId);
-        response.setUserDescription(user.getDescription());
+        response.setUserDescription(context.user().getDescription());
         response.setNeedsMoreInfo(false);
         response.setFollowUpQuestion(null);
         response.setStatus("answering");
@@ -127,12 +225,13 @@ public class UserQaServiceImpl implements UserQaService {
     }
     
     @Override
-    @Transactional
     public String generateSummary(String sessionId, Long userId) {
         log.info("Generating summary for user self-conversation session: {}", sessionId);
         
-        validateSession(sessionId, userId);
-        User user = loadUser(userId);
+        User user = readOnlyTransactionTemplate.execute(status -> {
+            validateSession(sessionId, userId);
+            return loadUser(userId);
+        });
         
         if (user.getDescription() == null || user.getDescription().trim().isEmpty()) {
             throw new BadRequestException("暂无个人信息可以生成总结");
@@ -146,13 +245,14 @@ public class UserQaServiceImpl implements UserQaService {
     }
     
     @Override
-    @Transactional
     public UserQaResponse processSupplementInfo(String sessionId, Long userId, String supplementInfo) {
         log.info("Processing supplement info for session: {}, supplementInfo: {}", sessionId, supplementInfo);
         
-        // 1. 验证会话
-        UserConversationSession session = validateSession(sessionId, userId);
-        User user = loadUser(userId);
+        // 1. 验证会话（短只读事务）
+        QaContext context = loadQaContext(sessionId, userId);
+        UserConversationSession session = context.session();
+        User user = context.user();
+        String originalDescription = user.getDescription();
         
         // 2. 从session中恢复原始问题
         String originalQuestion = session.getLastQuestion();
@@ -174,23 +274,40 @@ public class UserQaServiceImpl implements UserQaService {
         log.info("Triggered async update for user {} description with supplement info", userId);
         
         // 4. 生成答案（基于原始问题和补充信息）
-        String answer = generateAnswerWithSupplement(originalQuestion, user.getDescription(), user.getSelfValue(), sessionId, supplementInfo);
+        String answer = generateAnswerWithSupplement(originalQuestion, originalDescription, user.getSelfValue(), sessionId, supplementInfo, context);
         
         // 5. 清空lastQuestion（问题已处理完毕）
-        session.setLastQuestion(null);
-        sessionRepository.save(session);
+        transactionTemplate.executeWithoutResult(status -> {
+            UserConversationSession current = reloadWithVersionCheck(session);
+            current.setLastQuestion(null);
+            sessionRepository.save(current);
+        });
         
         // 6. 返回响应
         UserQaResponse response = new UserQaResponse();
         response.setAnswer(answer);
         response.setSessionId(sessionId);
-        response.setUserDescription(user.getDescription());  // 返回原始描述
+        response.setUserDescription(originalDescription);  // 返回原始描述
         response.setNeedsMoreInfo(false);
         response.setFollowUpQuestion(null);
         response.setStatus("answered");
         return response;
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public QaHistoryPageResponse getQaHistory(String sessionId, Long userId, int page, int size) {
+        UserConversationSession session = sessionRepository.findById(sessionId)
+            .orElseThrow(() -> new NotFoundException("会话不存在"));
+        
+        if (!session.getUserId().equals(userId)) {
+            throw new BadRequestException("无权访问此会话");
+        }
+        
+        Page<QaHistoryEntry> history = qaHistoryService.getQaHistoryPage(sessionId, page, size);
+        return new QaHistoryPageResponse(history.getContent(), history.getNumber(), history.getSize(), history.getTotalElements());
+    }
+    
     @Override
     @Transactional
     public void endSession(String sessionId, Long userId) {
@@ -226,6 +343,39 @@ public class UserQaServiceImpl implements UserQaService {
         return session;
     }
     
+    /**
+     * 在短只读事务中加载问答所需的上下文（会话、用户、历史）
+     */
+    private QaContext loadQaContext(String sessionId, Long userId) {
+        return readOnlyTransactionTemplate.execute(status -> {
+            UserConversationSession session = validateSession(sessionId, userId);
+            User user = loadUser(userId);
+            QaHistoryWindow qaHistory = qaHistoryService.getRecentQaHistory(
+                sessionId,
+                QaHistoryRecord.SESSION_TYPE_USER,
+                qaContextBuilder.historyFromSeq(session.getHistorySummary(), session.getHistorySummarySeq()),
+                qaContextBuilder.historyReadLimit()
+            );
+            return new QaContext(session, user, qaHistory);
+        });
+    }
+    
+    /**
+     * 在写事务中重新加载会话，并校验读取后会话未被其他请求修改
+     */
+    private UserConversationSession reloadWithVersionCheck(UserConversationSession snapshot) {
+        UserConversationSession current = sessionRepository.findById(snapshot.getSessionId())
+            .orElseThrow(() -> new NotFoundException("会话不存在"));
+        
+        if (!Objects.equals(current.getVersion(), snapshot.getVersion())) {
+            log.warn("User session {} was modified concurrently, expected version {}, actual {}", 
+                snapshot.getSessionId(), snapshot.getVersion(), current.getVersion());
+            throw new ConflictException(CONFLICT_MESSAGE);
+        }
+        
+        return current;
+    }
+    
     /**
      * 加载用户
      */
@@ -237,7 +387,7 @@ public class UserQaServiceImpl implements UserQaService {
     /**
      * 分析信息需求
      */
-    private AnalysisResult analyzeInfoNeeds(String question, String userDescription) {
+    private AnalysisResult analyzeInfoNeeds(String question, String userDescription, Long userId) {
         String prompt = PromptTemplates.buildUserSelfQaAnalysisPrompt(question, userDescription);
         
         // 直接调用Deepseek
@@ -251,6 +401,8 @@ public class UserQaServiceImpl implements UserQaService {
         
         // 使用 reasoner 模型进行问答
         request.setModel(deepseekProperties.getReasonerModel());
+        request.setCaller(DeepseekCaller.QA_ANALYSIS);
+        request.setUserId(userId);
         ChatCompletionResponse response = deepseekClient.chat(request).block();
         if (response == null || response.getChoices() == null || response.getChoices().isEmpty()) {
             throw new BadRequestException("AI服务暂时不可用");
@@ -282,69 +434,62 @@ public class UserQaServiceImpl implements UserQaService {
     }
     
     /**
-     * 生成答案（重载方法，无补充信息）
+     * 生成答案（原生多轮对话版本）
      */
-    private String generateAnswer(String question, String userDescription, String userSelfValue, String sessionId) {
-        return generateAnswer(question, userDescription, userSelfValue, sessionId, null);
+    private String generateAnswer(
+        String question, 
+        String userDescription, 
+        String userSelfValue, 
+        String sessionId,
+        QaContext context
+    ) {
+        ChatCompletionRequest request = buildUserQaRequest(question, userDescription, userSelfValue, sessionId, context);
+        request.setCaller(DeepseekCaller.QA_ANSWER);
+        request.setUserId(context.session().getUserId());
+        ChatCompletionResponse response = deepseekClient.chat(request).block();
+        if (response == null || response.getChoices() == null || response.getChoices().isEmpty()) {
+            throw new BadRequestException("AI服务暂时不可用");
+        }
+        
+        String answer = response.getChoices().get(0).getMessage().getContent().trim();
+        
+        return answer;
     }
     
     /**
-     * 生成答案（原生多轮对话版本）
+     * 构建自我问答请求（系统提示 + 原生多轮历史 + 当前问题），同步与流式问答共用
      */
-    private String generateAnswer(
+    private ChatCompletionRequest buildUserQaRequest(
         String question, 
         String userDescription, 
         String userSelfValue, 
         String sessionId,
-        String supplementInfo
+        QaContext context
     ) {
-        // Step 1: 构建基础系统Prompt（不包含历史对话）
-        String systemPrompt = PromptTemplates.buildBaseUserSelfQaSystemPrompt(
-            userDescription,
-            userSelfValue
-        );
-        
-        // Step 2: 构建原生多轮消息数组
+        // Step 1: 构建原生多轮消息数组
         List<ChatMessage> messages = new ArrayList<>();
         
-        // 添加系统提示
-        messages.add(new ChatMessage("system", systemPrompt));
-        
-        // Step 3: 添加历史对话（原生格式）
-        List<QaHistoryEntry> qaHistory = qaHistoryService.getUserQaHistory(sessionId);
-        for (QaHistoryEntry entry : qaHistory) {
-            // 添加用户的历史问题
-            if (entry.getQuestion() != null && !entry.getQuestion().trim().isEmpty()) {
-                messages.add(new ChatMessage("user", entry.getQuestion()));
-            }
-            
-            // 如果有补充信息流程
-            if (entry.getNeedsMoreInfo() != null && entry.getNeedsMoreInfo()) {
-                // Deepseek的补充问题
-                if (entry.getSupplementQuestion() != null) {
-                    messages.add(new ChatMessage("assistant", entry.getSupplementQuestion()));
-                }
-                // 用户的补充回答
-                if (entry.getSupplementAnswer() != null) {
-                    messages.add(new ChatMessage("user", entry.getSupplementAnswer()));
-                }
-            }
-            
-            // 添加AI的历史回答
-            if (entry.getAnswer() != null) {
-                messages.add(new ChatMessage("assistant", entry.getAnswer()));
-            }
-        }
+        // Step 2: 固定的系统提示在前（所有用户相同，可命中上下文缓存），其后是本次的用户信息
+        messages.add(new ChatMessage("system", PromptTemplates.USER_SELF_QA_SYSTEM_PROMPT));
+        messages.add(new ChatMessage("system", PromptTemplates.buildUserSelfQaContextPrompt(
+            userDescription,
+            userSelfValue
+        )));
+        
+        // Step 3: 添加历史对话（较早轮次的摘要 + 预算内的最近轮次，原生格式）
+        messages.addAll(qaContextBuilder.buildHistoryMessages(
+            QaHistoryRecord.SESSION_TYPE_USER,
+            sessionId,
+            context.session().getUserId(),
+            context.qaHistory(),
+            context.session().getHistorySummary(),
+            context.session().getHistorySummarySeq()
+        ));
         
         // Step 4: 添加当前问题
         messages.add(new ChatMessage("user", question));
         
-        // Step 5: 如果有补充信息，添加补充回答
-        if (supplementInfo != null && !supplementInfo.trim().isEmpty()) {
-            messages.add(new ChatMessage("user", supplementInfo));
-        }
-        
-        // Step 6: 调用Deepseek
+        // Step 5: 构建Deepseek请求
         ChatCompletionRequest request = new ChatCompletionRequest();
         request.setMessages(messages);
         request.setTemperature(0.7);
@@ -354,48 +499,8 @@ public class UserQaServiceImpl implements UserQaService {
         
         // 使用 reasoner 模型进行问答
         request.setModel(deepseekProperties.getReasonerModel());
-        ChatCompletionResponse response = deepseekClient.chat(request).block();
-        if (response == null || response.getChoices() == null || response.getChoices().isEmpty()) {
-            throw new BadRequestException("AI服务暂时不可用");
-        }
-        
-        String answer = response.getChoices().get(0).getMessage().getContent().trim();
-        
-        // Step 7: 保存或更新QA历史
-        if (supplementInfo != null && !supplementInfo.trim().isEmpty()) {
-            // 有补充信息的情况 - 更新最后一条历史记录
-            List<QaHistoryEntry> history = qaHistoryService.getUserQaHistory(sessionId);
-            if (!history.isEmpty()) {
-                QaHistoryEntry lastEntry = history.get(history.size() - 1);
-                // 更新补充回答和最终答案
-                lastEntry.setSupplementAnswer(supplementInfo);
-                lastEntry.setAnswer(answer);
-                qaHistoryService.updateLastUserQaEntry(sessionId, lastEntry);
-                
-                log.info("Updated last QA entry with supplement for user session {}, question: {}", 
-                    sessionId, question);
-            } else {
-                // 如果历史为空（异常情况），创建新记录
-                log.warn("No history found when processing supplement, creating new entry for user session {}", 
-                    sessionId);
-                QaHistoryEntry qaEntry = new QaHistoryEntry(
-                    question,
-                    answer,
-                    "（系统请求补充信息）",
-                    supplementInfo,
-                    true
-                );
-                qaHistoryService.addUserQaEntry(sessionId, qaEntry);
-            }
-        } else {
-            // 直接回答的情况 - 添加新记录
-            QaHistoryEntry qaEntry = new QaHistoryEntry(question, answer);
-            qaHistoryService.addUserQaEntry(sessionId, qaEntry);
-            
-            log.info("Saved new QA entry for user session {}, question: {}", sessionId, question);
-        }
         
-        return answer;
+        return request;
     }
     
     /**
@@ -434,7 +539,10 @@ public class UserQaServiceImpl implements UserQaService {
                 new ChatMessage("user", prompt)
             ));
             request.setTemperature(0.3); // 较低温度，保证稳定性
+            request.setTrafficClass(DeepseekTrafficClass.BACKGROUND);
             
+            request.setCaller(DeepseekCaller.DESCRIPTION_MERGE);
+            request.setUserId(user.getId());
             ChatCompletionResponse response = deepseekClient.chat(request).block();
             if (response == null || response.getChoices() == null || response.getChoices().isEmpty()) {
                 log.error("AI service unavailable for async user description update");
@@ -443,13 +551,16 @@ public class UserQaServiceImpl implements UserQaService {
             
             String updatedDescription = response.getChoices().get(0).getMessage().getContent().trim();
             
-            // 更新用户描述
-            user.setDescription(updatedDescription);
-            userRepository.save(user);
-            
-            // 🔥 发布事件：触发 self value 重新计算（基于更新后的description）
-            log.debug("Publishing UserDescriptionUpdatedEvent for user {}", user.getId());
-            eventPublisher.publishEvent(new UserDescriptionUpdatedEvent(user.getId(), updatedDescription));
+            // 更新用户描述（短写事务，重新加载避免覆盖并发修改）
+            transactionTemplate.executeWithoutResult(status -> {
+                User current = loadUser(user.getId());
+                current.setDescription(updatedDescription);
+                userRepository.save(current);
+                
+                // 🔥 发布事件：触发 self value 重新计算（基于更新后的description）
+                log.debug("Publishing UserDescriptionUpdatedEvent for user {}", user.getId());
+                eventPublisher.publishEvent(new UserDescriptionUpdatedEvent(user.getId(), updatedDescription));
+            });
             
             log.info("Async updated user {} description with supplement info, original length: {}, new length: {}", 
                 user.getId(),
@@ -468,45 +579,28 @@ public class UserQaServiceImpl implements UserQaService {
         String userDescription,
         String userSelfValue,
         String sessionId,
-        String supplementInfo
+        String supplementInfo,
+        QaContext context
     ) {
-        // Step 1: 构建基础系统Prompt（不包含历史对话）
-        String systemPrompt = PromptTemplates.buildBaseUserSelfQaSystemPrompt(
-            userDescription,
-            userSelfValue
-        );
-        
-        // Step 2: 构建原生多轮消息数组
+        // Step 1: 构建原生多轮消息数组
         List<ChatMessage> messages = new ArrayList<>();
         
-        // 添加系统提示
-        messages.add(new ChatMessage("system", systemPrompt));
-        
-        // Step 3: 添加历史对话（原生格式）
-        List<QaHistoryEntry> qaHistory = qaHistoryService.getUserQaHistory(sessionId);
-        for (QaHistoryEntry entry : qaHistory) {
-            // 添加用户的历史问题
-            if (entry.getQuestion() != null && !entry.getQuestion().trim().isEmpty()) {
-                messages.add(new ChatMessage("user", entry.getQuestion()));
-            }
-            
-            // 如果有补充信息流程
-            if (entry.getNeedsMoreInfo() != null && entry.getNeedsMoreInfo()) {
-                // Deepseek的补充问题
-                if (entry.getSupplementQuestion() != null) {
-                    messages.add(new ChatMessage("assistant", entry.getSupplementQuestion()));
-                }
-                // 用户的补充回答
-                if (entry.getSupplementAnswer() != null) {
-                    messages.add(new ChatMessage("user", entry.getSupplementAnswer()));
-                }
-            }
-            
-            // 添加AI的历史回答
-            if (entry.getAnswer() != null) {
-                messages.add(new ChatMessage("assistant", entry.getAnswer()));
-            }
-        }
+        // Step 2: 固定的系统提示在前（所有用户相同，可命中上下文缓存），其后是本次的用户信息
+        messages.add(new ChatMessage("system", PromptTemplates.USER_SELF_QA_SYSTEM_PROMPT));
+        messages.add(new ChatMessage("system", PromptTemplates.buildUserSelfQaContextPrompt(
+            userDescription,
+            userSelfValue
+        )));
+        
+        // Step 3: 添加历史对话（较早轮次的摘要 + 预算内的最近轮次，原生格式）
+        messages.addAll(qaContextBuilder.buildHistoryMessages(
+            QaHistoryRecord.SESSION_TYPE_USER,
+            sessionId,
+            context.session().getUserId(),
+            context.qaHistory(),
+            context.session().getHistorySummary(),
+            context.session().getHistorySummarySeq()
+        ));
         
         // Step 4: 添加当前问题
         messages.add(new ChatMessage("user", question));
@@ -525,6 +619,8 @@ public class UserQaServiceImpl implements UserQaService {
         log.info("Calling Deepseek with {} messages for user session {} (with supplement)", 
             messages.size(), sessionId);
         
+        request.setCaller(DeepseekCaller.QA_ANSWER);
+        request.setUserId(context.session().getUserId());
         ChatCompletionResponse response = deepseekClient.chat(request).block();
         if (response == null || response.getChoices() == null || response.getChoices().isEmpty()) {
             throw new BadRequestException("AI服务暂时不可用");
@@ -535,6 +631,16 @@ public class UserQaServiceImpl implements UserQaService {
         return answer;
     }
     
+    /**
+     * 问答上下文：在只读事务中加载，LLM调用阶段使用的分离快照
+     */
+    private record QaContext(
+        UserConversationSession session,
+        User user,
+        QaHistoryWindow qaHistory
+    ) {
+    }
+    
     /**
      * 分析结果内部类
      */
@@ -0,0 +1,115 @@
+package com.ulog.backend.conversation.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 字符n-gram（单字 + 带首尾标记的二元组）多分类逻辑回归
+ * 训练样本只有几百条短句，启动时在内存中按固定顺序训练（结果确定）；
+ * 预测只对命中的特征做一次稀疏点积和softmax，未见过的特征忽略
+ */
+public final class CharNgramIntentModel {
+
+    private final List<String> labels;
+    private final Map<String, double[]> weights;
+    private final double[] bias;
+
+    private CharNgramIntentModel(List<String> labels, Map<String, double[]> weights, double[] bias) {
+        this.labels = labels;
+        this.weights = weights;
+        this.bias = bias;
+    }
+
+    /**
+     * 随机梯度下降训练；L2正则只作用于当前样本命中的特征
+     */
+    public static CharNgramIntentModel train(List<Example> examples, int epochs, double learningRate, double l2) {
+        Set<String> labelSet = new LinkedHashSet<>();
+        examples.forEach(example -> labelSet.add(example.label()));
+        List<String> labels = List.copyOf(labelSet);
+
+        Map<String, double[]> weights = new HashMap<>();
+        double[] bias = new double[labels.size()];
+        CharNgramIntentModel model = new CharNgramIntentModel(labels, weights, bias);
+
+        List<List<String>> features = new ArrayList<>(examples.size());
+        for (Example example : examples) {
+            List<String> exampleFeatures = features(example.text());
+            exampleFeatures.forEach(feature -> weights.computeIfAbsent(feature, key -> new double[labels.size()]));
+            features.add(exampleFeatures);
+        }
+
+        for (int epoch = 0; epoch < epochs; epoch++) {
+            for (int i = 0; i < examples.size(); i++) {
+                double[] probabilities = model.probabilities(features.get(i));
+                int target = labels.indexOf(examples.get(i).label());
+                for (int k = 0; k < labels.size(); k++) {
+                    double gradient = probabilities[k] - (k == target ? 1.0 : 0.0);
+                    bias[k] -= learningRate * gradient;
+                    for (String feature : features.get(i)) {
+                        double[] w = weights.get(feature);
+                        w[k] -= learningRate * (gradient + l2 * w[k]);
+                    }
+                }
+            }
+        }
+        return model;
+    }
+
+    public Prediction predict(String text) {
+        double[] probabilities = probabilities(features(text));
+        int best = 0;
+        for (int k = 1; k < probabilities.length; k++) {
+            if (probabilities[k] > probabilities[best]) {
+                best = k;
+            }
+        }
+        return new Prediction(labels.get(best), probabilities[best]);
+    }
+
+    private double[] probabilities(List<String> features) {
+        double[] scores = bias.clone();
+        for (String feature : features) {
+            double[] w = weights.get(feature);
+            if (w != null) {
+                for (int k = 0; k < scores.length; k++) {
+                    scores[k] += w[k];
+                }
+            }
+        }
+        double max = Double.NEGATIVE_INFINITY;
+        for (double score : scores) {
+            max = Math.max(max, score);
+        }
+        double sum = 0;
+        for (int k = 0; k < scores.length; k++) {
+            scores[k] = Math.exp(scores[k] - max);
+            sum += scores[k];
+        }
+        for (int k = 0; k < scores.length; k++) {
+            scores[k] /= sum;
+        }
+        return scores;
+    }
+
+    static List<String> features(String text) {
+        List<String> features = new ArrayList<>();
+        text.codePoints().forEach(cp -> features.add(new String(Character.toChars(cp))));
+        String padded = "^" + text + "$";
+        int[] codePoints = padded.codePoints().toArray();
+        for (int i = 0; i + 1 < codePoints.length; i++) {
+            features.add(new String(codePoints, i, 2));
+        }
+        return features;
+    }
+
+    public record Example(String label, String text) {
+    }
+
+    public record Prediction(String label, double confidence) {
+    }
+}
@@ -4,6 +4,11 @@ import com.ulog.backend.conversation.dto.QuestionModule;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * 提示词模板
+ * 组织方式：固定的角色和指令在前，对所有用户逐字节相同，可以命中DeepSeek的上下文缓存（按前缀匹配）；
+ * 其后依次是联系人/用户信息、历史对话、当前问题
+ */
 public class PromptTemplates {
     
     // 系统角色定义
@@ -29,6 +34,222 @@ public class PromptTemplates {
         - 如果某个信息已经知道了，不要重复问
         """;
     
+    // 自我价值评分各维度的含义（问答系统提示共用）
+    private static final String SELF_VALUE_SCALE = """
+        【自我价值评分说明】1-5分，5分为最高
+        - 自尊：自我价值感和自我尊重程度
+        - 自我接纳：接受自己优缺点的程度
+        - 自我效能：对自己能力的信心程度
+        - 存在价值感：对生命意义和价值的感知
+        - 自我一致性：内在价值观与行为的一致性
+        """;
+    
+    /**
+     * 联系人问答的系统提示：对所有用户逐字节相同，作为第一条消息，可以命中DeepSeek的上下文缓存
+     * 双方信息由 buildContactQaContextPrompt 生成，作为紧随其后的第二条系统消息，然后是历史对话和当前问题
+     */
+    public static final String CONTACT_QA_SYSTEM_PROMPT = """
+        【任务】你是一个专业的关系分析助手，帮助用户更好地理解Ta与联系人的关系。
+        
+        【回答要求】
+        1. 结合双方描述和自我价值评分进行深度分析
+        2. 基于对话历史提供连贯的回答
+        3. 理解上下文中的指代（"他"、"那"、"这个"等）
+        4. 提供基于数据的专业洞察
+        5. 保持客观和专业
+        6. 如果信息不足，诚实说明
+        
+        """ + SELF_VALUE_SCALE + """
+        
+        注意：你可以看到完整的对话历史，请充分利用上下文信息提供连贯的回答。
+        """;
+    
+    /**
+     * 用户自我问答的系统提示（所有用户相同），用户信息由 buildUserSelfQaContextPrompt 生成
+     */
+    public static final String USER_SELF_QA_SYSTEM_PROMPT = """
+        【任务】你是一个专业的个人分析助手，帮助用户更好地了解自己。
+        
+        【回答要求】
+        1. 结合用户描述和自我价值评分进行深度分析
+        2. 基于对话历史提供连贯的回答
+        3. 理解上下文中的指代
+        4. 提供基于数据的专业洞察
+        5. 保持客观和专业
+        6. 如果信息不足，诚实说明
+        
+        """ + SELF_VALUE_SCALE + """
+        
+        注意：你可以看到完整的对话历史，请充分利用上下文信息提供连贯的回答。
+        """;
+    
+    /**
+     * 智能提取的固定指令：对所有用户逐字节相同，放在提示词开头，可以命中DeepSeek的上下文缓存
+     */
+    private static final String INTELLIGENT_EXTRACTION_INSTRUCTIONS = """
+        【任务】
+        请结合最后给出的【上下文】分析【用户回答】，并以纯JSON格式返回（不要使用markdown代码块）：
+        
+        {
+            "intent": "answer|correction|supplement|skip|want_to_end|confirm_end|continue",
+            "updates": {
+                // 需要更新/新增的所有信息（键值对）
+                // 例如：{"age": "30岁", "occupation": "产品经理", "relationship": "同事"}
+            },
+            "shouldContinueCurrentQuestion": false,
+            "wantsToEnd": false,
+            "endConfidence": "weak|medium|strong",
+            "hasMinimumInfo": true,
+            "reasoning": "简短说明你的判断理由"
+        }
+        
+        【重要规则】
+        1. intent判断：
+           - answer: 正常回答当前问题
+           - correction: 修正之前的信息（"不对"、"错了"、"应该是"）
+           - supplement: 补充之前的信息
+           - skip: 跳过当前问题（"不知道"、"不清楚"）
+           - want_to_end: 想结束（"差不多了"、"就这些"、"不想回答了"、"结束问卷"、"问卷结束"、"结束"、"完成"、"没有"、"不知道"、"够了"、"不想继续"）
+           - confirm_end: 确认结束（在CONFIRMING_END状态下回复"是"、"好"）
+           - continue: 继续（在CONFIRMING_END状态下回复"继续"、"再想想"）
+        
+        2. wantsToEnd和endConfidence：
+           - weak: 单次"不知道" → 可能只是跳过
+           - medium: "差不多了"、"就这些"、"结束问卷"、"问卷结束"、"没有" → 可能想结束
+           - strong: "不想回答了"、"够了"、"结束"、"完成"、"不想继续" → 明确想结束
+        
+        3. hasMinimumInfo判断：
+           - 必须有：name（联系人姓名）
+           - 至少有2条其他信息（age/occupation/relationship/interaction等）
+        
+        4. updates提取：
+           - 提取所有提到的信息，即使不是当前维度
+           - 如果是修正，覆盖原值
+           - 键名用英文，值保持用户原话
+           - 严格按照以下框架提取，只提取用户实际提供的信息，不要推测或编造：
+             
+             【系统1: 基本画像系统】
+             * age: 年龄信息（岁、年龄、多大、年纪）
+             * occupation: 职业信息（职业、工作、从事）
+             * education: 教育背景（教育、学历、毕业、学校）
+             * city: 地理位置（城市、在、住、位置）
+             * work_type: 工作类型
+             * industry_status: 行业地位
+             * identity_tag: 身份标签（上班族、自由职业者、学生等）
+             * daily_routine: 作息规律
+             * exercise_frequency: 运动频率
+             * eating_habits: 饮食习惯
+             * leisure_hobby: 休闲爱好
+             * social_frequency: 社交频率
+             * social_activity_preference: 社交偏好
+             * personality_characteristics: 性格特点
+             * mbti_type: MBTI类型
+             
+             【系统2: 心理与人格系统】
+             * core_values: 核心价值观
+             * motivation_drivers: 动机驱动
+             * emotional_stability: 情绪稳定性
+             * empathy_level: 共情能力
+             * decision_making_style: 决策风格
+             * thinking_preference: 思维偏好
+             
+             【系统3: 关系体验系统】
+             * relationship: 关系信息（同事、朋友、同学等）
+             * interaction: 互动方式（工作配合、讨论等）
+             * meeting_frequency: 见面频率
+             * chat_frequency: 聊天频率
+             * interaction_energy: 互动能量
+             * emotional_support_level: 情感支持
+             * trust_level: 信任水平
+             * information_transparency: 信息透明度
+             * emotional_value: 情感价值
+             * information_value: 信息价值
+             * social_resource_value: 社交资源价值
+             * companionship_value: 陪伴价值
+             * privacy_respect: 隐私尊重
+             * balance_giving: 平衡给予
+             * relationship_archetype: 关系类型
+             * role_dynamics: 角色动态
+             
+             【系统4: 时间与发展系统】
+             * acquaintance_channel: 认识渠道
+             * first_meeting_context: 初次见面背景
+             * years_known: 认识年限
+             * relationship_development_stage: 关系发展阶段
+             * relationship_trend: 关系趋势
+             * closeness_level: 亲密程度
+             * shared_experiences: 共同经历
+             * conflicts: 冲突
+             * cooperation_events: 合作事件
+             * development_potential: 发展潜力
+             * relationship_sustainability: 关系可持续性
+             
+             【系统5: 价值与意义系统】
+             * role_tags: 角色标签
+             * identity_in_my_life: 在我生活中的身份
+             * companionship: 陪伴
+             * reflection: 反思
+             * resource_exchange: 资源交换
+             * co_creation: 共创
+             * entertainment: 娱乐
+             * enhancement_feeling: 提升感
+             * pressure_feeling: 压力感
+             * mirror_self: 镜像自我
+             * security_feeling: 安全感
+             * core_circle_position: 核心圈位置
+             * social_network_role: 社交网络角色
+             * time_investment: 时间投入
+             * emotional_investment: 情感投入
+             * return_balance: 回报平衡
+        
+        【重要格式要求】
+        - 只返回纯JSON格式，不要使用markdown代码块
+        - 不要包含```json```、```等markdown标记
+        - 不要添加任何解释文字
+        - 直接返回JSON对象，从{开始到}结束
+        
+        只返回JSON，不要其他内容。
+        
+        """;
+    
+    /**
+     * 关系分析的固定指令（双方信息在其后）
+     */
+    private static final String RELATIONSHIP_ANALYSIS_INSTRUCTIONS = """
+        【任务】你是关系分析专家，请基于最后给出的双方信息分析两人关系的现状，从7个科学维度进行深度分析。
+        
+        【分析要求】
+        请从以下7个维度进行专业分析，每个维度包含：当前状态评估、具体表现分析：
+        
+        ### 1. 沟通开放性 (Communication Openness)
+        - 评估：双方是否能表达真实想法、是否倾听对方、不防御、可讨论敏感话题
+        
+        ### 2. 情感亲密度 (Emotional Intimacy)
+        - 评估：主动分享情绪、脆弱自我披露、情绪靠近、共情回应程度
+        
+        ### 3. 冲突建设性 (Constructive Conflict)
+        - 评估：冲突时语气控制、是否攻击、是否能和解、负面情绪恢复速度
+        
+        ### 4. 信任可靠性 (Trust Reliability)
+        - 评估：承诺兑现率、透明度、隐瞒/欺骗倾向、诚实反馈
+        
+        ### 5. 目标一致性 (Goal Alignment)
+        - 评估：价值观/目标重叠度、未来规划协同度、冲突议题一致化
+        
+        ### 6. 空间平衡性 (Space Balance)
+        - 评估：是否能自由支配时间、不过度依赖、边界被尊重程度
+        
+        ### 7. 支持有效性 (Support Effectiveness)
+        - 评估：提供的帮助是否满足需求、回应及时性、情感安抚质量
+        
+        【输出要求】
+        - 每个维度单独成段，用###标记
+        - 包含状态评估和具体表现分析
+        - 语言专业但易懂
+        - 控制在800-1200字
+        
+        """;
+    
     /**
      * 生成第一个问题（开篇介绍）- 现在直接返回固定文本
      */
@@ -53,15 +274,6 @@ public class PromptTemplates {
         String lastUserMessage
     ) {
         return String.format("""
-            当前任务：收集关于"%s"的信息
-            
-            当前维度：%s
-            已完成维度：%s
-            已收集信息：
-            %s
-            
-            用户上一次回答：%s
-            
             【专业框架收集要求】
             请严格按照以下5个系统进行信息收集：
             
@@ -78,6 +290,15 @@ public class PromptTemplates {
             - 严格按照专业框架的要素进行提问
             - 只返回问题本身，不要其他内容
             
+            当前任务：收集关于"%s"的信息
+            
+            当前维度：%s
+            已完成维度：%s
+            已收集信息：
+            %s
+            
+            用户上一次回答：%s
+            
             【当前维度重点】
             请针对当前维度"%s"生成一个具体的问题，确保能收集到该维度的关键信息。
             """,
@@ -99,7 +320,7 @@ public class PromptTemplates {
         Map<String, Object> collectedData,
         String lastQuestion
     ) {
-        return String.format("""
+        return INTELLIGENT_EXTRACTION_INSTRUCTIONS + String.format("""
             【上下文】
             当前问题：%s
             当前维度：%s
@@ -108,129 +329,6 @@ public class PromptTemplates {
             
             【用户回答】
             "%s"
-            
-            【任务】
-            请分析用户的回答，并以纯JSON格式返回（不要使用markdown代码块）：
-            
-            {
-                "intent": "answer|correction|supplement|skip|want_to_end|confirm_end|continue",
-                "updates": {
-                    // 需要更新/新增的所有信息（键值对）
-                    // 例如：{"age": "30岁", "occupation": "产品经理", "relationship": "同事"}
-                },
-                "shouldContinueCurrentQuestion": false,
-                "wantsToEnd": false,
-                "endConfidence": "weak|medium|strong",
-                "hasMinimumInfo": true,
-                "reasoning": "简短说明你的判断理由"
-            }
-            
-            【重要规则】
-            1. intent判断：
-               - answer: 正常回答当前问题
-               - correction: 修正之前的信息（"不对"、"错了"、"应该是"）
-               - supplement: 补充之前的信息
-               - skip: 跳过当前问题（"不知道"、"不清楚"）
-               - want_to_end: 想结束（"差不多了"、"就这些"、"不想回答了"、"结束问卷"、"问卷结束"、"结束"、"完成"、"没有"、"不知道"、"够了"、"不想继续"）
-               - confirm_end: 确认结束（在CONFIRMING_END状态下回复"是"、"好"）
-               - continue: 继续（在CONFIRMING_END状态下回复"继续"、"再想想"）
-            
-            2. wantsToEnd和endConfidence：
-               - weak: 单次"不知道" → 可能只是跳过
-               - medium: "差不多了"、"就这些"、"结束问卷"、"问卷结束"、"没有" → 可能想结束
-               - strong: "不想回答了"、"够了"、"结束"、"完成"、"不想继续" → 明确想结束
-            
-            3. hasMinimumInfo判断：
-               - 必须有：name（联系人姓名）
-               - 至少有2条其他信息（age/occupation/relationship/interaction等）
-            
-            4. updates提取：
-               - 提取所有提到的信息，即使不是当前维度
-               - 如果是修正，覆盖原值
-               - 键名用英文，值保持用户原话
-               - 严格按照以下框架提取，只提取用户实际提供的信息，不要推测或编造：
-                 
-                 【系统1: 基本画像系统】
-                 * age: 年龄信息（岁、年龄、多大、年纪）
-                 * occupation: 职业信息（职业、工作、从事）
-                 * education: 教育背景（教育、学历、毕业、学校）
-                 * city: 地理位置（城市、在、住、位置）
-                 * work_type: 工作类型
-                 * industry_status: 行业地位
-                 * identity_tag: 身份标签（上班族、自由职业者、学生等）
-                 * daily_routine: 作息规律
-                 * exercise_frequency: 运动频率
-                 * eating_habits: 饮食习惯
-                 * leisure_hobby: 休闲爱好
-                 * social_frequency: 社交频率
-                 * social_activity_preference: 社交偏好
-                 * personality_characteristics: 性格特点
-                 * mbti_type: MBTI类型
-                 
-                 【系统2: 心理与人格系统】
-                 * core_values: 核心价值观
-                 * motivation_drivers: 动机驱动
-                 * emotional_stability: 情绪稳定性
-                 * empathy_level: 共情能力
-                 * decision_making_style: 决策风格
-                 * thinking_preference: 思维偏好
-                 
-                 【系统3: 关系体验系统】
-                 * relationship: 关系信息（同事、朋友、同学等）
-                 * interaction: 互动方式（工作配合、讨论等）
-                 * meeting_frequency: 见面频率
-                 * chat_frequency: 聊天频率
-                 * interaction_energy: 互动能量
-                 * emotional_support_level: 情感支持
-                 * trust_level: 信任水平
-                 * information_transparency: 信息透明度
-                 * emotional_value: 情感价值
-                 * information_value: 信息价值
-                 * social_resource_value: 社交资源价值
-                 * companionship_value: 陪伴价值
-                 * privacy_respect: 隐私尊重
-                 * balance_giving: 平衡给予
-                 * relationship_archetype: 关系类型
-                 * role_dynamics: 角色动态
-                 
-                 【系统4: 时间与发展系统】
-                 * acquaintance_channel: 认识渠道
-                 * first_meeting_context: 初次见面背景
-                 * years_known: 认识年限
-                 * relationship_development_stage: 关系发展阶段
-                 * relationship_trend: 关系趋势
-                 * closeness_level: 亲密程度
-                 * shared_experiences: 共同经历
-                 * conflicts: 冲突
-                 * cooperation_events: 合作事件
-                 * development_potential: 发展潜力
-                 * relationship_sustainability: 关系可持续性
-                 
-                 【系统5: 价值与意义系统】
-                 * role_tags: 角色标签
-                 * identity_in_my_life: 在我生活中的身份
-                 * companionship: 陪伴
-                 * reflection: 反思
-                 * resource_exchange: 资源交换
-                 * co_creation: 共创
-                 * entertainment: 娱乐
-                 * enhancement_feeling: 提升感
-                 * pressure_feeling: 压力感
-                 * mirror_self: 镜像自我
-                 * security_feeling: 安全感
-                 * core_circle_position: 核心圈位置
-                 * social_network_role: 社交网络角色
-                 * time_investment: 时间投入
-                 * emotional_investment: 情感投入
-                 * return_balance: 回报平衡
-            
-            【重要格式要求】
-            - 只返回纯JSON格式，不要使用markdown代码块
-            - 不要包含```json```、```等markdown标记
-            - 不要添加任何解释文字
-            - 直接返回JSON对象，从{开始到}结束
-            
-            只返回JSON，不要其他内容。
             """,
             lastQuestion,
             currentDimension,
@@ -247,11 +345,7 @@ public class PromptTemplates {
         Map<String, Object> collectedData
     ) {
         return String.format("""
-            请将以下收集到的信息，整理成一段自然、流畅的描述。
-            
-            联系人姓名：%s
-            收集的信息：
-            %s
+            请将最后给出的收集到的信息，整理成一段自然、流畅的描述。
             
             【严格要求】
             1. 只能使用用户实际提供的信息，严禁推测、编造或添加任何用户没有提供的内容
@@ -271,6 +365,10 @@ public class PromptTemplates {
             - 禁止任何形式的推测、编造或美化
             
             只返回描述文本，不要其他内容。
+            
+            联系人姓名：%s
+            收集的信息：
+            %s
             """,
             contactName,
             formatCollectedData(collectedData)
@@ -315,7 +413,7 @@ public class PromptTemplates {
     
     /**
      * QA模式：回答关于联系人的问题
-     * @deprecated 使用 buildBaseContactQaSystemPrompt + 原生messages数组代替
+     * @deprecated 使用 CONTACT_QA_SYSTEM_PROMPT + buildContactQaContextPrompt + 原生messages数组代替
      */
     @Deprecated
     public static String buildQaSystemPrompt(
@@ -399,12 +497,6 @@ public class PromptTemplates {
         return String.format("""
             【任务】分析用户问题，判断是否需要补充信息
             
-            【用户问题】%s
-            
-            【联系人描述】%s
-            
-            【用户描述】%s
-            
             【分析要求】
             1. 判断问题是否涉及用户与联系人的关系
             2. 分析现有信息是否足够回答问题
@@ -425,7 +517,13 @@ public class PromptTemplates {
             - 直接返回JSON对象，从{开始到}结束
             
             只返回JSON，不要其他内容。
-            """, question, contactDesc, userDesc);
+            
+            【联系人描述】%s
+            
+            【用户描述】%s
+            
+            【用户问题】%s
+            """, contactDesc, userDesc, question);
     }
     
     /**
@@ -454,103 +552,51 @@ public class PromptTemplates {
     }
     
     /**
-     * 构建基础的联系人QA系统Prompt（不包含历史对话）
-     * 历史对话通过messages数组的原生格式传递
+     * 构建联系人问答的双方信息，作为 CONTACT_QA_SYSTEM_PROMPT 之后的第二条系统消息
+     * 历史对话和当前问题通过messages数组的原生格式跟在其后
      */
-    public static String buildBaseContactQaSystemPrompt(
+    public static String buildContactQaContextPrompt(
         String contactDesc, 
         String contactSelfValue,
         String userDesc, 
         String userSelfValue
     ) {
         return String.format("""
-            【任务】你是一个专业的关系分析助手，帮助用户更好地理解Ta与联系人的关系。
-            
             【联系人信息】
             描述：%s
-            自我价值评分（1-5分，5分为最高）：
-            - 自尊：%s/5.0 (自我价值感和自我尊重程度)
-            - 自我接纳：%s/5.0 (接受自己优缺点的程度)
-            - 自我效能：%s/5.0 (对自己能力的信心程度)
-            - 存在价值感：%s/5.0 (对生命意义和价值的感知)
-            - 自我一致性：%s/5.0 (内在价值观与行为的一致性)
+            %s
             
             【用户信息】
             描述：%s
-            自我价值评分（1-5分，5分为最高）：
-            - 自尊：%s/5.0 (自我价值感和自我尊重程度)
-            - 自我接纳：%s/5.0 (接受自己优缺点的程度)
-            - 自我效能：%s/5.0 (对自己能力的信心程度)
-            - 存在价值感：%s/5.0 (对生命意义和价值的感知)
-            - 自我一致性：%s/5.0 (内在价值观与行为的一致性)
-            
-            【回答要求】
-            1. 结合双方描述和自我价值评分进行深度分析
-            2. 基于对话历史提供连贯的回答
-            3. 理解上下文中的指代（"他"、"那"、"这个"等）
-            4. 提供基于数据的专业洞察
-            5. 保持客观和专业
-            6. 如果信息不足，诚实说明
-            
-            注意：你可以看到完整的对话历史，请充分利用上下文信息提供连贯的回答。
+            %s
             """, 
             contactDesc, 
-            parseSelfValueForPrompt(contactSelfValue, 0),
-            parseSelfValueForPrompt(contactSelfValue, 1),
-            parseSelfValueForPrompt(contactSelfValue, 2),
-            parseSelfValueForPrompt(contactSelfValue, 3),
-            parseSelfValueForPrompt(contactSelfValue, 4),
+            formatSelfValueScores(contactSelfValue),
             userDesc,
-            parseSelfValueForPrompt(userSelfValue, 0),
-            parseSelfValueForPrompt(userSelfValue, 1),
-            parseSelfValueForPrompt(userSelfValue, 2),
-            parseSelfValueForPrompt(userSelfValue, 3),
-            parseSelfValueForPrompt(userSelfValue, 4)
+            formatSelfValueScores(userSelfValue)
         );
     }
     
     /**
-     * 构建基础的用户自我QA系统Prompt（不包含历史对话）
-     * 历史对话通过messages数组的原生格式传递
+     * 构建用户自我问答的用户信息，作为 USER_SELF_QA_SYSTEM_PROMPT 之后的第二条系统消息
      */
-    public static String buildBaseUserSelfQaSystemPrompt(
+    public static String buildUserSelfQaContextPrompt(
         String userDesc,
         String userSelfValue
     ) {
         return String.format("""
-            【任务】你是一个专业的个人分析助手，帮助用户更好地了解自己。
-            
             【用户自我信息】
             描述：%s
-            自我价值评分（1-5分，5分为最高）：
-            - 自尊：%s/5.0 (自我价值感和自我尊重程度)
-            - 自我接纳：%s/5.0 (接受自己优缺点的程度)
-            - 自我效能：%s/5.0 (对自己能力的信心程度)
-            - 存在价值感：%s/5.0 (对生命意义和价值的感知)
-            - 自我一致性：%s/5.0 (内在价值观与行为的一致性)
-            
-            【回答要求】
-            1. 结合用户描述和自我价值评分进行深度分析
-            2. 基于对话历史提供连贯的回答
-            3. 理解上下文中的指代
-            4. 提供基于数据的专业洞察
-            5. 保持客观和专业
-            6. 如果信息不足，诚实说明
-            
-            注意：你可以看到完整的对话历史，请充分利用上下文信息提供连贯的回答。
+            %s
             """,
             userDesc,
-            parseSelfValueForPrompt(userSelfValue, 0),
-            parseSelfValueForPrompt(userSelfValue, 1),
-            parseSelfValueForPrompt(userSelfValue, 2),
-            parseSelfValueForPrompt(userSelfValue, 3),
-            parseSelfValueForPrompt(userSelfValue, 4)
+            formatSelfValueScores(userSelfValue)
         );
     }
     
     /**
      * 构建增强的联系人QA回答Prompt（包含self_value和qa_history）
-     * @deprecated 使用buildBaseContactQaSystemPrompt + 原生messages数组代替
+     * @deprecated 使用 CONTACT_QA_SYSTEM_PROMPT + buildContactQaContextPrompt + 原生messages数组代替
      */
     @Deprecated
     public static String buildEnhancedContactQaPrompt(
@@ -615,7 +661,7 @@ public class PromptTemplates {
     
     /**
      * 构建增强的用户自我QA回答Prompt（包含self_value和qa_history）
-     * @deprecated 使用 buildBaseUserSelfQaSystemPrompt + 原生messages数组代替
+     * @deprecated 使用 USER_SELF_QA_SYSTEM_PROMPT + buildUserSelfQaContextPrompt + 原生messages数组代替
      */
     @Deprecated
     public static String buildEnhancedUserSelfQaPrompt(
@@ -661,6 +707,18 @@ public class PromptTemplates {
         );
     }
     
+    /**
+     * 格式化self_value评分（5个维度，每行一个）
+     */
+    private static String formatSelfValueScores(String selfValueStr) {
+        return "自我价值评分（1-5分，5分为最高）：\n"
+            + "- 自尊：" + parseSelfValueForPrompt(selfValueStr, 0) + "/5.0\n"
+            + "- 自我接纳：" + parseSelfValueForPrompt(selfValueStr, 1) + "/5.0\n"
+            + "- 自我效能：" + parseSelfValueForPrompt(selfValueStr, 2) + "/5.0\n"
+            + "- 存在价值感：" + parseSelfValueForPrompt(selfValueStr, 3) + "/5.0\n"
+            + "- 自我一致性：" + parseSelfValueForPrompt(selfValueStr, 4) + "/5.0";
+    }
+    
     /**
      * 解析self_value字符串，获取指定索引的值用于Prompt
      */
@@ -686,7 +744,7 @@ public class PromptTemplates {
     public static String buildSelfValueEvaluationPrompt(String description) {
         StringBuilder prompt = new StringBuilder();
         
-        prompt.append("你是心理评估专家，请根据以下描述信息评估该人的自我价值水平，从5个维度进行评分（1.0-5.0分）：\n\n");
+        prompt.append("你是心理评估专家，请根据最后给出的描述信息评估该人的自我价值水平，从5个维度进行评分（1.0-5.0分）：\n\n");
         
         prompt.append("评估维度：\n");
         prompt.append("1. 自尊水平 (selfEsteem): 自信程度、自我肯定、自我价值感\n");
@@ -695,10 +753,6 @@ public class PromptTemplates {
         prompt.append("4. 存在价值感 (existentialValue): 生命意义感、人生目标感\n");
         prompt.append("5. 自我一致性 (selfConsistency): 言行一致性、内外统一性\n\n");
         
-        prompt.append("描述信息：\n");
-        prompt.append(description != null && !description.trim().isEmpty() ? description : "（暂无描述信息）");
-        prompt.append("\n\n");
-        
         prompt.append("请返回JSON格式：\n");
         prompt.append("{\n");
         prompt.append("  \"selfEsteem\": 3.5,\n");
@@ -718,7 +772,11 @@ public class PromptTemplates {
         prompt.append("- 根据描述中的语言表达、行为模式、情感态度来判断\n");
         prompt.append("- 如果信息不足以判断某个维度，返回默认值3.0\n");
         prompt.append("- 评分要客观、合理，基于描述内容而非主观臆测\n");
-        prompt.append("- 只返回JSON，不要其他解释\n");
+        prompt.append("- 只返回JSON，不要其他解释\n\n");
+        
+        prompt.append("描述信息：\n");
+        prompt.append(description != null && !description.trim().isEmpty() ? description : "（暂无描述信息）");
+        prompt.append("\n");
         
         return prompt.toString();
     }
@@ -762,13 +820,6 @@ public class PromptTemplates {
         return String.format("""
             当前任务：收集关于用户自己的信息
             
-            当前维度：%s
-            已完成维度：%s
-            已收集信息：
-            %s
-            
-            用户上一次回答：%s
-            
             【专业框架收集要求】
             请严格按照以下5个系统进行信息收集：
             
@@ -786,6 +837,13 @@ public class PromptTemplates {
             - 使用第二人称"你"
             - 只返回问题本身，不要其他内容
             
+            当前维度：%s
+            已完成维度：%s
+            已收集信息：
+            %s
+            
+            用户上一次回答：%s
+            
             【当前维度重点】
             请针对当前维度"%s"生成一个具体的问题，确保能收集到该维度的关键信息。
             """,
@@ -802,10 +860,7 @@ public class PromptTemplates {
      */
     public static String buildSelfDescriptionPrompt(Map<String, Object> collectedData) {
         return String.format("""
-            请基于以下收集到的信息，生成一段关于用户自己的完整描述。
-            
-            收集的信息：
-            %s
+            请基于最后给出的收集到的信息，生成一段关于用户自己的完整描述。
             
             【严格要求】
             1. 只能使用用户实际提供的信息，严禁推测、编造或添加任何用户没有提供的内容
@@ -822,6 +877,9 @@ public class PromptTemplates {
             
             【输出格式】
             返回一段150-300字的自然、流畅的自我描述文本，不要分点列举。
+            
+            收集的信息：
+            %s
             """,
             formatCollectedData(collectedData)
         );
@@ -848,10 +906,6 @@ public class PromptTemplates {
         return String.format("""
             【任务】分析是否需要补充信息
             
-            【用户问题】%s
-            
-            【用户自我描述】%s
-            
             请分析：
             1. 这个问题是否需要更多用户信息才能回答？
             2. 如果需要，需要补充什么信息？
@@ -877,15 +931,19 @@ public class PromptTemplates {
             - 直接返回JSON对象，从{开始到}结束
             
             只返回JSON，不要其他内容。
+            
+            【用户自我描述】%s
+            
+            【用户问题】%s
             """,
-            question,
-            userDescription != null ? userDescription : "（暂无自我描述）"
+            userDescription != null ? userDescription : "（暂无自我描述）",
+            question
         );
     }
     
     /**
      * 用户自我QA的回答生成提示词
-     * @deprecated 使用 buildBaseUserSelfQaSystemPrompt + 原生messages数组代替
+     * @deprecated 使用 USER_SELF_QA_SYSTEM_PROMPT + buildUserSelfQaContextPrompt + 原生messages数组代替
      */
     @Deprecated
     public static String buildUserSelfQaAnswerPrompt(String question, String userDescription) {
@@ -915,16 +973,15 @@ public class PromptTemplates {
      */
     public static String buildMinimumInfoQuestionForUser(Map<String, Object> data, List<String> missingInfo) {
         StringBuilder prompt = new StringBuilder();
-        prompt.append("用户想结束问卷，但还需要补充一些关键信息。\n\n");
+        prompt.append("用户想结束问卷，但还需要补充一些关键信息。请生成一个友好的问题，请求用户补充最重要的1条信息。\n\n");
+        prompt.append("要求：\n1. 语气要理解用户想结束的心情\n2. 说明只需要再回答1个问题\n3. 问最重要的缺失信息\n4. 简短、友好\n5. 使用第二人称'你'\n\n只返回问题本身。\n\n");
         prompt.append("已收集信息：").append(formatCollectedData(data)).append("\n");
         prompt.append("缺失信息：").append(String.join(", ", missingInfo)).append("\n\n");
-        prompt.append("请生成一个友好的问题，请求用户补充最重要的1条信息。\n");
         prompt.append("优先级：\n");
         if (missingInfo.contains("age")) { prompt.append("1. 年龄（你现在多大？）\n"); }
         if (missingInfo.contains("occupation")) { prompt.append("2. 职业（你做什么工作？）\n"); }
         if (missingInfo.contains("education")) { prompt.append("3. 教育背景（你的教育背景如何？）\n"); }
         if (missingInfo.contains("personality_characteristics")) { prompt.append("4. 性格特点（你觉得自己的性格如何？）\n"); }
-        prompt.append("\n要求：\n1. 语气要理解用户想结束的心情\n2. 说明只需要再回答1个问题\n3. 问最重要的缺失信息\n4. 简短、友好\n5. 使用第二人称'你'\n\n只返回问题本身。");
         return prompt.toString();
     }
     
@@ -939,15 +996,6 @@ public class PromptTemplates {
         return String.format("""
             【任务】将补充信息自然地整合到现有描述中
             
-            【原始描述】
-            %s
-            
-            【AI的补充问题】
-            %s
-            
-            【用户补充的信息】
-            %s
-            
             【整合要求】
             1. 将补充信息自然地融入到原始描述中
             2. 如果补充信息与现有信息冲突，以补充信息为准（更新覆盖）
@@ -969,6 +1017,15 @@ public class PromptTemplates {
             
             【输出格式】
             只返回更新后的完整描述文本，不要其他说明或解释。
+            
+            【原始描述】
+            %s
+            
+            【AI的补充问题】
+            %s
+            
+            【用户补充的信息】
+            %s
             """,
             originalDescription != null && !originalDescription.trim().isEmpty() 
                 ? originalDescription 
@@ -989,15 +1046,6 @@ public class PromptTemplates {
         return String.format("""
             【任务】将补充信息自然地整合到现有的自我描述中
             
-            【原始自我描述】
-            %s
-            
-            【AI的补充问题】
-            %s
-            
-            【用户补充的信息】
-            %s
-            
             【整合要求】
             1. 将补充信息自然地融入到原始描述中
             2. 如果补充信息与现有信息冲突，以补充信息为准（更新覆盖）
@@ -1019,6 +1067,15 @@ public class PromptTemplates {
             
             【输出格式】
             只返回更新后的完整自我描述文本，不要其他说明或解释。
+            
+            【原始自我描述】
+            %s
+            
+            【AI的补充问题】
+            %s
+            
+            【用户补充的信息】
+            %s
             """,
             originalDescription != null && !originalDescription.trim().isEmpty() 
                 ? originalDescription 
@@ -1038,69 +1095,19 @@ public class PromptTemplates {
             String userDescription,
             String userSelfValue
     ) {
-        return String.format("""
-            【任务】你是关系分析专家，请基于双方信息分析两人关系的现状，从7个科学维度进行深度分析。
-            
+        return RELATIONSHIP_ANALYSIS_INSTRUCTIONS + String.format("""
             【联系人信息】
             描述：%s
-            自我价值评分（1-5分，5分为最高）：
-            - 自尊：%s/5.0
-            - 自我接纳：%s/5.0
-            - 自我效能：%s/5.0
-            - 存在价值感：%s/5.0
-            - 自我一致性：%s/5.0
+            %s
             
             【用户信息】
             描述：%s
-            自我价值评分（1-5分，5分为最高）：
-            - 自尊：%s/5.0
-            - 自我接纳：%s/5.0
-            - 自我效能：%s/5.0
-            - 存在价值感：%s/5.0
-            - 自我一致性：%s/5.0
-            
-            【分析要求】
-            请从以下7个维度进行专业分析，每个维度包含：当前状态评估、具体表现分析：
-            
-            ### 1. 沟通开放性 (Communication Openness)
-            - 评估：双方是否能表达真实想法、是否倾听对方、不防御、可讨论敏感话题
-            
-            ### 2. 情感亲密度 (Emotional Intimacy)
-            - 评估：主动分享情绪、脆弱自我披露、情绪靠近、共情回应程度
-            
-            ### 3. 冲突建设性 (Constructive Conflict)
-            - 评估：冲突时语气控制、是否攻击、是否能和解、负面情绪恢复速度
-            
-            ### 4. 信任可靠性 (Trust Reliability)
-            - 评估：承诺兑现率、透明度、隐瞒/欺骗倾向、诚实反馈
-            
-            ### 5. 目标一致性 (Goal Alignment)
-            - 评估：价值观/目标重叠度、未来规划协同度、冲突议题一致化
-            
-            ### 6. 空间平衡性 (Space Balance)
-            - 评估：是否能自由支配时间、不过度依赖、边界被尊重程度
-            
-            ### 7. 支持有效性 (Support Effectiveness)
-            - 评估：提供的帮助是否满足需求、回应及时性、情感安抚质量
-            
-            【输出要求】
-            - 每个维度单独成段，用###标记
-            - 包含状态评估和具体表现分析
-            - 语言专业但易懂
-            - 控制在800-1200字
+            %s
             """,
             contactDescription != null ? contactDescription : "（无描述）",
-            parseSelfValueForPrompt(contactSelfValue, 0),
-            parseSelfValueForPrompt(contactSelfValue, 1),
-            parseSelfValueForPrompt(contactSelfValue, 2),
-            parseSelfValueForPrompt(contactSelfValue, 3),
-            parseSelfValueForPrompt(contactSelfValue, 4),
+            formatSelfValueScores(contactSelfValue),
             userDescription != null ? userDescription : "（无描述）",
-            parseSelfValueForPrompt(userSelfValue, 0),
-            parseSelfValueForPrompt(userSelfValue, 1),
-            parseSelfValueForPrompt(userSelfValue, 2),
-            parseSelfValueForPrompt(userSelfValue, 3),
-            parseSelfValueForPrompt(userSelfValue, 4)
+            formatSelfValueScores(userSelfValue)
         );
     }
 
@@ -1110,10 +1117,7 @@ public class PromptTemplates {
      */
     public static String buildInteractionSuggestionsPrompt(String contactDescription) {
         return String.format("""
-            【任务】你是人际关系顾问，请基于联系人的描述信息，生成可操作的交往建议。
-            
-            【联系人信息】
-            %s
+            【任务】你是人际关系顾问，请基于最后给出的联系人描述信息，生成可操作的交往建议。
             
             【分析要求】
             请从以下维度分析并生成具体建议：
@@ -1148,6 +1152,9 @@ public class PromptTemplates {
             - 语言友好实用
             - 控制在600-1000字
             - 没有信息的维度可以标注"信息不足"
+            
+            【联系人信息】
+            %s
             """,
             contactDescription != null && !contactDescription.trim().isEmpty() 
                 ? contactDescription 
@@ -1155,6 +1162,66 @@ public class PromptTemplates {
         );
     }
     
+    /**
+     * 构建联系人综合分析提示词
+     * 一次调用同时产出 self value、要点摘要、交往建议和关系分析（用户有描述时），结果为JSON；
+     * 各部分的维度与单独调用时的提示词一致，解析失败时调用方回退为逐项调用
+     */
+    public static String buildContactEnrichmentPrompt(
+            String contactDescription,
+            String userDescription,
+            String userSelfValue
+    ) {
+        boolean withAnalysis = userDescription != null && !userDescription.trim().isEmpty();
+        StringBuilder prompt = new StringBuilder();
+
+        // 固定指令在前（有无关系分析两种版本），联系人和用户信息在最后
+        prompt.append("【任务】你是心理评估专家和人际关系顾问，请基于最后给出的信息一次完成多项分析，结果以JSON返回。\n\n");
+
+        prompt.append("【第一项 selfValue】评估联系人的自我价值水平，5个维度各给出1.0-5.0分：\n");
+        prompt.append("selfEsteem（自尊）、selfAcceptance（自我接纳）、selfEfficacy（自我效能）、");
+        prompt.append("existentialValue（存在价值感）、selfConsistency（自我一致性）；信息不足的维度给3.0，基于描述而非臆测\n\n");
+
+        prompt.append("【第二项 summary】将联系人描述归纳为3-6条要点：基本画像、偏好、兴趣、近期计划/合作机会、可能的禁忌，不要编造\n\n");
+
+        prompt.append("【第三项 interactionSuggestions】生成可操作的交往建议，按以下8个维度用###标记分段：\n");
+        prompt.append("### 1. 行为倾向推断 / ### 2. 情绪与价值观暗示 / ### 3. 潜在需求推理 / ### 4. 可能的禁忌雷区 / ");
+        prompt.append("### 5. 人际关系机会点 / ### 6. 快乐清单 / ### 7. 雷点清单 / ### 8. 关键时间点\n");
+        prompt.append("建议具体可操作，控制在600-1000字；没有信息的维度标注\"信息不足\"，关键时间点不要编造\n\n");
+
+        if (withAnalysis) {
+            prompt.append("【第四项 relationshipAnalysis】结合第一项的联系人评分和用户信息，分析两人关系现状，按以下7个维度用###标记分段，");
+            prompt.append("每个维度包含当前状态评估和具体表现分析：\n");
+            prompt.append("### 1. 沟通开放性 / ### 2. 情感亲密度 / ### 3. 冲突建设性 / ### 4. 信任可靠性 / ");
+            prompt.append("### 5. 目标一致性 / ### 6. 空间平衡性 / ### 7. 支持有效性\n");
+            prompt.append("语言专业但易懂，控制在800-1200字\n\n");
+        }
+
+        prompt.append("【输出格式】只返回一个JSON对象，不要其他文字；文本字段中的换行写作\\n：\n");
+        prompt.append("{\n");
+        prompt.append("  \"selfValue\": {\"selfEsteem\": 3.5, \"selfAcceptance\": 4.0, \"selfEfficacy\": 3.0, ");
+        prompt.append("\"existentialValue\": 4.5, \"selfConsistency\": 3.8},\n");
+        prompt.append("  \"summary\": \"- 要点1\\n- 要点2\",\n");
+        prompt.append("  \"interactionSuggestions\": \"### 1. 行为倾向推断\\n...\"");
+        if (withAnalysis) {
+            prompt.append(",\n  \"relationshipAnalysis\": \"### 1. 沟通开放性\\n...\"");
+        }
+        prompt.append("\n}\n\n");
+
+        prompt.append("【联系人信息】\n");
+        prompt.append(contactDescription != null && !contactDescription.trim().isEmpty()
+            ? contactDescription : "（无描述信息）");
+        prompt.append("\n");
+
+        if (withAnalysis) {
+            prompt.append("\n【用户信息】\n");
+            prompt.append("描述：").append(userDescription).append("\n");
+            prompt.append(formatSelfValueScores(userSelfValue)).append("\n");
+        }
+
+        return prompt.toString();
+    }
+
     /**
      * 生成模块内问题的Prompt（基于固定模块的关键词）
      */
@@ -1170,6 +1237,13 @@ public class PromptTemplates {
             : String.join("、", module.getKeywords());
         
         return String.format("""
+            【问题生成要求】
+            - 基于当前模块的关键词和已收集的信息，生成一个自然的问题
+            - 问题要针对模块的关键词，但不要生硬地直接问
+            - 避免重复询问已经收集到的信息
+            - 问题要口语化、友好、简短
+            - 只返回问题本身，不要其他内容
+            
             当前任务：收集关于"%s"的信息
             
             当前模块：%s
@@ -1183,16 +1257,6 @@ public class PromptTemplates {
             模块标题：%s
             模块关键词：%s
             
-            【问题生成要求】
-            - 基于当前模块的关键词和已收集的信息，生成一个自然的问题
-            - 问题要针对模块的关键词，但不要生硬地直接问
-            - 避免重复询问已经收集到的信息
-            - 问题要口语化、友好、简短
-            - 只返回问题本身，不要其他内容
-            
-            【关键词提示】
-            当前模块关注的关键词包括：%s
-            
             请基于这些关键词，结合已收集的信息，生成一个合适的跟进问题。
             """,
             contactName,
@@ -1201,10 +1265,36 @@ public class PromptTemplates {
             formatCollectedData(collectedData),
             lastUserMessage,
             module.getTitle(),
-            keywordsText,
             keywordsText
         );
     }
+    
+    /**
+     * 构建QA历史滚动摘要的Prompt（把上一版摘要与新滑出窗口的对话合并为新摘要）
+     */
+    public static String buildQaHistorySummaryPrompt(String previousSummary, String transcript, int maxChars) {
+        return String.format("""
+            【任务】把一段问答对话压缩为摘要，供后续对话作为背景参考
+            
+            【摘要要求】
+            1. 将新对话中的关键信息合并进已有摘要，输出一份完整的新摘要
+            2. 保留用户关心的问题、AI给出的主要结论和建议、用户补充的事实信息
+            3. 删除寒暄、重复和无关细节
+            4. 不要编造对话中没有的信息
+            5. 使用连贯的段落，不超过%d字
+            
+            【输出格式】
+            只返回摘要文本，不要其他说明或解释。
+            
+            【已有摘要】
+            %s
+            
+            【需要并入摘要的新对话】
+            %s
+            """,
+            maxChars,
+            previousSummary != null && !previousSummary.trim().isEmpty() ? previousSummary : "（暂无）",
+            transcript
+        );
+    }
 }
-
-
@@ -0,0 +1,163 @@
+package com.ulog.backend.domain.conversation;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * QA对话历史明细（每轮问答一行）
+ */
+@Entity
+@Table(name = "qa_history_entries")
+public class QaHistoryRecord {
+    
+    public static final String SESSION_TYPE_CONTACT = "CONTACT";
+    public static final String SESSION_TYPE_USER = "USER";
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "session_id", nullable = false, length = 64)
+    private String sessionId;
+    
+    @Column(name = "session_type", nullable = false, length = 20)
+    private String sessionType;
+    
+    @Column(name = "seq", nullable = false)
+    private Integer seq;
+    
+    @Column(name = "question", columnDefinition = "TEXT")
+    private String question;
+    
+    @Column(name = "answer", columnDefinition = "TEXT")
+    private String answer;
+    
+    @Column(name = "supplement_question", columnDefinition = "TEXT")
+    private String supplementQuestion;
+    
+    @Column(name = "supplement_answer", columnDefinition = "TEXT")
+    private String supplementAnswer;
+    
+    @Column(name = "needs_more_info")
+    private Boolean needsMoreInfo;
+    
+    @Column(name = "qa_timestamp", length = 50)
+    private String qaTimestamp;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+    
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    public QaHistoryRecord() {
+    }
+    
+    public QaHistoryRecord(String sessionId, String sessionType, Integer seq) {
+        this.sessionId = sessionId;
+        this.sessionType = sessionType;
+        this.seq = seq;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getSessionId() {
+        return sessionId;
+    }
+    
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+    
+    public String getSessionType() {
+        return sessionType;
+    }
+    
+    public void setSessionType(String sessionType) {
+        this.sessionType = sessionType;
+    }
+    
+    public Integer getSeq() {
+        return seq;
+    }
+    
+    public void setSeq(Integer seq) {
+        this.seq = seq;
+    }
+    
+    public String getQuestion() {
+        return question;
+    }
+    
+    public void setQuestion(String question) {
+        this.question = question;
+    }
+    
+    public String getAnswer() {
+        return answer;
+    }
+    
+    public void setAnswer(String answer) {
+        this.answer = answer;
+    }
+    
+    public String getSupplementQuestion() {
+        return supplementQuestion;
+    }
+    
+    public void setSupplementQuestion(String supplementQuestion) {
+        this.supplementQuestion = supplementQuestion;
+    }
+    
+    public String getSupplementAnswer() {
+        return supplementAnswer;
+    }
+    
+    public void setSupplementAnswer(String supplementAnswer) {
+        this.supplementAnswer = supplementAnswer;
+    }
+    
+    public Boolean getNeedsMoreInfo() {
+        return needsMoreInfo;
+    }
+    
+    public void setNeedsMoreInfo(Boolean needsMoreInfo) {
+        this.needsMoreInfo = needsMoreInfo;
+    }
+    
+    public String getQaTimestamp() {
+        return qaTimestamp;
+    }
+    
+    public void setQaTimestamp(String qaTimestamp) {
+        this.qaTimestamp = qaTimestamp;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
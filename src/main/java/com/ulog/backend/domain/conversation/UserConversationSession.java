@@ -56,6 +56,17 @@ public class UserConversationSession {
     @Column(name = "completed_at")
     private LocalDateTime completedAt;
     
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+    
+    // QA历史滚动摘要：只通过仓库的条件更新写入，不参与实体保存，避免与问答写事务互相覆盖或抬高版本号
+    @Column(name = "history_summary", columnDefinition = "TEXT", insertable = false, updatable = false)
+    private String historySummary;
+    
+    @Column(name = "history_summary_seq", insertable = false, updatable = false)
+    private Integer historySummarySeq;
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -171,5 +182,21 @@ public class UserConversationSession {
     public void setCompletedAt(LocalDateTime completedAt) {
         this.completedAt = completedAt;
     }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public String getHistorySummary() {
+        return historySummary;
+    }
+    
+    public Integer getHistorySummarySeq() {
+        return historySummarySeq;
+    }
 }
 
@@ -44,6 +44,12 @@ public class Reminder {
     @Column(name = "sent_at")
     private LocalDateTime sentAt;
 
+    @Column(name = "claimed_by", length = 128)
+    private String claimedBy;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -108,6 +114,22 @@ public class Reminder {
         this.sentAt = sentAt;
     }
 
+    public String getClaimedBy() {
+        return claimedBy;
+    }
+
+    public void setClaimedBy(String claimedBy) {
+        this.claimedBy = claimedBy;
+    }
+
+    public LocalDateTime getLeaseUntil() {
+        return leaseUntil;
+    }
+
+    public void setLeaseUntil(LocalDateTime leaseUntil) {
+        this.leaseUntil = leaseUntil;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
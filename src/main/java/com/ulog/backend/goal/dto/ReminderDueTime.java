@@ -0,0 +1,9 @@
+package com.ulog.backend.goal.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 待发送提醒的ID与提醒时间，用于装载时间轮
+ */
+public record ReminderDueTime(Long reminderId, LocalDateTime remindTime) {
+}
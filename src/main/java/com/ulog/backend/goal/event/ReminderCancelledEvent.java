@@ -0,0 +1,27 @@
+package com.ulog.backend.goal.event;
+
+import java.util.List;
+
+/**
+ * 提醒取消事件
+ * 事务提交后由提醒调度把提醒移出时间轮
+ */
+public class ReminderCancelledEvent {
+
+    private final List<Long> reminderIds;
+
+    public ReminderCancelledEvent(List<Long> reminderIds) {
+        this.reminderIds = List.copyOf(reminderIds);
+    }
+
+    public List<Long> getReminderIds() {
+        return reminderIds;
+    }
+
+    @Override
+    public String toString() {
+        return "ReminderCancelledEvent{" +
+                "reminderIds=" + reminderIds +
+                '}';
+    }
+}
@@ -0,0 +1,34 @@
+package com.ulog.backend.goal.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * 提醒创建事件
+ * 事务提交后由提醒调度把提醒放入时间轮
+ */
+public class ReminderScheduledEvent {
+
+    private final Long reminderId;
+    private final LocalDateTime remindTime;
+
+    public ReminderScheduledEvent(Long reminderId, LocalDateTime remindTime) {
+        this.reminderId = reminderId;
+        this.remindTime = remindTime;
+    }
+
+    public Long getReminderId() {
+        return reminderId;
+    }
+
+    public LocalDateTime getRemindTime() {
+        return remindTime;
+    }
+
+    @Override
+    public String toString() {
+        return "ReminderScheduledEvent{" +
+                "reminderId=" + reminderId +
+                ", remindTime=" + remindTime +
+                '}';
+    }
+}
@@ -1,13 +1,40 @@
 package com.ulog.backend.goal.service;
 
+import com.ulog.backend.config.ReminderClaimProperties;
+import com.ulog.backend.config.ReminderWheelProperties;
 import com.ulog.backend.domain.goal.Reminder;
+import com.ulog.backend.goal.dto.ReminderDueTime;
+import com.ulog.backend.goal.event.ReminderCancelledEvent;
+import com.ulog.backend.goal.event.ReminderScheduledEvent;
+import com.ulog.backend.push.PushNotification;
 import com.ulog.backend.push.PushNotificationService;
+import com.ulog.backend.push.PushOutcome;
+import com.ulog.backend.util.TimingWheel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+/**
+ * 提醒调度
+ * 未来 reminder.wheel.horizon-minutes 内的待发送提醒装入内存时间轮，到点（秒级精度）按ID认领后发送；
+ * 新建/取消提醒通过事件实时更新时间轮，数据库只在低频对账时查询（只查ID和时间）
+ * 发送前按ID认领（SKIP LOCKED + 租约），多实例各自装载同一批提醒也不会重复发送，已取消的提醒认领不到；
+ * 对账时先批量认领所有已过期未发送的提醒，兜底实例崩溃、租约过期或其他实例新建的提醒
+ */
 @Service
 public class ReminderSchedulerService {
 
@@ -15,51 +42,191 @@ public class ReminderSchedulerService {
 
     private final ReminderService reminderService;
     private final PushNotificationService pushNotificationService;
+    private final ReminderClaimProperties claimProperties;
+    private final ReminderWheelProperties wheelProperties;
+    private final String nodeId;
+
+    private final TimingWheel<Long, Long> wheel;
+    private ScheduledExecutorService wheelExecutor;
 
     public ReminderSchedulerService(ReminderService reminderService,
-                                   PushNotificationService pushNotificationService) {
+                                   PushNotificationService pushNotificationService,
+                                   ReminderClaimProperties claimProperties,
+                                   ReminderWheelProperties wheelProperties) {
         this.reminderService = reminderService;
         this.pushNotificationService = pushNotificationService;
+        this.claimProperties = claimProperties;
+        this.wheelProperties = wheelProperties;
+        String configured = claimProperties.getNodeId();
+        this.nodeId = configured != null && !configured.isBlank()
+            ? configured
+            : ManagementFactory.getRuntimeMXBean().getName();
+        // 三层（秒/分/时）各60格，覆盖60小时，远大于装载范围
+        this.wheel = new TimingWheel<>(wheelProperties.getTickMs(), 60, 3, System.currentTimeMillis());
+    }
+
+    @PostConstruct
+    public void start() {
+        wheelExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "reminder-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long tickMs = wheelProperties.getTickMs();
+        wheelExecutor.scheduleWithFixedDelay(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
     }
 
-    @Scheduled(cron = "${reminder.scheduler.cron:0 * * * * *}")
-    public void sendPendingReminders() {
-        log.debug("Checking for pending reminders...");
+    @PreDestroy
+    public void stop() {
+        if (wheelExecutor != null) {
+            wheelExecutor.shutdownNow();
+        }
+    }
 
+    /**
+     * 低频对账：发送所有已过期未发送的提醒，并把装载范围内的提醒放入时间轮（启动时立即执行一次）
+     */
+    @Scheduled(fixedDelayString = "${reminder.wheel.reconcile-ms:300000}")
+    public void reconcile() {
         try {
-            List<Reminder> pendingReminders = reminderService.getPendingReminders();
-            
-            if (pendingReminders.isEmpty()) {
-                log.debug("No pending reminders found");
-                return;
+            drainOverdueReminders();
+
+            LocalDateTime until = LocalDateTime.now().plusMinutes(wheelProperties.getHorizonMinutes());
+            List<ReminderDueTime> dueTimes = reminderService.getPendingDueTimes(until);
+            List<Long> due = new ArrayList<>();
+            int scheduled;
+            synchronized (wheel) {
+                for (ReminderDueTime dueTime : dueTimes) {
+                    if (!wheel.schedule(dueTime.reminderId(), toEpochMillis(dueTime.remindTime()), dueTime.reminderId())) {
+                        due.add(dueTime.reminderId());
+                    }
+                }
+                scheduled = wheel.size();
+            }
+            if (!due.isEmpty()) {
+                wheelExecutor.execute(() -> dispatchReminders(due));
             }
+            log.debug("Reminder wheel reconciled: {} loaded, {} scheduled", dueTimes.size(), scheduled);
+        } catch (Exception e) {
+            log.error("Error in reminder reconciliation: {}", e.getMessage(), e);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onReminderScheduled(ReminderScheduledEvent event) {
+        LocalDateTime horizon = LocalDateTime.now().plusMinutes(wheelProperties.getHorizonMinutes());
+        if (event.getRemindTime().isAfter(horizon)) {
+            // 超出装载范围，由之后的对账装入
+            return;
+        }
+        boolean scheduled;
+        synchronized (wheel) {
+            scheduled = wheel.schedule(event.getReminderId(), toEpochMillis(event.getRemindTime()), event.getReminderId());
+        }
+        if (!scheduled) {
+            wheelExecutor.execute(() -> dispatchReminders(List.of(event.getReminderId())));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onReminderCancelled(ReminderCancelledEvent event) {
+        synchronized (wheel) {
+            event.getReminderIds().forEach(wheel::remove);
+        }
+    }
+
+    public int getScheduledCount() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
 
-            log.info("Found {} pending reminders to send", pendingReminders.size());
+    private void tick() {
+        List<Long> due = new ArrayList<>();
+        synchronized (wheel) {
+            wheel.advanceTo(System.currentTimeMillis(), (id, value) -> due.add(id));
+        }
+        if (!due.isEmpty()) {
+            dispatchReminders(due);
+        }
+    }
 
-            for (Reminder reminder : pendingReminders) {
-                try {
-                    sendReminder(reminder);
-                    reminderService.markAsSent(reminder);
-                    log.info("Successfully sent reminder {}", reminder.getId());
-                } catch (Exception e) {
-                    log.error("Failed to send reminder {}: {}", reminder.getId(), e.getMessage());
-                    reminderService.markAsFailed(reminder);
+    /**
+     * 按ID认领并发送时间轮到期的提醒；认领失败的提醒由下次对账兜底
+     */
+    private void dispatchReminders(List<Long> reminderIds) {
+        int batchSize = Math.max(1, claimProperties.getBatchSize());
+        Duration lease = Duration.ofSeconds(claimProperties.getLeaseSeconds());
+        for (int from = 0; from < reminderIds.size(); from += batchSize) {
+            List<Long> chunk = reminderIds.subList(from, Math.min(from + batchSize, reminderIds.size()));
+            try {
+                List<Long> claimedIds = reminderService.claimReminders(chunk, nodeId, lease);
+                if (claimedIds.isEmpty()) {
+                    continue;
                 }
+                int[] result = dispatch(reminderService.getRemindersForDispatch(claimedIds));
+                log.info("Reminders processed: {} sent, {} failed", result[0], result[1]);
+            } catch (Exception e) {
+                log.error("Failed to dispatch {} due reminders: {}", chunk.size(), e.getMessage(), e);
             }
-        } catch (Exception e) {
-            log.error("Error in reminder scheduler: {}", e.getMessage(), e);
         }
     }
 
-    private void sendReminder(Reminder reminder) {
-        String title = "行动计划提醒";
-        String body = buildReminderBody(reminder);
-        
-        pushNotificationService.sendToUser(
-            reminder.getUser(),
-            title,
-            body
-        );
+    /**
+     * 按批认领并发送所有已过期未发送的提醒
+     */
+    private void drainOverdueReminders() {
+        int batchSize = Math.max(1, claimProperties.getBatchSize());
+        Duration lease = Duration.ofSeconds(claimProperties.getLeaseSeconds());
+        int sent = 0;
+        int failed = 0;
+        for (int batch = 0; batch < claimProperties.getMaxBatchesPerRun(); batch++) {
+            List<Long> claimedIds = reminderService.claimDueReminders(nodeId, batchSize, lease);
+            if (claimedIds.isEmpty()) {
+                break;
+            }
+            log.info("Claimed {} overdue reminders as {}", claimedIds.size(), nodeId);
+
+            int[] result = dispatch(reminderService.getRemindersForDispatch(claimedIds));
+            sent += result[0];
+            failed += result[1];
+            if (claimedIds.size() < batchSize) {
+                break;
+            }
+        }
+        if (sent + failed > 0) {
+            log.info("Overdue reminders processed: {} sent, {} failed", sent, failed);
+        }
+    }
+
+    /**
+     * 发送一批已认领的提醒并批量更新状态
+     * @return {已发送数, 失败数}
+     */
+    private int[] dispatch(List<Reminder> reminders) {
+        List<PushNotification> notifications = new ArrayList<>(reminders.size());
+        for (Reminder reminder : reminders) {
+            notifications.add(new PushNotification(reminder.getUser().getId(), "行动计划提醒",
+                buildReminderBody(reminder)));
+        }
+        List<PushOutcome> outcomes = pushNotificationService.sendToUsers(notifications);
+
+        List<Long> sentIds = new ArrayList<>();
+        List<Long> failedIds = new ArrayList<>();
+        for (int i = 0; i < reminders.size(); i++) {
+            // 没有有效设备或推送未配置时与之前一样视为已发送，避免重复处理
+            if (outcomes.get(i) == PushOutcome.FAILED) {
+                failedIds.add(reminders.get(i).getId());
+            } else {
+                sentIds.add(reminders.get(i).getId());
+            }
+        }
+        int updated = reminderService.markAllAsSent(sentIds, nodeId) + reminderService.markAllAsFailed(failedIds, nodeId);
+        if (updated < reminders.size()) {
+            // 租约在发送期间过期并被其他实例重新认领，状态以对方为准
+            log.warn("{} reminders lost their lease before status update", reminders.size() - updated);
+        }
+        return new int[] {sentIds.size(), failedIds.size()};
     }
 
     private String buildReminderBody(Reminder reminder) {
@@ -68,5 +235,8 @@ public class ReminderSchedulerService {
         
         return String.format("关于 %s 的行动计划「%s」即将开始", contactName, actionTitle);
     }
-}
 
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -4,15 +4,22 @@ import com.ulog.backend.domain.goal.ActionPlan;
 import com.ulog.backend.domain.goal.Reminder;
 import com.ulog.backend.domain.goal.enums.ReminderStatus;
 import com.ulog.backend.domain.user.User;
+import com.ulog.backend.goal.dto.ReminderDueTime;
 import com.ulog.backend.goal.dto.ReminderResponse;
+import com.ulog.backend.goal.event.ReminderCancelledEvent;
+import com.ulog.backend.goal.event.ReminderScheduledEvent;
 import com.ulog.backend.repository.ReminderRepository;
 import com.ulog.backend.repository.UserRepository;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,14 +30,17 @@ public class ReminderService {
 
     private final ReminderRepository reminderRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${reminder.advance-minutes:15}")
     private int advanceMinutes;
 
     public ReminderService(ReminderRepository reminderRepository, 
-                          UserRepository userRepository) {
+                          UserRepository userRepository,
+                          ApplicationEventPublisher eventPublisher) {
         this.reminderRepository = reminderRepository;
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
@@ -51,6 +61,7 @@ public class ReminderService {
 
         Reminder reminder = new Reminder(actionPlan, actionPlan.getGoal().getUser(), remindTime);
         reminderRepository.save(reminder);
+        eventPublisher.publishEvent(new ReminderScheduledEvent(reminder.getId(), remindTime));
         
         log.info("Created reminder {} for action plan {} at {}", 
                  reminder.getId(), actionPlan.getId(), remindTime);
@@ -59,14 +70,19 @@ public class ReminderService {
     @Transactional
     public void cancelRemindersForActionPlan(ActionPlan actionPlan) {
         List<Reminder> reminders = reminderRepository.findAllByActionPlan(actionPlan);
+        List<Long> cancelledIds = new ArrayList<>();
         
         for (Reminder reminder : reminders) {
             if (reminder.getStatus() == ReminderStatus.PENDING) {
                 reminder.setStatus(ReminderStatus.CANCELLED);
                 reminderRepository.save(reminder);
+                cancelledIds.add(reminder.getId());
                 log.info("Cancelled reminder {} for action plan {}", reminder.getId(), actionPlan.getId());
             }
         }
+        if (!cancelledIds.isEmpty()) {
+            eventPublisher.publishEvent(new ReminderCancelledEvent(cancelledIds));
+        }
     }
 
     @Transactional(readOnly = true)
@@ -82,10 +98,49 @@ public class ReminderService {
             .collect(Collectors.toList());
     }
 
+    /**
+     * 认领一批到期提醒：SELECT ... FOR UPDATE SKIP LOCKED 锁定未被认领（或租约已过期）的行并写入租约，
+     * 多个实例同时认领时各自拿到不同的提醒
+     * @return 认领到的提醒ID
+     */
+    @Transactional
+    public List<Long> claimDueReminders(String owner, int limit, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = reminderRepository.lockClaimableIds(now, limit);
+        if (!ids.isEmpty()) {
+            reminderRepository.claim(ids, owner, now.plus(lease));
+        }
+        return ids;
+    }
+
+    /**
+     * 按ID认领到期提醒（时间轮触发时使用），已被其他实例认领的跳过
+     * @return 认领到的提醒ID
+     */
+    @Transactional
+    public List<Long> claimReminders(Collection<Long> reminderIds, String owner, Duration lease) {
+        if (reminderIds.isEmpty()) {
+            return List.of();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = reminderRepository.lockClaimableIdsIn(reminderIds, now);
+        if (!ids.isEmpty()) {
+            reminderRepository.claim(ids, owner, now.plus(lease));
+        }
+        return ids;
+    }
+
+    /**
+     * 提醒时间不晚于 until 的待发送提醒（只查ID和时间）
+     */
     @Transactional(readOnly = true)
-    public List<Reminder> getPendingReminders() {
-        return reminderRepository.findPendingRemindersBeforeTime(
-            LocalDateTime.now(), ReminderStatus.PENDING);
+    public List<ReminderDueTime> getPendingDueTimes(LocalDateTime until) {
+        return reminderRepository.findDueTimesBefore(until, ReminderStatus.PENDING);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Reminder> getRemindersForDispatch(Collection<Long> reminderIds) {
+        return reminderRepository.findAllForDispatch(reminderIds);
     }
 
     @Transactional
@@ -101,6 +156,26 @@ public class ReminderService {
         reminderRepository.save(reminder);
     }
 
+    /**
+     * 批量更新本实例认领的提醒状态，一条UPDATE完成
+     */
+    @Transactional
+    public int markAllAsSent(Collection<Long> reminderIds, String owner) {
+        if (reminderIds.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return reminderRepository.updateClaimedStatus(reminderIds, owner, ReminderStatus.SENT, now, now);
+    }
+
+    @Transactional
+    public int markAllAsFailed(Collection<Long> reminderIds, String owner) {
+        if (reminderIds.isEmpty()) {
+            return 0;
+        }
+        return reminderRepository.updateClaimedStatus(reminderIds, owner, ReminderStatus.FAILED, null, LocalDateTime.now());
+    }
+
     private ReminderResponse mapToResponse(Reminder reminder) {
         ActionPlan plan = reminder.getActionPlan();
         return new ReminderResponse(
@@ -182,13 +182,8 @@ public class PinService {
 
     private PinResponse createPinFromContactSession(Long userId, ConversationSession session, 
                                                     CreatePinRequest request) {
-        List<QaHistoryEntry> qaHistory = qaHistoryService.getContactQaHistory(session.getSessionId());
-
-        if (request.getQaIndex() >= qaHistory.size()) {
-            throw new BadRequestException("QA index out of range");
-        }
-
-        QaHistoryEntry qaEntry = qaHistory.get(request.getQaIndex());
+        QaHistoryEntry qaEntry = qaHistoryService.getQaEntry(session.getSessionId(), request.getQaIndex())
+            .orElseThrow(() -> new BadRequestException("QA index out of range"));
 
         Pin pin = new Pin();
         pin.setUserId(userId);
@@ -223,13 +218,8 @@ public class PinService {
 
     private PinResponse createPinFromUserSession(Long userId, UserConversationSession session, 
                                                  CreatePinRequest request) {
-        List<QaHistoryEntry> qaHistory = qaHistoryService.getUserQaHistory(session.getSessionId());
-
-        if (request.getQaIndex() >= qaHistory.size()) {
-            throw new BadRequestException("QA index out of range");
-        }
-
-        QaHistoryEntry qaEntry = qaHistory.get(request.getQaIndex());
+        QaHistoryEntry qaEntry = qaHistoryService.getQaEntry(session.getSessionId(), request.getQaIndex())
+            .orElseThrow(() -> new BadRequestException("QA index out of range"));
 
         Pin pin = new Pin();
         pin.setUserId(userId);
@@ -0,0 +1,76 @@
+package com.ulog.backend.push;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.messaging.BatchResponse;
+import com.google.firebase.messaging.FirebaseMessaging;
+import com.google.firebase.messaging.FirebaseMessagingException;
+import com.google.firebase.messaging.Message;
+import com.google.firebase.messaging.MessagingErrorCode;
+import com.google.firebase.messaging.Notification;
+import com.google.firebase.messaging.SendResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.stereotype.Component;
+
+/**
+ * 基于FCM的推送通道，使用 sendEachAsync 批量发送
+ */
+@Component
+public class FirebasePushSender implements PushSender {
+
+    @Override
+    public boolean isAvailable() {
+        return !FirebaseApp.getApps().isEmpty();
+    }
+
+    @Override
+    public CompletableFuture<List<PushResult>> sendEach(List<PushMessage> messages) {
+        List<Message> fcmMessages = new ArrayList<>(messages.size());
+        for (PushMessage message : messages) {
+            fcmMessages.add(Message.builder()
+                .setToken(message.deviceToken())
+                .setNotification(Notification.builder()
+                    .setTitle(message.title())
+                    .setBody(message.body())
+                    .build())
+                .build());
+        }
+
+        CompletableFuture<List<PushResult>> result = new CompletableFuture<>();
+        ApiFuture<BatchResponse> future = FirebaseMessaging.getInstance().sendEachAsync(fcmMessages);
+        ApiFutures.addCallback(future, new ApiFutureCallback<>() {
+            @Override
+            public void onSuccess(BatchResponse response) {
+                result.complete(toResults(response));
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                result.completeExceptionally(t);
+            }
+        }, MoreExecutors.directExecutor());
+        return result;
+    }
+
+    private List<PushResult> toResults(BatchResponse response) {
+        List<PushResult> results = new ArrayList<>(response.getResponses().size());
+        for (SendResponse sendResponse : response.getResponses()) {
+            if (sendResponse.isSuccessful()) {
+                results.add(PushResult.ok());
+                continue;
+            }
+            FirebaseMessagingException e = sendResponse.getException();
+            MessagingErrorCode code = e != null ? e.getMessagingErrorCode() : null;
+            // UNREGISTERED：应用已卸载或令牌过期；SENDER_ID_MISMATCH：令牌属于其他项目，两者都不会再成功
+            boolean tokenInvalid = code == MessagingErrorCode.UNREGISTERED
+                || code == MessagingErrorCode.SENDER_ID_MISMATCH;
+            results.add(PushResult.failed(e != null ? e.getMessage() : "unknown error", tokenInvalid));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,7 @@
+package com.ulog.backend.push;
+
+/**
+ * 发往单个设备的推送消息
+ */
+public record PushMessage(String deviceToken, String title, String body) {
+}
@@ -0,0 +1,7 @@
+package com.ulog.backend.push;
+
+/**
+ * 发给某个用户（其全部有效设备）的通知
+ */
+public record PushNotification(Long userId, String title, String body) {
+}
@@ -1,79 +1,182 @@
 package com.ulog.backend.push;
 
-import com.google.firebase.FirebaseApp;
-import com.google.firebase.messaging.FirebaseMessaging;
-import com.google.firebase.messaging.Message;
-import com.google.firebase.messaging.Notification;
+import com.ulog.backend.config.PushDispatchProperties;
 import com.ulog.backend.domain.goal.UserPushToken;
 import com.ulog.backend.domain.user.User;
 import com.ulog.backend.repository.UserPushTokenRepository;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+/**
+ * 推送通知服务
+ * 批量发送时一次查出所有用户的有效设备，把消息按批（默认500条）交给推送通道异步发送，同时在途的批次数有上限；
+ * 通道判定失效的设备令牌发送结束后统一停用
+ */
 @Service
 public class PushNotificationService {
 
     private static final Logger log = LoggerFactory.getLogger(PushNotificationService.class);
 
     private final UserPushTokenRepository userPushTokenRepository;
+    private final PushTokenService pushTokenService;
+    private final PushSender pushSender;
+    private final PushDispatchProperties properties;
 
-    public PushNotificationService(UserPushTokenRepository userPushTokenRepository) {
+    public PushNotificationService(UserPushTokenRepository userPushTokenRepository,
+                                   PushTokenService pushTokenService,
+                                   PushSender pushSender,
+                                   PushDispatchProperties properties) {
         this.userPushTokenRepository = userPushTokenRepository;
+        this.pushTokenService = pushTokenService;
+        this.pushSender = pushSender;
+        this.properties = properties;
     }
 
-    public void sendToUser(User user, String title, String body) {
-        if (!isFirebaseInitialized()) {
-            log.warn("Firebase not initialized. Cannot send push notification.");
-            return;
+    public PushOutcome sendToUser(User user, String title, String body) {
+        return sendToUsers(List.of(new PushNotification(user.getId(), title, body))).get(0);
+    }
+
+    /**
+     * 批量发送用户通知
+     * @return 与 notifications 一一对应的投递结果
+     */
+    public List<PushOutcome> sendToUsers(List<PushNotification> notifications) {
+        PushOutcome[] outcomes = new PushOutcome[notifications.size()];
+        if (notifications.isEmpty()) {
+            return List.of();
+        }
+        if (!pushSender.isAvailable()) {
+            log.warn("Push sender not available. Skipping {} push notifications.", notifications.size());
+            Arrays.fill(outcomes, PushOutcome.DISABLED);
+            return Arrays.asList(outcomes);
         }
 
-        List<UserPushToken> tokens = userPushTokenRepository.findAllByUserAndIsActiveTrue(user);
-        
-        if (tokens.isEmpty()) {
-            log.info("No active push tokens found for user {}", user.getId());
-            return;
+        // 1. 一次查询所有相关用户的有效设备
+        Set<Long> userIds = new LinkedHashSet<>();
+        for (PushNotification notification : notifications) {
+            userIds.add(notification.userId());
+        }
+        Map<Long, List<String>> tokensByUser = new HashMap<>();
+        for (UserPushToken token : userPushTokenRepository.findActiveByUserIds(userIds)) {
+            tokensByUser.computeIfAbsent(token.getUser().getId(), id -> new ArrayList<>()).add(token.getDeviceToken());
         }
 
-        for (UserPushToken token : tokens) {
+        // 2. 展开为逐设备的消息，记录每条消息属于哪条通知
+        List<PushMessage> messages = new ArrayList<>();
+        List<Integer> owners = new ArrayList<>();
+        for (int i = 0; i < notifications.size(); i++) {
+            PushNotification notification = notifications.get(i);
+            List<String> tokens = tokensByUser.getOrDefault(notification.userId(), List.of());
+            if (tokens.isEmpty()) {
+                outcomes[i] = PushOutcome.NO_ACTIVE_DEVICE;
+                continue;
+            }
+            outcomes[i] = PushOutcome.FAILED;
+            for (String token : tokens) {
+                messages.add(new PushMessage(token, notification.title(), notification.body()));
+                owners.add(i);
+            }
+        }
+
+        // 3. 分批发送并汇总结果
+        List<PushResult> results = sendInBatches(messages);
+        Set<String> invalidTokens = new LinkedHashSet<>();
+        int failed = 0;
+        for (int m = 0; m < messages.size(); m++) {
+            PushResult result = results.get(m);
+            if (result.success()) {
+                outcomes[owners.get(m)] = PushOutcome.DELIVERED;
+                continue;
+            }
+            failed++;
+            if (result.tokenInvalid()) {
+                invalidTokens.add(messages.get(m).deviceToken());
+            }
+            log.debug("Failed to send push notification to user {}: {}",
+                notifications.get(owners.get(m)).userId(), result.error());
+        }
+        log.info("Dispatched {} push notifications to {} devices: {} failed, {} invalid tokens",
+            notifications.size(), messages.size(), failed, invalidTokens.size());
+
+        // 4. 停用失效令牌
+        if (!invalidTokens.isEmpty()) {
             try {
-                sendNotification(token.getDeviceToken(), title, body);
-                log.info("Push notification sent to user {} device {}", user.getId(), token.getId());
+                pushTokenService.deactivateInvalidTokens(invalidTokens);
             } catch (Exception e) {
-                log.error("Failed to send push notification to user {} device {}: {}", 
-                         user.getId(), token.getId(), e.getMessage());
+                log.error("Failed to deactivate {} invalid push tokens", invalidTokens.size(), e);
             }
         }
+        return Arrays.asList(outcomes);
+    }
+
+    private List<PushResult> sendInBatches(List<PushMessage> messages) {
+        int batchSize = Math.max(1, Math.min(properties.getBatchSize(), PushSender.MAX_BATCH_SIZE));
+        Semaphore inFlight = new Semaphore(Math.max(1, properties.getMaxConcurrentBatches()));
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getTimeoutMs());
+
+        List<CompletableFuture<List<PushResult>>> futures = new ArrayList<>();
+        for (int from = 0; from < messages.size(); from += batchSize) {
+            List<PushMessage> batch = messages.subList(from, Math.min(from + batchSize, messages.size()));
+            futures.add(sendBatch(batch, inFlight, deadline));
+        }
+
+        List<PushResult> results = new ArrayList<>(messages.size());
+        for (int b = 0; b < futures.size(); b++) {
+            int size = Math.min(batchSize, messages.size() - b * batchSize);
+            results.addAll(awaitBatch(futures.get(b), size, deadline));
+        }
+        return results;
     }
 
-    public void sendNotification(String deviceToken, String title, String body) {
-        if (!isFirebaseInitialized()) {
-            log.warn("Firebase not initialized. Cannot send push notification.");
-            return;
+    private CompletableFuture<List<PushResult>> sendBatch(List<PushMessage> batch, Semaphore inFlight, long deadline) {
+        try {
+            if (!inFlight.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                return CompletableFuture.failedFuture(new IllegalStateException("push dispatch timed out"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
         }
+        try {
+            return pushSender.sendEach(batch).whenComplete((results, error) -> inFlight.release());
+        } catch (RuntimeException e) {
+            inFlight.release();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 
+    private List<PushResult> awaitBatch(CompletableFuture<List<PushResult>> future, int size, long deadline) {
         try {
-            Notification notification = Notification.builder()
-                .setTitle(title)
-                .setBody(body)
-                .build();
-
-            Message message = Message.builder()
-                .setToken(deviceToken)
-                .setNotification(notification)
-                .build();
-
-            String response = FirebaseMessaging.getInstance().send(message);
-            log.debug("Successfully sent push notification: {}", response);
+            List<PushResult> results = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            if (results.size() == size) {
+                return results;
+            }
+            return failedBatch(size, "unexpected result count " + results.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return failedBatch(size, "interrupted");
         } catch (Exception e) {
-            log.error("Failed to send push notification to token {}: {}", deviceToken, e.getMessage());
-            throw new RuntimeException("Failed to send push notification", e);
+            log.error("Push batch of {} messages failed: {}", size, e.getMessage());
+            return failedBatch(size, e.getMessage());
         }
     }
 
-    private boolean isFirebaseInitialized() {
-        return !FirebaseApp.getApps().isEmpty();
+    private List<PushResult> failedBatch(int size, String error) {
+        List<PushResult> results = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            results.add(PushResult.failed(error, false));
+        }
+        return results;
     }
 }
-
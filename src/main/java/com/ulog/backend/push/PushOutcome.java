@@ -0,0 +1,15 @@
+package com.ulog.backend.push;
+
+/**
+ * 用户通知的投递结果
+ */
+public enum PushOutcome {
+    /** 至少一台设备发送成功 */
+    DELIVERED,
+    /** 用户没有有效设备 */
+    NO_ACTIVE_DEVICE,
+    /** 所有设备都发送失败 */
+    FAILED,
+    /** 推送通道未配置，未发送 */
+    DISABLED
+}
@@ -0,0 +1,18 @@
+package com.ulog.backend.push;
+
+/**
+ * 单条推送消息的发送结果
+ * @param success 是否发送成功
+ * @param tokenInvalid 设备令牌是否已永久失效（如应用已卸载），失效的令牌应停用
+ * @param error 失败原因
+ */
+public record PushResult(boolean success, boolean tokenInvalid, String error) {
+
+    public static PushResult ok() {
+        return new PushResult(true, false, null);
+    }
+
+    public static PushResult failed(String error, boolean tokenInvalid) {
+        return new PushResult(false, tokenInvalid, error);
+    }
+}
@@ -0,0 +1,28 @@
+package com.ulog.backend.push;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 推送通道
+ * 默认实现为 FirebasePushSender；测试或本地开发可注册自己的实现替换
+ */
+public interface PushSender {
+
+    /**
+     * 单次调用最多发送的消息数（FCM批量接口上限）
+     */
+    int MAX_BATCH_SIZE = 500;
+
+    /**
+     * 通道是否可用（如Firebase未配置时不可用）
+     */
+    boolean isAvailable();
+
+    /**
+     * 异步批量发送，每条消息内容可以不同
+     * @param messages 不超过 MAX_BATCH_SIZE 条
+     * @return 与 messages 一一对应的发送结果
+     */
+    CompletableFuture<List<PushResult>> sendEach(List<PushMessage> messages);
+}
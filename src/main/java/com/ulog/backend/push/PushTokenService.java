@@ -8,6 +8,8 @@ import com.ulog.backend.domain.user.User;
 import com.ulog.backend.goal.dto.RegisterPushTokenRequest;
 import com.ulog.backend.repository.UserPushTokenRepository;
 import com.ulog.backend.repository.UserRepository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -69,6 +71,19 @@ public class PushTokenService {
         log.info("Deactivated push token {} for user {}", tokenId, userId);
     }
 
+    /**
+     * 停用推送通道判定为永久失效的设备令牌
+     */
+    @Transactional
+    public int deactivateInvalidTokens(Collection<String> deviceTokens) {
+        if (deviceTokens.isEmpty()) {
+            return 0;
+        }
+        int updated = userPushTokenRepository.deactivateByDeviceTokens(deviceTokens, LocalDateTime.now());
+        log.info("Deactivated {} invalid push tokens", updated);
+        return updated;
+    }
+
     @Transactional(readOnly = true)
     public List<UserPushToken> getUserActiveTokens(Long userId) {
         User user = loadUser(userId);
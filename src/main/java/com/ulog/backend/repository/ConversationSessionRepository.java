@@ -2,6 +2,9 @@ package com.ulog.backend.repository;
 
 import com.ulog.backend.domain.conversation.ConversationSession;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -38,5 +41,16 @@ public interface ConversationSessionRepository extends JpaRepository<Conversatio
      * 根据联系人ID查找会话
      */
     Optional<ConversationSession> findByContactId(Long contactId);
+    
+    /**
+     * 更新QA历史滚动摘要（仅当新摘要覆盖的轮次更多时才写入，不改变版本号）
+     */
+    @Modifying
+    @Query("UPDATE ConversationSession s SET s.historySummary = :summary, s.historySummarySeq = :summarySeq "
+        + "WHERE s.sessionId = :sessionId AND s.historySummarySeq < :summarySeq")
+    int updateHistorySummary(
+        @Param("sessionId") String sessionId,
+        @Param("summary") String summary,
+        @Param("summarySeq") int summarySeq
+    );
 }
-
@@ -0,0 +1,20 @@
+package com.ulog.backend.repository;
+
+import com.ulog.backend.domain.ai.LlmResponseCacheEntry;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LlmResponseCacheEntryRepository extends JpaRepository<LlmResponseCacheEntry, String> {
+
+    Optional<LlmResponseCacheEntry> findByCacheKeyAndExpiresAtAfter(String cacheKey, LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM LlmResponseCacheEntry e WHERE e.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
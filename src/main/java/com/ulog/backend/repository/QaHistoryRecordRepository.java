@@ -0,0 +1,40 @@
+package com.ulog.backend.repository;
+
+import com.ulog.backend.domain.conversation.QaHistoryRecord;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface QaHistoryRecordRepository extends JpaRepository<QaHistoryRecord, Long> {
+    
+    /**
+     * 按序号查询指定类型会话的全部QA历史
+     */
+    List<QaHistoryRecord> findBySessionIdAndSessionTypeOrderBySeqAsc(String sessionId, String sessionType);
+    
+    /**
+     * 分页查询会话的QA历史
+     */
+    Page<QaHistoryRecord> findBySessionIdOrderBySeqAsc(String sessionId, Pageable pageable);
+    
+    /**
+     * 查询会话中序号不小于 fromSeq 的最近若干条QA（按序号倒序，只读取一个窗口）
+     */
+    List<QaHistoryRecord> findBySessionIdAndSessionTypeAndSeqGreaterThanEqualOrderBySeqDesc(
+        String sessionId, String sessionType, Integer fromSeq, Pageable pageable);
+    
+    /**
+     * 按序号查询单条QA（走 (session_id, seq) 唯一索引）
+     */
+    Optional<QaHistoryRecord> findBySessionIdAndSeq(String sessionId, Integer seq);
+    
+    /**
+     * 查询会话的最后一条QA
+     */
+    Optional<QaHistoryRecord> findFirstBySessionIdOrderBySeqDesc(String sessionId);
+}
@@ -4,9 +4,12 @@ import com.ulog.backend.domain.goal.ActionPlan;
 import com.ulog.backend.domain.goal.Reminder;
 import com.ulog.backend.domain.goal.enums.ReminderStatus;
 import com.ulog.backend.domain.user.User;
+import com.ulog.backend.goal.dto.ReminderDueTime;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -14,14 +17,45 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface ReminderRepository extends JpaRepository<Reminder, Long> {
 
+    /**
+     * 锁定一批可认领的到期提醒（未认领或租约已过期），已被其他实例锁定的行直接跳过
+     * 需在事务中调用，随后用 claim 写入租约
+     */
+    @Query(value = "SELECT reminder_id FROM reminders " +
+                   "WHERE status = 'PENDING' AND remind_time <= :now " +
+                   "AND (lease_until IS NULL OR lease_until < :now) " +
+                   "ORDER BY remind_time LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<Long> lockClaimableIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * 锁定指定提醒中仍可认领的行（时间轮到期后按ID认领），已被其他实例锁定或认领的直接跳过
+     */
+    @Query(value = "SELECT reminder_id FROM reminders " +
+                   "WHERE reminder_id IN (:ids) AND status = 'PENDING' AND remind_time <= :now " +
+                   "AND (lease_until IS NULL OR lease_until < :now) " +
+                   "FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<Long> lockClaimableIdsIn(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Query("SELECT new com.ulog.backend.goal.dto.ReminderDueTime(r.id, r.remindTime) FROM Reminder r " +
+           "WHERE r.status = :status AND r.remindTime <= :until")
+    List<ReminderDueTime> findDueTimesBefore(@Param("until") LocalDateTime until,
+                                             @Param("status") ReminderStatus status);
+
+    @Modifying
+    @Query("UPDATE Reminder r SET r.claimedBy = :owner, r.leaseUntil = :leaseUntil WHERE r.id IN :ids")
+    int claim(@Param("ids") Collection<Long> ids,
+              @Param("owner") String owner,
+              @Param("leaseUntil") LocalDateTime leaseUntil);
+
     @Query("SELECT r FROM Reminder r " +
            "JOIN FETCH r.actionPlan ap " +
            "JOIN FETCH ap.goal g " +
            "JOIN FETCH g.contact c " +
            "JOIN FETCH r.user u " +
-           "WHERE r.remindTime <= :now AND r.status = :status")
-    List<Reminder> findPendingRemindersBeforeTime(@Param("now") LocalDateTime now, 
-                                                    @Param("status") ReminderStatus status);
+           "WHERE r.id IN :ids")
+    List<Reminder> findAllForDispatch(@Param("ids") Collection<Long> ids);
 
     @Query("SELECT r FROM Reminder r " +
            "JOIN FETCH r.actionPlan ap " +
@@ -34,5 +68,17 @@ public interface ReminderRepository extends JpaRepository<Reminder, Long> {
                                                  @Param("status") ReminderStatus status);
 
     List<Reminder> findAllByActionPlan(ActionPlan actionPlan);
+
+    /**
+     * 批量更新本实例认领的提醒状态；租约过期后被其他实例重新认领的提醒不会被覆盖
+     */
+    @Modifying
+    @Query("UPDATE Reminder r SET r.status = :status, r.sentAt = :sentAt, r.leaseUntil = null, r.updatedAt = :now " +
+           "WHERE r.id IN :ids AND r.claimedBy = :owner AND r.status = com.ulog.backend.domain.goal.enums.ReminderStatus.PENDING")
+    int updateClaimedStatus(@Param("ids") Collection<Long> ids,
+                            @Param("owner") String owner,
+                            @Param("status") ReminderStatus status,
+                            @Param("sentAt") LocalDateTime sentAt,
+                            @Param("now") LocalDateTime now);
 }
 
@@ -3,6 +3,9 @@ package com.ulog.backend.repository;
 import com.ulog.backend.conversation.enums.SessionStatus;
 import com.ulog.backend.domain.conversation.UserConversationSession;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -30,5 +33,16 @@ public interface UserConversationSessionRepository extends JpaRepository<UserCon
      * 检查用户是否有活跃会话
      */
     boolean existsByUserIdAndStatusIn(Long userId, List<SessionStatus> statuses);
+    
+    /**
+     * 更新QA历史滚动摘要（仅当新摘要覆盖的轮次更多时才写入，不改变版本号）
+     */
+    @Modifying
+    @Query("UPDATE UserConversationSession s SET s.historySummary = :summary, s.historySummarySeq = :summarySeq "
+        + "WHERE s.sessionId = :sessionId AND s.historySummarySeq < :summarySeq")
+    int updateHistorySummary(
+        @Param("sessionId") String sessionId,
+        @Param("summary") String summary,
+        @Param("summarySeq") int summarySeq
+    );
 }
-
@@ -2,9 +2,14 @@ package com.ulog.backend.repository;
 
 import com.ulog.backend.domain.goal.UserPushToken;
 import com.ulog.backend.domain.user.User;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
@@ -13,5 +18,14 @@ public interface UserPushTokenRepository extends JpaRepository<UserPushToken, Lo
     List<UserPushToken> findAllByUserAndIsActiveTrue(User user);
 
     Optional<UserPushToken> findByDeviceToken(String deviceToken);
+
+    @Query("SELECT t FROM UserPushToken t WHERE t.user.id IN :userIds AND t.isActive = true")
+    List<UserPushToken> findActiveByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    @Modifying
+    @Query("UPDATE UserPushToken t SET t.isActive = false, t.updatedAt = :now "
+        + "WHERE t.deviceToken IN :deviceTokens AND t.isActive = true")
+    int deactivateByDeviceTokens(@Param("deviceTokens") Collection<String> deviceTokens,
+                                 @Param("now") LocalDateTime now);
 }
 
@@ -1,19 +1,31 @@
 package com.ulog.backend.security;
 
+import com.ulog.backend.config.SecurityCacheProperties;
 import com.ulog.backend.domain.user.User;
 import com.ulog.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
+    private static final Logger log = LoggerFactory.getLogger(CustomUserDetailsService.class);
+
     private final UserRepository userRepository;
+    private final SecurityCacheProperties cacheProperties;
+    // 按用户ID缓存已认证用户，避免每个请求都查询一次用户表
+    private final ExpiringCache<Long, UserPrincipal> principalCache;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, SecurityCacheProperties cacheProperties) {
         this.userRepository = userRepository;
+        this.cacheProperties = cacheProperties;
+        this.principalCache = new ExpiringCache<>(cacheProperties.getPrincipalMaxEntries());
     }
 
     @Override
@@ -24,6 +36,29 @@ public class CustomUserDetailsService implements UserDetailsService {
     }
 
     public UserDetails loadUserById(Long id) {
+        if (!cacheProperties.isEnabled()) {
+            return loadActiveUser(id);
+        }
+        UserPrincipal cached = principalCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        UserPrincipal principal = loadActiveUser(id);
+        principalCache.put(id, principal,
+            System.currentTimeMillis() + cacheProperties.getPrincipalTtlSeconds() * 1000);
+        return principal;
+    }
+
+    /**
+     * 用户认证状态变化的事务提交后清除缓存（没有事务时立即清除）
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserAuthStateChanged(UserAuthStateChangedEvent event) {
+        principalCache.invalidate(event.getUserId());
+        log.debug("Evicted cached principal for user {} ({})", event.getUserId(), event.getReason());
+    }
+
+    private UserPrincipal loadActiveUser(Long id) {
         User user = userRepository.findActiveById(id)
             .orElseThrow(() -> new UsernameNotFoundException("User not found for id: " + id));
         return new UserPrincipal(user);
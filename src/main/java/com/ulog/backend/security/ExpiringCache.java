@@ -0,0 +1,60 @@
+package com.ulog.backend.security;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 有界的过期缓存，读路径无锁
+ * 写入时若已达上限，先清理过期条目，仍然超限则随意淘汰约十分之一的条目
+ */
+final class ExpiringCache<K, V> {
+
+    private final int maxEntries;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    ExpiringCache(int maxEntries) {
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtMillis() <= System.currentTimeMillis()) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value();
+    }
+
+    void put(K key, V value, long expiresAtMillis) {
+        if (entries.size() >= maxEntries) {
+            shrink();
+        }
+        entries.put(key, new Entry<>(value, expiresAtMillis));
+    }
+
+    void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void shrink() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAtMillis() <= now);
+        int excess = entries.size() - maxEntries + Math.max(1, maxEntries / 10);
+        Iterator<K> keys = entries.keySet().iterator();
+        while (excess-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAtMillis) {
+    }
+}
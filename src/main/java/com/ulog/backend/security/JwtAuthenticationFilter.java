@@ -40,12 +40,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String token = resolveToken(request);
         if (token != null) {
             try {
-                String type = tokenProvider.getTokenType(token);
-                if (!"access".equals(type)) {
+                VerifiedToken verified = tokenProvider.verify(token);
+                if (!"access".equals(verified.type())) {
                     throw new ApiException(ErrorCode.TOKEN_INVALID, "invalid token type");
                 }
-                Long userId = tokenProvider.getUserIdFromToken(token);
-                UserDetails userDetails = userDetailsService.loadUserById(userId);
+                UserDetails userDetails = userDetailsService.loadUserById(verified.userId());
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authentication);
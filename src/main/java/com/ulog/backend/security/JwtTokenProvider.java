@@ -3,9 +3,11 @@ package com.ulog.backend.security;
 import com.ulog.backend.common.api.ErrorCode;
 import com.ulog.backend.common.exception.ApiException;
 import com.ulog.backend.config.JwtProperties;
+import com.ulog.backend.config.SecurityCacheProperties;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
@@ -23,14 +25,21 @@ import org.springframework.stereotype.Component;
 public class JwtTokenProvider {
 
     private final JwtProperties properties;
+    private final SecurityCacheProperties cacheProperties;
     private final Key signingKey;
+    private final JwtParser parser;
+    // 已验签的access token，条目在token过期时失效
+    private final ExpiringCache<String, VerifiedToken> verifiedTokens;
 
-    public JwtTokenProvider(JwtProperties properties) {
+    public JwtTokenProvider(JwtProperties properties, SecurityCacheProperties cacheProperties) {
         this.properties = properties;
+        this.cacheProperties = cacheProperties;
         if (properties.getSecret() == null || properties.getSecret().length() < 32) {
             throw new IllegalStateException("JWT secret must be at least 32 characters");
         }
         this.signingKey = Keys.hmacShaKeyFor(properties.getSecret().getBytes());
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.verifiedTokens = new ExpiringCache<>(cacheProperties.getTokenMaxEntries());
     }
 
     public String generateAccessToken(Long userId) {
@@ -59,12 +68,35 @@ public class JwtTokenProvider {
     }
 
     public Long getUserIdFromToken(String token) {
-        return Long.parseLong(parseClaims(token).getBody().getSubject());
+        return verify(token).userId();
     }
 
     public String getTokenType(String token) {
-        Object type = parseClaims(token).getBody().get("type");
-        return type == null ? "access" : type.toString();
+        return verify(token).type();
+    }
+
+    /**
+     * 验签并取出用户ID和token类型
+     * access token的验签结果缓存到其过期时间，同一token的后续请求不再重复HMAC校验和解析
+     */
+    public VerifiedToken verify(String token) {
+        if (cacheProperties.isEnabled()) {
+            VerifiedToken cached = verifiedTokens.get(token);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        Claims claims = parseClaims(token).getBody();
+        Object type = claims.get("type");
+        VerifiedToken verified = new VerifiedToken(
+            Long.parseLong(claims.getSubject()),
+            type == null ? "access" : type.toString(),
+            claims.getExpiration());
+        if (cacheProperties.isEnabled() && "access".equals(verified.type()) && verified.expiration() != null) {
+            verifiedTokens.put(token, verified, verified.expiration().getTime());
+        }
+        return verified;
     }
 
     public boolean isExpired(String token) {
@@ -78,10 +110,7 @@ public class JwtTokenProvider {
 
     public Jws<Claims> parseClaims(String token) {
         try {
-            return Jwts.parserBuilder()
-                .setSigningKey(signingKey)
-                .build()
-                .parseClaimsJws(token);
+            return parser.parseClaimsJws(token);
         } catch (ExpiredJwtException ex) {
             throw new ApiException(ErrorCode.TOKEN_EXPIRED, ErrorCode.TOKEN_EXPIRED.getDefaultMessage());
         } catch (SecurityException | MalformedJwtException | IllegalArgumentException ex) {
@@ -0,0 +1,32 @@
+package com.ulog.backend.security;
+
+/**
+ * 用户认证相关状态变化事件
+ * 账号删除、锁定/解锁、修改密码、状态变更时发布，事务提交后清除该用户的认证缓存
+ */
+public class UserAuthStateChangedEvent {
+
+    private final Long userId;
+    private final String reason;
+
+    public UserAuthStateChangedEvent(Long userId, String reason) {
+        this.userId = userId;
+        this.reason = reason;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return "UserAuthStateChangedEvent{" +
+                "userId=" + userId +
+                ", reason='" + reason + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,9 @@
+package com.ulog.backend.security;
+
+import java.util.Date;
+
+/**
+ * 验签通过的JWT中认证需要的字段
+ */
+public record VerifiedToken(Long userId, String type, Date expiration) {
+}
@@ -14,6 +14,7 @@ import com.ulog.backend.repository.RefreshTokenRepository;
 import com.ulog.backend.repository.RelationshipGoalRepository;
 import com.ulog.backend.repository.UserPushTokenRepository;
 import com.ulog.backend.repository.UserRepository;
+import com.ulog.backend.security.UserAuthStateChangedEvent;
 import com.ulog.backend.user.dto.ChangePasswordRequest;
 import com.ulog.backend.user.dto.DeleteAccountRequest;
 import com.ulog.backend.user.dto.UserResponse;
@@ -106,6 +107,7 @@ public class UserService {
             throw new BadRequestException("new password must differ from current password");
         }
         user.setPasswordHash(passwordEncoder.encode(request.getNewPassword()));
+        eventPublisher.publishEvent(new UserAuthStateChangedEvent(userId, "password_change"));
         
         // 记录密码修改操作
         operationLogService.logOperation(userId, "password_change", "User changed password");
@@ -136,6 +138,7 @@ public class UserService {
         user.setDeleted(Boolean.TRUE);
         user.setStatus(0); // 设置为非活跃状态
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserAuthStateChangedEvent(userId, "account_delete"));
         
         log.info("User account deleted: userId={}, phone={}", userId, user.getPhone());
     }
@@ -1,30 +1,57 @@
 package com.ulog.backend.util;
 
 import com.ulog.backend.common.exception.RateLimitException;
+import com.ulog.backend.common.store.RateLimitStore;
 import java.time.Duration;
-import java.time.Instant;
-import java.util.ArrayDeque;
-import java.util.Deque;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+/**
+ * 限流服务（GCRA，通用信元速率算法）
+ * 限流状态保存在 RateLimitStore 中：单实例用内存存储，多实例通过 state.store=jdbc 共用数据库中的配额
+ */
 @Component
 public class RateLimiterService {
 
-    private final Map<String, Deque<Long>> buckets = new ConcurrentHashMap<>();
+    private static final Logger log = LoggerFactory.getLogger(RateLimiterService.class);
 
+    private final RateLimitStore store;
+
+    public RateLimiterService(RateLimitStore store) {
+        this.store = store;
+    }
+
+    /**
+     * 检查并记录一次请求，超过限制时抛出 RateLimitException
+     */
     public void checkRate(String key, int maxRequests, Duration window) {
-        long now = Instant.now().toEpochMilli();
-        Deque<Long> queue = buckets.computeIfAbsent(key, k -> new ArrayDeque<>());
-        synchronized (queue) {
-            while (!queue.isEmpty() && now - queue.peekFirst() > window.toMillis()) {
-                queue.pollFirst();
-            }
-            if (queue.size() >= maxRequests) {
-                throw new RateLimitException("too many requests");
+        if (!tryAcquire(key, maxRequests, window)) {
+            throw new RateLimitException("too many requests");
+        }
+    }
+
+    /**
+     * 检查并记录一次请求
+     * @return 是否允许本次请求
+     */
+    public boolean tryAcquire(String key, int maxRequests, Duration window) {
+        return store.tryAcquire(key, maxRequests, window);
+    }
+
+    /**
+     * 定时清理空闲key（TAT已过去，配额已完全恢复）
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdleKeys() {
+        try {
+            int removed = store.evictIdle();
+            if (removed > 0) {
+                log.debug("Rate limiter evicted {} idle keys", removed);
             }
-            queue.addLast(now);
+        } catch (Exception e) {
+            log.warn("Failed to evict idle rate limit keys", e);
         }
     }
 }
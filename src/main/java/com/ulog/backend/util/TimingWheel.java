@@ -0,0 +1,157 @@
+package com.ulog.backend.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * 分层时间轮
+ * 第0层每格 tickMs，第 i 层每格 tickMs * wheelSize^i；定时任务放在能容纳它的最低一层，
+ * 高层的格子到期时把任务下沉到低层，最终在第0层到期触发。增删为O(1)，推进一格只处理一个格子
+ * 超出最高层范围的任务放在溢出区，最高层每转过一格重新尝试放入
+ * 到期时间按 tickMs 向上取整，任务不会早于到期时间触发，最多晚一格
+ * 非线程安全，由调用方加锁
+ */
+public class TimingWheel<K, V> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final long[] levelTickMs;
+    private final List<List<Map<K, Timer<V>>>> levels;
+    private final Map<K, Timer<V>> overflow = new LinkedHashMap<>();
+    // key -> 所在的格子，用于删除和替换
+    private final Map<K, Map<K, Timer<V>>> index = new HashMap<>();
+    private long currentTime;
+
+    public TimingWheel(long tickMs, int wheelSize, int levelCount, long startMs) {
+        if (tickMs <= 0 || wheelSize < 2 || levelCount < 1) {
+            throw new IllegalArgumentException("invalid timing wheel parameters");
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.levelTickMs = new long[levelCount];
+        this.levels = new ArrayList<>(levelCount);
+        long levelTick = tickMs;
+        for (int i = 0; i < levelCount; i++) {
+            levelTickMs[i] = levelTick;
+            List<Map<K, Timer<V>>> buckets = new ArrayList<>(wheelSize);
+            for (int b = 0; b < wheelSize; b++) {
+                buckets.add(new LinkedHashMap<>());
+            }
+            levels.add(buckets);
+            levelTick = Math.multiplyExact(levelTick, wheelSize);
+        }
+        this.currentTime = Math.floorDiv(startMs, tickMs) * tickMs;
+    }
+
+    /**
+     * 添加（或替换同key的）定时任务
+     * @return false 表示任务已到期，未加入时间轮，调用方应立即执行
+     */
+    public boolean schedule(K key, long expirationMs, V value) {
+        remove(key);
+        long expiration = Math.floorDiv(expirationMs + tickMs - 1, tickMs) * tickMs;
+        if (expiration <= currentTime) {
+            return false;
+        }
+        place(key, new Timer<>(expiration, value));
+        return true;
+    }
+
+    /**
+     * 取消定时任务
+     * @return 是否存在该任务
+     */
+    public boolean remove(K key) {
+        Map<K, Timer<V>> bucket = index.remove(key);
+        return bucket != null && bucket.remove(key) != null;
+    }
+
+    public boolean contains(K key) {
+        return index.containsKey(key);
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public void clear() {
+        for (List<Map<K, Timer<V>>> level : levels) {
+            level.forEach(Map::clear);
+        }
+        overflow.clear();
+        index.clear();
+    }
+
+    public long getCurrentTime() {
+        return currentTime;
+    }
+
+    /**
+     * 推进到 nowMs，依次回调到期的任务
+     */
+    public void advanceTo(long nowMs, BiConsumer<K, V> expired) {
+        while (currentTime + tickMs <= nowMs) {
+            currentTime += tickMs;
+            // 先从高层往低层下沉，再触发第0层当前格
+            for (int level = levels.size() - 1; level >= 1; level--) {
+                if (currentTime % levelTickMs[level] == 0) {
+                    cascade(bucketAt(level, currentTime), expired);
+                    if (level == levels.size() - 1 && !overflow.isEmpty()) {
+                        cascade(overflow, expired);
+                    }
+                }
+            }
+            Map<K, Timer<V>> bucket = bucketAt(0, currentTime);
+            if (!bucket.isEmpty()) {
+                List<Map.Entry<K, Timer<V>>> due = new ArrayList<>(bucket.entrySet());
+                bucket.clear();
+                for (Map.Entry<K, Timer<V>> entry : due) {
+                    index.remove(entry.getKey());
+                    expired.accept(entry.getKey(), entry.getValue().value());
+                }
+            }
+        }
+    }
+
+    private void cascade(Map<K, Timer<V>> bucket, BiConsumer<K, V> expired) {
+        if (bucket.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<K, Timer<V>>> entries = new ArrayList<>(bucket.entrySet());
+        bucket.clear();
+        for (Map.Entry<K, Timer<V>> entry : entries) {
+            index.remove(entry.getKey());
+            if (entry.getValue().expiration() <= currentTime) {
+                expired.accept(entry.getKey(), entry.getValue().value());
+            } else {
+                place(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void place(K key, Timer<V> timer) {
+        for (int level = 0; level < levels.size(); level++) {
+            long levelTick = levelTickMs[level];
+            // 只能放进本层尚未转到的格子
+            if (Math.floorDiv(timer.expiration(), levelTick) - Math.floorDiv(currentTime, levelTick) < wheelSize) {
+                Map<K, Timer<V>> bucket = bucketAt(level, timer.expiration());
+                bucket.put(key, timer);
+                index.put(key, bucket);
+                return;
+            }
+        }
+        overflow.put(key, timer);
+        index.put(key, overflow);
+    }
+
+    private Map<K, Timer<V>> bucketAt(int level, long time) {
+        return levels.get(level).get((int) Math.floorMod(Math.floorDiv(time, levelTickMs[level]), (long) wheelSize));
+    }
+
+    private record Timer<V>(long expiration, V value) {
+    }
+}
@@ -0,0 +1,87 @@
+package db.migration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 把会话表 qa_history JSON 字段中的历史回填到 qa_history_entries
+ * 用Java迁移而不是SQL（JSON_TABLE），以便在MySQL和H2上都能执行；原字段保留不删除，便于回滚
+ * 直接按JSON节点读取，不依赖应用中的DTO类，避免DTO日后变更影响历史迁移
+ */
+public class V13__backfill_qa_history_entries extends BaseJavaMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(V13__backfill_qa_history_entries.class);
+
+    private static final String INSERT_SQL = "INSERT INTO qa_history_entries "
+        + "(session_id, session_type, seq, question, answer, supplement_question, supplement_answer, needs_more_info, qa_timestamp) "
+        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        int contactRows = backfill(connection, "conversation_sessions", "CONTACT");
+        int userRows = backfill(connection, "user_conversation_sessions", "USER");
+        log.info("Backfilled qa_history_entries: {} contact entries, {} user entries", contactRows, userRows);
+    }
+
+    private int backfill(Connection connection, String table, String sessionType) throws Exception {
+        int total = 0;
+        try (Statement select = connection.createStatement();
+             ResultSet rs = select.executeQuery(
+                 "SELECT session_id, qa_history FROM " + table + " WHERE qa_history IS NOT NULL");
+             PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+
+            while (rs.next()) {
+                String sessionId = rs.getString(1);
+                String json = rs.getString(2);
+                if (json == null || json.trim().isEmpty()) {
+                    continue;
+                }
+
+                JsonNode entries;
+                try {
+                    entries = objectMapper.readTree(json);
+                } catch (Exception e) {
+                    log.warn("Skipping unparseable qa_history for session {}: {}", sessionId, e.getMessage());
+                    continue;
+                }
+                if (!entries.isArray()) {
+                    log.warn("Skipping non-array qa_history for session {}", sessionId);
+                    continue;
+                }
+
+                for (int seq = 0; seq < entries.size(); seq++) {
+                    JsonNode entry = entries.get(seq);
+                    insert.setString(1, sessionId);
+                    insert.setString(2, sessionType);
+                    insert.setInt(3, seq);
+                    insert.setString(4, text(entry, "question"));
+                    insert.setString(5, text(entry, "answer"));
+                    insert.setString(6, text(entry, "supplementQuestion"));
+                    insert.setString(7, text(entry, "supplementAnswer"));
+                    insert.setBoolean(8, entry.path("needsMoreInfo").asBoolean(false));
+                    insert.setString(9, text(entry, "timestamp"));
+                    insert.addBatch();
+                    total++;
+                }
+                insert.executeBatch();
+            }
+        }
+        return total;
+    }
+
+    private String text(JsonNode entry, String field) {
+        JsonNode value = entry.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+}
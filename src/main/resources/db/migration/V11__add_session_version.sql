@@ -0,0 +1,6 @@
+-- 会话表增加乐观锁版本号
+-- QA/信息收集流程拆分为"短读事务 + 无事务LLM调用 + 短写事务"，写入时通过版本号检测并发修改
+
+ALTER TABLE conversation_sessions ADD COLUMN version BIGINT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号';
+
+ALTER TABLE user_conversation_sessions ADD COLUMN version BIGINT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号';
@@ -0,0 +1,23 @@
+-- QA对话历史明细表（替代会话表中的qa_history JSON字段）
+-- 每轮问答一行，追加为单行INSERT，按 (session_id, seq) 索引分页读取
+CREATE TABLE IF NOT EXISTS qa_history_entries (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    session_id VARCHAR(64) NOT NULL COMMENT '会话ID（联系人会话或用户会话）',
+    session_type VARCHAR(20) NOT NULL COMMENT '会话类型：CONTACT/USER',
+    seq INT NOT NULL COMMENT '会话内序号，从0开始，与Pin的qa_index一致',
+    
+    -- 问答内容（与QaHistoryEntry结构一致）
+    question TEXT COMMENT '用户问题',
+    answer TEXT COMMENT 'AI回答',
+    supplement_question TEXT COMMENT 'AI的补充问题（如果需要补充信息）',
+    supplement_answer TEXT COMMENT '用户的补充回答',
+    needs_more_info TINYINT DEFAULT 0 COMMENT '是否需要补充信息',
+    
+    -- 时间戳
+    qa_timestamp VARCHAR(50) COMMENT 'QA发生的时间（QaHistoryEntry.timestamp）',
+    created_at DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '记录创建时间',
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    
+    -- 同一会话内序号唯一，并发追加时由唯一键兜底
+    UNIQUE KEY uk_qa_history_session_seq (session_id, seq)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='QA对话历史明细表';
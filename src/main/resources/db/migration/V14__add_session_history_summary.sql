@@ -0,0 +1,10 @@
+-- 会话表增加QA历史滚动摘要
+-- 较早的QA轮次被折叠为摘要，history_summary_seq 表示摘要已覆盖的轮次数（qa_history_entries.seq < 该值）
+
+ALTER TABLE conversation_sessions ADD COLUMN history_summary TEXT NULL COMMENT 'QA历史滚动摘要';
+
+ALTER TABLE conversation_sessions ADD COLUMN history_summary_seq INT NOT NULL DEFAULT 0 COMMENT '摘要已覆盖的QA轮次数';
+
+ALTER TABLE user_conversation_sessions ADD COLUMN history_summary TEXT NULL COMMENT 'QA历史滚动摘要';
+
+ALTER TABLE user_conversation_sessions ADD COLUMN history_summary_seq INT NOT NULL DEFAULT 0 COMMENT '摘要已覆盖的QA轮次数';
@@ -0,0 +1,11 @@
+-- LLM响应缓存表（LlmResponseCache的持久化层）
+-- 以模型 + 温度 + 规范化消息的SHA-256作为键，缓存确定性调用的完整响应，过期记录由定时任务清理
+
+CREATE TABLE llm_response_cache (
+    cache_key CHAR(64) NOT NULL PRIMARY KEY COMMENT '请求指纹（SHA-256十六进制）',
+    model VARCHAR(64) NOT NULL COMMENT '模型名称',
+    response TEXT NOT NULL COMMENT 'ChatCompletionResponse JSON',
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL COMMENT '过期时间',
+    INDEX idx_llm_cache_expires_at (expires_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,16 @@
+-- 多实例共享的短期状态（state.store=jdbc 时使用）
+-- rate_limit_buckets: 限流GCRA状态，每个key一行，tat为理论到达时间（毫秒时间戳），tat早于当前时间的行可删除
+-- ephemeral_codes: 短信验证码等带过期时间的临时值
+
+CREATE TABLE rate_limit_buckets (
+    bucket_key VARCHAR(191) NOT NULL PRIMARY KEY COMMENT '限流key（过长的key取SHA-256）',
+    tat BIGINT NOT NULL COMMENT '理论到达时间（epoch毫秒）',
+    INDEX idx_rate_limit_buckets_tat (tat)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
+
+CREATE TABLE ephemeral_codes (
+    code_key VARCHAR(191) NOT NULL PRIMARY KEY COMMENT '如 sms:+8613800000000',
+    code_value VARCHAR(64) NOT NULL,
+    expires_at BIGINT NOT NULL COMMENT '过期时间（epoch毫秒）',
+    INDEX idx_ephemeral_codes_expires_at (expires_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,9 @@
+-- 提醒表增加认领租约，多实例并行发送提醒时互不重复
+-- 实例用 SELECT ... FOR UPDATE SKIP LOCKED 认领到期提醒并写入 claimed_by/lease_until；
+-- 实例在租约到期前崩溃时，提醒在 lease_until 之后可被其他实例重新认领
+
+ALTER TABLE reminders ADD COLUMN claimed_by VARCHAR(128) NULL COMMENT '认领该提醒的实例';
+
+ALTER TABLE reminders ADD COLUMN lease_until DATETIME NULL COMMENT '认领租约到期时间';
+
+CREATE INDEX idx_reminders_status_time ON reminders (status, remind_time);
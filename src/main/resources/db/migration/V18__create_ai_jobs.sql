@@ -0,0 +1,23 @@
+-- AI后处理任务表（事务性outbox）
+-- 业务变更与任务在同一事务中写入，后台工作线程用 SELECT ... FOR UPDATE SKIP LOCKED 认领并加租约执行，
+-- 失败按指数退避重试；实例重启或崩溃后未完成的任务在租约到期后重新认领
+-- dedupe_key = 任务类型:实体ID:描述哈希，只在未完成的任务上保持唯一（完成/作废时置空）
+
+CREATE TABLE ai_jobs (
+    job_id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    job_type VARCHAR(50) NOT NULL COMMENT '任务类型',
+    entity_id BIGINT NOT NULL COMMENT '联系人或用户ID',
+    payload TEXT NULL COMMENT '任务参数（如描述）',
+    dedupe_key VARCHAR(191) NULL COMMENT '去重键，任务结束后置空',
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING' COMMENT 'PENDING/RUNNING/DONE/FAILED/SUPERSEDED',
+    attempts INT NOT NULL DEFAULT 0 COMMENT '已执行次数',
+    available_at DATETIME NOT NULL COMMENT '最早可执行时间（去抖、退避）',
+    claimed_by VARCHAR(128) NULL COMMENT '认领该任务的实例',
+    lease_until DATETIME NULL COMMENT '认领租约到期时间',
+    last_error VARCHAR(1000) NULL,
+    created_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE KEY uk_ai_jobs_dedupe (dedupe_key),
+    INDEX idx_ai_jobs_status_available (status, available_at),
+    INDEX idx_ai_jobs_entity (job_type, entity_id, status)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
@@ -0,0 +1,14 @@
+-- 按用户按天汇总的LLM token用量
+-- 各实例在内存中累加，定时用 INSERT ... ON DUPLICATE KEY UPDATE 把增量加到当天的行上；配额检查读取当天和当月的合计
+
+CREATE TABLE llm_usage_daily (
+    user_id BIGINT NOT NULL,
+    usage_date DATE NOT NULL,
+    prompt_tokens BIGINT NOT NULL DEFAULT 0 COMMENT '输入token数（含缓存命中部分）',
+    completion_tokens BIGINT NOT NULL DEFAULT 0 COMMENT '输出token数',
+    cache_hit_tokens BIGINT NOT NULL DEFAULT 0 COMMENT '命中DeepSeek上下文缓存的输入token数',
+    request_count BIGINT NOT NULL DEFAULT 0 COMMENT '上游调用次数',
+    updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (user_id, usage_date),
+    INDEX idx_llm_usage_daily_date (usage_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci;
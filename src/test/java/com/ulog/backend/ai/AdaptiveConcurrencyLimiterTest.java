@@ -0,0 +1,82 @@
+package com.ulog.backend.ai;
+
+import com.ulog.backend.common.exception.ServiceBusyException;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void increasesLimitWhenSaturatedCallsSucceed() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 4);
+
+        limiter.run(() -> Mono.just("ok")).block();
+
+        assertThat(limiter.getLimit()).isEqualTo(2);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void decreasesLimitOnOverloadOnly() {
+        AdaptiveConcurrencyLimiter limiter = limiter(8, 10);
+
+        // 长回复只是慢，不是拥塞信号
+        limiter.run(() -> Mono.just("ok").delayElement(Duration.ofMillis(100))).block();
+        limiter.run(() -> Mono.just("ok")).block();
+        assertThat(limiter.getLimit()).isEqualTo(8);
+
+        assertThatThrownBy(() -> limiter.run(() -> Mono.error(
+                WebClientResponseException.create(429, "Too Many Requests", null, null, null))).block())
+            .isInstanceOf(WebClientResponseException.class);
+        assertThat(limiter.getLimit()).isEqualTo(4);
+
+        assertThatThrownBy(() -> limiter.run(() -> Mono.error(new IllegalStateException("bad request"))).block())
+            .isInstanceOf(IllegalStateException.class);
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    void rejectsWhenQueueIsFullOrWaitTooLong() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1);
+        Sinks.One<String> first = Sinks.one();
+        limiter.run(first::asMono).subscribe();
+        Disposable queued = limiter.run(() -> Mono.just("queued")).subscribe();
+
+        assertThat(limiter.getQueued()).isEqualTo(1);
+        assertThatThrownBy(() -> limiter.run(() -> Mono.just("rejected")).block())
+            .isInstanceOf(ServiceBusyException.class);
+        assertThat(limiter.getRejectedTotal()).isEqualTo(1);
+
+        queued.dispose();
+        assertThatThrownBy(() -> limiter.run(() -> Mono.just("timed out")).block())
+            .isInstanceOf(ServiceBusyException.class);
+        assertThat(limiter.getRejectedTotal()).isEqualTo(2);
+        first.tryEmitValue("first");
+    }
+
+    @Test
+    void cancelledWaiterDoesNotHoldAPermit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1);
+        Sinks.One<String> first = Sinks.one();
+        Disposable running = limiter.run(first::asMono).subscribe();
+        Disposable queued = limiter.run(() -> Mono.just("queued")).subscribe();
+
+        queued.dispose();
+        assertThat(limiter.getQueued()).isZero();
+
+        running.dispose();
+        assertThat(limiter.getInFlight()).isZero();
+        assertThat(limiter.run(() -> Mono.just("next")).block()).isEqualTo("next");
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int initialLimit, int maxLimit) {
+        return new AdaptiveConcurrencyLimiter("test", initialLimit, 1, maxLimit, 1, Duration.ofMillis(200), 0.5);
+    }
+}
@@ -0,0 +1,109 @@
+package com.ulog.backend.ai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ulog.backend.ai.dto.ChatCompletionRequest;
+import com.ulog.backend.ai.dto.ChatCompletionResponse;
+import com.ulog.backend.ai.dto.ContactEnrichment;
+import com.ulog.backend.config.DeepseekProperties;
+import com.ulog.backend.domain.contact.Contact;
+import com.ulog.backend.domain.user.User;
+import com.ulog.backend.repository.ContactRepository;
+import com.ulog.backend.repository.UserRepository;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ContactEnrichmentServiceImplTest {
+
+    private DeepseekClient deepseekClient;
+    private ContactEnrichmentServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        deepseekClient = mock(DeepseekClient.class);
+        ContactRepository contactRepository = mock(ContactRepository.class);
+        UserRepository userRepository = mock(UserRepository.class);
+
+        User owner = mock(User.class);
+        when(owner.getId()).thenReturn(7L);
+        User user = new User("13800000000", "hash", "me");
+        user.setDescription("程序员，喜欢跑步");
+        when(contactRepository.findById(1L)).thenReturn(Optional.of(new Contact(owner, "小王", "大学同学，喜欢爬山")));
+        when(userRepository.findById(7L)).thenReturn(Optional.of(user));
+
+        service = new ContactEnrichmentServiceImpl(deepseekClient, new DeepseekProperties(),
+            contactRepository, userRepository, new ObjectMapper());
+    }
+
+    @Test
+    void parsesAllArtifactsFromOneResponse() {
+        ChatCompletionResponse response = respondWith("""
+            ```json
+            {
+              "selfValue": {"selfEsteem": 3.5, "selfAcceptance": 4.0, "selfEfficacy": 3.0,
+                            "existentialValue": 4.5, "selfConsistency": 3.8},
+              "summary": "- 大学同学",
+              "interactionSuggestions": "### 1. 行为倾向推断\\n喜欢户外",
+              "relationshipAnalysis": "### 1. 沟通开放性\\n良好"
+            }
+            ```""");
+
+        ContactEnrichment enrichment = service.generateContactEnrichment(1L).block();
+
+        assertThat(enrichment).isNotNull();
+        assertThat(enrichment.getSelfValue().toString()).isEqualTo("3.5,4.0,3.0,4.5,3.8");
+        assertThat(enrichment.getInteractionSuggestions()).startsWith("### 1. 行为倾向推断\n");
+        assertThat(enrichment.getRelationshipAnalysis()).isEqualTo("### 1. 沟通开放性\n良好");
+        assertThat(cacheable().test(response)).isTrue();
+    }
+
+    @Test
+    void missingFieldIsReportedAsParseFailure() {
+        respondWith("""
+            {"selfValue": {"selfEsteem": 3.5, "selfAcceptance": 4.0, "selfEfficacy": 3.0,
+                           "existentialValue": 4.5, "selfConsistency": 3.8},
+             "interactionSuggestions": "### 1. 行为倾向推断"}""");
+
+        assertThatThrownBy(() -> service.generateContactEnrichment(1L).block())
+            .isInstanceOf(ContactEnrichmentParseException.class);
+    }
+
+    @Test
+    void nonJsonResponseIsReportedAsParseFailure() {
+        ChatCompletionResponse response = respondWith("抱歉，我无法完成这个任务。");
+
+        assertThatThrownBy(() -> service.generateContactEnrichment(1L).block())
+            .isInstanceOf(ContactEnrichmentParseException.class);
+        // 解析不了的回复不能进缓存，重试时要重新调用
+        assertThat(cacheable().test(response)).isFalse();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Predicate<ChatCompletionResponse> cacheable() {
+        ArgumentCaptor<Predicate<ChatCompletionResponse>> captor = ArgumentCaptor.forClass(Predicate.class);
+        verify(deepseekClient).chatCached(any(ChatCompletionRequest.class), captor.capture());
+        return captor.getValue();
+    }
+
+    private ChatCompletionResponse respondWith(String content) {
+        ChatCompletionResponse.Choice.Message message = new ChatCompletionResponse.Choice.Message();
+        message.setContent(content);
+        ChatCompletionResponse.Choice choice = new ChatCompletionResponse.Choice();
+        choice.setMessage(message);
+        ChatCompletionResponse response = new ChatCompletionResponse();
+        response.setChoices(List.of(choice));
+        when(deepseekClient.chatCached(any(ChatCompletionRequest.class), any())).thenReturn(Mono.just(response));
+        return response;
+    }
+}
@@ -0,0 +1,39 @@
+package com.ulog.backend.ai;
+
+import com.ulog.backend.config.DeepseekConcurrencyProperties;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DeepseekBulkheadsTest {
+
+    @Test
+    void recordsQueueWaitPerBulkhead() {
+        DeepseekConcurrencyProperties properties = new DeepseekConcurrencyProperties();
+        properties.getInteractive().setInitialLimit(1);
+        properties.getInteractive().setMinLimit(1);
+        properties.getInteractive().setMaxLimit(1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DeepseekBulkheads bulkheads = new DeepseekBulkheads(properties);
+        bulkheads.bindTo(registry);
+
+        Sinks.One<String> first = Sinks.one();
+        bulkheads.execute("deepseek-chat", DeepseekTrafficClass.INTERACTIVE, first::asMono).subscribe();
+        Mono<String> second = bulkheads.execute("deepseek-chat", DeepseekTrafficClass.INTERACTIVE,
+            () -> Mono.just("second"));
+        // 第二个调用要排队到第一个结束后才拿到许可
+        Mono.delay(Duration.ofMillis(50)).subscribe(tick -> first.tryEmitValue("first"));
+
+        assertThat(second.block()).isEqualTo("second");
+        Timer timer = registry.get("deepseek.bulkhead.queue.wait")
+            .tag("bulkhead", "deepseek-chat:interactive").timer();
+        assertThat(timer.count()).isEqualTo(2);
+        assertThat(timer.max(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(40);
+    }
+}
@@ -0,0 +1,73 @@
+package com.ulog.backend.ai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ulog.backend.ai.dto.ChatCompletionRequest;
+import com.ulog.backend.ai.dto.ChatMessage;
+import com.ulog.backend.common.exception.QuotaExceededException;
+import com.ulog.backend.config.DeepseekProperties;
+import com.ulog.backend.security.UserPrincipal;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DeepseekClientTest {
+
+    private final LlmResponseCache responseCache = mock(LlmResponseCache.class);
+    private final DeepseekBulkheads bulkheads = mock(DeepseekBulkheads.class);
+    private final LlmUsageLedger usageLedger = mock(LlmUsageLedger.class);
+    private DeepseekClient client;
+
+    @BeforeEach
+    void setUp() {
+        DeepseekProperties properties = new DeepseekProperties();
+        properties.setModel("deepseek-chat");
+        client = new DeepseekClient(WebClient.create(), properties, new ObjectMapper(), responseCache, bulkheads,
+            mock(DeepseekMetrics.class), usageLedger);
+
+        UserPrincipal principal = mock(UserPrincipal.class);
+        when(principal.getUserId()).thenReturn(7L);
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken(principal, null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void cachedCallChecksQuotaOfCallingUserOnMiss() {
+        when(responseCache.get(any())).thenReturn(Optional.empty());
+        when(usageLedger.checkQuota(7L)).thenReturn(Mono.error(new QuotaExceededException()));
+
+        ChatCompletionRequest request = request();
+        // 订阅在另一个线程上进行，SecurityContext 不会跟过去
+        Mono<?> call = client.chatCached(request);
+        SecurityContextHolder.clearContext();
+
+        assertThatThrownBy(call::block).isInstanceOf(QuotaExceededException.class);
+        assertThat(request.getUserId()).isEqualTo(7L);
+        verify(bulkheads, never()).execute(any(), any(), any());
+    }
+
+    private ChatCompletionRequest request() {
+        ChatCompletionRequest request = new ChatCompletionRequest();
+        request.setMessages(List.of(new ChatMessage("user", "hi")));
+        request.setTemperature(0.2);
+        return request;
+    }
+}
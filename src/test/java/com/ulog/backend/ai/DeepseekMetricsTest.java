@@ -0,0 +1,87 @@
+package com.ulog.backend.ai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ulog.backend.ai.dto.ChatCompletionRequest;
+import com.ulog.backend.ai.dto.ChatCompletionResponse;
+import com.ulog.backend.config.LlmUsageProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class DeepseekMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private DeepseekMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new DeepseekMetrics(registry, new ObjectMapper(), new LlmUsageLedger(new LlmUsageProperties(), null));
+    }
+
+    @Test
+    void recordsLatencyAndTokensPerCaller() {
+        ChatCompletionResponse.Usage usage = new ChatCompletionResponse.Usage();
+        usage.setPromptTokens(120);
+        usage.setCompletionTokens(30);
+        usage.setPromptCacheHitTokens(100);
+        usage.setPromptCacheMissTokens(20);
+        ChatCompletionResponse response = new ChatCompletionResponse();
+        response.setUsage(usage);
+
+        metrics.record(request(DeepseekCaller.SELF_VALUE), () -> Mono.just(response)).block();
+
+        assertThat(registry.get("llm.requests")
+            .tags("model", "deepseek-reasoner", "caller", "self-value", "outcome", "success").timer().count())
+            .isEqualTo(1);
+        assertThat(registry.get("llm.tokens").tags("caller", "self-value", "type", "prompt").counter().count())
+            .isEqualTo(120);
+        assertThat(registry.get("llm.tokens").tags("caller", "self-value", "type", "cache_hit").counter().count())
+            .isEqualTo(100);
+        assertThat(registry.get("llm.requests.active").tags("caller", "self-value").gauge().value()).isZero();
+        assertThat(registry.get("llm.prompt.cache.hit.ratio").tags("caller", "self-value").summary().mean())
+            .isEqualTo(100.0 / 120);
+    }
+
+    @Test
+    void classifiesOverloadResponses() {
+        WebClientResponseException overload = WebClientResponseException.create(
+            HttpStatus.TOO_MANY_REQUESTS.value(), "Too Many Requests", null, null, null);
+
+        assertThatThrownBy(() -> metrics.record(request(DeepseekCaller.QA_ANSWER), () -> Mono.error(overload)).block())
+            .isSameAs(overload);
+
+        assertThat(registry.get("llm.requests").tags("caller", "qa-answer", "outcome", "overload").timer().count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    void readsUsageFromFinalStreamChunk() {
+        Flux<String> chunks = Flux.just(
+            "{\"choices\":[{\"index\":0,\"delta\":{\"content\":\"你好\"}}],\"usage\":null}",
+            "{\"choices\":[],\"usage\":{\"prompt_tokens\":50,\"completion_tokens\":8,\"total_tokens\":58,"
+                + "\"prompt_cache_hit_tokens\":32,\"prompt_cache_miss_tokens\":18}}",
+            "[DONE]");
+
+        metrics.recordStream(request(DeepseekCaller.QA_STREAM), () -> chunks).blockLast();
+
+        assertThat(registry.get("llm.tokens").tags("caller", "qa-stream", "type", "completion").counter().count())
+            .isEqualTo(8);
+        assertThat(registry.get("llm.requests").tags("caller", "qa-stream", "outcome", "success").timer().count())
+            .isEqualTo(1);
+    }
+
+    private ChatCompletionRequest request(DeepseekCaller caller) {
+        ChatCompletionRequest request = new ChatCompletionRequest();
+        request.setModel("deepseek-reasoner");
+        request.setCaller(caller);
+        return request;
+    }
+}
@@ -0,0 +1,94 @@
+package com.ulog.backend.ai;
+
+import com.ulog.backend.ai.dto.ChatCompletionResponse;
+import com.ulog.backend.common.exception.QuotaExceededException;
+import com.ulog.backend.config.LlmUsageProperties;
+import java.sql.Date;
+import java.time.LocalDate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 用量账本测试：H2（MySQL模式）+ 正式的建表脚本
+ */
+public class LlmUsageLedgerTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private LlmUsageProperties properties;
+    private LlmUsageLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:llm_usage;MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=false", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS llm_usage_daily");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V19__create_llm_usage_daily.sql"))
+            .execute(dataSource);
+        properties = new LlmUsageProperties();
+        ledger = new LlmUsageLedger(properties, jdbcTemplate);
+    }
+
+    @Test
+    void flushAddsDeltasToDailyRow() {
+        ledger.record(1L, usage(100, 20));
+        ledger.record(1L, usage(50, 10));
+        ledger.record(null, usage(1000, 1000));
+        ledger.flush();
+        ledger.record(1L, usage(30, 5));
+        ledger.flush();
+
+        assertThat(jdbcTemplate.queryForMap(
+            "SELECT prompt_tokens, completion_tokens, request_count FROM llm_usage_daily WHERE user_id = 1"))
+            .containsEntry("prompt_tokens", 180L)
+            .containsEntry("completion_tokens", 35L)
+            .containsEntry("request_count", 3L);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM llm_usage_daily", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    void dailyQuotaCountsUnflushedUsage() {
+        properties.setDailyTokenLimit(1000);
+
+        ledger.record(1L, usage(600, 300));
+        assertThatCode(() -> ledger.ensureWithinQuota(1L)).doesNotThrowAnyException();
+
+        ledger.record(1L, usage(80, 20));
+        assertThatThrownBy(() -> ledger.ensureWithinQuota(1L)).isInstanceOf(QuotaExceededException.class);
+        assertThatCode(() -> ledger.ensureWithinQuota(2L)).doesNotThrowAnyException();
+        assertThat(ledger.getQuotaRejectionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void monthlyQuotaIncludesEarlierDaysFromDatabase() {
+        properties.setMonthlyTokenLimit(1000);
+        LocalDate today = LocalDate.now();
+        // 本月初的用量（今天是1号时这一行就是今天的）
+        jdbcTemplate.update("INSERT INTO llm_usage_daily (user_id, usage_date, prompt_tokens, completion_tokens) "
+            + "VALUES (1, ?, 700, 200)", Date.valueOf(today.withDayOfMonth(1)));
+        // 上个月的用量不计入
+        jdbcTemplate.update("INSERT INTO llm_usage_daily (user_id, usage_date, prompt_tokens, completion_tokens) "
+            + "VALUES (1, ?, 5000, 5000)", Date.valueOf(today.withDayOfMonth(1).minusDays(1)));
+
+        assertThatCode(() -> ledger.ensureWithinQuota(1L)).doesNotThrowAnyException();
+
+        ledger.record(1L, usage(100, 0));
+        ledger.flush();
+        assertThatThrownBy(() -> ledger.ensureWithinQuota(1L)).isInstanceOf(QuotaExceededException.class);
+    }
+
+    private ChatCompletionResponse.Usage usage(long promptTokens, long completionTokens) {
+        ChatCompletionResponse.Usage usage = new ChatCompletionResponse.Usage();
+        usage.setPromptTokens(promptTokens);
+        usage.setCompletionTokens(completionTokens);
+        return usage;
+    }
+}
@@ -0,0 +1,115 @@
+package com.ulog.backend.ai.job;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * AI任务表测试：H2（MySQL模式）+ 正式的建表脚本
+ */
+public class AiJobOutboxTest {
+
+    private static final Duration LEASE = Duration.ofMinutes(10);
+
+    private JdbcTemplate jdbcTemplate;
+    private AiJobOutbox outbox;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:ai_jobs;MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=false", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS ai_jobs");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V18__create_ai_jobs.sql"))
+            .execute(dataSource);
+        outbox = new AiJobOutbox(jdbcTemplate, new DataSourceTransactionManager(dataSource));
+    }
+
+    @Test
+    void sameDescriptionIsEnqueuedOnce() {
+        outbox.enqueue(AiJobType.CONTACT_SELF_VALUE, 1L, "喜欢爬山", Duration.ZERO);
+        outbox.enqueue(AiJobType.CONTACT_SELF_VALUE, 1L, "喜欢爬山", Duration.ZERO);
+        outbox.enqueue(AiJobType.CONTACT_RELATIONSHIP_ANALYSIS, 1L, "喜欢爬山", Duration.ZERO);
+
+        assertThat(countByStatus("PENDING")).isEqualTo(2);
+    }
+
+    @Test
+    void newerDescriptionSupersedesPendingJob() {
+        outbox.enqueue(AiJobType.CONTACT_SELF_VALUE, 1L, "喜欢爬山", Duration.ZERO);
+        outbox.enqueue(AiJobType.CONTACT_SELF_VALUE, 1L, "喜欢爬山和游泳", Duration.ZERO);
+
+        assertThat(countByStatus("PENDING")).isEqualTo(1);
+        assertThat(countByStatus("SUPERSEDED")).isEqualTo(1);
+        Optional<AiJob> job = outbox.claim("node-a", LEASE);
+        assertThat(job).isPresent();
+        assertThat(job.get().payload()).isEqualTo("喜欢爬山和游泳");
+        assertThat(job.get().attempts()).isEqualTo(1);
+    }
+
+    @Test
+    void delayedJobIsNotClaimedEarly() {
+        outbox.enqueue(AiJobType.USER_SELF_VALUE, 7L, "desc", Duration.ofMinutes(5));
+
+        assertThat(outbox.claim("node-a", LEASE)).isEmpty();
+        assertThat(outbox.queryStats().pending()).isEqualTo(1);
+    }
+
+    @Test
+    void retryAndCompleteFollowOwnership() {
+        outbox.enqueue(AiJobType.USER_SELF_VALUE, 7L, "desc", Duration.ZERO);
+        AiJob job = outbox.claim("node-a", LEASE).orElseThrow();
+
+        // 只有认领者能改写任务状态
+        assertThat(outbox.complete(job, "node-b")).isFalse();
+        assertThat(outbox.retry(job, "node-a", "timeout", LocalDateTime.now().minusSeconds(1))).isTrue();
+
+        AiJob retried = outbox.claim("node-b", LEASE).orElseThrow();
+        assertThat(retried.id()).isEqualTo(job.id());
+        assertThat(retried.attempts()).isEqualTo(2);
+        assertThat(outbox.complete(retried, "node-a")).isFalse();
+        assertThat(outbox.complete(retried, "node-b")).isTrue();
+
+        assertThat(countByStatus("DONE")).isEqualTo(1);
+        // 完成后释放去重键，相同描述可再次入队
+        outbox.enqueue(AiJobType.USER_SELF_VALUE, 7L, "desc", Duration.ZERO);
+        assertThat(countByStatus("PENDING")).isEqualTo(1);
+    }
+
+    @Test
+    void expiredLeaseIsReclaimed() {
+        outbox.enqueue(AiJobType.USER_SELF_VALUE, 7L, "desc", Duration.ZERO);
+        AiJob job = outbox.claim("node-a", Duration.ofSeconds(-1)).orElseThrow();
+
+        AiJob reclaimed = outbox.claim("node-b", LEASE).orElseThrow();
+        assertThat(reclaimed.id()).isEqualTo(job.id());
+        assertThat(outbox.complete(job, "node-a")).isFalse();
+        assertThat(outbox.queryStats().running()).isEqualTo(1);
+    }
+
+    @Test
+    void renewedLeaseIsNotReclaimed() {
+        outbox.enqueue(AiJobType.USER_SELF_VALUE, 7L, "desc", Duration.ZERO);
+        AiJob job = outbox.claim("node-a", Duration.ofSeconds(-1)).orElseThrow();
+
+        // 只有认领者能续租
+        assertThat(outbox.renewLease(job, "node-b", LEASE)).isFalse();
+        assertThat(outbox.renewLease(job, "node-a", LEASE)).isTrue();
+        assertThat(outbox.claim("node-b", LEASE)).isEmpty();
+        assertThat(outbox.complete(job, "node-a")).isTrue();
+        assertThat(outbox.renewLease(job, "node-a", LEASE)).isFalse();
+    }
+
+    private int countByStatus(String status) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ai_jobs WHERE status = ?", Integer.class, status);
+    }
+}
@@ -0,0 +1,67 @@
+package com.ulog.backend.ai.job;
+
+import com.ulog.backend.config.AiJobProperties;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AiJobWorkerTest {
+
+    @Test
+    void renewsLeaseOnlyWhileHandlerRuns() throws Exception {
+        AiJob job = new AiJob(1L, AiJobType.USER_SELF_VALUE, 7L, "desc", 1);
+        AiJobOutbox outbox = mock(AiJobOutbox.class);
+        when(outbox.claim(eq("node-a"), any())).thenReturn(Optional.of(job), Optional.empty());
+        when(outbox.renewLease(eq(job), eq("node-a"), any())).thenReturn(true);
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AiJobHandler handler = new AiJobHandler() {
+            @Override
+            public AiJobType getType() {
+                return AiJobType.USER_SELF_VALUE;
+            }
+
+            @Override
+            public void handle(AiJob claimed) throws Exception {
+                started.countDown();
+                release.await();
+            }
+        };
+
+        AiJobProperties properties = new AiJobProperties();
+        properties.setWorkers(1);
+        properties.setNodeId("node-a");
+        properties.setLeaseSeconds(90);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AiJobWorker worker = new AiJobWorker(outbox, properties, List.of(handler), executor);
+        try {
+            worker.start();
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            worker.renewLeases();
+            verify(outbox).renewLease(job, "node-a", Duration.ofSeconds(90));
+
+            release.countDown();
+            verify(outbox, timeout(5000)).complete(job, "node-a");
+            worker.renewLeases();
+            verify(outbox).renewLease(eq(job), eq("node-a"), any());
+        } finally {
+            worker.stop();
+            executor.shutdownNow();
+        }
+    }
+}
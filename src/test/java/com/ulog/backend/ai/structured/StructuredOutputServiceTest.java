@@ -0,0 +1,136 @@
+package com.ulog.backend.ai.structured;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ulog.backend.ai.DeepseekCaller;
+import com.ulog.backend.ai.DeepseekClient;
+import com.ulog.backend.ai.DeepseekTrafficClass;
+import com.ulog.backend.ai.dto.ChatCompletionRequest;
+import com.ulog.backend.ai.dto.ChatCompletionResponse;
+import com.ulog.backend.ai.dto.ChatMessage;
+import com.ulog.backend.compliance.dto.ModerationResult;
+import com.ulog.backend.compliance.service.ContentModerationService;
+import com.ulog.backend.config.DeepseekProperties;
+import com.ulog.backend.conversation.dto.SupplementAnalysis;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class StructuredOutputServiceTest {
+
+    private DeepseekClient deepseekClient;
+    private ContentModerationService moderation;
+    private SimpleMeterRegistry registry;
+    private StructuredOutputService service;
+
+    @BeforeEach
+    void setUp() {
+        deepseekClient = mock(DeepseekClient.class);
+        registry = new SimpleMeterRegistry();
+        moderation = mock(ContentModerationService.class);
+        service = new StructuredOutputService(deepseekClient, new DeepseekProperties(),
+            moderation, new ObjectMapper(), registry);
+    }
+
+    @Test
+    void repairsFencedAndTruncatedJsonLocally() {
+        respondWith("""
+            ```json
+            {"needsSupplement": true, "reason": "缺少工作信息",
+             "supplementFields": ["work",], "supplementQuestion": "他现在在哪里工作""");
+
+        SupplementAnalysis analysis = service.complete(StructuredOutputSchemas.SUPPLEMENT_ANALYSIS, request()).block();
+
+        assertThat(analysis.isNeedsSupplement()).isTrue();
+        assertThat(analysis.getSupplementFields()).containsExactly("work");
+        assertThat(analysis.getSupplementQuestion()).isEqualTo("他现在在哪里工作");
+
+        ArgumentCaptor<ChatCompletionRequest> captor = ArgumentCaptor.forClass(ChatCompletionRequest.class);
+        verify(deepseekClient, times(1)).chat(captor.capture());
+        assertThat(captor.getValue().getResponseFormat().getType()).isEqualTo("json_object");
+        assertThat(captor.getValue().getMaxTokens()).isEqualTo(512);
+        assertThat(registry.counter("llm.structured.output", "schema", "supplement-analysis", "result", "repaired")
+            .count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void reasksOnceWithTheValidationError() {
+        respondWith(
+            "{\"reason\": \"信息充足\"}",
+            "{\"needsSupplement\": false, \"reason\": \"信息充足\", \"supplementFields\": [], \"supplementQuestion\": \"\"}");
+
+        SupplementAnalysis analysis = service.complete(StructuredOutputSchemas.SUPPLEMENT_ANALYSIS, request()).block();
+
+        assertThat(analysis.isNeedsSupplement()).isFalse();
+        ArgumentCaptor<ChatCompletionRequest> captor = ArgumentCaptor.forClass(ChatCompletionRequest.class);
+        verify(deepseekClient, times(2)).chat(captor.capture());
+        List<ChatMessage> retryMessages = captor.getAllValues().get(1).getMessages();
+        assertThat(retryMessages).hasSize(4);
+        assertThat(retryMessages.get(2).getRole()).isEqualTo("assistant");
+        assertThat(retryMessages.get(2).getContent()).isEqualTo("{\"reason\": \"信息充足\"}");
+        assertThat(retryMessages.get(3).getContent()).contains("缺少字段 needsSupplement");
+    }
+
+    @Test
+    void failsWhenCorrectedReplyIsStillInvalid() {
+        respondWith("抱歉，我无法完成这个任务。", "{\"needsSupplement\": true}");
+
+        assertThatThrownBy(() -> service.complete(StructuredOutputSchemas.SUPPLEMENT_ANALYSIS, request()).block())
+            .isInstanceOf(StructuredOutputException.class)
+            .hasMessageContaining("supplementQuestion");
+    }
+
+    @Test
+    void cachedCallsOnlyCacheValidReplies() {
+        String valid = "{\"needsSupplement\": false, \"reason\": \"信息充足\", \"supplementFields\": [], \"supplementQuestion\": \"\"}";
+        when(moderation.moderateContent(any(), any(), any())).thenReturn(ModerationResult.pass("test"));
+        when(deepseekClient.chatCached(any(ChatCompletionRequest.class), any())).thenReturn(Mono.just(response(valid)));
+
+        service.askCached(StructuredOutputSchemas.SUPPLEMENT_ANALYSIS, "你是助手", "请以JSON返回分析结果",
+            DeepseekTrafficClass.INTERACTIVE, DeepseekCaller.SUPPLEMENT_ANALYSIS).block();
+
+        ArgumentCaptor<Predicate<ChatCompletionResponse>> cacheable = ArgumentCaptor.forClass(Predicate.class);
+        verify(deepseekClient).chatCached(any(ChatCompletionRequest.class), cacheable.capture());
+        assertThat(cacheable.getValue().test(response(valid))).isTrue();
+        assertThat(cacheable.getValue().test(response("{\"reason\": \"信息充足\"}"))).isFalse();
+        assertThat(cacheable.getValue().test(response("抱歉，我无法完成这个任务。"))).isFalse();
+    }
+
+    private ChatCompletionRequest request() {
+        ChatCompletionRequest request = new ChatCompletionRequest();
+        request.setMessages(List.of(
+            new ChatMessage("system", "你是助手"),
+            new ChatMessage("user", "请以JSON返回分析结果")
+        ));
+        return request;
+    }
+
+    private void respondWith(String first, String... rest) {
+        Mono<ChatCompletionResponse>[] others = new Mono[rest.length];
+        for (int i = 0; i < rest.length; i++) {
+            others[i] = Mono.just(response(rest[i]));
+        }
+        when(deepseekClient.chat(any(ChatCompletionRequest.class))).thenReturn(Mono.just(response(first)), others);
+    }
+
+    private ChatCompletionResponse response(String content) {
+        ChatCompletionResponse.Choice.Message message = new ChatCompletionResponse.Choice.Message();
+        message.setContent(content);
+        ChatCompletionResponse.Choice choice = new ChatCompletionResponse.Choice();
+        choice.setMessage(message);
+        ChatCompletionResponse response = new ChatCompletionResponse();
+        response.setChoices(List.of(choice));
+        return response;
+    }
+}
@@ -0,0 +1,56 @@
+package com.ulog.backend.common.interceptor;
+
+import com.ulog.backend.common.store.InMemoryRateLimitStore;
+import com.ulog.backend.config.RateLimitProperties;
+import com.ulog.backend.util.RateLimiterService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RateLimitInterceptorTest {
+
+    private RateLimitInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setDefaultPerMinute(2);
+        interceptor = new RateLimitInterceptor(properties,
+            new RateLimiterService(new InMemoryRateLimitStore(4, 100)));
+    }
+
+    @Test
+    void requestsToDifferentSessionsShareTheRouteKey() throws Exception {
+        assertThat(handle("/api/sessions/1", "/api/sessions/{sessionId}").getStatus()).isEqualTo(200);
+        assertThat(handle("/api/sessions/2", "/api/sessions/{sessionId}").getStatus()).isEqualTo(200);
+
+        MockHttpServletResponse denied = handle("/api/sessions/3", "/api/sessions/{sessionId}");
+        assertThat(denied.getStatus()).isEqualTo(429);
+        assertThat(denied.getContentAsString()).contains("\"code\":429");
+
+        assertThat(handle("/api/contacts/1", "/api/contacts/{id}").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void normalizesIdSegmentsWhenNoRouteMatched() throws Exception {
+        handle("/api/sessions/123/history", null);
+        handle("/api/sessions/3f2504e0-4f89-11d3-9a0c-0305e82c3301/history", null);
+
+        assertThat(handle("/api/sessions/456/history", null).getStatus()).isEqualTo(429);
+    }
+
+    private MockHttpServletResponse handle(String path, String pattern) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setRemoteAddr("10.0.0.1");
+        if (pattern != null) {
+            request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(request, response, null);
+        return response;
+    }
+}
@@ -0,0 +1,52 @@
+package com.ulog.backend.common.store;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InMemoryRateLimitStoreTest {
+
+    // 3次/300ms，发射间隔100ms
+    private static final Duration WINDOW = Duration.ofMillis(300);
+
+    private final InMemoryRateLimitStore store = new InMemoryRateLimitStore(4, 100);
+
+    @Test
+    void allowsFullBurstThenDenies() {
+        assertThat(store.tryAcquire("ip:/api/a", 3, WINDOW)).isTrue();
+        assertThat(store.tryAcquire("ip:/api/a", 3, WINDOW)).isTrue();
+        assertThat(store.tryAcquire("ip:/api/a", 3, WINDOW)).isTrue();
+        assertThat(store.tryAcquire("ip:/api/a", 3, WINDOW)).isFalse();
+        // 其他key不受影响
+        assertThat(store.tryAcquire("ip:/api/b", 3, WINDOW)).isTrue();
+        assertThat(store.tryAcquire("ip:/api/a", 0, WINDOW)).isFalse();
+    }
+
+    @Test
+    void refillsOneRequestPerEmissionInterval() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            store.tryAcquire("ip:/api/a", 3, WINDOW);
+        }
+        assertThat(store.tryAcquire("ip:/api/a", 3, WINDOW)).isFalse();
+
+        Thread.sleep(120);
+        assertThat(store.tryAcquire("ip:/api/a", 3, WINDOW)).isTrue();
+        assertThat(store.tryAcquire("ip:/api/a", 3, WINDOW)).isFalse();
+    }
+
+    @Test
+    void evictsKeysOnceTheirQuotaIsFullyRestored() throws InterruptedException {
+        store.tryAcquire("ip:/api/a", 3, WINDOW);
+        store.tryAcquire("ip:/api/b", 3, Duration.ofMinutes(1));
+        assertThat(store.size()).isEqualTo(2);
+
+        Thread.sleep(150);
+        assertThat(store.evictIdle()).isEqualTo(1);
+        assertThat(store.size()).isEqualTo(1);
+        // 被删除的key等同于新key，拿到完整配额
+        for (int i = 0; i < 3; i++) {
+            assertThat(store.tryAcquire("ip:/api/a", 3, WINDOW)).isTrue();
+        }
+    }
+}
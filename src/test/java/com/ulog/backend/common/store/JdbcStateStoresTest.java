@@ -0,0 +1,121 @@
+package com.ulog.backend.common.store;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 数据库状态存储测试：H2（MySQL模式）+ 正式的建表脚本
+ * 两个存储实例共用同一个库，模拟多实例部署
+ */
+public class JdbcStateStoresTest {
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:state_stores;MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=false", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS rate_limit_buckets");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS ephemeral_codes");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V16__create_state_store_tables.sql"))
+            .execute(dataSource);
+    }
+
+    @Test
+    void rateLimitIsSharedAcrossInstances() {
+        RateLimitStore first = new JdbcRateLimitStore(jdbcTemplate);
+        RateLimitStore second = new JdbcRateLimitStore(jdbcTemplate);
+        Duration window = Duration.ofMinutes(1);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(first.tryAcquire("login:13800000000", 5, window)).isTrue();
+        }
+        assertThat(second.tryAcquire("login:13800000000", 5, window)).isTrue();
+        assertThat(second.tryAcquire("login:13800000000", 5, window)).isTrue();
+        assertThat(first.tryAcquire("login:13800000000", 5, window)).isFalse();
+        assertThat(second.tryAcquire("login:13800000000", 5, window)).isFalse();
+        assertThat(first.tryAcquire("login:13900000000", 5, window)).isTrue();
+    }
+
+    @Test
+    void concurrentAcquiresNeverExceedLimit() throws Exception {
+        RateLimitStore store = new JdbcRateLimitStore(jdbcTemplate);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger allowed = new AtomicInteger();
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < 10; i++) {
+                        if (store.tryAcquire("ip:/api/ai", 20, Duration.ofMinutes(1))) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(allowed.get()).isEqualTo(20);
+    }
+
+    @Test
+    void idleBucketsAreEvicted() throws Exception {
+        RateLimitStore store = new JdbcRateLimitStore(jdbcTemplate);
+        String longKey = "ip:" + "x".repeat(300);
+
+        assertThat(store.tryAcquire(longKey, 10, Duration.ofMillis(100))).isTrue();
+        assertThat(store.tryAcquire("short", 10, Duration.ofMinutes(1))).isTrue();
+        Thread.sleep(50);
+
+        assertThat(store.evictIdle()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM rate_limit_buckets", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    void codeIsVisibleToOtherInstancesAndConsumedOnce() {
+        EphemeralCodeStore first = new JdbcEphemeralCodeStore(jdbcTemplate);
+        EphemeralCodeStore second = new JdbcEphemeralCodeStore(jdbcTemplate);
+
+        first.put("sms:13800000000", "111111", Duration.ofMinutes(5));
+        first.put("sms:13800000000", "654321", Duration.ofMinutes(5));
+
+        assertThat(second.get("sms:13800000000")).contains("654321");
+        assertThat(second.consume("sms:13800000000", "111111")).isFalse();
+        assertThat(second.consume("sms:13800000000", "654321")).isTrue();
+        assertThat(first.consume("sms:13800000000", "654321")).isFalse();
+        assertThat(first.get("sms:13800000000")).isEmpty();
+    }
+
+    @Test
+    void expiredCodesAreIgnoredAndEvicted() {
+        EphemeralCodeStore store = new JdbcEphemeralCodeStore(jdbcTemplate);
+
+        store.put("sms:expired", "123456", Duration.ofMillis(-1));
+        store.put("sms:valid", "123456", Duration.ofMinutes(5));
+
+        assertThat(store.get("sms:expired")).isEmpty();
+        assertThat(store.consume("sms:expired", "123456")).isFalse();
+        assertThat(store.evictExpired()).isEqualTo(1);
+        assertThat(store.get("sms:valid")).contains("123456");
+    }
+}
@@ -0,0 +1,43 @@
+package com.ulog.backend.compliance.service;
+
+import com.ulog.backend.config.ContentModerationProperties;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SensitiveWordDictionaryTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void fileAndDbWordsDoNotOverwriteEachOther() throws Exception {
+        Path file = dir.resolve("words.txt");
+        Files.writeString(file, "# 扩展词表\n文件词\n");
+        ContentModerationProperties properties = new ContentModerationProperties();
+        properties.setDictionaryPath(file.toString());
+        SensitiveWordDictionary dictionary = new SensitiveWordDictionary(properties);
+        dictionary.init();
+
+        dictionary.replaceDbWords(List.of("库词"));
+        assertThat(dictionary.getMatcher().containsAny("文件词")).isTrue();
+        assertThat(dictionary.getMatcher().containsAny("库词")).isTrue();
+
+        Files.writeString(file, "换过的词\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+        dictionary.reloadFromFile();
+        assertThat(dictionary.getMatcher().containsAny("换过的词")).isTrue();
+        assertThat(dictionary.getMatcher().containsAny("文件词")).isFalse();
+        assertThat(dictionary.getMatcher().containsAny("库词")).isTrue();
+
+        dictionary.replaceDbWords(List.of());
+        assertThat(dictionary.getMatcher().containsAny("库词")).isFalse();
+        assertThat(dictionary.getMatcher().containsAny("换过的词")).isTrue();
+        assertThat(dictionary.getMatcher().containsAny("赌博")).isTrue();
+    }
+}
@@ -0,0 +1,44 @@
+package com.ulog.backend.compliance.service;
+
+import com.ulog.backend.compliance.dto.SensitiveWordHit;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SensitiveWordMatcherTest {
+
+    @Test
+    void findsAllHitsWithOffsetsIncludingOverlaps() {
+        SensitiveWordMatcher matcher = SensitiveWordMatcher.build(List.of("he", "she", "his", "hers", "赌博", "博彩"));
+
+        assertThat(matcher.findAll("ushers")).containsExactly(
+            new SensitiveWordHit("she", 1, 4),
+            new SensitiveWordHit("he", 2, 4),
+            new SensitiveWordHit("hers", 2, 6));
+        assertThat(matcher.findAll("网上赌博彩票")).containsExactly(
+            new SensitiveWordHit("赌博", 2, 4),
+            new SensitiveWordHit("博彩", 3, 5));
+        assertThat(matcher.findAll("一切正常")).isEmpty();
+        assertThat(matcher.containsAny("一切正常")).isFalse();
+    }
+
+    @Test
+    void masksOverlappingAndAdjacentHitsAsOne() {
+        SensitiveWordMatcher matcher = SensitiveWordMatcher.build(List.of("赌博", "博彩", "诈骗"));
+
+        assertThat(matcher.mask("网上赌博彩票", "***")).isEqualTo("网上***票");
+        assertThat(matcher.mask("赌博诈骗都不行", "*")).isEqualTo("*都不行");
+        assertThat(matcher.mask("赌博和诈骗", "*")).isEqualTo("*和*");
+    }
+
+    @Test
+    void normalizesFullWidthCaseAndTraditionalCharacters() {
+        SensitiveWordMatcher matcher = SensitiveWordMatcher.build(List.of("Casino", "赌场"));
+
+        // 归一化一对一，命中下标对应原文
+        assertThat(matcher.findAll("去ＣＡＳＩＮＯ玩")).containsExactly(new SensitiveWordHit("casino", 1, 7));
+        assertThat(matcher.findAll("這家賭場")).containsExactly(new SensitiveWordHit("赌场", 2, 4));
+        assertThat(matcher.mask("這家賭場", "**")).isEqualTo("這家**");
+    }
+}
@@ -0,0 +1,49 @@
+package com.ulog.backend.config;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 虚拟线程模式负载测试：1000个各阻塞500ms的任务（模拟等待LLM响应）
+ * 平台线程池（最多5个线程）需要约100秒，虚拟线程下应在数秒内全部完成
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+public class AsyncConfigVirtualThreadsTest {
+
+    private static final int TASKS = 1000;
+    private static final Duration BLOCKING_CALL = Duration.ofMillis(500);
+
+    @Test
+    void virtualModeRemovesThreadPoolCeiling() throws Exception {
+        MockEnvironment environment = new MockEnvironment()
+            .withProperty("server.threads.mode", "virtual")
+            .withProperty("spring.threads.virtual.enabled", "true");
+        Executor executor = new AsyncConfig(environment).selfValueTaskExecutor();
+
+        CountDownLatch done = new CountDownLatch(TASKS);
+        long start = System.nanoTime();
+        for (int i = 0; i < TASKS; i++) {
+            executor.execute(() -> {
+                try {
+                    Thread.sleep(BLOCKING_CALL.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertThat(elapsedMs).isLessThan(10_000);
+    }
+}
@@ -0,0 +1,31 @@
+package com.ulog.backend.conversation.dto;
+
+import com.ulog.backend.common.api.ApiResponse;
+import com.ulog.backend.common.api.ErrorCode;
+import com.ulog.backend.common.exception.QuotaExceededException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class QaStreamEventTest {
+
+    @Test
+    void keepsErrorCodeAndMessageOfApiExceptions() {
+        QaStreamEvent event = QaStreamEvent.error(new QuotaExceededException("今日AI使用额度已用完，请明天再试"));
+
+        assertThat(event.getType()).isEqualTo(QaStreamEvent.ERROR);
+        ApiResponse<?> data = (ApiResponse<?>) event.getData();
+        assertThat(data.code()).isEqualTo(ErrorCode.QUOTA_EXCEEDED.getCode());
+        assertThat(data.message()).isEqualTo("今日AI使用额度已用完，请明天再试");
+    }
+
+    @Test
+    void hidesInternalExceptionDetails() {
+        QaStreamEvent event = QaStreamEvent.error(new IllegalStateException(
+            "could not execute statement [Duplicate entry 'abc' for key 'uk_qa_history_session_seq']"));
+
+        ApiResponse<?> data = (ApiResponse<?>) event.getData();
+        assertThat(data.code()).isEqualTo(ErrorCode.SERVER_ERROR.getCode());
+        assertThat(data.message()).isEqualTo(ErrorCode.SERVER_ERROR.getDefaultMessage());
+    }
+}
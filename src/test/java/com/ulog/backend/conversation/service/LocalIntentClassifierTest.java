@@ -0,0 +1,58 @@
+package com.ulog.backend.conversation.service;
+
+import com.ulog.backend.config.IntentClassifierProperties;
+import com.ulog.backend.conversation.dto.ExtractionResult;
+import com.ulog.backend.conversation.enums.EndConfidence;
+import com.ulog.backend.conversation.enums.UserIntent;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LocalIntentClassifierTest {
+
+    private final LocalIntentClassifier classifier = new LocalIntentClassifier(new IntentClassifierProperties());
+
+    @Test
+    void recognizesKnownPhrasesAfterNormalization() {
+        ExtractionResult skip = classifier.classify(" 嗯，不知道呢～ ").orElseThrow();
+        assertThat(skip.getIntent()).isEqualTo(UserIntent.SKIP_QUESTION);
+        assertThat(skip.isWantsToEnd()).isFalse();
+        assertThat(skip.getUpdates()).isEmpty();
+
+        ExtractionResult end = classifier.classify("结束吧！").orElseThrow();
+        assertThat(end.getIntent()).isEqualTo(UserIntent.WANT_TO_END);
+        assertThat(end.getEndConfidence()).isEqualTo(EndConfidence.STRONG);
+
+        assertThat(classifier.classify("就这些了").orElseThrow().getEndConfidence()).isEqualTo(EndConfidence.MEDIUM);
+    }
+
+    @Test
+    void modelGeneralizesToUnseenVariants() {
+        assertThat(classifier.classify("这个我真不太清楚").orElseThrow().getIntent())
+            .isEqualTo(UserIntent.SKIP_QUESTION);
+        assertThat(classifier.classify("这题跳过吧").orElseThrow().getIntent())
+            .isEqualTo(UserIntent.SKIP_QUESTION);
+        assertThat(classifier.classify("我也记不清了").orElseThrow().getIntent())
+            .isEqualTo(UserIntent.SKIP_QUESTION);
+    }
+
+    @Test
+    void answersThatMayCarryInformationFallThrough() {
+        assertThat(classifier.classify("是")).isEmpty();
+        assertThat(classifier.classify("没有")).isEmpty();
+        assertThat(classifier.classify("不喝酒")).isEmpty();
+        assertThat(classifier.classify("30岁")).isEmpty();
+        assertThat(classifier.classify("他是我大学室友")).isEmpty();
+        assertThat(classifier.classify("不知道他具体做什么，只知道在一家互联网公司上班")).isEmpty();
+        assertThat(classifier.getFallbackCount()).isEqualTo(6);
+    }
+
+    @Test
+    void negatedOrThirdPersonRepliesFallThrough() {
+        for (String reply : new String[] {"不结束", "不要结束", "先别结束", "我不想结束", "暂时不结束", "还没结束",
+                "还不想结束呢", "别跳过", "不想跳过", "不要跳过这题", "工作结束了", "项目刚完成",
+                "他不知道", "她不清楚", "他也记不清了", "她忘了"}) {
+            assertThat(classifier.classify(reply)).as(reply).isEmpty();
+        }
+    }
+}
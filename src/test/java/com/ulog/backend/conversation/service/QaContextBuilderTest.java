@@ -0,0 +1,64 @@
+package com.ulog.backend.conversation.service;
+
+import com.ulog.backend.ai.dto.ChatMessage;
+import com.ulog.backend.config.QaContextProperties;
+import com.ulog.backend.conversation.dto.QaHistoryEntry;
+import com.ulog.backend.conversation.dto.QaHistoryWindow;
+import com.ulog.backend.domain.conversation.QaHistoryRecord;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class QaContextBuilderTest {
+
+    private final QaHistorySummaryService summaryService = mock(QaHistorySummaryService.class);
+
+    @Test
+    void foldsTurnsThatSlidOutOfTheWindowByTheirSeq() {
+        QaContextBuilder builder = new QaContextBuilder(properties(2), summaryService);
+        // 摘要覆盖前3轮，窗口从 seq=3 读取了 seq 3..6
+        QaHistoryWindow history = new QaHistoryWindow(3, entries(3, 4));
+
+        List<ChatMessage> messages = builder.buildHistoryMessages(
+            QaHistoryRecord.SESSION_TYPE_CONTACT, "session-1", 7L, history, "旧摘要", 3);
+
+        assertThat(messages).extracting(ChatMessage::getContent)
+            .containsExactly("【较早对话摘要】\n旧摘要", "问题5", "回答5", "问题6", "回答6");
+        verify(summaryService).requestRefresh(eq(QaHistoryRecord.SESSION_TYPE_CONTACT), eq("session-1"), eq(7L),
+            eq("旧摘要"), eq(history.entries().subList(0, 2)), eq(5));
+    }
+
+    @Test
+    void doesNotRefreshWhileWindowIsCoveredBySummary() {
+        QaContextBuilder builder = new QaContextBuilder(properties(6), summaryService);
+
+        List<ChatMessage> messages = builder.buildHistoryMessages(
+            QaHistoryRecord.SESSION_TYPE_USER, "session-1", 7L, new QaHistoryWindow(4, entries(4, 2)), "旧摘要", 4);
+
+        assertThat(messages).hasSize(5);
+        verify(summaryService, never()).requestRefresh(anyString(), anyString(), anyLong(), any(), anyList(), anyInt());
+    }
+
+    private QaContextProperties properties(int maxVerbatimTurns) {
+        QaContextProperties properties = new QaContextProperties();
+        properties.setMaxVerbatimTurns(maxVerbatimTurns);
+        return properties;
+    }
+
+    private List<QaHistoryEntry> entries(int startSeq, int count) {
+        return IntStream.range(startSeq, startSeq + count)
+            .mapToObj(seq -> new QaHistoryEntry("问题" + seq, "回答" + seq))
+            .toList();
+    }
+}
@@ -0,0 +1,99 @@
+package com.ulog.backend.conversation.service;
+
+import com.ulog.backend.conversation.dto.QaHistoryEntry;
+import com.ulog.backend.conversation.dto.QaHistoryWindow;
+import com.ulog.backend.domain.conversation.QaHistoryRecord;
+import com.ulog.backend.repository.ConversationSessionRepository;
+import com.ulog.backend.repository.QaHistoryRecordRepository;
+import com.ulog.backend.repository.UserConversationSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * QA历史按行存储：追加、分页读取、按 qaIndex 走 (session_id, seq) 索引查询
+ */
+@DataJpaTest(properties = {
+    "spring.flyway.enabled=false",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+public class QaHistoryServiceImplTest {
+
+    @Autowired
+    private QaHistoryRecordRepository qaHistoryRecordRepository;
+
+    private QaHistoryServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        ConversationSessionRepository conversationSessionRepository = mock(ConversationSessionRepository.class);
+        when(conversationSessionRepository.existsById("session-1")).thenReturn(true);
+        when(conversationSessionRepository.existsById("session-2")).thenReturn(true);
+        service = new QaHistoryServiceImpl(conversationSessionRepository,
+            mock(UserConversationSessionRepository.class), qaHistoryRecordRepository);
+    }
+
+    @Test
+    void appendsReadsPagesAndResolvesQaIndex() {
+        for (int i = 0; i < 5; i++) {
+            service.addContactQaEntry("session-1", new QaHistoryEntry("问题" + i, "回答" + i));
+        }
+        service.addContactQaEntry("session-2", new QaHistoryEntry("别的会话", "回答"));
+
+        Page<QaHistoryEntry> page = service.getQaHistoryPage("session-1", 1, 2);
+        assertThat(page.getTotalElements()).isEqualTo(5);
+        assertThat(page.getContent()).extracting(QaHistoryEntry::getQuestion).containsExactly("问题2", "问题3");
+
+        assertThat(service.getQaEntry("session-1", 3)).get()
+            .extracting(QaHistoryEntry::getAnswer).isEqualTo("回答3");
+        assertThat(service.getQaEntry("session-1", 5)).isEmpty();
+        assertThat(service.getQaEntry("session-2", 0)).get()
+            .extracting(QaHistoryEntry::getQuestion).isEqualTo("别的会话");
+        assertThat(service.getLastQaEntry("session-1")).get()
+            .extracting(QaHistoryEntry::getQuestion).isEqualTo("问题4");
+    }
+
+    @Test
+    void updatesOnlyTheLastEntry() {
+        service.addContactQaEntry("session-1", new QaHistoryEntry("问题0", "回答0"));
+        service.addContactQaEntry("session-1", new QaHistoryEntry("问题1", null, true));
+
+        QaHistoryEntry supplemented = new QaHistoryEntry("问题1", "补充后的回答");
+        supplemented.setSupplementQuestion("他在哪个城市？");
+        supplemented.setSupplementAnswer("上海");
+        service.updateLastContactQaEntry("session-1", supplemented);
+
+        assertThat(service.getContactQaHistory("session-1"))
+            .extracting(QaHistoryEntry::getAnswer)
+            .containsExactly("回答0", "补充后的回答");
+        assertThat(service.getUserQaHistory("session-1")).isEmpty();
+        assertThat(service.getQaEntry("session-1", 1)).get()
+            .extracting(QaHistoryEntry::getSupplementAnswer).isEqualTo("上海");
+    }
+
+    @Test
+    void readsOnlyTheRecentWindowAfterTheSummary() {
+        for (int i = 0; i < 8; i++) {
+            service.addContactQaEntry("session-1", new QaHistoryEntry("问题" + i, "回答" + i));
+        }
+
+        QaHistoryWindow window = service.getRecentQaHistory("session-1", QaHistoryRecord.SESSION_TYPE_CONTACT, 2, 3);
+        assertThat(window.startSeq()).isEqualTo(5);
+        assertThat(window.entries()).extracting(QaHistoryEntry::getQuestion)
+            .containsExactly("问题5", "问题6", "问题7");
+
+        QaHistoryWindow covered = service.getRecentQaHistory("session-1", QaHistoryRecord.SESSION_TYPE_CONTACT, 6, 10);
+        assertThat(covered.startSeq()).isEqualTo(6);
+        assertThat(covered.entries()).extracting(QaHistoryEntry::getQuestion).containsExactly("问题6", "问题7");
+
+        assertThat(service.getRecentQaHistory("session-1", QaHistoryRecord.SESSION_TYPE_USER, 0, 10).entries())
+            .isEmpty();
+    }
+}
@@ -0,0 +1,43 @@
+package com.ulog.backend.conversation.service;
+
+import com.ulog.backend.ai.DeepseekCaller;
+import com.ulog.backend.ai.DeepseekClient;
+import com.ulog.backend.ai.dto.ChatCompletionRequest;
+import com.ulog.backend.config.DeepseekProperties;
+import com.ulog.backend.config.QaContextProperties;
+import com.ulog.backend.conversation.dto.QaHistoryEntry;
+import com.ulog.backend.domain.conversation.QaHistoryRecord;
+import com.ulog.backend.repository.ConversationSessionRepository;
+import com.ulog.backend.repository.UserConversationSessionRepository;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class QaHistorySummaryServiceTest {
+
+    @Test
+    void summaryCallIsAttributedToSessionOwner() {
+        DeepseekClient deepseekClient = mock(DeepseekClient.class);
+        when(deepseekClient.chat(any())).thenReturn(Mono.empty());
+        // 同步执行器：模拟后台线程上没有请求的SecurityContext
+        QaHistorySummaryService service = new QaHistorySummaryService(deepseekClient, new DeepseekProperties(),
+            new QaContextProperties(), mock(ConversationSessionRepository.class),
+            mock(UserConversationSessionRepository.class), mock(TransactionTemplate.class), Runnable::run);
+
+        service.requestRefresh(QaHistoryRecord.SESSION_TYPE_CONTACT, "session-1", 42L, null,
+            List.of(new QaHistoryEntry("问题", "回答")), 1);
+
+        ArgumentCaptor<ChatCompletionRequest> captor = ArgumentCaptor.forClass(ChatCompletionRequest.class);
+        verify(deepseekClient).chat(captor.capture());
+        assertThat(captor.getValue().getUserId()).isEqualTo(42L);
+        assertThat(captor.getValue().getCaller()).isEqualTo(DeepseekCaller.QA_SUMMARY);
+    }
+}
@@ -0,0 +1,42 @@
+package com.ulog.backend.conversation.util;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 提示词前缀测试：不同用户的提示词应共享尽量长的固定前缀，才能命中DeepSeek的上下文缓存
+ */
+public class PromptTemplatesTest {
+
+    @Test
+    void extractionPromptKeepsInstructionsAheadOfUserData() {
+        String first = PromptTemplates.buildIntelligentExtractionPrompt(
+            "他是我的大学同学", "relationship", Map.of("name", "张三"), "你们是怎么认识的？");
+        String second = PromptTemplates.buildIntelligentExtractionPrompt(
+            "30岁，做产品经理", "age", Map.of("name", "李四", "city", "上海"), "他多大了？");
+
+        int shared = commonPrefixLength(first, second);
+        assertThat(first.substring(0, shared)).contains("【重要规则】", "【重要格式要求】");
+        assertThat(first.substring(shared)).contains("他是我的大学同学");
+    }
+
+    @Test
+    void relationshipAnalysisPromptStartsWithFixedInstructions() {
+        String first = PromptTemplates.buildRelationshipAnalysisPrompt("喜欢爬山", "3.5,4.0,3.0,4.5,3.8", "程序员", null);
+        String second = PromptTemplates.buildRelationshipAnalysisPrompt("爱看书", null, "设计师", "4.0,4.0,4.0,4.0,4.0");
+
+        int shared = commonPrefixLength(first, second);
+        assertThat(first.substring(0, shared)).contains("【输出要求】");
+        assertThat(first.substring(shared)).startsWith("喜欢爬山");
+    }
+
+    private int commonPrefixLength(String a, String b) {
+        int i = 0;
+        while (i < a.length() && i < b.length() && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+}
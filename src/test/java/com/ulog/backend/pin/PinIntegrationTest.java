@@ -4,6 +4,7 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ulog.backend.AbstractIntegrationTest;
 import com.ulog.backend.conversation.dto.QaHistoryEntry;
+import com.ulog.backend.conversation.service.QaHistoryService;
 import com.ulog.backend.domain.contact.Contact;
 import com.ulog.backend.domain.conversation.ConversationSession;
 import com.ulog.backend.domain.pin.Pin;
@@ -18,7 +19,6 @@ import com.ulog.backend.repository.ContactRepository;
 import com.ulog.backend.repository.ConversationSessionRepository;
 import com.ulog.backend.repository.PinRepository;
 import com.ulog.backend.repository.UserRepository;
-import java.util.ArrayList;
 import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -46,6 +46,9 @@ public class PinIntegrationTest extends AbstractIntegrationTest {
     @Autowired
     private ConversationSessionRepository conversationSessionRepository;
 
+    @Autowired
+    private QaHistoryService qaHistoryService;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
@@ -73,16 +76,14 @@ public class PinIntegrationTest extends AbstractIntegrationTest {
         testSession = new ConversationSession("test-session-001", testUser.getId(), "Test Contact");
         testSession.setContactId(testContact.getId());
         testSession.setStatus("QA_ACTIVE");
+        testSession = conversationSessionRepository.save(testSession);
 
         // 创建QA历史
-        List<QaHistoryEntry> qaHistory = new ArrayList<>();
-        qaHistory.add(new QaHistoryEntry("这是第一个问题", "这是第一个答案", false));
-        qaHistory.add(new QaHistoryEntry("这是第二个问题", "这是第二个答案", 
-                                        "需要补充什么", "补充后的答案", true));
-
-        String qaHistoryJson = objectMapper.writeValueAsString(qaHistory);
-        testSession.setQaHistory(qaHistoryJson);
-        testSession = conversationSessionRepository.save(testSession);
+        qaHistoryService.addContactQaEntry(testSession.getSessionId(),
+            new QaHistoryEntry("这是第一个问题", "这是第一个答案", false));
+        qaHistoryService.addContactQaEntry(testSession.getSessionId(),
+            new QaHistoryEntry("这是第二个问题", "这是第二个答案", 
+                               "需要补充什么", "补充后的答案", true));
     }
 
     @Test
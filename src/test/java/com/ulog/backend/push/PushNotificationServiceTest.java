@@ -0,0 +1,133 @@
+package com.ulog.backend.push;
+
+import com.ulog.backend.config.PushDispatchProperties;
+import com.ulog.backend.domain.goal.UserPushToken;
+import com.ulog.backend.domain.goal.enums.DeviceType;
+import com.ulog.backend.domain.user.User;
+import com.ulog.backend.repository.UserPushTokenRepository;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 批量推送：使用本地假推送通道，验证分批、并发上限、结果汇总和失效令牌停用
+ */
+public class PushNotificationServiceTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void sendsInBoundedBatchesAndDeactivatesInvalidTokens() {
+        UserPushTokenRepository repository = mock(UserPushTokenRepository.class);
+        PushTokenService pushTokenService = mock(PushTokenService.class);
+        List<UserPushToken> tokens = new ArrayList<>();
+        // 用户1：两台设备，其中一台已卸载；用户2：一台已卸载的设备；用户3：没有设备；用户4..：各一台设备
+        tokens.add(token(1L, "u1-ok"));
+        tokens.add(token(1L, "u1-unregistered"));
+        tokens.add(token(2L, "u2-unregistered"));
+        for (long userId = 4; userId < 1200; userId++) {
+            tokens.add(token(userId, "u" + userId + "-ok"));
+        }
+        when(repository.findActiveByUserIds(anyCollection())).thenReturn(tokens);
+
+        FakePushSender sender = new FakePushSender();
+        PushDispatchProperties properties = new PushDispatchProperties();
+        properties.setBatchSize(500);
+        properties.setMaxConcurrentBatches(2);
+        PushNotificationService service = new PushNotificationService(repository, pushTokenService, sender, properties);
+
+        List<PushNotification> notifications = new ArrayList<>();
+        for (long userId = 1; userId < 1200; userId++) {
+            notifications.add(new PushNotification(userId, "title", "body " + userId));
+        }
+        List<PushOutcome> outcomes = service.sendToUsers(notifications);
+
+        assertThat(outcomes).hasSize(notifications.size());
+        assertThat(outcomes.get(0)).isEqualTo(PushOutcome.DELIVERED);
+        assertThat(outcomes.get(1)).isEqualTo(PushOutcome.FAILED);
+        assertThat(outcomes.get(2)).isEqualTo(PushOutcome.NO_ACTIVE_DEVICE);
+        assertThat(outcomes.subList(3, outcomes.size())).containsOnly(PushOutcome.DELIVERED);
+
+        // 1199条消息分3批发送，同时在途的批次不超过2
+        assertThat(sender.batchSizes).containsExactlyInAnyOrder(500, 500, 199);
+        assertThat(sender.maxInFlight.get()).isLessThanOrEqualTo(2);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<String>> invalid = ArgumentCaptor.forClass(Collection.class);
+        verify(pushTokenService).deactivateInvalidTokens(invalid.capture());
+        assertThat(invalid.getValue()).containsExactlyInAnyOrder("u1-unregistered", "u2-unregistered");
+    }
+
+    @Test
+    void unavailableSenderSkipsDispatch() {
+        FakePushSender sender = new FakePushSender();
+        sender.available = false;
+        PushNotificationService service = new PushNotificationService(mock(UserPushTokenRepository.class),
+            mock(PushTokenService.class), sender, new PushDispatchProperties());
+
+        List<PushOutcome> outcomes = service.sendToUsers(List.of(new PushNotification(1L, "title", "body")));
+
+        assertThat(outcomes).containsExactly(PushOutcome.DISABLED);
+        assertThat(sender.batchSizes).isEmpty();
+    }
+
+    private static UserPushToken token(Long userId, String deviceToken) {
+        User user = mock(User.class);
+        when(user.getId()).thenReturn(userId);
+        return new UserPushToken(user, deviceToken, DeviceType.ANDROID);
+    }
+
+    private class FakePushSender implements PushSender {
+
+        private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private volatile boolean available = true;
+
+        @Override
+        public boolean isAvailable() {
+            return available;
+        }
+
+        @Override
+        public CompletableFuture<List<PushResult>> sendEach(List<PushMessage> messages) {
+            batchSizes.add(messages.size());
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            List<PushMessage> copy = List.copyOf(messages);
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                List<PushResult> results = new ArrayList<>();
+                for (PushMessage message : copy) {
+                    results.add(message.deviceToken().endsWith("unregistered")
+                        ? PushResult.failed("UNREGISTERED", true)
+                        : PushResult.ok());
+                }
+                inFlight.decrementAndGet();
+                return results;
+            }, executor);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.ulog.backend.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 时间轮：随机任务的触发时间应为到期时间按格向上取整，取消的任务不触发
+ */
+public class TimingWheelTest {
+
+    private static final long TICK = 1000;
+
+    @Test
+    void firesEveryTimerAtItsTickAcrossLevels() {
+        long start = 1_700_000_000_500L;
+        TimingWheel<Integer, Integer> wheel = new TimingWheel<>(TICK, 8, 3, start);
+        Random random = new Random(42);
+        Map<Integer, Long> expected = new HashMap<>();
+        for (int key = 0; key < 2000; key++) {
+            // 覆盖第0层、高层和溢出区（8*8*8格 = 512秒）
+            long expiration = start + 1 + (long) (random.nextDouble() * 900_000);
+            assertThat(wheel.schedule(key, expiration, key)).isTrue();
+            expected.put(key, ceilToTick(expiration));
+        }
+        for (int key = 0; key < 2000; key += 7) {
+            assertThat(wheel.remove(key)).isTrue();
+            expected.remove(key);
+        }
+        // 替换到期时间
+        wheel.schedule(1, start + 5_000, 1);
+        expected.put(1, ceilToTick(start + 5_000));
+
+        Map<Integer, Long> fired = new HashMap<>();
+        long now = start;
+        while (now < start + 1_000_000) {
+            now += 1 + random.nextInt(3 * (int) TICK);
+            wheel.advanceTo(now, (key, value) -> assertThat(fired.put(key, wheel.getCurrentTime())).isNull());
+        }
+
+        assertThat(wheel.size()).isZero();
+        assertThat(fired.keySet()).isEqualTo(expected.keySet());
+        assertThat(fired).isEqualTo(expected);
+    }
+
+    @Test
+    void rejectsTimersThatAreAlreadyDue() {
+        TimingWheel<String, String> wheel = new TimingWheel<>(TICK, 60, 3, 10_000);
+
+        assertThat(wheel.schedule("past", 9_000, "past")).isFalse();
+        assertThat(wheel.schedule("now", 10_000, "now")).isFalse();
+        assertThat(wheel.schedule("next", 10_001, "next")).isTrue();
+        assertThat(wheel.contains("past")).isFalse();
+    }
+
+    private static long ceilToTick(long time) {
+        return Math.floorDiv(time + TICK - 1, TICK) * TICK;
+    }
+}
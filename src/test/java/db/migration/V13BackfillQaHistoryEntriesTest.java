@@ -0,0 +1,81 @@
+package db.migration;
+
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.flywaydb.core.api.migration.Context;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.sql.Connection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 回填迁移测试：H2（MySQL模式）+ 正式的明细表建表脚本，会话表只建迁移用到的两列
+ */
+public class V13BackfillQaHistoryEntriesTest {
+
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:qa_backfill;MODE=MySQL;DB_CLOSE_DELAY=-1;DATABASE_TO_UPPER=false", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS qa_history_entries");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS conversation_sessions");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS user_conversation_sessions");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V12__create_qa_history_entries.sql"))
+            .execute(dataSource);
+        jdbcTemplate.execute("CREATE TABLE conversation_sessions (session_id VARCHAR(64) PRIMARY KEY, qa_history TEXT)");
+        jdbcTemplate.execute("CREATE TABLE user_conversation_sessions (session_id VARCHAR(64) PRIMARY KEY, qa_history TEXT)");
+    }
+
+    @Test
+    void backfillsEntriesInOrderWithSupplementFields() throws Exception {
+        jdbcTemplate.update("INSERT INTO conversation_sessions VALUES (?, ?)", "contact-1", """
+            [
+              {"timestamp": "2025-01-01T10:00:00", "question": "他喜欢什么", "answer": "喜欢爬山", "needsMoreInfo": false},
+              {"timestamp": "2025-01-01T10:05:00", "question": "送什么礼物", "needsMoreInfo": true,
+               "supplementQuestion": "预算是多少？", "supplementAnswer": "500以内"},
+              {"timestamp": "2025-01-01T10:10:00", "question": "怎么约他", "answer": "周末约爬山"}
+            ]""");
+        jdbcTemplate.update("INSERT INTO conversation_sessions VALUES (?, ?)", "contact-2", "not json");
+        jdbcTemplate.update("INSERT INTO conversation_sessions VALUES (?, ?)", "contact-3", null);
+        jdbcTemplate.update("INSERT INTO user_conversation_sessions VALUES (?, ?)", "user-1",
+            "[{\"question\": \"我适合什么工作\", \"answer\": \"技术岗\"}]");
+
+        try (Connection connection = dataSource.getConnection()) {
+            Context context = mock(Context.class);
+            when(context.getConnection()).thenReturn(connection);
+            new V13__backfill_qa_history_entries().migrate(context);
+        }
+
+        List<Map<String, Object>> contactRows = jdbcTemplate.queryForList(
+            "SELECT * FROM qa_history_entries WHERE session_id = 'contact-1' ORDER BY seq");
+        assertThat(contactRows).extracting(row -> row.get("seq")).containsExactly(0, 1, 2);
+        assertThat(contactRows).extracting(row -> row.get("question"))
+            .containsExactly("他喜欢什么", "送什么礼物", "怎么约他");
+        assertThat(contactRows.get(1))
+            .containsEntry("session_type", "CONTACT")
+            .containsEntry("answer", null)
+            .containsEntry("supplement_question", "预算是多少？")
+            .containsEntry("supplement_answer", "500以内")
+            .containsEntry("qa_timestamp", "2025-01-01T10:05:00");
+        assertThat(((Number) contactRows.get(1).get("needs_more_info")).intValue()).isEqualTo(1);
+        assertThat(((Number) contactRows.get(2).get("needs_more_info")).intValue()).isZero();
+
+        assertThat(jdbcTemplate.queryForList(
+            "SELECT session_type FROM qa_history_entries WHERE session_id = 'user-1'", String.class))
+            .containsExactly("USER");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM qa_history_entries", Integer.class)).isEqualTo(4);
+    }
+}